@@ -0,0 +1,157 @@
+package arrayList;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+import java.util.stream.*;
+
+import util.*;
+
+/**
+ * This program compares ArrayList&lt;Integer&gt; with IntArrayList for bulk loading,
+ * iteration and sorting, and CopyOnWriteArrayList&lt;Integer&gt; with
+ * CopyOnWriteIntArrayList for read-heavy concurrent access.
+ * Usage: java arrayList.ArrayListBenchmark [size]
+ * @version 1.01 2026-10-19
+ */
+public class ArrayListBenchmark
+{
+   private static final int ROUNDS = 5;
+
+   public static void main(String[] args) throws Exception
+   {
+      int size = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+      int[] data = new Random(42).ints(size).toArray();
+
+      System.out.println("Bulk load of " + size + " values");
+      time("ArrayList<Integer>.add", () ->
+         {
+            var list = new ArrayList<Integer>();
+            for (int v : data) list.add(v);
+            return list.size();
+         });
+      time("IntArrayList.add", () ->
+         {
+            var list = new IntArrayList();
+            for (int v : data) list.add(v);
+            return list.size();
+         });
+      time("IntArrayList.addAll(IntStream)", () ->
+         {
+            var list = new IntArrayList();
+            list.addAll(Arrays.stream(data).parallel());
+            return list.size();
+         });
+
+      var boxed = new ArrayList<Integer>(size);
+      for (int v : data) boxed.add(v);
+      IntArrayList unboxed = IntArrayList.of(data);
+      System.out.println("Iteration");
+      time("ArrayList<Integer>", () ->
+         {
+            long sum = 0;
+            for (Integer v : boxed) sum += v;
+            return sum;
+         });
+      time("IntArrayList", () ->
+         {
+            long sum = 0;
+            for (int i = 0; i < unboxed.size(); i++) sum += unboxed.get(i);
+            return sum;
+         });
+
+      System.out.println("Sorting");
+      time("Collections.sort(ArrayList<Integer>)", () ->
+         {
+            var list = new ArrayList<>(boxed);
+            Collections.sort(list);
+            return list.get(0);
+         });
+      time("IntArrayList.sort", () ->
+         {
+            var list = IntArrayList.of(data);
+            list.sort();
+            return list.get(0);
+         });
+      time("IntArrayList.parallelSort", () ->
+         {
+            var list = IntArrayList.of(data);
+            list.parallelSort();
+            return list.get(0);
+         });
+      time("IntArrayList.subList(0, n/2).parallelSort", () ->
+         {
+            var list = IntArrayList.of(data);
+            list.subList(0, size / 2).parallelSort();
+            return list.get(0);
+         });
+
+      System.out.println("Concurrent reads of a 1,000 element list, one writer");
+      int[] config = Arrays.copyOf(data, 1000);
+      var cowBoxed = new CopyOnWriteArrayList<Integer>(IntStream.of(config).boxed().toList());
+      var cowUnboxed = new CopyOnWriteIntArrayList(config);
+      readHeavy("CopyOnWriteArrayList<Integer>", () ->
+         {
+            long sum = 0;
+            for (Integer v : cowBoxed) sum += v;
+            return sum;
+         }, i -> cowBoxed.set(i, i));
+      readHeavy("CopyOnWriteIntArrayList", () ->
+         {
+            var sum = new long[1];
+            cowUnboxed.forEach(v -> sum[0] += v);
+            return sum[0];
+         }, i -> cowUnboxed.set(i, i));
+   }
+
+   private static void time(String name, BestOf.Task<Object> task) throws Exception
+   {
+      BestOf.Result<Object> r = BestOf.time(ROUNDS, task);
+      System.out.printf("  %-44s %10.3f ms  (result %s)%n", name, r.millis(), r.value());
+   }
+
+   /**
+    * Runs reader threads that sum the list while one writer updates an element every
+    * millisecond, and prints the number of completed reads.
+    */
+   private static void readHeavy(String name, LongSupplier read, IntConsumer write)
+      throws InterruptedException
+   {
+      int readers = Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
+      var reads = new LongAdder();
+      var done = new CountDownLatch(1);
+      var executor = Executors.newFixedThreadPool(readers + 1);
+      for (int t = 0; t < readers; t++)
+         executor.execute(() ->
+            {
+               long sink = 0;
+               while (done.getCount() > 0)
+               {
+                  sink += read.getAsLong();
+                  reads.increment();
+               }
+               if (sink == 42) System.out.print("");
+            });
+      executor.execute(() ->
+         {
+            for (int i = 0; done.getCount() > 0; i = (i + 1) % 1000)
+            {
+               write.accept(i);
+               try
+               {
+                  Thread.sleep(1);
+               }
+               catch (InterruptedException e)
+               {
+                  return;
+               }
+            }
+         });
+      Thread.sleep(1000);
+      done.countDown();
+      executor.shutdown();
+      executor.awaitTermination(10, TimeUnit.SECONDS);
+      System.out.printf("  %-44s %,10d reads/s%n", name, reads.sum());
+   }
+}
@@ -0,0 +1,167 @@
+package arrayList;
+
+import java.util.*;
+import java.util.function.*;
+import java.util.stream.*;
+
+/**
+ * A thread-safe list of int values for data that is read much more often than it is
+ * changed, such as configuration. Every change copies the array, so readers never lock,
+ * and streams and iterators see the snapshot that was current when they were created.
+ * @version 1.00 2026-10-19
+ */
+public class CopyOnWriteIntArrayList
+{
+   private volatile int[] elements;
+   private final Object lock = new Object();
+
+   /**
+    * Constructs an empty list.
+    */
+   public CopyOnWriteIntArrayList()
+   {
+      elements = new int[0];
+   }
+
+   /**
+    * Constructs a list with the given values.
+    * @param values the values
+    */
+   public CopyOnWriteIntArrayList(int... values)
+   {
+      elements = values.clone();
+   }
+
+   public int size()
+   {
+      return elements.length;
+   }
+
+   public boolean isEmpty()
+   {
+      return elements.length == 0;
+   }
+
+   public int get(int index)
+   {
+      return elements[Objects.checkIndex(index, elements.length)];
+   }
+
+   public boolean contains(int value)
+   {
+      for (int e : elements)
+         if (e == value) return true;
+      return false;
+   }
+
+   /**
+    * Replaces an element.
+    * @param index the position of the element
+    * @param value the new value
+    * @return the old value
+    */
+   public int set(int index, int value)
+   {
+      synchronized (lock)
+      {
+         int[] a = elements;
+         int old = a[Objects.checkIndex(index, a.length)];
+         if (old != value)
+         {
+            a = a.clone();
+            a[index] = value;
+            elements = a;
+         }
+         return old;
+      }
+   }
+
+   /**
+    * Appends values.
+    * @param values the values
+    */
+   public void addAll(int... values)
+   {
+      synchronized (lock)
+      {
+         int[] a = elements;
+         int[] b = Arrays.copyOf(a, a.length + values.length);
+         System.arraycopy(values, 0, b, a.length, values.length);
+         elements = b;
+      }
+   }
+
+   /**
+    * Appends a value.
+    * @param value the value
+    */
+   public void add(int value)
+   {
+      addAll(value);
+   }
+
+   /**
+    * Removes an element.
+    * @param index the position of the element
+    * @return the removed value
+    */
+   public int removeAt(int index)
+   {
+      synchronized (lock)
+      {
+         int[] a = elements;
+         int old = a[Objects.checkIndex(index, a.length)];
+         int[] b = new int[a.length - 1];
+         System.arraycopy(a, 0, b, 0, index);
+         System.arraycopy(a, index + 1, b, index, a.length - index - 1);
+         elements = b;
+         return old;
+      }
+   }
+
+   /**
+    * Replaces all elements at once, so that readers see either the old or the new values.
+    * @param values the new values
+    */
+   public void replaceAll(int... values)
+   {
+      int[] b = values.clone();
+      synchronized (lock)
+      {
+         elements = b;
+      }
+   }
+
+   /**
+    * Returns a stream over the current snapshot. Later changes are not visible to it.
+    * @return the stream
+    */
+   public IntStream stream()
+   {
+      return Arrays.stream(elements);
+   }
+
+   /**
+    * Applies an action to the elements of the current snapshot.
+    * @param action the action
+    */
+   public void forEach(IntConsumer action)
+   {
+      for (int e : elements) action.accept(e);
+   }
+
+   public PrimitiveIterator.OfInt iterator()
+   {
+      return stream().iterator();
+   }
+
+   public int[] toArray()
+   {
+      return elements.clone();
+   }
+
+   public String toString()
+   {
+      return Arrays.toString(elements);
+   }
+}
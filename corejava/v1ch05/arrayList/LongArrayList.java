@@ -0,0 +1,320 @@
+package arrayList;
+
+import java.util.*;
+import java.util.function.*;
+import java.util.stream.*;
+
+/**
+ * A growable array of long values that stores them unboxed. Capacity doubles while
+ * the list is small and then grows by half, and bulk adds from sized streams presize
+ * the array exactly. Sublists are views that share the array of the list they come from.
+ * @version 1.01 2026-10-19
+ */
+public class LongArrayList
+{
+   private static final int DEFAULT_CAPACITY = 10;
+   private static final int DOUBLING_LIMIT = 1 << 20;
+
+   private long[] elements;
+   private int size;
+   private int modCount;
+
+   // a subList view shares the array of its root list, starting at offset
+   private final LongArrayList root;
+   private final int offset;
+   private final int rootModCount;
+
+   /**
+    * Constructs an empty list.
+    */
+   public LongArrayList()
+   {
+      this(DEFAULT_CAPACITY);
+   }
+
+   /**
+    * Constructs an empty list.
+    * @param initialCapacity the number of elements the list can hold without growing
+    */
+   public LongArrayList(int initialCapacity)
+   {
+      elements = new long[initialCapacity];
+      root = this;
+      offset = 0;
+      rootModCount = 0;
+   }
+
+   private LongArrayList(LongArrayList root, int offset, int size)
+   {
+      this.root = root;
+      this.offset = offset;
+      this.size = size;
+      rootModCount = root.modCount;
+   }
+
+   /**
+    * Constructs a list with the given values.
+    * @param values the values
+    * @return a new list
+    */
+   public static LongArrayList of(long... values)
+   {
+      var result = new LongArrayList(values.length);
+      result.addAll(values);
+      return result;
+   }
+
+   public int size()
+   {
+      checkForComodification();
+      return size;
+   }
+
+   public boolean isEmpty()
+   {
+      return size() == 0;
+   }
+
+   public long get(int index)
+   {
+      Objects.checkIndex(index, size());
+      return root.elements[offset + index];
+   }
+
+   /**
+    * Replaces an element.
+    * @param index the position of the element
+    * @param value the new value
+    * @return the old value
+    */
+   public long set(int index, long value)
+   {
+      Objects.checkIndex(index, size());
+      long old = root.elements[offset + index];
+      root.elements[offset + index] = value;
+      return old;
+   }
+
+   /**
+    * Appends a value.
+    * @param value the value
+    */
+   public void add(long value)
+   {
+      checkGrowable();
+      if (size == elements.length) grow(size + 1);
+      elements[size++] = value;
+      modCount++;
+   }
+
+   /**
+    * Inserts a value.
+    * @param index the position of the new value
+    * @param value the value
+    */
+   public void add(int index, long value)
+   {
+      checkGrowable();
+      Objects.checkIndex(index, size + 1);
+      if (size == elements.length) grow(size + 1);
+      System.arraycopy(elements, index, elements, index + 1, size - index);
+      elements[index] = value;
+      size++;
+      modCount++;
+   }
+
+   /**
+    * Appends values.
+    * @param values the values
+    */
+   public void addAll(long... values)
+   {
+      checkGrowable();
+      ensureCapacity(size + values.length);
+      System.arraycopy(values, 0, elements, size, values.length);
+      size += values.length;
+      modCount++;
+   }
+
+   /**
+    * Appends the values of a stream. If a sequential stream knows its size, the array is
+    * grown once and the values are put straight into it. A parallel stream of known size
+    * is collected with toArray, which fills its result in parallel, and then copied.
+    * @param values the values
+    */
+   public void addAll(LongStream values)
+   {
+      checkGrowable();
+      Spliterator.OfLong spliterator = values.spliterator();
+      if (!spliterator.hasCharacteristics(Spliterator.SIZED))
+         spliterator.forEachRemaining((LongConsumer) this::add);
+      else if (values.isParallel())
+         addAll(StreamSupport.longStream(spliterator, true).toArray());
+      else
+      {
+         long count = spliterator.getExactSizeIfKnown();
+         ensureCapacity(size + count);
+         long[] a = elements;
+         spliterator.forEachRemaining(new LongConsumer()
+            {
+               private int i = size;
+
+               public void accept(long value)
+               {
+                  a[i++] = value;
+               }
+            });
+         size += (int) count;
+         modCount++;
+      }
+   }
+
+   /**
+    * Removes an element.
+    * @param index the position of the element
+    * @return the removed value
+    */
+   public long removeAt(int index)
+   {
+      checkGrowable();
+      Objects.checkIndex(index, size);
+      long old = elements[index];
+      System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+      size--;
+      modCount++;
+      return old;
+   }
+
+   public void clear()
+   {
+      checkGrowable();
+      size = 0;
+      modCount++;
+   }
+
+   /**
+    * Makes sure that the list can hold a number of elements without growing.
+    * @param minCapacity the number of elements
+    */
+   public void ensureCapacity(long minCapacity)
+   {
+      checkGrowable();
+      if (minCapacity > elements.length) grow(minCapacity);
+   }
+
+   public void trimToSize()
+   {
+      checkGrowable();
+      if (size < elements.length) elements = Arrays.copyOf(elements, size);
+   }
+
+   public int indexOf(long value)
+   {
+      long[] a = root.elements;
+      for (int i = 0, n = size(); i < n; i++)
+         if (a[offset + i] == value) return i;
+      return -1;
+   }
+
+   public boolean contains(long value)
+   {
+      return indexOf(value) >= 0;
+   }
+
+   /**
+    * Sorts this list in place.
+    */
+   public void sort()
+   {
+      Arrays.sort(root.elements, offset, offset + size());
+   }
+
+   /**
+    * Sorts this list in place, using the common fork-join pool for large lists.
+    */
+   public void parallelSort()
+   {
+      Arrays.parallelSort(root.elements, offset, offset + size());
+   }
+
+   /**
+    * Returns a view of a range of this list. The view shares the elements of this list,
+    * so sorting or setting elements of the view changes this list. The view cannot grow
+    * or shrink, and it becomes invalid when elements are added to or removed from this
+    * list.
+    * @param fromIndex the first index of the range
+    * @param toIndex one past the last index of the range
+    * @return the view
+    */
+   public LongArrayList subList(int fromIndex, int toIndex)
+   {
+      Objects.checkFromToIndex(fromIndex, toIndex, size());
+      return new LongArrayList(root, offset + fromIndex, toIndex - fromIndex);
+   }
+
+   public long[] toArray()
+   {
+      return Arrays.copyOfRange(root.elements, offset, offset + size());
+   }
+
+   /**
+    * Returns a stream of the elements, which reads the elements without copying them.
+    * @return the stream
+    */
+   public LongStream stream()
+   {
+      return Arrays.stream(root.elements, offset, offset + size());
+   }
+
+   public PrimitiveIterator.OfLong iterator()
+   {
+      return stream().iterator();
+   }
+
+   public void forEach(LongConsumer action)
+   {
+      long[] a = root.elements;
+      for (int i = 0, n = size(); i < n; i++) action.accept(a[offset + i]);
+   }
+
+   public boolean equals(Object other)
+   {
+      if (this == other) return true;
+      if (!(other instanceof LongArrayList)) return false;
+      var list = (LongArrayList) other;
+      return Arrays.equals(root.elements, offset, offset + size(),
+         list.root.elements, list.offset, list.offset + list.size());
+   }
+
+   public int hashCode()
+   {
+      int result = 1;
+      long[] a = root.elements;
+      for (int i = 0, n = size(); i < n; i++) result = 31 * result + Long.hashCode(a[offset + i]);
+      return result;
+   }
+
+   public String toString()
+   {
+      return stream().mapToObj(String::valueOf).collect(Collectors.joining(", ", "[", "]"));
+   }
+
+   private void grow(long minCapacity)
+   {
+      if (minCapacity > Integer.MAX_VALUE - 8) throw new OutOfMemoryError("List too large");
+      long newCapacity = elements.length < DOUBLING_LIMIT ? 2L * elements.length
+         : elements.length + (elements.length >> 1);
+      elements = Arrays.copyOf(elements,
+         (int) Math.min(Integer.MAX_VALUE - 8, Math.max(minCapacity, newCapacity)));
+   }
+
+   private void checkGrowable()
+   {
+      if (root != this) throw new UnsupportedOperationException("A subList view has a fixed size");
+   }
+
+   private void checkForComodification()
+   {
+      if (root != this && root.modCount != rootModCount) throw new ConcurrentModificationException();
+   }
+}
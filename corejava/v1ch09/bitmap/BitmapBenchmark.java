@@ -0,0 +1,104 @@
+package bitmap;
+
+import java.nio.*;
+import java.util.*;
+import java.util.function.*;
+
+import util.*;
+
+/**
+ * This program compares RoaringBitmap with BitSet on sparse, dense, and run-heavy data:
+ * memory, union, intersection, difference, cardinality, and iteration. The program exits
+ * with status 1 if the results of the two differ, or if a bitmap changes on its way through
+ * a buffer.
+ * @version 1.01 2026-10-19
+ */
+public class BitmapBenchmark
+{
+   private static final int ROUNDS = 5;
+
+   private static int mismatches;
+
+   public static void main(String[] args) throws Exception
+   {
+      var random = new Random(42);
+
+      // 100,000 values scattered below 2^28
+      run("sparse", random, () -> random.nextInt(1 << 28), 100_000, null);
+      // 5,000,000 random values below 10,000,000
+      run("dense", random, () -> random.nextInt(10_000_000), 5_000_000, null);
+      // runs of 1,000 values every 5,000 values below 100,000,000
+      run("runs", random, null, 0, random.nextInt(5000));
+
+      if (mismatches > 0)
+      {
+         System.out.printf("%d results differ%n", mismatches);
+         System.exit(1);
+      }
+   }
+
+   private static void run(String name, Random random, IntSupplier values, int count, Integer runOffset)
+      throws Exception
+   {
+      var bitSets = new BitSet[2];
+      var bitmaps = new RoaringBitmap[2];
+      for (int k = 0; k < 2; k++)
+      {
+         bitSets[k] = new BitSet();
+         bitmaps[k] = new RoaringBitmap();
+         if (values != null)
+            for (int i = 0; i < count; i++)
+            {
+               int v = values.getAsInt();
+               bitSets[k].set(v);
+               bitmaps[k].add(v);
+            }
+         else
+         {
+            int offset = k == 0 ? runOffset : random.nextInt(5000);
+            for (int start = offset; start + 1000 < 100_000_000; start += 5000)
+            {
+               bitSets[k].set(start, start + 1000);
+               bitmaps[k].add(start, start + 1000);
+            }
+         }
+         bitmaps[k].runOptimize();
+      }
+
+      System.out.printf("%s: %,d values; BitSet %,d bytes, RoaringBitmap %,d bytes serialized%n",
+         name, bitSets[0].cardinality(), bitSets[0].size() / 8L, bitmaps[0].serializedSize());
+
+      BitSet a = bitSets[0];
+      BitSet b = bitSets[1];
+      RoaringBitmap ra = bitmaps[0];
+      RoaringBitmap rb = bitmaps[1];
+      compare("or", () -> { var c = (BitSet) a.clone(); c.or(b); return (long) c.cardinality(); },
+         () -> RoaringBitmap.or(ra, rb).cardinality());
+      compare("and", () -> { var c = (BitSet) a.clone(); c.and(b); return (long) c.cardinality(); },
+         () -> RoaringBitmap.and(ra, rb).cardinality());
+      compare("andNot", () -> { var c = (BitSet) a.clone(); c.andNot(b); return (long) c.cardinality(); },
+         () -> RoaringBitmap.andNot(ra, rb).cardinality());
+      compare("cardinality", () -> (long) a.cardinality(), ra::cardinality);
+      compare("iterate", () -> a.stream().asLongStream().sum(),
+         () -> ra.stream().asLongStream().sum());
+
+      ByteBuffer buffer = ByteBuffer.allocateDirect(ra.serializedSize());
+      ra.writeTo(buffer);
+      buffer.flip();
+      boolean equal = RoaringBitmap.readFrom(buffer).equals(ra);
+      if (!equal) mismatches++;
+      System.out.println("   round trip through a direct buffer: "
+         + (equal ? "equal" : "DIFFERENT"));
+   }
+
+   private static void compare(String op, BestOf.Task<Long> bitSet, BestOf.Task<Long> roaring)
+      throws Exception
+   {
+      BestOf.Result<Long> b = BestOf.time(ROUNDS, bitSet);
+      BestOf.Result<Long> r = BestOf.time(ROUNDS, roaring);
+      boolean same = b.value().equals(r.value());
+      if (!same) mismatches++;
+      System.out.printf("   %-12s BitSet %9.3f ms  RoaringBitmap %9.3f ms  %s%n", op,
+         b.millis(), r.millis(), same ? "" : "RESULTS DIFFER");
+   }
+}
@@ -0,0 +1,890 @@
+package bitmap;
+
+import java.nio.*;
+import java.util.*;
+import java.util.stream.*;
+
+/**
+ * A compressed bitmap of int values in the style of Roaring bitmaps. The high 16 bits of
+ * a value select a container, and the container stores the low 16 bits in one of three
+ * forms: a sorted char array for up to 4096 values, a 65536-bit bitmap for dense chunks,
+ * or a list of runs for chunks of consecutive values. Values are ordered as unsigned.
+ * Unlike <code>java.util.BitSet</code>, memory grows with the number of values, not with
+ * the highest value.
+ * @version 1.01 2026-10-19
+ */
+public class RoaringBitmap
+{
+   static final int ARRAY_MAX = 4096;
+   private static final int MAGIC = 0x524F4152; // "ROAR"
+
+   private char[] keys = new char[4];
+   private Container[] containers = new Container[4];
+   private int size;
+
+   /**
+    * Constructs a bitmap holding the given values.
+    * @param values the values
+    * @return the bitmap
+    */
+   public static RoaringBitmap of(int... values)
+   {
+      var result = new RoaringBitmap();
+      for (int v : values) result.add(v);
+      return result;
+   }
+
+   /**
+    * Adds a value.
+    * @param x the value
+    */
+   public void add(int x)
+   {
+      char high = (char) (x >>> 16);
+      int i = find(high);
+      if (i >= 0)
+         containers[i] = containers[i].add((char) x);
+      else
+         insert(-i - 1, high, new ArrayContainer().add((char) x));
+   }
+
+   /**
+    * Adds all values from <code>from</code> (inclusive) to <code>to</code> (exclusive).
+    * The bounds are unsigned values, so that the range can reach up to 2<sup>32</sup>.
+    * Chunks that the range fills, or that it makes contiguous, are stored as runs.
+    * @param from the first value, between 0 and 2<sup>32</sup>
+    * @param to one past the last value, between 0 and 2<sup>32</sup>
+    */
+   public void add(long from, long to)
+   {
+      if (from < 0 || to > 1L << 32)
+         throw new IllegalArgumentException("Range " + from + ", " + to + " not within 0, 2^32");
+      long x = from;
+      while (x < to)
+      {
+         long chunkEnd = Math.min(to, ((x >>> 16) + 1) << 16);
+         char high = (char) (x >>> 16);
+         var run = new RunContainer(new char[] { (char) x, (char) (chunkEnd - 1) }, 1);
+         int i = find(high);
+         if (i >= 0)
+            containers[i] = Container.or(containers[i], run);
+         else
+            insert(-i - 1, high, run);
+         x = chunkEnd;
+      }
+   }
+
+   /**
+    * Removes a value.
+    * @param x the value
+    */
+   public void remove(int x)
+   {
+      int i = find((char) (x >>> 16));
+      if (i < 0) return;
+      Container c = containers[i].remove((char) x);
+      if (c.cardinality() == 0) delete(i);
+      else containers[i] = c;
+   }
+
+   public boolean contains(int x)
+   {
+      int i = find((char) (x >>> 16));
+      return i >= 0 && containers[i].contains((char) x);
+   }
+
+   public boolean isEmpty()
+   {
+      return size == 0;
+   }
+
+   /**
+    * Gets the number of values in this bitmap.
+    * @return the cardinality
+    */
+   public long cardinality()
+   {
+      long result = 0;
+      for (int i = 0; i < size; i++) result += containers[i].cardinality();
+      return result;
+   }
+
+   /**
+    * Counts the values that are at most x, in unsigned order.
+    * @param x a value
+    * @return the number of values &lt;= x
+    */
+   public long rank(int x)
+   {
+      char high = (char) (x >>> 16);
+      long result = 0;
+      for (int i = 0; i < size && keys[i] <= high; i++)
+      {
+         if (keys[i] < high) result += containers[i].cardinality();
+         else result += containers[i].rank((char) x);
+      }
+      return result;
+   }
+
+   /**
+    * Finds the value with a given rank, in unsigned order.
+    * @param j the rank, starting at 0
+    * @return the (j + 1)-th smallest value
+    * @throws NoSuchElementException if j &gt;= cardinality()
+    */
+   public int select(long j)
+   {
+      for (int i = 0; i < size; i++)
+      {
+         int c = containers[i].cardinality();
+         if (j < c) return keys[i] << 16 | containers[i].select((int) j);
+         j -= c;
+      }
+      throw new NoSuchElementException("No value of rank " + j);
+   }
+
+   /**
+    * Gets the values of this bitmap, in unsigned order.
+    * @return a stream of the values
+    */
+   public IntStream stream()
+   {
+      char[] k = Arrays.copyOf(keys, size);
+      Container[] c = Arrays.copyOf(containers, size);
+      return IntStream.range(0, k.length).flatMap(i -> c[i].stream(k[i] << 16));
+   }
+
+   /**
+    * Computes the intersection of two bitmaps.
+    * @param a a bitmap
+    * @param b another bitmap
+    * @return a new bitmap with the values in both a and b
+    */
+   public static RoaringBitmap and(RoaringBitmap a, RoaringBitmap b)
+   {
+      var result = new RoaringBitmap();
+      int i = 0;
+      int j = 0;
+      while (i < a.size && j < b.size)
+      {
+         if (a.keys[i] < b.keys[j]) i++;
+         else if (a.keys[i] > b.keys[j]) j++;
+         else
+         {
+            Container c = Container.and(a.containers[i], b.containers[j]);
+            if (c.cardinality() > 0) result.append(a.keys[i], c);
+            i++;
+            j++;
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Computes the union of two bitmaps.
+    * @param a a bitmap
+    * @param b another bitmap
+    * @return a new bitmap with the values in a or b
+    */
+   public static RoaringBitmap or(RoaringBitmap a, RoaringBitmap b)
+   {
+      var result = new RoaringBitmap();
+      int i = 0;
+      int j = 0;
+      while (i < a.size || j < b.size)
+      {
+         if (j == b.size || i < a.size && a.keys[i] < b.keys[j])
+         {
+            result.append(a.keys[i], a.containers[i].copy());
+            i++;
+         }
+         else if (i == a.size || a.keys[i] > b.keys[j])
+         {
+            result.append(b.keys[j], b.containers[j].copy());
+            j++;
+         }
+         else
+         {
+            result.append(a.keys[i], Container.or(a.containers[i], b.containers[j]));
+            i++;
+            j++;
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Computes the difference of two bitmaps.
+    * @param a a bitmap
+    * @param b another bitmap
+    * @return a new bitmap with the values in a that are not in b
+    */
+   public static RoaringBitmap andNot(RoaringBitmap a, RoaringBitmap b)
+   {
+      var result = new RoaringBitmap();
+      int j = 0;
+      for (int i = 0; i < a.size; i++)
+      {
+         while (j < b.size && b.keys[j] < a.keys[i]) j++;
+         Container c = j < b.size && b.keys[j] == a.keys[i]
+            ? Container.andNot(a.containers[i], b.containers[j]) : a.containers[i].copy();
+         if (c.cardinality() > 0) result.append(a.keys[i], c);
+      }
+      return result;
+   }
+
+   /**
+    * Converts each container to the run representation if that is smaller.
+    */
+   public void runOptimize()
+   {
+      for (int i = 0; i < size; i++)
+      {
+         Container c = containers[i];
+         RunContainer runs = RunContainer.from(c);
+         if (runs.sizeInBytes() < c.sizeInBytes()) containers[i] = runs;
+      }
+   }
+
+   /**
+    * Gets the number of bytes that {@link #writeTo} produces.
+    * @return the serialized size
+    */
+   public int serializedSize()
+   {
+      int result = 8 + 16 * size;
+      for (int i = 0; i < size; i++) result = align(result) + containers[i].sizeInBytes();
+      return result;
+   }
+
+   /**
+    * Writes this bitmap in little-endian order. The layout is a header (magic number,
+    * container count), one 16 byte descriptor per container (key, type, cardinality,
+    * offset of the payload from the start of the bitmap), and the 8-byte aligned container
+    * payloads. Because the descriptors hold the payload offsets, a reader of a mapped file
+    * can locate any container without scanning the others.
+    * @param out the buffer, which must have serializedSize() bytes remaining
+    */
+   public void writeTo(ByteBuffer out)
+   {
+      ByteBuffer buffer = out.slice().order(ByteOrder.LITTLE_ENDIAN);
+      buffer.putInt(MAGIC);
+      buffer.putInt(size);
+      int offset = 8 + 16 * size;
+      for (int i = 0; i < size; i++)
+      {
+         offset = align(offset);
+         buffer.putInt(keys[i]);
+         buffer.putInt(containers[i].type());
+         buffer.putInt(containers[i].cardinality());
+         buffer.putInt(offset);
+         offset += containers[i].sizeInBytes();
+      }
+      for (int i = 0; i < size; i++)
+      {
+         buffer.position(align(buffer.position()));
+         containers[i].writeTo(buffer);
+      }
+      out.position(out.position() + buffer.position());
+   }
+
+   /**
+    * Reads a bitmap that was written with {@link #writeTo}, for example from a
+    * <code>MappedByteBuffer</code>.
+    * @param in the buffer, positioned at the start of the bitmap
+    * @return the bitmap
+    * @throws IllegalArgumentException if the buffer does not hold a bitmap
+    */
+   public static RoaringBitmap readFrom(ByteBuffer in)
+   {
+      ByteBuffer buffer = in.slice().order(ByteOrder.LITTLE_ENDIAN);
+      if (buffer.getInt() != MAGIC) throw new IllegalArgumentException("Not a serialized bitmap");
+      int n = buffer.getInt();
+      var result = new RoaringBitmap();
+      int end = 8 + 16 * n;
+      for (int i = 0; i < n; i++)
+      {
+         char key = (char) buffer.getInt(8 + 16 * i);
+         int type = buffer.getInt(12 + 16 * i);
+         int cardinality = buffer.getInt(16 + 16 * i);
+         int offset = buffer.getInt(20 + 16 * i);
+         buffer.position(offset);
+         Container c = Container.readFrom(buffer, type, cardinality);
+         end = buffer.position();
+         result.append(key, c);
+      }
+      in.position(in.position() + end);
+      return result;
+   }
+
+   public boolean equals(Object other)
+   {
+      if (this == other) return true;
+      if (!(other instanceof RoaringBitmap)) return false;
+      var b = (RoaringBitmap) other;
+      if (size != b.size) return false;
+      for (int i = 0; i < size; i++)
+         if (keys[i] != b.keys[i] || !Arrays.equals(containers[i].toWords(), b.containers[i].toWords()))
+            return false;
+      return true;
+   }
+
+   public int hashCode()
+   {
+      return stream().reduce(size, (h, x) -> 31 * h + x);
+   }
+
+   public String toString()
+   {
+      return stream().limit(100).mapToObj(Integer::toUnsignedString)
+         .collect(Collectors.joining(", ", "{", cardinality() > 100 ? ", ...}" : "}"));
+   }
+
+   private static int align(int offset)
+   {
+      return (offset + 7) & ~7;
+   }
+
+   private int find(char key)
+   {
+      return Arrays.binarySearch(keys, 0, size, key);
+   }
+
+   private void append(char key, Container c)
+   {
+      insert(size, key, c);
+   }
+
+   private void insert(int i, char key, Container c)
+   {
+      if (size == keys.length)
+      {
+         keys = Arrays.copyOf(keys, 2 * size);
+         containers = Arrays.copyOf(containers, 2 * size);
+      }
+      System.arraycopy(keys, i, keys, i + 1, size - i);
+      System.arraycopy(containers, i, containers, i + 1, size - i);
+      keys[i] = key;
+      containers[i] = c;
+      size++;
+   }
+
+   private void delete(int i)
+   {
+      System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+      System.arraycopy(containers, i + 1, containers, i, size - i - 1);
+      containers[--size] = null;
+   }
+
+   /**
+    * The low 16 bits of the values that share the same high 16 bits. Mutators return the
+    * container that holds the result, which may be of a different kind.
+    */
+   abstract static class Container
+   {
+      static final int ARRAY = 0;
+      static final int BITMAP = 1;
+      static final int RUN = 2;
+
+      abstract int type();
+      abstract int cardinality();
+      abstract boolean contains(char x);
+      abstract Container add(char x);
+      abstract Container remove(char x);
+      abstract int rank(char x);
+      abstract char select(int j);
+      abstract IntStream stream(int high);
+      abstract long[] toWords();
+      abstract Container copy();
+      abstract int sizeInBytes();
+      abstract void writeTo(ByteBuffer out);
+
+      static Container readFrom(ByteBuffer in, int type, int cardinality)
+      {
+         switch (type)
+         {
+            case ARRAY:
+               var values = new char[Math.max(cardinality, 4)];
+               in.asCharBuffer().get(values, 0, cardinality);
+               in.position(in.position() + 2 * cardinality);
+               return new ArrayContainer(values, cardinality);
+            case BITMAP:
+               var words = new long[1024];
+               in.asLongBuffer().get(words);
+               in.position(in.position() + 8 * words.length);
+               return new BitmapContainer(words, cardinality);
+            case RUN:
+               int runs = in.getInt();
+               var bounds = new char[2 * runs];
+               in.asCharBuffer().get(bounds);
+               in.position(in.position() + 2 * bounds.length);
+               return new RunContainer(bounds, runs);
+            default:
+               throw new IllegalArgumentException("Unknown container type " + type);
+         }
+      }
+
+      // The set operations combine bitmaps and then pick the smallest kind of container
+      // for the result, so that it shrinks to an array or to runs when it becomes sparse
+      // or contiguous.
+
+      static Container and(Container a, Container b)
+      {
+         if (a instanceof ArrayContainer) return ((ArrayContainer) a).filter(b, true);
+         if (b instanceof ArrayContainer) return ((ArrayContainer) b).filter(a, true);
+         long[] words = a.toWords();
+         long[] other = b.toWords();
+         for (int i = 0; i < words.length; i++) words[i] &= other[i];
+         return best(words);
+      }
+
+      static Container or(Container a, Container b)
+      {
+         if (a instanceof ArrayContainer && b instanceof ArrayContainer
+               && a.cardinality() + b.cardinality() <= ARRAY_MAX)
+            return ((ArrayContainer) a).union((ArrayContainer) b);
+         long[] words = a.toWords();
+         long[] other = b.toWords();
+         for (int i = 0; i < words.length; i++) words[i] |= other[i];
+         return best(words);
+      }
+
+      static Container andNot(Container a, Container b)
+      {
+         if (a instanceof ArrayContainer) return ((ArrayContainer) a).filter(b, false);
+         long[] words = a.toWords();
+         long[] other = b.toWords();
+         for (int i = 0; i < words.length; i++) words[i] &= ~other[i];
+         return best(words);
+      }
+
+      /**
+       * Makes the smallest array, bitmap, or run container for the given bits.
+       */
+      static Container best(long[] words)
+      {
+         int cardinality = 0;
+         int runs = 0;
+         long previous = 0;
+         for (long w : words)
+         {
+            cardinality += Long.bitCount(w);
+            // a run starts at each set bit whose next lower bit is clear
+            runs += Long.bitCount(w & ~(w << 1 | previous >>> 63));
+            previous = w;
+         }
+         int bytes = cardinality <= ARRAY_MAX ? 2 * cardinality : 8 * words.length;
+         if (4 + 4 * runs < bytes) return RunContainer.of(words, runs);
+         return BitmapContainer.of(words);
+      }
+   }
+
+   static class ArrayContainer extends Container
+   {
+      private char[] values;
+      private int cardinality;
+
+      ArrayContainer()
+      {
+         this(new char[4], 0);
+      }
+
+      ArrayContainer(char[] values, int cardinality)
+      {
+         this.values = values;
+         this.cardinality = cardinality;
+      }
+
+      int type() { return ARRAY; }
+
+      int cardinality() { return cardinality; }
+
+      boolean contains(char x)
+      {
+         return Arrays.binarySearch(values, 0, cardinality, x) >= 0;
+      }
+
+      Container add(char x)
+      {
+         int i = Arrays.binarySearch(values, 0, cardinality, x);
+         if (i >= 0) return this;
+         if (cardinality == ARRAY_MAX) return new BitmapContainer(toWords(), cardinality).add(x);
+         i = -i - 1;
+         if (cardinality == values.length)
+            values = Arrays.copyOf(values, Math.min(ARRAY_MAX, 2 * cardinality));
+         System.arraycopy(values, i, values, i + 1, cardinality - i);
+         values[i] = x;
+         cardinality++;
+         return this;
+      }
+
+      Container remove(char x)
+      {
+         int i = Arrays.binarySearch(values, 0, cardinality, x);
+         if (i < 0) return this;
+         System.arraycopy(values, i + 1, values, i, cardinality - i - 1);
+         cardinality--;
+         return this;
+      }
+
+      int rank(char x)
+      {
+         int i = Arrays.binarySearch(values, 0, cardinality, x);
+         return i >= 0 ? i + 1 : -i - 1;
+      }
+
+      char select(int j)
+      {
+         return values[j];
+      }
+
+      IntStream stream(int high)
+      {
+         char[] v = values;
+         return IntStream.range(0, cardinality).map(i -> high | v[i]);
+      }
+
+      long[] toWords()
+      {
+         var words = new long[1024];
+         for (int i = 0; i < cardinality; i++) words[values[i] >>> 6] |= 1L << values[i];
+         return words;
+      }
+
+      Container copy()
+      {
+         return new ArrayContainer(Arrays.copyOf(values, Math.max(cardinality, 4)), cardinality);
+      }
+
+      int sizeInBytes()
+      {
+         return 2 * cardinality;
+      }
+
+      void writeTo(ByteBuffer out)
+      {
+         out.asCharBuffer().put(values, 0, cardinality);
+         out.position(out.position() + 2 * cardinality);
+      }
+
+      /**
+       * Keeps the values that are (or are not) contained in another container.
+       */
+      ArrayContainer filter(Container other, boolean keepContained)
+      {
+         var result = new char[Math.max(cardinality, 4)];
+         int n = 0;
+         for (int i = 0; i < cardinality; i++)
+            if (other.contains(values[i]) == keepContained) result[n++] = values[i];
+         return new ArrayContainer(result, n);
+      }
+
+      ArrayContainer union(ArrayContainer other)
+      {
+         var result = new char[Math.max(cardinality + other.cardinality, 4)];
+         int i = 0;
+         int j = 0;
+         int n = 0;
+         while (i < cardinality && j < other.cardinality)
+         {
+            char a = values[i];
+            char b = other.values[j];
+            if (a <= b) i++;
+            if (b <= a) j++;
+            result[n++] = a <= b ? a : b;
+         }
+         while (i < cardinality) result[n++] = values[i++];
+         while (j < other.cardinality) result[n++] = other.values[j++];
+         return new ArrayContainer(result, n);
+      }
+   }
+
+   static class BitmapContainer extends Container
+   {
+      private final long[] words;
+      private int cardinality;
+
+      BitmapContainer(long[] words, int cardinality)
+      {
+         this.words = words;
+         this.cardinality = cardinality;
+      }
+
+      /**
+       * Makes the smallest array or bitmap container for the given bits.
+       */
+      static Container of(long[] words)
+      {
+         int cardinality = 0;
+         for (long w : words) cardinality += Long.bitCount(w);
+         if (cardinality > ARRAY_MAX) return new BitmapContainer(words, cardinality);
+         var values = new char[Math.max(cardinality, 4)];
+         int n = 0;
+         for (int i = 0; i < words.length; i++)
+            for (long w = words[i]; w != 0; w &= w - 1)
+               values[n++] = (char) (64 * i + Long.numberOfTrailingZeros(w));
+         return new ArrayContainer(values, cardinality);
+      }
+
+      int type() { return BITMAP; }
+
+      int cardinality() { return cardinality; }
+
+      boolean contains(char x)
+      {
+         return (words[x >>> 6] & 1L << x) != 0;
+      }
+
+      Container add(char x)
+      {
+         if (!contains(x))
+         {
+            words[x >>> 6] |= 1L << x;
+            cardinality++;
+         }
+         return this;
+      }
+
+      Container remove(char x)
+      {
+         if (!contains(x)) return this;
+         words[x >>> 6] &= ~(1L << x);
+         cardinality--;
+         return cardinality <= ARRAY_MAX ? of(words) : this;
+      }
+
+      int rank(char x)
+      {
+         int result = 0;
+         int w = x >>> 6;
+         for (int i = 0; i < w; i++) result += Long.bitCount(words[i]);
+         // the bits up to and including x in its word
+         return result + Long.bitCount(words[w] & (-1L >>> (63 - (x & 63))));
+      }
+
+      char select(int j)
+      {
+         for (int i = 0; i < words.length; i++)
+         {
+            int c = Long.bitCount(words[i]);
+            if (j < c)
+            {
+               long w = words[i];
+               for (int k = 0; k < j; k++) w &= w - 1;
+               return (char) (64 * i + Long.numberOfTrailingZeros(w));
+            }
+            j -= c;
+         }
+         throw new NoSuchElementException();
+      }
+
+      IntStream stream(int high)
+      {
+         return IntStream.range(0, words.length).flatMap(i ->
+            {
+               long w = words[i];
+               var result = new int[Long.bitCount(w)];
+               for (int n = 0; w != 0; w &= w - 1)
+                  result[n++] = high | 64 * i + Long.numberOfTrailingZeros(w);
+               return IntStream.of(result);
+            });
+      }
+
+      long[] toWords()
+      {
+         return words.clone();
+      }
+
+      Container copy()
+      {
+         return new BitmapContainer(words.clone(), cardinality);
+      }
+
+      int sizeInBytes()
+      {
+         return 8 * words.length;
+      }
+
+      void writeTo(ByteBuffer out)
+      {
+         out.asLongBuffer().put(words);
+         out.position(out.position() + 8 * words.length);
+      }
+   }
+
+   /**
+    * A container of runs [bounds[2i], bounds[2i + 1]], sorted and non-adjacent. Runs are
+    * built by {@link RoaringBitmap#runOptimize}, range adds, and set operations;
+    * single-value updates convert the runs back to an array or bitmap.
+    */
+   static class RunContainer extends Container
+   {
+      private final char[] bounds;
+      private final int runs;
+      private final int cardinality;
+
+      RunContainer(char[] bounds, int runs)
+      {
+         this.bounds = bounds;
+         this.runs = runs;
+         int c = 0;
+         for (int i = 0; i < runs; i++) c += bounds[2 * i + 1] - bounds[2 * i] + 1;
+         cardinality = c;
+      }
+
+      static RunContainer from(Container c)
+      {
+         if (c instanceof RunContainer) return (RunContainer) c;
+         long[] words = c.toWords();
+         int runs = 0;
+         for (int x = nextSet(words, 0); x >= 0; runs++)
+         {
+            int end = nextClear(words, x);
+            x = end < 65536 ? nextSet(words, end) : -1;
+         }
+         return of(words, runs);
+      }
+
+      /**
+       * Makes the runs of the given bits.
+       * @param runs the number of runs in the bits
+       */
+      static RunContainer of(long[] words, int runs)
+      {
+         var bounds = new char[2 * runs];
+         int r = 0;
+         int x = nextSet(words, 0);
+         while (x >= 0)
+         {
+            int end = nextClear(words, x);
+            bounds[2 * r] = (char) x;
+            bounds[2 * r + 1] = (char) (end - 1);
+            r++;
+            x = end < 65536 ? nextSet(words, end) : -1;
+         }
+         return new RunContainer(bounds, runs);
+      }
+
+      private static int nextSet(long[] words, int from)
+      {
+         int i = from >>> 6;
+         long w = words[i] & (-1L << from);
+         while (w == 0)
+         {
+            if (++i == words.length) return -1;
+            w = words[i];
+         }
+         return 64 * i + Long.numberOfTrailingZeros(w);
+      }
+
+      private static int nextClear(long[] words, int from)
+      {
+         int i = from >>> 6;
+         long w = ~words[i] & (-1L << from);
+         while (w == 0)
+         {
+            if (++i == words.length) return 65536;
+            w = ~words[i];
+         }
+         return 64 * i + Long.numberOfTrailingZeros(w);
+      }
+
+      int type() { return RUN; }
+
+      int cardinality() { return cardinality; }
+
+      private int findRun(char x)
+      {
+         // the last run that starts at or before x
+         int lo = 0;
+         int hi = runs - 1;
+         while (lo <= hi)
+         {
+            int mid = (lo + hi) >>> 1;
+            if (bounds[2 * mid] <= x) lo = mid + 1;
+            else hi = mid - 1;
+         }
+         return hi;
+      }
+
+      boolean contains(char x)
+      {
+         int r = findRun(x);
+         return r >= 0 && x <= bounds[2 * r + 1];
+      }
+
+      Container add(char x)
+      {
+         return contains(x) ? this : BitmapContainer.of(toWords()).add(x);
+      }
+
+      Container remove(char x)
+      {
+         return contains(x) ? BitmapContainer.of(toWords()).remove(x) : this;
+      }
+
+      int rank(char x)
+      {
+         int result = 0;
+         int r = findRun(x);
+         for (int i = 0; i < r; i++) result += bounds[2 * i + 1] - bounds[2 * i] + 1;
+         if (r >= 0) result += Math.min(x, bounds[2 * r + 1]) - bounds[2 * r] + 1;
+         return result;
+      }
+
+      char select(int j)
+      {
+         for (int i = 0; i < runs; i++)
+         {
+            int length = bounds[2 * i + 1] - bounds[2 * i] + 1;
+            if (j < length) return (char) (bounds[2 * i] + j);
+            j -= length;
+         }
+         throw new NoSuchElementException();
+      }
+
+      IntStream stream(int high)
+      {
+         return IntStream.range(0, runs)
+            .flatMap(i -> IntStream.rangeClosed(high | bounds[2 * i], high | bounds[2 * i + 1]));
+      }
+
+      long[] toWords()
+      {
+         var words = new long[1024];
+         for (int i = 0; i < runs; i++)
+         {
+            int from = bounds[2 * i];
+            int to = bounds[2 * i + 1] + 1;
+            int first = from >>> 6;
+            int last = (to - 1) >>> 6;
+            if (first == last)
+               words[first] |= (-1L << from) & (-1L >>> -to);
+            else
+            {
+               words[first] |= -1L << from;
+               for (int w = first + 1; w < last; w++) words[w] = -1L;
+               words[last] |= -1L >>> -to;
+            }
+         }
+         return words;
+      }
+
+      Container copy()
+      {
+         return this; // immutable
+      }
+
+      int sizeInBytes()
+      {
+         return 4 + 4 * runs;
+      }
+
+      void writeTo(ByteBuffer out)
+      {
+         out.putInt(runs);
+         out.asCharBuffer().put(bounds, 0, 2 * runs);
+         out.position(out.position() + 4 * runs);
+      }
+   }
+}
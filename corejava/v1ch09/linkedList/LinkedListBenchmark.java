@@ -0,0 +1,108 @@
+package linkedList;
+
+import java.util.*;
+import java.util.function.*;
+
+import util.*;
+
+/**
+ * This program compares UnrolledLinkedList with LinkedList and ArrayList on the operations
+ * of LinkedListTest: iteration, interleaved merge, and removal of every second element.
+ * Usage: java linkedList.LinkedListBenchmark [iterationSize [editSize]]
+ * @version 1.01 2026-10-19
+ */
+public class LinkedListBenchmark
+{
+   private static final int ROUNDS = 5;
+
+   public static void main(String[] args) throws Exception
+   {
+      int iterationSize = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+      int editSize = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+
+      Map<String, Supplier<List<Integer>>> factories = new LinkedHashMap<>();
+      factories.put("LinkedList", LinkedList::new);
+      factories.put("ArrayList", ArrayList::new);
+      factories.put("UnrolledLinkedList", UnrolledLinkedList::new);
+
+      System.out.println("Iteration over " + iterationSize + " elements");
+      for (var entry : factories.entrySet())
+      {
+         List<Integer> list = fill(entry.getValue().get(), 0, iterationSize);
+         time(entry.getKey(), () ->
+            {
+               long sum = 0;
+               for (Integer i : list) sum += i;
+               return sum;
+            });
+      }
+
+      System.out.println("ListIterator merge of two lists with " + editSize + " elements");
+      for (var entry : factories.entrySet())
+      {
+         Supplier<List<Integer>> factory = entry.getValue();
+         time(entry.getKey(), () ->
+            {
+               List<Integer> a = fill(factory.get(), 0, editSize);
+               List<Integer> b = fill(factory.get(), editSize, editSize);
+               ListIterator<Integer> aIter = a.listIterator();
+               Iterator<Integer> bIter = b.iterator();
+               while (bIter.hasNext())
+               {
+                  if (aIter.hasNext()) aIter.next();
+                  aIter.add(bIter.next());
+               }
+               return a.size();
+            });
+      }
+      time("UnrolledLinkedList.merge", () ->
+         {
+            var a = (UnrolledLinkedList<Integer>) fill(new UnrolledLinkedList<>(), 0, editSize);
+            a.merge(fill(new UnrolledLinkedList<>(), editSize, editSize));
+            return a.size();
+         });
+
+      System.out.println("Iterator removal of every second element of " + editSize + " elements");
+      for (var entry : factories.entrySet())
+      {
+         Supplier<List<Integer>> factory = entry.getValue();
+         time(entry.getKey(), () ->
+            {
+               List<Integer> b = fill(factory.get(), 0, editSize);
+               Iterator<Integer> bIter = b.iterator();
+               while (bIter.hasNext())
+               {
+                  bIter.next();
+                  if (bIter.hasNext())
+                  {
+                     bIter.next();
+                     bIter.remove();
+                  }
+               }
+               return b.size();
+            });
+      }
+      time("UnrolledLinkedList.removeIfIndexed", () ->
+         {
+            var b = (UnrolledLinkedList<Integer>) fill(new UnrolledLinkedList<>(), 0, editSize);
+            b.removeIfIndexed((i, e) -> i % 2 == 1);
+            return b.size();
+         });
+   }
+
+   private static List<Integer> fill(List<Integer> list, int from, int count)
+   {
+      for (int i = 0; i < count; i++) list.add(from + i);
+      return list;
+   }
+
+   /**
+    * Times a task and prints the best time. The result of the task is printed so that the
+    * work cannot be optimized away.
+    */
+   private static void time(String name, BestOf.Task<Object> task) throws Exception
+   {
+      BestOf.Result<Object> r = BestOf.time(ROUNDS, task);
+      System.out.printf("  %-36s %10.3f ms  (result %s)%n", name, r.millis(), r.value());
+   }
+}
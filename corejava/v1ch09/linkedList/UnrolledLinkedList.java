@@ -0,0 +1,376 @@
+package linkedList;
+
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * An unrolled linked list. Each node holds up to 64 elements in an array, so that
+ * traversals touch one node per 64 elements instead of one node per element. The list
+ * iterator supports the same add/remove/set semantics as the one of
+ * <code>java.util.LinkedList</code>.
+ * @version 1.01 2026-10-19
+ */
+public class UnrolledLinkedList<E> extends AbstractSequentialList<E>
+{
+   public static final int CHUNK_SIZE = 64;
+
+   private Node head;
+   private Node tail;
+   private int size;
+
+   /**
+    * Constructs an empty list.
+    */
+   public UnrolledLinkedList()
+   {
+      head = new Node();
+      tail = head;
+      size = 0;
+   }
+
+   /**
+    * Constructs a list containing the elements of a collection.
+    * @param c the elements to add
+    */
+   public UnrolledLinkedList(Collection<? extends E> c)
+   {
+      this();
+      for (E e : c) append(e);
+   }
+
+   public int size()
+   {
+      return size;
+   }
+
+   public boolean add(E element)
+   {
+      append(element);
+      return true;
+   }
+
+   public boolean addAll(Collection<? extends E> c)
+   {
+      if (c.isEmpty()) return false;
+      for (E e : c) append(e);
+      return true;
+   }
+
+   /**
+    * Adds an element to the end of the last chunk. Unlike add, this cannot be overridden,
+    * so that the constructor may call it.
+    */
+   private void append(E element)
+   {
+      if (tail.count == CHUNK_SIZE) linkAfter(tail, new Node());
+      tail.items[tail.count++] = element;
+      size++;
+      modCount++;
+   }
+
+   public void clear()
+   {
+      head = new Node();
+      tail = head;
+      size = 0;
+      modCount++;
+   }
+
+   public void forEach(Consumer<? super E> action)
+   {
+      Objects.requireNonNull(action);
+      int expectedModCount = modCount;
+      for (Node n = head; n != null; n = n.next)
+         for (int i = 0; i < n.count; i++)
+            action.accept(n.get(i));
+      if (modCount != expectedModCount) throw new ConcurrentModificationException();
+   }
+
+   public ListIterator<E> listIterator(int index)
+   {
+      if (index < 0 || index > size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+      return new ChunkIterator(index);
+   }
+
+   /**
+    * Removes all elements that satisfy a predicate. Each chunk is compacted in place, and
+    * chunks without matches are left untouched.
+    * @param filter the predicate for the elements to remove
+    * @return true if any element was removed
+    */
+   public boolean removeIf(Predicate<? super E> filter)
+   {
+      Objects.requireNonNull(filter);
+      return removeIfIndexed((i, e) -> filter.test(e));
+   }
+
+   /**
+    * Removes all elements that satisfy a predicate on the element and its position in
+    * the list before the removal. For example, <code>(i, e) -> i % 2 == 1</code> removes
+    * every second element.
+    * @param filter the predicate for the elements to remove
+    * @return true if any element was removed
+    */
+   public boolean removeIfIndexed(IndexedPredicate<? super E> filter)
+   {
+      Objects.requireNonNull(filter);
+      int removed = 0;
+      int index = 0;
+      Node n = head;
+      while (n != null)
+      {
+         Node next = n.next;
+         int kept = 0;
+         for (int i = 0; i < n.count; i++)
+         {
+            E e = n.get(i);
+            if (!filter.test(index++, e)) n.items[kept++] = e;
+         }
+         if (kept < n.count)
+         {
+            Arrays.fill(n.items, kept, n.count, null);
+            removed += n.count - kept;
+            n.count = kept;
+            if (kept == 0 && head != tail) unlink(n);
+         }
+         n = next;
+      }
+      if (removed == 0) return false;
+      size -= removed;
+      modCount++;
+      return true;
+   }
+
+   /**
+    * Interleaves the elements of a collection with the elements of this list: the first
+    * element of <code>other</code> is placed after the first element of this list, the
+    * second after the second, and so on. Leftover elements of <code>other</code> are
+    * appended. This has the same result as the <code>ListIterator</code> merge loop of
+    * <code>LinkedListTest</code>, but fills fresh chunks to capacity instead of splitting
+    * chunks on each insertion.
+    * @param other the elements to merge into this list
+    */
+   public void merge(Collection<? extends E> other)
+   {
+      if (other.isEmpty()) return;
+      Node oldHead = head;
+      head = new Node();
+      tail = head;
+      size = 0;
+      Iterator<? extends E> iter = other.iterator();
+      for (Node n = oldHead; n != null; n = n.next)
+         for (int i = 0; i < n.count; i++)
+         {
+            add(n.get(i));
+            if (iter.hasNext()) add(iter.next());
+         }
+      while (iter.hasNext()) add(iter.next());
+   }
+
+   /**
+    * A predicate on an element and its position.
+    */
+   @FunctionalInterface
+   public interface IndexedPredicate<T>
+   {
+      boolean test(int index, T element);
+   }
+
+   private void linkAfter(Node n, Node newNode)
+   {
+      newNode.prev = n;
+      newNode.next = n.next;
+      if (n.next == null) tail = newNode;
+      else n.next.prev = newNode;
+      n.next = newNode;
+   }
+
+   private void unlink(Node n)
+   {
+      if (n.prev == null) head = n.next;
+      else n.prev.next = n.next;
+      if (n.next == null) tail = n.prev;
+      else n.next.prev = n.prev;
+   }
+
+   /**
+    * A chunk of up to CHUNK_SIZE elements. Only the single chunk of an empty list may
+    * be empty.
+    */
+   private class Node
+   {
+      private Object[] items = new Object[CHUNK_SIZE];
+      private int count;
+      private Node prev;
+      private Node next;
+
+      @SuppressWarnings("unchecked")
+      E get(int i)
+      {
+         return (E) items[i];
+      }
+   }
+
+   private class ChunkIterator implements ListIterator<E>
+   {
+      private Node node; // the chunk holding the cursor
+      private int offset; // the cursor position inside node
+      private int index;
+      private Node lastNode; // the chunk of the last returned element, or null
+      private int lastOffset;
+      private int expectedModCount;
+
+      public ChunkIterator(int index)
+      {
+         if (index <= size / 2)
+         {
+            node = head;
+            offset = index;
+            while (offset > node.count)
+            {
+               offset -= node.count;
+               node = node.next;
+            }
+         }
+         else
+         {
+            node = tail;
+            offset = node.count - (size - index);
+            while (offset < 0)
+            {
+               node = node.prev;
+               offset += node.count;
+            }
+         }
+         this.index = index;
+         expectedModCount = modCount;
+      }
+
+      public boolean hasNext()
+      {
+         return index < size;
+      }
+
+      public E next()
+      {
+         checkForComodification();
+         if (!hasNext()) throw new NoSuchElementException();
+         if (offset == node.count)
+         {
+            node = node.next;
+            offset = 0;
+         }
+         lastNode = node;
+         lastOffset = offset;
+         offset++;
+         index++;
+         return node.get(lastOffset);
+      }
+
+      public boolean hasPrevious()
+      {
+         return index > 0;
+      }
+
+      public E previous()
+      {
+         checkForComodification();
+         if (!hasPrevious()) throw new NoSuchElementException();
+         if (offset == 0)
+         {
+            node = node.prev;
+            offset = node.count;
+         }
+         offset--;
+         index--;
+         lastNode = node;
+         lastOffset = offset;
+         return node.get(offset);
+      }
+
+      public int nextIndex()
+      {
+         return index;
+      }
+
+      public int previousIndex()
+      {
+         return index - 1;
+      }
+
+      public void remove()
+      {
+         checkForComodification();
+         if (lastNode == null) throw new IllegalStateException();
+         Node n = lastNode;
+         System.arraycopy(n.items, lastOffset + 1, n.items, lastOffset, n.count - lastOffset - 1);
+         n.items[--n.count] = null;
+         if (n == node && lastOffset < offset)
+         {
+            // removing the element returned by next moves the cursor back
+            offset--;
+            index--;
+         }
+         if (n.count == 0 && head != tail)
+         {
+            if (n.next != null)
+            {
+               node = n.next;
+               offset = 0;
+            }
+            else
+            {
+               node = n.prev;
+               offset = node.count;
+            }
+            unlink(n);
+         }
+         size--;
+         modCount++;
+         expectedModCount = modCount;
+         lastNode = null;
+      }
+
+      public void set(E element)
+      {
+         checkForComodification();
+         if (lastNode == null) throw new IllegalStateException();
+         lastNode.items[lastOffset] = element;
+      }
+
+      public void add(E element)
+      {
+         checkForComodification();
+         if (node.count == CHUNK_SIZE)
+         {
+            // split the full chunk in two halves
+            int half = CHUNK_SIZE / 2;
+            var newNode = new Node();
+            System.arraycopy(node.items, half, newNode.items, 0, CHUNK_SIZE - half);
+            Arrays.fill(node.items, half, CHUNK_SIZE, null);
+            newNode.count = CHUNK_SIZE - half;
+            node.count = half;
+            linkAfter(node, newNode);
+            if (offset > half)
+            {
+               node = newNode;
+               offset -= half;
+            }
+         }
+         System.arraycopy(node.items, offset, node.items, offset + 1, node.count - offset);
+         node.items[offset] = element;
+         node.count++;
+         offset++;
+         index++;
+         size++;
+         modCount++;
+         expectedModCount = modCount;
+         lastNode = null;
+      }
+
+      private void checkForComodification()
+      {
+         if (modCount != expectedModCount) throw new ConcurrentModificationException();
+      }
+   }
+}
@@ -18,6 +18,27 @@ public class Employee
       salary = 0;
    }
 
+   /**
+    * Constructs an employee with a given salary.
+    * @param name the employee name
+    * @param salary the salary
+    */
+   public Employee(String name, double salary)
+   {
+      this.name = name;
+      this.salary = salary;
+   }
+
+   public String getName()
+   {
+      return name;
+   }
+
+   public double getSalary()
+   {
+      return salary;
+   }
+
    public String toString()
    {
       return "[name=" + name + ", salary=" + salary + "]";
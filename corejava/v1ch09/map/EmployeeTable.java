@@ -0,0 +1,420 @@
+package map;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * A column-oriented employee store. Social security numbers such as "123-45-6789" are
+ * packed into an <code>int</code>, salaries are kept in a <code>double[]</code>, and names
+ * are UTF-8 encoded into a shared byte arena. Lookups go through an open-addressing hash
+ * index keyed by the packed SSN, so that no key strings or entry objects are allocated.
+ * Use {@link #asMap()} for callers that expect a <code>Map&lt;String, Employee&gt;</code>.
+ * @version 1.00 2026-10-19
+ */
+public class EmployeeTable
+{
+   private static final int MAX_NAME_BYTES = 0x7FFF;
+   private static final double MAX_LOAD = 0.7;
+
+   // the columns, indexed by row
+   private int[] ssns;
+   private double[] salaries;
+   private int[] nameStarts;
+   private int size;
+
+   // the name arena; each name is stored as a one or two byte length followed by its bytes
+   private byte[] names;
+   private int namesEnd;
+
+   // the index: key at 2 * slot, row + 1 at 2 * slot + 1, 0 for an empty slot
+   private int[] index;
+   private int mask;
+
+   /**
+    * Constructs an empty table.
+    */
+   public EmployeeTable()
+   {
+      this(16);
+   }
+
+   /**
+    * Constructs an empty table.
+    * @param expectedSize the number of employees the table should hold without resizing
+    */
+   public EmployeeTable(int expectedSize)
+   {
+      int capacity = Math.max(expectedSize, 4);
+      ssns = new int[capacity];
+      salaries = new double[capacity];
+      nameStarts = new int[capacity];
+      names = new byte[capacity * 16];
+      int slots = Integer.highestOneBit((int) Math.ceil(capacity / MAX_LOAD) - 1) << 1;
+      index = new int[2 * slots];
+      mask = slots - 1;
+   }
+
+   /**
+    * Packs a social security number of the form "ddd-dd-dddd" into an int.
+    * @param ssn the formatted number
+    * @return the number without the dashes
+    * @throws IllegalArgumentException if ssn does not have the expected form
+    */
+   public static int parseSsn(String ssn)
+   {
+      int result = tryParseSsn(ssn);
+      if (result < 0) throw new IllegalArgumentException("Not an SSN: " + ssn);
+      return result;
+   }
+
+   /**
+    * Formats a packed social security number as "ddd-dd-dddd".
+    * @param ssn the packed number
+    * @return the formatted number
+    */
+   public static String formatSsn(int ssn)
+   {
+      var digits = String.format("%09d", ssn);
+      return digits.substring(0, 3) + "-" + digits.substring(3, 5) + "-" + digits.substring(5);
+   }
+
+   private static int tryParseSsn(String ssn)
+   {
+      if (ssn.length() != 11 || ssn.charAt(3) != '-' || ssn.charAt(6) != '-') return -1;
+      int result = 0;
+      for (int i = 0; i < 11; i++)
+      {
+         if (i == 3 || i == 6) continue;
+         char c = ssn.charAt(i);
+         if (c < '0' || c > '9') return -1;
+         result = 10 * result + c - '0';
+      }
+      return result;
+   }
+
+   public int size()
+   {
+      return size;
+   }
+
+   /**
+    * Adds an employee or replaces the employee with the same SSN.
+    * @param ssn the packed SSN
+    * @param name the employee name
+    * @param salary the salary
+    * @return true if the SSN was not yet present
+    */
+   public boolean put(int ssn, String name, double salary)
+   {
+      int slot = findSlot(ssn);
+      int row;
+      boolean added = index[2 * slot + 1] == 0;
+      if (added)
+      {
+         if (size + 1 > (mask + 1) * MAX_LOAD)
+         {
+            rehash(2 * (mask + 1));
+            slot = findSlot(ssn);
+         }
+         if (size == ssns.length) growRows();
+         row = size++;
+         ssns[row] = ssn;
+         index[2 * slot] = ssn;
+         index[2 * slot + 1] = row + 1;
+      }
+      else
+         row = index[2 * slot + 1] - 1;
+      salaries[row] = salary;
+      nameStarts[row] = appendName(name);
+      return added;
+   }
+
+   /**
+    * Finds the row of an employee.
+    * @param ssn the packed SSN
+    * @return the row, or -1 if there is no employee with this SSN
+    */
+   public int find(int ssn)
+   {
+      return index[2 * findSlot(ssn) + 1] - 1;
+   }
+
+   public int ssnAt(int row)
+   {
+      Objects.checkIndex(row, size);
+      return ssns[row];
+   }
+
+   public double salaryAt(int row)
+   {
+      Objects.checkIndex(row, size);
+      return salaries[row];
+   }
+
+   public void setSalaryAt(int row, double salary)
+   {
+      Objects.checkIndex(row, size);
+      salaries[row] = salary;
+   }
+
+   public String nameAt(int row)
+   {
+      Objects.checkIndex(row, size);
+      int start = nameStarts[row];
+      int length = names[start];
+      if (length < 0)
+      {
+         length = (length & 0x7F) << 8 | names[start + 1] & 0xFF;
+         start += 2;
+      }
+      else
+         start++;
+      return new String(names, start, length, StandardCharsets.UTF_8);
+   }
+
+   /**
+    * Removes an employee. The last row moves into the place of the removed row.
+    * @param ssn the packed SSN
+    * @return true if an employee was removed
+    */
+   public boolean remove(int ssn)
+   {
+      int slot = findSlot(ssn);
+      int row = index[2 * slot + 1] - 1;
+      if (row < 0) return false;
+      deleteSlot(slot);
+      int last = --size;
+      if (row != last)
+      {
+         ssns[row] = ssns[last];
+         salaries[row] = salaries[last];
+         nameStarts[row] = nameStarts[last];
+         index[2 * findSlot(ssns[row]) + 1] = row + 1;
+      }
+      return true;
+   }
+
+   /**
+    * Rewrites the name arena so that it holds only the names of current rows. Replaced
+    * and removed names otherwise stay in the arena.
+    */
+   public void compactNames()
+   {
+      byte[] old = names;
+      names = new byte[Math.max(16, namesEnd)];
+      namesEnd = 0;
+      for (int row = 0; row < size; row++)
+      {
+         int start = nameStarts[row];
+         int length = old[start] < 0 ? 2 + ((old[start] & 0x7F) << 8 | old[start + 1] & 0xFF)
+            : 1 + old[start];
+         System.arraycopy(old, start, names, namesEnd, length);
+         nameStarts[row] = namesEnd;
+         namesEnd += length;
+      }
+   }
+
+   /**
+    * Gets the number of bytes held by the arrays of this table.
+    * @return the size of the columns, the name arena and the index, in bytes
+    */
+   public long bytesUsed()
+   {
+      return 4L * ssns.length + 8L * salaries.length + 4L * nameStarts.length + names.length
+         + 4L * index.length;
+   }
+
+   /**
+    * Returns a map view of this table, keyed by formatted SSN. Values are materialized as
+    * new Employee objects on each access; changes to the map write through to the table.
+    * @return the map view
+    */
+   public Map<String, Employee> asMap()
+   {
+      return new MapView();
+   }
+
+   private int appendName(String name)
+   {
+      byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+      if (bytes.length > MAX_NAME_BYTES) throw new IllegalArgumentException("Name too long: " + name);
+      int needed = bytes.length + (bytes.length < 0x80 ? 1 : 2);
+      if (namesEnd + needed > names.length)
+         names = Arrays.copyOf(names, Math.max(namesEnd + needed, names.length + (names.length >> 1)));
+      int start = namesEnd;
+      if (bytes.length < 0x80)
+         names[namesEnd++] = (byte) bytes.length;
+      else
+      {
+         names[namesEnd++] = (byte) (0x80 | bytes.length >> 8);
+         names[namesEnd++] = (byte) bytes.length;
+      }
+      System.arraycopy(bytes, 0, names, namesEnd, bytes.length);
+      namesEnd += bytes.length;
+      return start;
+   }
+
+   private void growRows()
+   {
+      int capacity = ssns.length + (ssns.length >> 1);
+      ssns = Arrays.copyOf(ssns, capacity);
+      salaries = Arrays.copyOf(salaries, capacity);
+      nameStarts = Arrays.copyOf(nameStarts, capacity);
+   }
+
+   private static int hash(int key)
+   {
+      int h = key * 0x9E3779B9;
+      return h ^ h >>> 16;
+   }
+
+   /**
+    * Finds the slot holding a key, or the empty slot where it would be inserted.
+    */
+   private int findSlot(int key)
+   {
+      int slot = hash(key) & mask;
+      while (index[2 * slot + 1] != 0 && index[2 * slot] != key)
+         slot = (slot + 1) & mask;
+      return slot;
+   }
+
+   /**
+    * Empties a slot and shifts later entries of the probe sequence back, so that linear
+    * probing needs no tombstones.
+    */
+   private void deleteSlot(int slot)
+   {
+      int hole = slot;
+      int next = (hole + 1) & mask;
+      while (index[2 * next + 1] != 0)
+      {
+         int home = hash(index[2 * next]) & mask;
+         // move the entry if its home slot is not cyclically in (hole, next]
+         if (((next - home) & mask) >= ((next - hole) & mask))
+         {
+            index[2 * hole] = index[2 * next];
+            index[2 * hole + 1] = index[2 * next + 1];
+            hole = next;
+         }
+         next = (next + 1) & mask;
+      }
+      index[2 * hole] = 0;
+      index[2 * hole + 1] = 0;
+   }
+
+   private void rehash(int slots)
+   {
+      index = new int[2 * slots];
+      mask = slots - 1;
+      for (int row = 0; row < size; row++)
+      {
+         int slot = findSlot(ssns[row]);
+         index[2 * slot] = ssns[row];
+         index[2 * slot + 1] = row + 1;
+      }
+   }
+
+   private class MapView extends AbstractMap<String, Employee>
+   {
+      public int size()
+      {
+         return size;
+      }
+
+      public boolean containsKey(Object key)
+      {
+         return rowOf(key) >= 0;
+      }
+
+      public Employee get(Object key)
+      {
+         int row = rowOf(key);
+         return row < 0 ? null : employeeAt(row);
+      }
+
+      public Employee put(String key, Employee value)
+      {
+         int ssn = parseSsn(key);
+         int row = find(ssn);
+         Employee old = row < 0 ? null : employeeAt(row);
+         EmployeeTable.this.put(ssn, value.getName(), value.getSalary());
+         return old;
+      }
+
+      public Employee remove(Object key)
+      {
+         int row = rowOf(key);
+         if (row < 0) return null;
+         Employee old = employeeAt(row);
+         EmployeeTable.this.remove(ssns[row]);
+         return old;
+      }
+
+      public void clear()
+      {
+         size = 0;
+         namesEnd = 0;
+         Arrays.fill(index, 0);
+      }
+
+      public Set<Map.Entry<String, Employee>> entrySet()
+      {
+         return new AbstractSet<>()
+            {
+               public int size()
+               {
+                  return size;
+               }
+
+               public Iterator<Map.Entry<String, Employee>> iterator()
+               {
+                  return new EntryIterator();
+               }
+            };
+      }
+
+      private int rowOf(Object key)
+      {
+         if (!(key instanceof String)) return -1;
+         int ssn = tryParseSsn((String) key);
+         return ssn < 0 ? -1 : find(ssn);
+      }
+
+      private Employee employeeAt(int row)
+      {
+         return new Employee(nameAt(row), salaries[row]);
+      }
+
+      /**
+       * Visits rows from last to first, so that removing the current row, which moves the
+       * last row into its place, does not skip any row.
+       */
+      private class EntryIterator implements Iterator<Map.Entry<String, Employee>>
+      {
+         private int next = size - 1;
+         private int lastSsn = -1;
+
+         public boolean hasNext()
+         {
+            return next >= 0;
+         }
+
+         public Map.Entry<String, Employee> next()
+         {
+            if (next < 0) throw new NoSuchElementException();
+            if (next >= size) throw new ConcurrentModificationException();
+            int row = next--;
+            lastSsn = ssns[row];
+            return new AbstractMap.SimpleImmutableEntry<>(formatSsn(lastSsn), employeeAt(row));
+         }
+
+         public void remove()
+         {
+            if (lastSsn < 0) throw new IllegalStateException();
+            EmployeeTable.this.remove(lastSsn);
+            lastSsn = -1;
+         }
+      }
+   }
+}
@@ -0,0 +1,95 @@
+package map;
+
+import java.util.*;
+
+import util.*;
+
+/**
+ * This program compares the memory use and lookup time of a HashMap&lt;String, Employee&gt;
+ * with an EmployeeTable holding the same employees. It exits with status 1 if the lookups
+ * in the two structures do not add up to the same salaries.
+ * Usage: java map.EmployeeTableMemoryReport [count]
+ * @version 1.01 2026-10-19
+ */
+public class EmployeeTableMemoryReport
+{
+   private static final int ROUNDS = 3;
+   private static final String[] FIRST = { "Amy", "Harry", "Gary", "Francesca", "Carl", "Tony",
+      "Bob", "Erica", "Doug", "Gloria" };
+   private static final String[] LAST = { "Lee", "Hacker", "Cooper", "Cruz", "Cracker", "Tester",
+      "Baker", "Miller", "Smith", "Jones", "Nguyen", "Garcia" };
+
+   public static void main(String[] args) throws Exception
+   {
+      int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+      int[] ssns = new int[count];
+      for (int i = 0; i < count; i++)
+         ssns[i] = (int) ((i * 2654435761L) % 1_000_000_000); // distinct, since the factor is prime to 10^9
+
+      long before = usedMemory();
+      var staff = new HashMap<String, Employee>();
+      for (int i = 0; i < count; i++)
+         staff.put(EmployeeTable.formatSsn(ssns[i]), new Employee(name(i), salary(i)));
+      long hashMapBytes = usedMemory() - before;
+
+      before = usedMemory();
+      var table = new EmployeeTable();
+      for (int i = 0; i < count; i++)
+         table.put(ssns[i], name(i), salary(i));
+      long tableBytes = usedMemory() - before;
+
+      System.out.println(count + " employees");
+      System.out.printf("HashMap<String, Employee>: %,d bytes, %.1f bytes per employee%n",
+         hashMapBytes, (double) hashMapBytes / count);
+      System.out.printf("EmployeeTable:             %,d bytes, %.1f bytes per employee%n",
+         tableBytes, (double) tableBytes / count);
+      System.out.printf("EmployeeTable arrays:      %,d bytes, %.1f bytes per employee%n",
+         table.bytesUsed(), (double) table.bytesUsed() / count);
+
+      String[] keys = new String[count];
+      for (int i = 0; i < count; i++) keys[i] = EmployeeTable.formatSsn(ssns[i]);
+      Map<String, Employee> view = table.asMap();
+      BestOf.Result<Double> hashMap = BestOf.time(ROUNDS, () ->
+         {
+            double sum = 0;
+            for (String k : keys) sum += staff.get(k).getSalary();
+            return sum;
+         });
+      BestOf.Result<Double> tableLookups = BestOf.time(ROUNDS, () ->
+         {
+            double sum = 0;
+            for (int ssn : ssns) sum += table.salaryAt(table.find(ssn));
+            return sum;
+         });
+      BestOf.Result<Double> viewLookups = BestOf.time(ROUNDS, () ->
+         {
+            double sum = 0;
+            for (String k : keys) sum += view.get(k).getSalary();
+            return sum;
+         });
+      boolean agree = hashMap.value().equals(tableLookups.value())
+         && hashMap.value().equals(viewLookups.value());
+      System.out.printf("lookups: HashMap %.0f ms, EmployeeTable %.0f ms, map view %.0f ms (sums %s)%n",
+         hashMap.millis(), tableLookups.millis(), viewLookups.millis(), agree ? "agree" : "DIFFER");
+      // keep both structures reachable until the end of the measurements
+      System.out.println(staff.size() + table.size() > 0 ? "" : "empty");
+      if (!agree) System.exit(1);
+   }
+
+   private static String name(int i)
+   {
+      return FIRST[i % FIRST.length] + " " + LAST[(i / FIRST.length) % LAST.length];
+   }
+
+   private static double salary(int i)
+   {
+      return 40000 + i % 50000;
+   }
+
+   private static long usedMemory()
+   {
+      Runtime runtime = Runtime.getRuntime();
+      for (int i = 0; i < 3; i++) System.gc();
+      return runtime.totalMemory() - runtime.freeMemory();
+   }
+}
@@ -0,0 +1,369 @@
+package shuffle;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.random.*;
+import java.util.random.RandomGenerator.SplittableGenerator;
+import java.util.stream.*;
+
+/**
+ * Shuffling and sampling of primitive arrays and streams. All methods take a seed and use
+ * the splittable L64X128MixRandom generator. Parallel shuffles split the generator along
+ * a recursion tree that depends only on the array length, so the result for a given seed
+ * is the same whatever the number of threads.
+ * @version 1.00 2026-10-19
+ */
+public class Sampler
+{
+   public static final String ALGORITHM = "L64X128MixRandom";
+
+   /** Subarrays up to this length are shuffled sequentially with Fisher-Yates. */
+   static final int THRESHOLD = 1 << 16;
+
+   private Sampler() {}
+
+   /**
+    * Creates the generator used by this class.
+    * @param seed the seed
+    * @return a new splittable generator
+    */
+   public static SplittableGenerator generator(long seed)
+   {
+      return RandomGeneratorFactory.<SplittableGenerator>of(ALGORITHM).create(seed);
+   }
+
+   /**
+    * Shuffles an array in the common fork-join pool.
+    * @param a the array to shuffle
+    * @param seed the seed
+    */
+   public static void shuffle(int[] a, long seed)
+   {
+      shuffle(a, seed, ForkJoinPool.commonPool());
+   }
+
+   /**
+    * Shuffles an array in a given fork-join pool.
+    * @param a the array to shuffle
+    * @param seed the seed
+    * @param pool the pool that runs the subtasks
+    */
+   public static void shuffle(int[] a, long seed, ForkJoinPool pool)
+   {
+      pool.invoke(new ShuffleTask(a, null, 0, a.length, generator(seed)));
+   }
+
+   /**
+    * Shuffles an array in the common fork-join pool.
+    * @param a the array to shuffle
+    * @param seed the seed
+    */
+   public static void shuffle(long[] a, long seed)
+   {
+      shuffle(a, seed, ForkJoinPool.commonPool());
+   }
+
+   /**
+    * Shuffles an array in a given fork-join pool.
+    * @param a the array to shuffle
+    * @param seed the seed
+    * @param pool the pool that runs the subtasks
+    */
+   public static void shuffle(long[] a, long seed, ForkJoinPool pool)
+   {
+      pool.invoke(new ShuffleTask(null, a, 0, a.length, generator(seed)));
+   }
+
+   /**
+    * Draws k distinct numbers from 0 ... n - 1 without materializing the n numbers. The
+    * result has the distribution of the first k elements of a uniform shuffle.
+    * @param n the number of values to draw from
+    * @param k the number of values to draw
+    * @param seed the seed
+    * @return the drawn values, in drawing order
+    */
+   public static long[] draw(long n, int k, long seed)
+   {
+      if (k < 0 || k > n) throw new IllegalArgumentException("Cannot draw " + k + " of " + n);
+      RandomGenerator generator = generator(seed);
+      var result = new long[k];
+      // a virtual Fisher-Yates shuffle; only displaced positions are stored
+      var displaced = new LongLongMap(2 * k);
+      for (int i = 0; i < k; i++)
+      {
+         long j = i + generator.nextLong(n - i);
+         result[i] = displaced.getOrDefault(j, j);
+         displaced.put(j, displaced.getOrDefault(i, i));
+      }
+      return result;
+   }
+
+   /**
+    * Draws k distinct numbers from 0 ... n - 1.
+    * @param n the number of values to draw from
+    * @param k the number of values to draw
+    * @param seed the seed
+    * @return the drawn values, in drawing order
+    */
+   public static int[] draw(int n, int k, long seed)
+   {
+      return Arrays.stream(draw((long) n, k, seed)).mapToInt(x -> (int) x).toArray();
+   }
+
+   /**
+    * Draws a uniform sample of k elements from a stream of unknown length with the
+    * skip-based reservoir algorithm L, so that only O(k log(n/k)) random numbers are
+    * used. The stream is consumed sequentially.
+    * @param values the stream to sample
+    * @param k the sample size
+    * @param seed the seed
+    * @return the sample, or all elements if the stream has fewer than k
+    */
+   public static int[] reservoir(IntStream values, int k, long seed)
+   {
+      var reservoir = new Reservoir(k, generator(seed));
+      var result = new int[k];
+      values.sequential().forEachOrdered(v ->
+         {
+            int slot = reservoir.offer();
+            if (slot >= 0) result[slot] = v;
+         });
+      return Arrays.copyOf(result, reservoir.filled());
+   }
+
+   /**
+    * Draws a uniform sample of k elements from a stream of unknown length.
+    * @param values the stream to sample
+    * @param k the sample size
+    * @param seed the seed
+    * @return the sample, or all elements if the stream has fewer than k
+    */
+   public static long[] reservoir(LongStream values, int k, long seed)
+   {
+      var reservoir = new Reservoir(k, generator(seed));
+      var result = new long[k];
+      values.sequential().forEachOrdered(v ->
+         {
+            int slot = reservoir.offer();
+            if (slot >= 0) result[slot] = v;
+         });
+      return Arrays.copyOf(result, reservoir.filled());
+   }
+
+   /**
+    * Shuffles a[from] ... a[to - 1]: the two halves are shuffled in parallel with split
+    * generators, then combined with the random merge of the MergeShuffle algorithm, which
+    * keeps the result uniform.
+    */
+   private static class ShuffleTask extends RecursiveAction
+   {
+      private static final long serialVersionUID = 1L;
+
+      private final int[] ints;
+      private final long[] longs;
+      private final int from;
+      private final int to;
+      // tasks are never serialized; the generator is only used in this task
+      private final transient SplittableGenerator generator;
+
+      ShuffleTask(int[] ints, long[] longs, int from, int to, SplittableGenerator generator)
+      {
+         this.ints = ints;
+         this.longs = longs;
+         this.from = from;
+         this.to = to;
+         this.generator = generator;
+      }
+
+      protected void compute()
+      {
+         if (to - from <= THRESHOLD)
+         {
+            for (int i = to - 1; i > from; i--)
+               swap(i, from + generator.nextInt(i - from + 1));
+            return;
+         }
+         int mid = from + (to - from) / 2;
+         // split in a fixed order so that the generators do not depend on scheduling
+         var left = new ShuffleTask(ints, longs, from, mid, generator.split());
+         var right = new ShuffleTask(ints, longs, mid, to, generator.split());
+         invokeAll(left, right);
+         merge(mid);
+      }
+
+      private void merge(int mid)
+      {
+         int i = from;
+         int j = mid;
+         long bits = 0;
+         int bitsLeft = 0;
+         while (true)
+         {
+            if (bitsLeft == 0)
+            {
+               bits = generator.nextLong();
+               bitsLeft = 64;
+            }
+            boolean takeRight = (bits & 1) != 0;
+            bits >>>= 1;
+            bitsLeft--;
+            if (takeRight)
+            {
+               if (j == to) break;
+               swap(i, j++);
+            }
+            else if (i == j) break;
+            i++;
+         }
+         // insert the remaining elements at random positions
+         for (; i < to; i++)
+            swap(i, from + generator.nextInt(i - from + 1));
+      }
+
+      private void swap(int i, int j)
+      {
+         if (ints != null)
+         {
+            int t = ints[i];
+            ints[i] = ints[j];
+            ints[j] = t;
+         }
+         else
+         {
+            long t = longs[i];
+            longs[i] = longs[j];
+            longs[j] = t;
+         }
+      }
+   }
+
+   /**
+    * The bookkeeping of algorithm L: decides for each offered element whether it goes into
+    * the reservoir, and at which slot.
+    */
+   private static class Reservoir
+   {
+      private final int k;
+      private final RandomGenerator generator;
+      private long seen;
+      private long nextReplaced;
+      private double w;
+
+      Reservoir(int k, RandomGenerator generator)
+      {
+         if (k < 0) throw new IllegalArgumentException("Negative sample size " + k);
+         this.k = k;
+         this.generator = generator;
+         if (k == 0)
+            nextReplaced = Long.MAX_VALUE;
+         else
+         {
+            w = Math.exp(Math.log(uniform()) / k);
+            nextReplaced = k - 1;
+            advance();
+         }
+      }
+
+      /**
+       * Counts an element.
+       * @return the reservoir slot for the element, or -1 if it is skipped
+       */
+      int offer()
+      {
+         long i = seen++;
+         if (i < k) return (int) i;
+         if (i < nextReplaced) return -1;
+         w *= Math.exp(Math.log(uniform()) / k);
+         advance();
+         return generator.nextInt(k);
+      }
+
+      int filled()
+      {
+         return (int) Math.min(seen, k);
+      }
+
+      private void advance()
+      {
+         double skip = Math.floor(Math.log(uniform()) / Math.log1p(-w));
+         nextReplaced = skip >= Long.MAX_VALUE - nextReplaced ? Long.MAX_VALUE
+            : nextReplaced + (long) skip + 1;
+      }
+
+      private double uniform()
+      {
+         double u;
+         do u = generator.nextDouble(); while (u == 0);
+         return u;
+      }
+   }
+
+   /**
+    * A minimal open-addressing map from long to long for the displaced positions of draw.
+    */
+   private static class LongLongMap
+   {
+      private long[] keys;
+      private long[] values;
+      private boolean[] used;
+      private int size;
+
+      LongLongMap(int expectedSize)
+      {
+         int capacity = Integer.highestOneBit(Math.max(4, 2 * expectedSize) - 1) << 1;
+         keys = new long[capacity];
+         values = new long[capacity];
+         used = new boolean[capacity];
+      }
+
+      long getOrDefault(long key, long defaultValue)
+      {
+         int slot = slot(key);
+         return used[slot] ? values[slot] : defaultValue;
+      }
+
+      void put(long key, long value)
+      {
+         int slot = slot(key);
+         if (!used[slot])
+         {
+            if (2 * (size + 1) > keys.length)
+            {
+               rehash();
+               slot = slot(key);
+            }
+            used[slot] = true;
+            keys[slot] = key;
+            size++;
+         }
+         values[slot] = value;
+      }
+
+      private int slot(long key)
+      {
+         int mask = keys.length - 1;
+         long h = key * 0x9E3779B97F4A7C15L;
+         int slot = (int) (h ^ h >>> 32) & mask;
+         while (used[slot] && keys[slot] != key) slot = (slot + 1) & mask;
+         return slot;
+      }
+
+      private void rehash()
+      {
+         long[] oldKeys = keys;
+         long[] oldValues = values;
+         boolean[] oldUsed = used;
+         keys = new long[2 * oldKeys.length];
+         values = new long[2 * oldKeys.length];
+         used = new boolean[2 * oldKeys.length];
+         for (int i = 0; i < oldKeys.length; i++)
+            if (oldUsed[i])
+            {
+               int slot = slot(oldKeys[i]);
+               used[slot] = true;
+               keys[slot] = oldKeys[i];
+               values[slot] = oldValues[i];
+            }
+      }
+   }
+}
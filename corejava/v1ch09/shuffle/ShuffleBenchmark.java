@@ -0,0 +1,73 @@
+package shuffle;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.*;
+
+import util.*;
+
+/**
+ * This program compares Collections.shuffle on a boxed list with Sampler.shuffle on an
+ * int[] at several thread counts, checks that the Sampler results agree for a fixed seed,
+ * and shows draws and reservoir samples that never materialize the whole population. The
+ * program exits with status 1 if the Sampler results differ.
+ * Usage: java shuffle.ShuffleBenchmark [size]
+ * @version 1.01 2026-10-19
+ */
+public class ShuffleBenchmark
+{
+   private static final int ROUNDS = 3;
+   private static final long SEED = 42;
+
+   public static void main(String[] args) throws Exception
+   {
+      int size = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+
+      var numbers = new ArrayList<Integer>(size);
+      for (int i = 0; i < size; i++) numbers.add(i);
+      BestOf.Result<List<Integer>> shuffled = BestOf.time(ROUNDS, () ->
+         {
+            Collections.shuffle(numbers, new Random(SEED));
+            return numbers;
+         });
+      System.out.printf("Collections.shuffle(ArrayList<Integer>) %8d ms%n",
+         shuffled.nanos() / 1_000_000);
+
+      // each round shuffles a copy, which takes a small part of the time
+      int[] identity = IntStream.range(0, size).toArray();
+      int[] reference = null;
+      boolean differ = false;
+      int maxThreads = Math.max(8, Runtime.getRuntime().availableProcessors());
+      for (int threads = 1; threads <= maxThreads; threads *= 2)
+      {
+         var pool = new ForkJoinPool(threads);
+         BestOf.Result<int[]> r = BestOf.time(ROUNDS, () ->
+            {
+               int[] a = identity.clone();
+               Sampler.shuffle(a, SEED, pool);
+               return a;
+            });
+         pool.shutdown();
+         if (reference == null) reference = r.value();
+         boolean same = Arrays.equals(reference, r.value());
+         differ |= !same;
+         System.out.printf("Sampler.shuffle(int[]) %2d threads      %8d ms  %s%n", threads,
+            r.nanos() / 1_000_000, same ? "same result" : "DIFFERENT RESULT");
+      }
+
+      // the lottery of LotteryDrawing, without filling an array of all numbers
+      int[] lottery = Arrays.stream(Sampler.draw(49, 6, SEED)).map(x -> x + 1).sorted().toArray();
+      System.out.println("6 of 49: " + Arrays.toString(lottery));
+
+      long start = System.nanoTime();
+      long[] tickets = Sampler.draw(1_000_000_000_000L, 1_000_000, SEED);
+      System.out.printf("1,000,000 of 10^12 drawn in %d ms, first %d%n",
+         (System.nanoTime() - start) / 1_000_000, tickets[0]);
+
+      start = System.nanoTime();
+      int[] sample = Sampler.reservoir(IntStream.range(0, 100_000_000), 10, SEED);
+      System.out.printf("reservoir of 10 from 10^8 in %d ms: %s%n",
+         (System.nanoTime() - start) / 1_000_000, Arrays.toString(sample));
+      if (differ) System.exit(1);
+   }
+}
@@ -0,0 +1,128 @@
+package collecting;
+
+import static java.util.stream.Collectors.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.*;
+
+import collecting.DownstreamCollectors.City;
+import util.*;
+
+/**
+ * This program checks that a ColumnarTable of cities gives the same answers as the
+ * groupingBy queries of DownstreamCollectors, and then times both on a dataset made of
+ * copies of cities.txt. It exits with status 1 if any answer differs.
+ * Usage: java collecting.CityTableBenchmark [copies]
+ * @version 1.01 2026-10-19
+ */
+public class CityTableBenchmark
+{
+   private static final int ROUNDS = 5;
+
+   private static int mismatches;
+
+   public static void main(String[] args) throws Exception
+   {
+      int copies = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+      Path cities = Path.of("cities.txt");
+
+      var table = ColumnarTable.read(City.class, cities, ", ");
+      List<City> list = DownstreamCollectors.readCities("cities.txt").toList();
+      check("count", list.stream().collect(groupingBy(City::state, counting())),
+         table.groupBy("state").count());
+      check("sum", list.stream().collect(groupingBy(City::state,
+         summingLong(City::population))), table.groupBy("state").sum("population"));
+      check("average", list.stream().collect(groupingBy(City::state,
+         averagingInt(City::population))), table.groupBy("state").average("population"));
+      check("summarizingInt", summaries(list.stream().collect(groupingBy(City::state,
+         summarizingInt(City::population)))),
+         summaries(table.groupBy("state").summarizingInt("population")));
+      check("maxBy", list.stream().collect(groupingBy(City::state,
+         collectingAndThen(maxBy(Comparator.comparing(City::population)), Optional::get))),
+         table.groupBy("state").topN("population", 1).entrySet().stream()
+            .collect(toMap(Map.Entry::getKey, e -> e.getValue().get(0))));
+      check("top 3", list.stream().collect(groupingBy(City::state,
+         collectingAndThen(toList(), l -> l.stream()
+            .sorted(Comparator.comparing(City::population).reversed()).limit(3).toList()))),
+         table.groupBy("state").topN("population", 3));
+
+      Path big = Files.createTempFile("cities", ".txt");
+      try
+      {
+         List<String> lines = Files.readAllLines(cities);
+         try (var out = Files.newBufferedWriter(big))
+         {
+            for (int i = 0; i < copies; i++)
+               for (String line : lines)
+               {
+                  out.write(line);
+                  out.newLine();
+               }
+         }
+         System.out.printf("%,d rows%n", lines.size() * (long) copies);
+
+         time("readCities().toList()", () -> load(big).size());
+         time("ColumnarTable.read", () -> read(big).size());
+
+         List<City> records = load(big);
+         ColumnarTable<City> columns = read(big);
+         time("groupingBy(state, averagingInt)", () -> records.parallelStream()
+            .collect(groupingBy(City::state, averagingInt(City::population))).get("NY"));
+         time("groupBy(state).average", () -> columns.groupBy("state")
+            .average("population").get("NY"));
+         time("groupingBy(state, summarizingInt)", () -> records.parallelStream()
+            .collect(groupingBy(City::state, summarizingInt(City::population))).get("NY"));
+         time("groupBy(state).summarizingInt", () -> columns.groupBy("state")
+            .summarizingInt("population").get("NY"));
+         time("groupingBy(state, maxBy)", () -> records.parallelStream()
+            .collect(groupingBy(City::state, maxBy(Comparator.comparing(City::population))))
+            .get("NY").get());
+         time("groupBy(state).topN(1)", () -> columns.groupBy("state")
+            .topN("population", 1).get("NY").get(0));
+      }
+      finally
+      {
+         Files.delete(big);
+      }
+
+      if (mismatches > 0)
+      {
+         System.out.printf("%d answers differ%n", mismatches);
+         System.exit(1);
+      }
+   }
+
+   private static List<City> load(Path path) throws IOException
+   {
+      return DownstreamCollectors.readCities(path.toString()).toList();
+   }
+
+   private static ColumnarTable<City> read(Path path) throws IOException
+   {
+      return ColumnarTable.read(City.class, path, ", ");
+   }
+
+   /**
+    * IntSummaryStatistics has no equals method, so compare the toString results.
+    */
+   private static Map<String, String> summaries(Map<String, IntSummaryStatistics> stats)
+   {
+      return stats.entrySet().stream().collect(toMap(Map.Entry::getKey,
+         e -> e.getValue().toString()));
+   }
+
+   private static void check(String name, Object expected, Object actual)
+   {
+      boolean same = expected.equals(actual);
+      if (!same) mismatches++;
+      System.out.printf("%-16s %s%n", name, same ? "same" : "DIFFERENT");
+   }
+
+   private static void time(String name, BestOf.Task<Object> task) throws Exception
+   {
+      BestOf.Result<Object> r = BestOf.time(ROUNDS, task);
+      System.out.printf("%-36s %8.1f ms   %s%n", name, r.millis(), r.value());
+   }
+}
@@ -0,0 +1,545 @@
+package collecting;
+
+import java.io.*;
+import java.lang.reflect.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.*;
+import java.util.stream.*;
+
+/**
+ * An in-memory table that stores the components of a record type in columns: String
+ * components are dictionary-encoded into an int[] of codes, and int, long and double
+ * components are kept in primitive arrays. Group-by aggregations run in tight loops over
+ * these arrays, in parallel chunks, instead of over a stream of record objects.
+ * @param <R> the record type of the rows
+ * @version 1.00 2026-10-19
+ */
+public class ColumnarTable<R extends Record>
+{
+   private static final int CHUNK_SIZE = 1 << 16;
+
+   private final Class<R> type;
+   private final RecordComponent[] components;
+   private final Column[] columns;
+   private int size;
+
+   private ColumnarTable(Class<R> type)
+   {
+      this.type = type;
+      components = type.getRecordComponents();
+      columns = new Column[components.length];
+      for (int i = 0; i < components.length; i++)
+      {
+         Class<?> t = components[i].getType();
+         if (t == String.class) columns[i] = new StringColumn();
+         else if (t == int.class) columns[i] = new IntColumn();
+         else if (t == long.class) columns[i] = new LongColumn();
+         else if (t == double.class) columns[i] = new DoubleColumn();
+         else throw new IllegalArgumentException("Unsupported component type " + t);
+      }
+   }
+
+   /**
+    * Builds a table from records.
+    * @param type the record class
+    * @param rows the records
+    * @return the table
+    */
+   public static <R extends Record> ColumnarTable<R> of(Class<R> type, Stream<R> rows)
+   {
+      var table = new ColumnarTable<R>(type);
+      rows.forEachOrdered(table::add);
+      return table;
+   }
+
+   /**
+    * Loads a table from a delimited text file in one pass, without creating records. Each
+    * line holds the components in declaration order. Numeric fields are parsed in place.
+    * @param type the record class
+    * @param path the file
+    * @param delimiter the field separator, such as ", "
+    * @return the table
+    */
+   public static <R extends Record> ColumnarTable<R> read(Class<R> type, Path path,
+      String delimiter) throws IOException
+   {
+      var table = new ColumnarTable<R>(type);
+      int n = table.columns.length;
+      try (BufferedReader in = Files.newBufferedReader(path, StandardCharsets.UTF_8))
+      {
+         String line;
+         while ((line = in.readLine()) != null)
+         {
+            if (line.isEmpty()) continue;
+            int start = 0;
+            for (int i = 0; i < n; i++)
+            {
+               int end = i == n - 1 ? line.length() : line.indexOf(delimiter, start);
+               if (end < 0) throw new IOException("Too few fields: " + line);
+               table.columns[i].parse(table.size, line, start, end);
+               start = end + delimiter.length();
+            }
+            table.size++;
+         }
+      }
+      return table;
+   }
+
+   /**
+    * Appends a row.
+    * @param row the record
+    */
+   public void add(R row)
+   {
+      try
+      {
+         for (int i = 0; i < columns.length; i++)
+            columns[i].add(size, components[i].getAccessor().invoke(row));
+         size++;
+      }
+      catch (ReflectiveOperationException e)
+      {
+         throw new IllegalStateException(e);
+      }
+   }
+
+   public int size()
+   {
+      return size;
+   }
+
+   /**
+    * Materializes a row as a record.
+    * @param index the row index
+    * @return the record
+    */
+   public R row(int index)
+   {
+      Objects.checkIndex(index, size);
+      var types = new Class<?>[columns.length];
+      var values = new Object[columns.length];
+      for (int i = 0; i < columns.length; i++)
+      {
+         types[i] = components[i].getType();
+         values[i] = columns[i].get(index);
+      }
+      try
+      {
+         return type.getDeclaredConstructor(types).newInstance(values);
+      }
+      catch (ReflectiveOperationException e)
+      {
+         throw new IllegalStateException(e);
+      }
+   }
+
+   /**
+    * Materializes all rows.
+    * @return a stream of records
+    */
+   public Stream<R> stream()
+   {
+      return IntStream.range(0, size).mapToObj(this::row);
+   }
+
+   /**
+    * Starts a group-by query.
+    * @param keyComponent the name of a String component
+    * @return the query
+    */
+   public GroupBy groupBy(String keyComponent)
+   {
+      Column c = column(keyComponent);
+      if (!(c instanceof StringColumn))
+         throw new IllegalArgumentException(keyComponent + " is not a String component");
+      return new GroupBy((StringColumn) c);
+   }
+
+   private Column column(String name)
+   {
+      for (int i = 0; i < components.length; i++)
+         if (components[i].getName().equals(name)) return columns[i];
+      throw new IllegalArgumentException("No component " + name + " in " + type.getName());
+   }
+
+   /**
+    * A group-by query over a dictionary-encoded key column. Results are maps from key to
+    * aggregate, as with <code>groupingBy(key, downstream)</code>.
+    */
+   public class GroupBy
+   {
+      private final StringColumn key;
+
+      private GroupBy(StringColumn key)
+      {
+         this.key = key;
+      }
+
+      public Map<String, Long> count()
+      {
+         Stats s = stats(null);
+         return toMap(s, g -> s.count[g]);
+      }
+
+      public Map<String, Long> sum(String valueComponent)
+      {
+         Stats s = stats(valueComponent);
+         return toMap(s, g -> s.sum[g]);
+      }
+
+      public Map<String, Double> average(String valueComponent)
+      {
+         Stats s = stats(valueComponent);
+         return toMap(s, g -> (double) s.sum[g] / s.count[g]);
+      }
+
+      public Map<String, Long> min(String valueComponent)
+      {
+         Stats s = stats(valueComponent);
+         return toMap(s, g -> s.min[g]);
+      }
+
+      public Map<String, Long> max(String valueComponent)
+      {
+         Stats s = stats(valueComponent);
+         return toMap(s, g -> s.max[g]);
+      }
+
+      /**
+       * Computes count, sum, min and max of an int component in one pass, with the same
+       * results as <code>groupingBy(key, summarizingInt(value))</code>.
+       * @param valueComponent the name of an int component
+       * @return the statistics for each key
+       */
+      public Map<String, IntSummaryStatistics> summarizingInt(String valueComponent)
+      {
+         if (!(column(valueComponent) instanceof IntColumn))
+            throw new IllegalArgumentException(valueComponent + " is not an int component");
+         Stats s = stats(valueComponent);
+         return toMap(s, g -> new IntSummaryStatistics(s.count[g], (int) s.min[g], (int) s.max[g],
+            s.sum[g]));
+      }
+
+      /**
+       * Finds the rows with the largest values in each group.
+       * @param valueComponent the name of an int or long component
+       * @param n the number of rows per group
+       * @return the rows of each group, largest value first
+       */
+      public Map<String, List<R>> topN(String valueComponent, int n)
+      {
+         LongValues values = longValues(valueComponent);
+         int groups = key.dictionary.size();
+         TopN[] result = IntStream.range(0, chunks()).parallel()
+            .mapToObj(c ->
+               {
+                  var top = new TopN[groups];
+                  int[] codes = key.codes;
+                  for (int i = c * CHUNK_SIZE, end = Math.min(size, i + CHUNK_SIZE); i < end; i++)
+                  {
+                     int g = codes[i];
+                     if (top[g] == null) top[g] = new TopN(n);
+                     top[g].offer(i, values.get(i));
+                  }
+                  return top;
+               })
+            .reduce((a, b) ->
+               {
+                  for (int g = 0; g < groups; g++)
+                     if (a[g] == null) a[g] = b[g];
+                     else if (b[g] != null) a[g].merge(b[g]);
+                  return a;
+               })
+            .orElse(new TopN[groups]);
+         var map = new HashMap<String, List<R>>();
+         for (int g = 0; g < groups; g++)
+            if (result[g] != null)
+               map.put(key.dictionary.get(g),
+                  Arrays.stream(result[g].rowsDescending()).mapToObj(ColumnarTable.this::row).toList());
+         return map;
+      }
+
+      /**
+       * Aggregates a value column by key code, one chunk of rows per task.
+       */
+      private Stats stats(String valueComponent)
+      {
+         LongValues values = valueComponent == null ? i -> 0 : longValues(valueComponent);
+         int groups = key.dictionary.size();
+         return IntStream.range(0, chunks()).parallel()
+            .mapToObj(c ->
+               {
+                  var s = new Stats(groups);
+                  int from = c * CHUNK_SIZE;
+                  s.accumulate(key.codes, values, from, Math.min(size, from + CHUNK_SIZE));
+                  return s;
+               })
+            .reduce(Stats::merge)
+            .orElse(new Stats(groups));
+      }
+
+      private LongValues longValues(String valueComponent)
+      {
+         Column c = column(valueComponent);
+         if (c instanceof IntColumn)
+         {
+            int[] v = ((IntColumn) c).values;
+            return i -> v[i];
+         }
+         if (c instanceof LongColumn)
+         {
+            long[] v = ((LongColumn) c).values;
+            return i -> v[i];
+         }
+         throw new IllegalArgumentException(valueComponent + " is not an int or long component");
+      }
+
+      private int chunks()
+      {
+         return (size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+      }
+
+      private <V> Map<String, V> toMap(Stats s, IntFunction<V> aggregate)
+      {
+         var map = new HashMap<String, V>();
+         for (int g = 0; g < s.count.length; g++)
+            if (s.count[g] > 0) map.put(key.dictionary.get(g), aggregate.apply(g));
+         return map;
+      }
+   }
+
+   @FunctionalInterface
+   private interface LongValues
+   {
+      long get(int row);
+   }
+
+   /**
+    * Per-group count, sum, min and max, indexed by key code.
+    */
+   private static class Stats
+   {
+      final long[] count;
+      final long[] sum;
+      final long[] min;
+      final long[] max;
+
+      Stats(int groups)
+      {
+         count = new long[groups];
+         sum = new long[groups];
+         min = new long[groups];
+         max = new long[groups];
+         Arrays.fill(min, Long.MAX_VALUE);
+         Arrays.fill(max, Long.MIN_VALUE);
+      }
+
+      void accumulate(int[] codes, LongValues values, int from, int to)
+      {
+         for (int i = from; i < to; i++)
+         {
+            int g = codes[i];
+            long v = values.get(i);
+            count[g]++;
+            sum[g] += v;
+            if (v < min[g]) min[g] = v;
+            if (v > max[g]) max[g] = v;
+         }
+      }
+
+      Stats merge(Stats other)
+      {
+         for (int g = 0; g < count.length; g++)
+         {
+            count[g] += other.count[g];
+            sum[g] += other.sum[g];
+            min[g] = Math.min(min[g], other.min[g]);
+            max[g] = Math.max(max[g], other.max[g]);
+         }
+         return this;
+      }
+   }
+
+   /**
+    * The n rows with the largest values seen so far, in a min-heap on the value.
+    */
+   private static class TopN
+   {
+      private final int[] rows;
+      private final long[] values;
+      private int size;
+
+      TopN(int n)
+      {
+         rows = new int[n];
+         values = new long[n];
+      }
+
+      void offer(int row, long value)
+      {
+         if (size < rows.length)
+         {
+            int i = size++;
+            rows[i] = row;
+            values[i] = value;
+            siftUp(i);
+         }
+         else if (rows.length > 0 && value > values[0])
+         {
+            rows[0] = row;
+            values[0] = value;
+            siftDown(0);
+         }
+      }
+
+      void merge(TopN other)
+      {
+         for (int i = 0; i < other.size; i++) offer(other.rows[i], other.values[i]);
+      }
+
+      int[] rowsDescending()
+      {
+         Integer[] order = new Integer[size];
+         for (int i = 0; i < size; i++) order[i] = i;
+         Arrays.sort(order, (a, b) -> values[a] != values[b] ? Long.compare(values[b], values[a])
+            : Integer.compare(rows[a], rows[b]));
+         return Arrays.stream(order).mapToInt(i -> rows[i]).toArray();
+      }
+
+      private void siftUp(int i)
+      {
+         while (i > 0)
+         {
+            int parent = (i - 1) / 2;
+            if (values[parent] <= values[i]) return;
+            swap(i, parent);
+            i = parent;
+         }
+      }
+
+      private void siftDown(int i)
+      {
+         while (true)
+         {
+            int smallest = i;
+            for (int c = 2 * i + 1; c <= 2 * i + 2 && c < size; c++)
+               if (values[c] < values[smallest]) smallest = c;
+            if (smallest == i) return;
+            swap(i, smallest);
+            i = smallest;
+         }
+      }
+
+      private void swap(int i, int j)
+      {
+         int r = rows[i];
+         rows[i] = rows[j];
+         rows[j] = r;
+         long v = values[i];
+         values[i] = values[j];
+         values[j] = v;
+      }
+   }
+
+   private abstract static class Column
+   {
+      abstract void add(int row, Object value);
+      abstract void parse(int row, String line, int start, int end);
+      abstract Object get(int row);
+   }
+
+   private static class StringColumn extends Column
+   {
+      int[] codes = new int[16];
+      final List<String> dictionary = new ArrayList<>();
+      final Map<String, Integer> index = new HashMap<>();
+
+      void add(int row, Object value)
+      {
+         if (row == codes.length) codes = Arrays.copyOf(codes, 2 * row);
+         codes[row] = index.computeIfAbsent((String) value, v ->
+            {
+               dictionary.add(v);
+               return dictionary.size() - 1;
+            });
+      }
+
+      void parse(int row, String line, int start, int end)
+      {
+         add(row, line.substring(start, end));
+      }
+
+      Object get(int row)
+      {
+         return dictionary.get(codes[row]);
+      }
+   }
+
+   private static class IntColumn extends Column
+   {
+      int[] values = new int[16];
+
+      void add(int row, Object value)
+      {
+         if (row == values.length) values = Arrays.copyOf(values, 2 * row);
+         values[row] = (Integer) value;
+      }
+
+      void parse(int row, String line, int start, int end)
+      {
+         if (row == values.length) values = Arrays.copyOf(values, 2 * row);
+         values[row] = Integer.parseInt(line, start, end, 10);
+      }
+
+      Object get(int row)
+      {
+         return values[row];
+      }
+   }
+
+   private static class LongColumn extends Column
+   {
+      long[] values = new long[16];
+
+      void add(int row, Object value)
+      {
+         if (row == values.length) values = Arrays.copyOf(values, 2 * row);
+         values[row] = (Long) value;
+      }
+
+      void parse(int row, String line, int start, int end)
+      {
+         if (row == values.length) values = Arrays.copyOf(values, 2 * row);
+         values[row] = Long.parseLong(line, start, end, 10);
+      }
+
+      Object get(int row)
+      {
+         return values[row];
+      }
+   }
+
+   private static class DoubleColumn extends Column
+   {
+      double[] values = new double[16];
+
+      void add(int row, Object value)
+      {
+         if (row == values.length) values = Arrays.copyOf(values, 2 * row);
+         values[row] = (Double) value;
+      }
+
+      void parse(int row, String line, int start, int end)
+      {
+         if (row == values.length) values = Arrays.copyOf(values, 2 * row);
+         values[row] = Double.parseDouble(line.substring(start, end));
+      }
+
+      Object get(int row)
+      {
+         return values[row];
+      }
+   }
+}
@@ -0,0 +1,456 @@
+package collecting;
+
+import java.io.*;
+import java.lang.invoke.*;
+import java.lang.reflect.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.*;
+import java.util.stream.*;
+
+/**
+ * Reads a delimited text file, such as cities.txt or a CSV or TSV file without quoting,
+ * into records whose components are in the order of the fields. The file is
+ * memory-mapped and split at byte positions, so that a parallel stream parses separate
+ * parts of the file in separate threads. Numeric fields are parsed from the bytes of the
+ * file without making a String, and the fields of a line are passed to the canonical
+ * constructor through a method handle that is composed once per record type.
+ * <p>Supported component types are String, int, long, double, and boolean. Lines end in
+ * "\n" or "\r\n", blank lines are skipped, and fields after the last component are
+ * ignored.
+ * @param <R> the record type
+ * @version 1.00 2026-10-19
+ */
+public class RecordReader<R extends Record>
+{
+   private static final int WINDOW_SHIFT = 30; // map 1 GB at a time
+   private static final int MAX_LINE = 1 << 20;
+   private static final long MIN_SPLIT = 1 << 20;
+
+   private final Class<R> type;
+   private final byte[] delimiter;
+   private final int fieldCount;
+   private final MethodHandle binder; // (Fields)Object
+   private final boolean header;
+
+   private RecordReader(Class<R> type, byte[] delimiter, int fieldCount, MethodHandle binder,
+      boolean header)
+   {
+      this.type = type;
+      this.delimiter = delimiter;
+      this.fieldCount = fieldCount;
+      this.binder = binder;
+      this.header = header;
+   }
+
+   /**
+    * Makes a reader for a record type.
+    * @param type the record class
+    * @param delimiter the field separator, such as ", " or "\t"
+    * @return the reader
+    */
+   public static <R extends Record> RecordReader<R> of(Class<R> type, String delimiter)
+   {
+      if (delimiter.isEmpty() || delimiter.indexOf('\n') >= 0)
+         throw new IllegalArgumentException("Bad delimiter " + delimiter);
+      RecordComponent[] components = type.getRecordComponents();
+      if (components == null) throw new IllegalArgumentException(type + " is not a record");
+      var types = new Class<?>[components.length];
+      var getters = new MethodHandle[components.length];
+      try
+      {
+         MethodHandles.Lookup lookup = MethodHandles.lookup();
+         for (int i = 0; i < components.length; i++)
+         {
+            types[i] = components[i].getType();
+            String name = types[i] == String.class ? "stringAt" : types[i] == int.class ? "intAt"
+               : types[i] == long.class ? "longAt" : types[i] == double.class ? "doubleAt"
+               : types[i] == boolean.class ? "booleanAt" : null;
+            if (name == null)
+               throw new IllegalArgumentException("Unsupported component type " + types[i]);
+            MethodHandle getter = lookup.findVirtual(Fields.class, name,
+               MethodType.methodType(types[i], int.class));
+            getters[i] = MethodHandles.insertArguments(getter, 1, i); // (Fields)type
+         }
+         Constructor<R> constructor = type.getDeclaredConstructor(types);
+         constructor.setAccessible(true);
+         // (type0, type1, ...)R becomes (Fields, Fields, ...)R and then (Fields)R
+         MethodHandle binder = MethodHandles.filterArguments(
+            lookup.unreflectConstructor(constructor), 0, getters);
+         binder = MethodHandles.permuteArguments(binder,
+            MethodType.methodType(type, Fields.class), new int[components.length]);
+         return new RecordReader<>(type, delimiter.getBytes(StandardCharsets.UTF_8),
+            components.length, binder.asType(MethodType.methodType(Object.class, Fields.class)),
+            false);
+      }
+      catch (ReflectiveOperationException e)
+      {
+         throw new IllegalArgumentException(e);
+      }
+   }
+
+   /**
+    * Makes a reader that skips the first line of the file.
+    * @return the reader
+    */
+   public RecordReader<R> withHeader()
+   {
+      return new RecordReader<>(type, delimiter, fieldCount, binder, true);
+   }
+
+   /**
+    * Gets the records of a file.
+    * @param path the path to a UTF-8 file
+    * @param parallel true for a parallel stream
+    * @return the stream of records
+    */
+   public Stream<R> lines(Path path, boolean parallel) throws IOException
+   {
+      var file = new MappedFile(path);
+      return StreamSupport.stream(new LineSpliterator(file, 0, file.size), parallel);
+   }
+
+   /**
+    * Parses a single line.
+    * @param line a line without the line terminator
+    * @return the record
+    */
+   public R parse(String line)
+   {
+      ByteBuffer buffer = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+      var fields = new Fields(fieldCount, delimiter);
+      fields.split(buffer, 0, buffer.limit(), 0);
+      return bind(fields);
+   }
+
+   private R bind(Fields fields)
+   {
+      try
+      {
+         return type.cast((Object) binder.invokeExact(fields));
+      }
+      catch (RuntimeException | Error e)
+      {
+         throw e;
+      }
+      catch (Throwable e)
+      {
+         throw new IllegalStateException(e);
+      }
+   }
+
+   /**
+    * A spliterator that owns the lines starting in [position, end). It reads its last line
+    * past its end, and skips the tail of a line that started before its beginning.
+    */
+   private class LineSpliterator implements Spliterator<R>
+   {
+      private final MappedFile file;
+      private long position;
+      private final long end;
+      private boolean started;
+      private final Fields fields = new Fields(fieldCount, delimiter);
+
+      LineSpliterator(MappedFile file, long start, long end)
+      {
+         this.file = file;
+         this.position = start;
+         this.end = end;
+      }
+
+      public boolean tryAdvance(Consumer<? super R> action)
+      {
+         if (!started)
+         {
+            started = true;
+            if (position < file.size
+               && (position > 0 ? file.get(position - 1) != '\n' : header))
+               position = nextLine(position);
+         }
+         while (position < end)
+         {
+            ByteBuffer window = file.window(position);
+            int from = file.offset(position);
+            int to = lineEnd(window, from);
+            position += to - from + 1;
+            if (to > from && window.get(to - 1) == '\r') to--;
+            if (to > from)
+            {
+               fields.split(window, from, to, position);
+               action.accept(bind(fields));
+               return true;
+            }
+         }
+         return false;
+      }
+
+      private long nextLine(long pos)
+      {
+         ByteBuffer window = file.window(pos);
+         int from = file.offset(pos);
+         return pos + lineEnd(window, from) - from + 1;
+      }
+
+      /**
+       * Finds the newline that ends a line, or the end of the file.
+       */
+      private int lineEnd(ByteBuffer window, int from)
+      {
+         int limit = window.limit();
+         for (int i = from; i < limit; i++)
+            if (window.get(i) == '\n') return i;
+         if (file.isLast(window)) return limit;
+         throw new UncheckedIOException(new IOException("Line longer than " + MAX_LINE
+            + " bytes near byte " + position));
+      }
+
+      public Spliterator<R> trySplit()
+      {
+         if (started || end - position < 2 * MIN_SPLIT) return null;
+         long mid = position + (end - position) / 2;
+         var prefix = new LineSpliterator(file, position, mid);
+         position = mid;
+         return prefix;
+      }
+
+      public long estimateSize()
+      {
+         return (end - position) / 32;
+      }
+
+      public int characteristics()
+      {
+         return ORDERED | NONNULL | IMMUTABLE;
+      }
+   }
+
+   /**
+    * The field boundaries of the current line, and the parsers that the binder calls.
+    */
+   private static class Fields
+   {
+      private static final double[] POWERS_OF_TEN = {
+         1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+         1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+      private final byte[] delimiter;
+      private final int fieldCount;
+      private final int[] starts;
+      private final int[] ends;
+      private ByteBuffer buffer;
+      private byte[] chars = new byte[64];
+      private long nextLine;
+
+      Fields(int fieldCount, byte[] delimiter)
+      {
+         this.fieldCount = fieldCount;
+         this.delimiter = delimiter;
+         starts = new int[fieldCount];
+         ends = new int[fieldCount];
+      }
+
+      void split(ByteBuffer buffer, int from, int to, long nextLine)
+      {
+         this.buffer = buffer;
+         this.nextLine = nextLine;
+         byte first = delimiter[0];
+         int start = from;
+         for (int k = 0; k < fieldCount; k++)
+         {
+            starts[k] = start;
+            int i = start;
+            if (k < fieldCount - 1)
+            {
+               while (i < to && !(buffer.get(i) == first && matchesDelimiter(i, to))) i++;
+               if (i == to)
+                  throw new UncheckedIOException(new IOException("Only " + (k + 1)
+                     + " fields" + where()));
+            }
+            else
+               while (i < to && !(buffer.get(i) == first && matchesDelimiter(i, to))) i++;
+            ends[k] = i;
+            start = i + delimiter.length;
+         }
+      }
+
+      private boolean matchesDelimiter(int i, int to)
+      {
+         if (i + delimiter.length > to) return false;
+         for (int j = 1; j < delimiter.length; j++)
+            if (buffer.get(i + j) != delimiter[j]) return false;
+         return true;
+      }
+
+      String stringAt(int k)
+      {
+         int length = ends[k] - starts[k];
+         if (length > chars.length) chars = new byte[Math.max(length, 2 * chars.length)];
+         buffer.get(starts[k], chars, 0, length);
+         return new String(chars, 0, length, StandardCharsets.UTF_8);
+      }
+
+      int intAt(int k)
+      {
+         long value = parseLong(k);
+         if ((int) value != value) throw numberFormat(k);
+         return (int) value;
+      }
+
+      long longAt(int k)
+      {
+         return parseLong(k);
+      }
+
+      /**
+       * Parses a long value in the way of Long.parseLong, accumulating a negative value
+       * so that Long.MIN_VALUE can be represented.
+       */
+      private long parseLong(int k)
+      {
+         int i = starts[k];
+         int to = ends[k];
+         if (i == to) throw numberFormat(k);
+         boolean negative = false;
+         byte b = buffer.get(i);
+         if (b == '-' || b == '+')
+         {
+            negative = b == '-';
+            if (++i == to) throw numberFormat(k);
+         }
+         long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+         long result = 0;
+         for (; i < to; i++)
+         {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9 || result < limit / 10) throw numberFormat(k);
+            result *= 10;
+            if (result < limit + digit) throw numberFormat(k);
+            result -= digit;
+         }
+         return negative ? result : -result;
+      }
+
+      /**
+       * Parses a double value. Decimal numbers with at most 15 significant digits and
+       * small exponents are computed as mantissa * 10^exponent, which is correctly rounded
+       * since both factors are exact doubles. Everything else goes to Double.parseDouble.
+       */
+      double doubleAt(int k)
+      {
+         int i = starts[k];
+         int to = ends[k];
+         boolean negative = false;
+         if (i < to && (buffer.get(i) == '-' || buffer.get(i) == '+')) negative = buffer.get(i++) == '-';
+         long mantissa = 0;
+         int digits = 0;
+         int exponent = 0;
+         boolean point = false;
+         boolean any = false;
+         for (; i < to; i++)
+         {
+            byte b = buffer.get(i);
+            if (b >= '0' && b <= '9')
+            {
+               any = true;
+               if (mantissa != 0 || b != '0') digits++;
+               mantissa = mantissa * 10 + b - '0';
+               if (point) exponent--;
+            }
+            else if (b == '.' && !point) point = true;
+            else break;
+         }
+         if (i < to && (buffer.get(i) == 'e' || buffer.get(i) == 'E') && any)
+         {
+            int j = i + 1;
+            boolean negativeExponent = false;
+            if (j < to && (buffer.get(j) == '-' || buffer.get(j) == '+'))
+               negativeExponent = buffer.get(j++) == '-';
+            int e = 0;
+            while (j < to && buffer.get(j) >= '0' && buffer.get(j) <= '9' && e < 1000)
+               e = e * 10 + buffer.get(j++) - '0';
+            if (j == to && j > i + 1)
+            {
+               exponent += negativeExponent ? -e : e;
+               i = j;
+            }
+         }
+         if (i == to && any && digits <= 15 && Math.abs(exponent) <= 22)
+         {
+            double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent]
+               : mantissa * POWERS_OF_TEN[exponent];
+            return negative ? -value : value;
+         }
+         return Double.parseDouble(stringAt(k));
+      }
+
+      boolean booleanAt(int k)
+      {
+         return stringAt(k).equalsIgnoreCase("true");
+      }
+
+      private NumberFormatException numberFormat(int k)
+      {
+         return new NumberFormatException("For input string: \"" + stringAt(k) + "\"" + where());
+      }
+
+      private String where()
+      {
+         return nextLine > 0 ? " in line before byte " + nextLine : "";
+      }
+   }
+
+   /**
+    * A read-only mapping of a file in windows of 2^WINDOW_SHIFT bytes. Each window
+    * extends MAX_LINE bytes into the next one, so that a line starting in a window ends in
+    * it.
+    */
+   private static class MappedFile
+   {
+      private final MappedByteBuffer[] windows;
+      private final long size;
+
+      MappedFile(Path path) throws IOException
+      {
+         try (FileChannel channel = FileChannel.open(path))
+         {
+            size = channel.size();
+            long windowSize = 1L << WINDOW_SHIFT;
+            windows = new MappedByteBuffer[(int) ((size + windowSize - 1) / windowSize)];
+            for (int i = 0; i < windows.length; i++)
+            {
+               long start = i * windowSize;
+               windows[i] = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                  Math.min(windowSize + MAX_LINE, size - start));
+            }
+         }
+      }
+
+      ByteBuffer window(long pos)
+      {
+         return windows[(int) (pos >>> WINDOW_SHIFT)];
+      }
+
+      int offset(long pos)
+      {
+         return (int) (pos & ((1 << WINDOW_SHIFT) - 1));
+      }
+
+      /**
+       * Tests whether a window extends to the end of the file.
+       */
+      boolean isLast(ByteBuffer window)
+      {
+         for (int i = windows.length - 1; i >= 0; i--)
+            if (windows[i] == window) return ((long) i << WINDOW_SHIFT) + window.limit() == size;
+         return false;
+      }
+
+      byte get(long pos)
+      {
+         return window(pos).get(offset(pos));
+      }
+   }
+}
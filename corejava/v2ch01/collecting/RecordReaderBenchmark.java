@@ -0,0 +1,107 @@
+package collecting;
+
+import static java.util.stream.Collectors.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import collecting.DownstreamCollectors.City;
+import util.*;
+
+/**
+ * This program reads a file made of copies of cities.txt into City records, with
+ * Files.lines and split as in DownstreamCollectors.readCities, and with a RecordReader in
+ * fork-join pools of increasing size. It reports the throughput in MB/s and checks that
+ * the population totals per state agree, exiting with status 1 if they do not.
+ * Usage: java collecting.RecordReaderBenchmark [sizeInMB]
+ * @version 1.01 2026-10-19
+ */
+public class RecordReaderBenchmark
+{
+   private static final int ROUNDS = 3;
+
+   private static int mismatches;
+
+   public static void main(String[] args) throws Exception
+   {
+      int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+      byte[] cities = Files.readAllBytes(Path.of("cities.txt"));
+      Path file = Files.createTempFile("cities", ".txt");
+      try
+      {
+         try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file)))
+         {
+            for (long written = 0; written < (long) megabytes << 20; written += cities.length)
+               out.write(cities);
+         }
+         long bytes = Files.size(file);
+         System.out.printf("%,d MB%n", bytes >> 20);
+
+         Map<String, Long> expected = measure("Files.lines + split", bytes,
+            () -> DownstreamCollectors.readCities(file.toString())
+               .collect(groupingBy(City::state, summingLong(City::population))));
+         check(expected, measure("Files.lines + split, parallel", bytes,
+            () -> DownstreamCollectors.readCities(file.toString()).parallel()
+               .collect(groupingBy(City::state, summingLong(City::population)))));
+
+         RecordReader<City> reader = RecordReader.of(City.class, ", ");
+         check(expected, measure("RecordReader, sequential", bytes,
+            () -> read(reader, file, false)));
+         int processors = Runtime.getRuntime().availableProcessors();
+         for (int threads = 1; threads <= Math.max(processors, 4); threads *= 2)
+         {
+            var pool = new ForkJoinPool(threads);
+            try
+            {
+               check(expected, measure("RecordReader, " + threads + " threads", bytes,
+                  () -> pool.submit(() -> read(reader, file, true)).join()));
+            }
+            finally
+            {
+               pool.shutdown();
+            }
+         }
+      }
+      finally
+      {
+         Files.delete(file);
+      }
+
+      if (mismatches > 0)
+      {
+         System.out.printf("%d results differ%n", mismatches);
+         System.exit(1);
+      }
+   }
+
+   private static Map<String, Long> read(RecordReader<City> reader, Path file, boolean parallel)
+   {
+      try
+      {
+         return reader.lines(file, parallel)
+            .collect(groupingBy(City::state, summingLong(City::population)));
+      }
+      catch (IOException e)
+      {
+         throw new UncheckedIOException(e);
+      }
+   }
+
+   private static void check(Map<String, Long> expected, Map<String, Long> actual)
+   {
+      if (!expected.equals(actual))
+      {
+         System.out.println("   DIFFERENT RESULT");
+         mismatches++;
+      }
+   }
+
+   private static <T> T measure(String name, long bytes, BestOf.Task<T> task) throws Exception
+   {
+      BestOf.Result<T> r = BestOf.time(ROUNDS, task);
+      System.out.printf("   %-32s %8.1f MB/s%n", name, bytes / (r.nanos() / 1e9) / (1 << 20));
+      return r.value();
+   }
+}
@@ -0,0 +1,129 @@
+package optional;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+/**
+ * An Optional that is computed when it is first needed, and then remembered. The map,
+ * flatMap, filter, and or methods build further lazy values without computing anything,
+ * so a chain such as
+ * <pre>
+ * LazyOptional.of(() -&gt; inverse(x)).flatMap(OptionalTest::squareRoot)
+ * </pre>
+ * costs nothing until get is called, and the lookups run at most once no matter how often
+ * get is called or from how many threads.
+ * @version 1.00 2026-10-19
+ */
+public class LazyOptional<T> implements Supplier<Optional<T>>
+{
+   private Supplier<Optional<T>> supplier;
+   private volatile Optional<T> value;
+
+   private LazyOptional(Supplier<Optional<T>> supplier)
+   {
+      this.supplier = supplier;
+   }
+
+   /**
+    * Makes a lazy optional.
+    * @param supplier the computation, which must not yield null
+    * @return a lazy optional that calls the supplier at most once
+    */
+   public static <T> LazyOptional<T> of(Supplier<Optional<T>> supplier)
+   {
+      return new LazyOptional<>(Objects.requireNonNull(supplier));
+   }
+
+   /**
+    * Makes a lazy optional from a computation that may yield null.
+    * @param supplier the computation
+    * @return a lazy optional that calls the supplier at most once
+    */
+   public static <T> LazyOptional<T> ofNullable(Supplier<? extends T> supplier)
+   {
+      return of(() -> Optional.ofNullable(supplier.get()));
+   }
+
+   /**
+    * Computes the value if that has not happened yet.
+    * @return the value
+    */
+   public Optional<T> get()
+   {
+      Optional<T> result = value;
+      if (result == null)
+      {
+         synchronized (this)
+         {
+            result = value;
+            if (result == null)
+            {
+               result = Objects.requireNonNull(supplier.get(), "supplier yielded null");
+               value = result;
+               supplier = null; // let the captured values be collected
+            }
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Tests whether the value has been computed, without computing it.
+    */
+   public boolean isEvaluated()
+   {
+      return value != null;
+   }
+
+   public <U> LazyOptional<U> map(Function<? super T, ? extends U> f)
+   {
+      return of(() -> get().map(f));
+   }
+
+   public <U> LazyOptional<U> flatMap(Function<? super T, ? extends Optional<? extends U>> f)
+   {
+      return of(() -> get().flatMap(f));
+   }
+
+   public LazyOptional<T> filter(Predicate<? super T> p)
+   {
+      return of(() -> get().filter(p));
+   }
+
+   public LazyOptional<T> or(Supplier<? extends Optional<? extends T>> other)
+   {
+      return of(() -> get().or(other));
+   }
+
+   public String toString()
+   {
+      Optional<T> result = value;
+      return result == null ? "LazyOptional[not evaluated]" : "Lazy" + result;
+   }
+
+   /**
+    * Remembers the results of an Optional-returning lookup, so that it can be used
+    * repeatedly in flatMap chains and from several threads. Each key is normally looked up
+    * once; if two threads ask for a new key at the same time, both may call the lookup, and
+    * the first result is kept. The lookup may itself call the memoized function, such as
+    * for a recursive definition.
+    * @param lookup a function that does not yield null, and whose keys are not null
+    * @return the memoizing function
+    */
+   public static <K, V> Function<K, Optional<V>> memoize(Function<? super K, Optional<V>> lookup)
+   {
+      var cache = new ConcurrentHashMap<K, Optional<V>>();
+      return key ->
+         {
+            Optional<V> result = cache.get(key);
+            if (result == null)
+            {
+               result = Objects.requireNonNull(lookup.apply(key), "lookup yielded null");
+               Optional<V> previous = cache.putIfAbsent(key, result);
+               if (previous != null) result = previous;
+            }
+            return result;
+         };
+   }
+}
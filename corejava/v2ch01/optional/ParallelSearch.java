@@ -0,0 +1,181 @@
+package optional;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+
+/**
+ * Parallel searches over lists and arrays that stop all tasks as soon as the answer is
+ * known, and report how many elements they examined. Once any task of a findAny search
+ * finds a match, the running tasks stop at their next check, and the tasks that have not
+ * started yet return without looking at their ranges. The search returns when all tasks
+ * have stopped, so that the count of examined elements is final. A findFirst search keeps
+ * searching to the left of the best match so far, but every task to the right of it gives
+ * up.
+ * @version 1.00 2026-10-19
+ */
+public class ParallelSearch
+{
+   private static final int LEAF_SIZE = 1 << 13;
+   private static final int CHECK_INTERVAL = 1 << 10;
+
+   private ParallelSearch() {}
+
+   /**
+    * The outcome of a search.
+    * @param value the matching element, if any
+    * @param index the index of the matching element, or -1
+    * @param examined the number of elements that were tested
+    * @param size the number of elements
+    */
+   public record Result<T>(Optional<T> value, int index, long examined, int size)
+   {
+      public long skipped()
+      {
+         return size - examined;
+      }
+
+      public String toString()
+      {
+         return "%s at %d, examined %,d of %,d (%.1f%% skipped)".formatted(value, index, examined,
+            size, size == 0 ? 0.0 : 100.0 * skipped() / size);
+      }
+   }
+
+   public static <T> Result<T> findAny(List<? extends T> list, Predicate<? super T> p)
+   {
+      return result(list, search(list.size(), i -> p.test(list.get(i)), false,
+         ForkJoinPool.commonPool()));
+   }
+
+   public static <T> Result<T> findFirst(List<? extends T> list, Predicate<? super T> p)
+   {
+      return result(list, search(list.size(), i -> p.test(list.get(i)), true,
+         ForkJoinPool.commonPool()));
+   }
+
+   public static <T> boolean anyMatch(List<? extends T> list, Predicate<? super T> p)
+   {
+      return findAny(list, p).index() >= 0;
+   }
+
+   public static Result<Integer> findAny(int[] values, IntPredicate p)
+   {
+      return findAny(values, p, ForkJoinPool.commonPool());
+   }
+
+   public static Result<Integer> findAny(int[] values, IntPredicate p, ForkJoinPool pool)
+   {
+      return result(values, search(values.length, i -> p.test(values[i]), false, pool));
+   }
+
+   public static Result<Integer> findFirst(int[] values, IntPredicate p)
+   {
+      return findFirst(values, p, ForkJoinPool.commonPool());
+   }
+
+   public static Result<Integer> findFirst(int[] values, IntPredicate p, ForkJoinPool pool)
+   {
+      return result(values, search(values.length, i -> p.test(values[i]), true, pool));
+   }
+
+   public static boolean anyMatch(int[] values, IntPredicate p)
+   {
+      return findAny(values, p).index() >= 0;
+   }
+
+   private static <T> Result<T> result(List<? extends T> list, Search search)
+   {
+      int index = search.index();
+      return new Result<>(index < 0 ? Optional.empty() : Optional.of(list.get(index)), index,
+         search.examined(), list.size());
+   }
+
+   private static Result<Integer> result(int[] values, Search search)
+   {
+      int index = search.index();
+      return new Result<>(index < 0 ? Optional.empty() : Optional.of(values[index]), index,
+         search.examined(), values.length);
+   }
+
+   private record Search(int index, long examined) {}
+
+   private static Search search(int size, IntPredicate matchesAt, boolean first, ForkJoinPool pool)
+   {
+      var found = new AtomicInteger(first ? Integer.MAX_VALUE : -1);
+      var examined = new LongAdder();
+      pool.invoke(new Searcher(null, matchesAt, first, found, examined, 0, size));
+      int index = found.get();
+      return new Search(index == Integer.MAX_VALUE ? -1 : index, examined.sum());
+   }
+
+   /**
+    * Searches [lo, hi), forking the right half of its range until the rest is a leaf. For
+    * findAny, found holds the index of a match or -1, and the other tasks stop when they see
+    * it. For findFirst, found holds the smallest matching index so far or
+    * Integer.MAX_VALUE, and tasks stop at it.
+    */
+   private static class Searcher extends CountedCompleter<Void>
+   {
+      private static final long serialVersionUID = 1L;
+
+      // the predicate is usually a lambda, and searchers are never serialized
+      private final transient IntPredicate matchesAt;
+      private final boolean first;
+      private final AtomicInteger found;
+      private final LongAdder examined;
+      private final int lo;
+      private final int hi;
+
+      Searcher(Searcher parent, IntPredicate matchesAt, boolean first, AtomicInteger found,
+         LongAdder examined, int lo, int hi)
+      {
+         super(parent);
+         this.matchesAt = matchesAt;
+         this.first = first;
+         this.found = found;
+         this.examined = examined;
+         this.lo = lo;
+         this.hi = hi;
+      }
+
+      private boolean done(int position)
+      {
+         int f = found.get();
+         return first ? f <= position : f >= 0;
+      }
+
+      public void compute()
+      {
+         int l = lo;
+         int h = hi;
+         while (h - l > LEAF_SIZE && !done(l))
+         {
+            int mid = (l + h) >>> 1;
+            addToPendingCount(1);
+            new Searcher(this, matchesAt, first, found, examined, mid, h).fork();
+            h = mid;
+         }
+         int i = l;
+         while (i < h && !done(i))
+         {
+            int end = Math.min(h, i + CHECK_INTERVAL);
+            int start = i;
+            while (i < end && !matchesAt.test(i)) i++;
+            examined.add(Math.min(i + 1, end) - start);
+            if (i < end)
+            {
+               if (first)
+               {
+                  int f;
+                  while (i < (f = found.get()) && !found.compareAndSet(f, i)) {}
+               }
+               else found.compareAndSet(-1, i);
+               break;
+            }
+         }
+         tryComplete();
+      }
+   }
+}
@@ -0,0 +1,115 @@
+package optional;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+import java.util.stream.*;
+
+import util.*;
+
+/**
+ * This program compares parallelStream().findFirst() and findAny() with the searches of
+ * ParallelSearch on an int[] of random values, with the match near the start, in the
+ * middle, near the end, or missing, and exits with status 1 if a search finds the wrong
+ * element. It also shows ParallelSearch and LazyOptional on the lookups of OptionalTest.
+ * Usage: java optional.SearchBenchmark [size]
+ * @version 1.01 2026-10-19
+ */
+public class SearchBenchmark
+{
+   private static final int ROUNDS = 5;
+
+   public static void main(String[] args) throws Exception
+   {
+      int size = args.length > 0 ? Integer.parseInt(args[0]) : 100_000_000;
+      // Values below 2^30, so that -1 is never found
+      int[] values = new SplittableRandom(42).ints(size, 0, 1 << 30).toArray();
+      System.out.printf("%,d elements%n", size);
+
+      int[] positions = { 1000, size / 2, size - 1000, -1 };
+      String[] names = { "near start", "middle", "near end", "missing" };
+      int mismatches = 0;
+      for (int k = 0; k < positions.length; k++)
+      {
+         int target = positions[k] < 0 ? -1 : values[positions[k]];
+         System.out.printf("Match %s%n", names[k]);
+         IntPredicate p = v -> v == target;
+         OptionalInt expected = time("parallel().filter().findFirst()",
+            () -> Arrays.stream(values).parallel().filter(p).findFirst());
+         OptionalInt found = time("parallel().filter().findAny()",
+            () -> Arrays.stream(values).parallel().filter(p).findAny());
+         boolean matched = time("parallel().anyMatch()",
+            () -> Arrays.stream(values).parallel().anyMatch(p));
+         ParallelSearch.Result<Integer> first = time("ParallelSearch.findFirst",
+            () -> ParallelSearch.findFirst(values, p));
+         System.out.printf("      %s%n", first);
+         ParallelSearch.Result<Integer> any = time("ParallelSearch.findAny",
+            () -> ParallelSearch.findAny(values, p));
+         System.out.printf("      %s%n", any);
+         // findFirst must find the first match, findAny some match
+         boolean exists = positions[k] >= 0;
+         if (expected.isPresent() != exists || exists && expected.getAsInt() != target
+               || found.isPresent() != exists || matched != exists
+               || first.value().isPresent() != exists
+               || exists && first.index() != firstIndex(values, target)
+               || any.value().isPresent() != exists
+               || exists && values[any.index()] != target)
+         {
+            System.out.println("   DIFFERENT RESULT");
+            mismatches++;
+         }
+      }
+
+      var contents = Files.readString(Path.of("../gutenberg/alice30.txt"));
+      List<String> wordList = List.of(contents.split("\\PL+"));
+      System.out.println("First word containing \"red\": "
+         + ParallelSearch.findFirst(wordList, s -> s.contains("red")));
+      System.out.println("Any word containing \"fred\": "
+         + ParallelSearch.findAny(wordList, s -> s.contains("fred")));
+
+      var calls = new LongAdder();
+      Function<Double, Optional<Double>> inverse = LazyOptional.memoize(x ->
+         {
+            calls.increment();
+            return OptionalTest.inverse(x);
+         });
+      Function<Double, Optional<Double>> squareRoot = LazyOptional.memoize(x ->
+         {
+            calls.increment();
+            return OptionalTest.squareRoot(x);
+         });
+      LazyOptional<Double> lazy = LazyOptional.of(() -> inverse.apply(4.0)).flatMap(squareRoot);
+      System.out.println("Before get: " + lazy + ", " + calls.sum() + " lookups");
+      Optional<Double> root = lazy.get();
+      System.out.println("After get: " + root + ", " + calls.sum() + " lookups");
+      double[] inputs = new SplittableRandom(7).doubles(size / 100, -1, 1)
+         .map(x -> Math.round(x * 1000) / 1000.0).toArray();
+      long present = DoubleStream.of(inputs).parallel().boxed()
+         .map(x -> inverse.apply(x).flatMap(squareRoot))
+         .filter(Optional::isPresent).count();
+      System.out.printf("%,d memoized inverse.flatMap(squareRoot) chains, %,d present, "
+         + "%,d lookups%n", inputs.length, present, calls.sum());
+
+      if (mismatches > 0)
+      {
+         System.out.printf("%d searches differ%n", mismatches);
+         System.exit(1);
+      }
+   }
+
+   private static int firstIndex(int[] values, int target)
+   {
+      for (int i = 0; i < values.length; i++)
+         if (values[i] == target) return i;
+      return -1;
+   }
+
+   private static <T> T time(String name, BestOf.Task<T> task) throws Exception
+   {
+      BestOf.Result<T> r = BestOf.time(ROUNDS, task);
+      System.out.printf("   %-38s %9.2f ms%n", name, r.millis());
+      return r.value();
+   }
+}
@@ -0,0 +1,212 @@
+package parallel;
+
+import java.util.*;
+
+/**
+ * A histogram of long values with a long[] of counts. The bucket layout is given by a
+ * {@link Buckets} object: fixed-width, powers of two, or HDR-style buckets with a bounded
+ * relative error. Histograms are not thread-safe; parallel code gives each thread its own
+ * histogram and merges them, which is what the collectors in
+ * {@link HistogramCollectors} do.
+ * @version 1.00 2026-10-19
+ */
+public class Histogram
+{
+   private final Buckets buckets;
+   private final long[] counts;
+   private long total;
+
+   /**
+    * Constructs an empty histogram.
+    * @param buckets the bucket layout
+    */
+   public Histogram(Buckets buckets)
+   {
+      this.buckets = buckets;
+      counts = new long[buckets.count()];
+   }
+
+   /**
+    * Counts a value.
+    * @param value the value
+    */
+   public void record(long value)
+   {
+      counts[buckets.indexOf(value)]++;
+      total++;
+   }
+
+   /**
+    * Adds the counts of another histogram with the same bucket layout.
+    * @param other the other histogram
+    * @return this histogram
+    */
+   public Histogram merge(Histogram other)
+   {
+      if (!buckets.equals(other.buckets)) throw new IllegalArgumentException("Different buckets");
+      for (int i = 0; i < counts.length; i++) counts[i] += other.counts[i];
+      total += other.total;
+      return this;
+   }
+
+   public Buckets buckets()
+   {
+      return buckets;
+   }
+
+   public long count(int bucket)
+   {
+      return counts[bucket];
+   }
+
+   public long[] counts()
+   {
+      return counts.clone();
+   }
+
+   public long total()
+   {
+      return total;
+   }
+
+   /**
+    * Estimates a percentile as the lower bound of the bucket holding it.
+    * @param percentile a value between 0 and 100
+    * @return the estimate
+    */
+   public long valueAtPercentile(double percentile)
+   {
+      long rank = (long) Math.ceil(percentile / 100 * total);
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++)
+      {
+         seen += counts[i];
+         if (seen >= rank && seen > 0) return buckets.lowerBound(i);
+      }
+      return buckets.lowerBound(counts.length - 1);
+   }
+
+   /**
+    * Shows the non-empty buckets as lowerBound=count.
+    */
+   public String toString()
+   {
+      var result = new StringJoiner(", ", "{", "}");
+      for (int i = 0; i < counts.length; i++)
+         if (counts[i] > 0) result.add(buckets.lowerBound(i) + "=" + counts[i]);
+      return result.toString();
+   }
+
+   /**
+    * A mapping from values to bucket indexes.
+    */
+   public interface Buckets
+   {
+      int count();
+
+      int indexOf(long value);
+
+      long lowerBound(int index);
+
+      /**
+       * Buckets of equal width. Values below min go into the first bucket, and values
+       * beyond the last bucket into the last one.
+       * @param min the lower bound of the first bucket
+       * @param width the width of each bucket
+       * @param count the number of buckets
+       * @return the buckets
+       */
+      static Buckets linear(long min, long width, int count)
+      {
+         return new Linear(min, width, count);
+      }
+
+      /**
+       * Buckets for 0, 1, 2-3, 4-7, ..., up to the bucket holding maxValue. Larger values
+       * go into the last bucket.
+       * @param maxValue the largest expected value
+       * @return the buckets
+       */
+      static Buckets log2(long maxValue)
+      {
+         return new Log2(65 - Long.numberOfLeadingZeros(maxValue));
+      }
+
+      /**
+       * Buckets in the style of HdrHistogram: exact up to 2^subBits, then each power of two
+       * is split into 2^(subBits - 1) buckets, so that the relative error is below
+       * 2^(1 - subBits). Larger values than maxValue go into the last bucket.
+       * @param maxValue the largest expected value
+       * @param significantDigits the number of decimal digits to preserve, between 1 and 5
+       * @return the buckets
+       */
+      static Buckets hdr(long maxValue, int significantDigits)
+      {
+         if (significantDigits < 1 || significantDigits > 5)
+            throw new IllegalArgumentException("significantDigits must be between 1 and 5");
+         long largestExact = 2 * (long) Math.pow(10, significantDigits);
+         int subBits = 64 - Long.numberOfLeadingZeros(largestExact - 1);
+         return new Hdr(subBits, maxValue);
+      }
+   }
+
+   private record Linear(long min, long width, int count) implements Buckets
+   {
+      public int indexOf(long value)
+      {
+         if (value < min) return 0;
+         long i = (value - min) / width;
+         return i >= count ? count - 1 : (int) i;
+      }
+
+      public long lowerBound(int index)
+      {
+         return min + index * width;
+      }
+   }
+
+   private record Log2(int count) implements Buckets
+   {
+      public int indexOf(long value)
+      {
+         if (value < 0) throw new IllegalArgumentException("Negative value " + value);
+         return Math.min(count - 1, 64 - Long.numberOfLeadingZeros(value));
+      }
+
+      public long lowerBound(int index)
+      {
+         return index == 0 ? 0 : 1L << (index - 1);
+      }
+   }
+
+   private record Hdr(int subBits, long maxValue) implements Buckets
+   {
+      public int count()
+      {
+         return index(maxValue) + 1;
+      }
+
+      public int indexOf(long value)
+      {
+         if (value < 0) throw new IllegalArgumentException("Negative value " + value);
+         return value > maxValue ? index(maxValue) : index(value);
+      }
+
+      private int index(long value)
+      {
+         long subCount = 1L << subBits;
+         if (value < subCount) return (int) value;
+         int half = 1 << (subBits - 1);
+         int shift = 63 - Long.numberOfLeadingZeros(value) - (subBits - 1);
+         return (shift + 1) * half + (int) (value >>> shift) - half;
+      }
+
+      public long lowerBound(int index)
+      {
+         if (index < 1 << subBits) return index;
+         int half = 1 << (subBits - 1);
+         int shift = index / half - 1;
+         return (long) (index % half + half) << shift;
+      }
+   }
+}
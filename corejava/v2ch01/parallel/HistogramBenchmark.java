@@ -0,0 +1,52 @@
+package parallel;
+
+import static java.util.stream.Collectors.*;
+
+import java.nio.file.*;
+import java.util.*;
+
+import util.*;
+
+/**
+ * This program compares word length statistics with groupingBy, groupingByConcurrent,
+ * and the array-based collectors of HistogramCollectors on a corpus made of copies of
+ * alice30.txt.
+ * Usage: java parallel.HistogramBenchmark [copies]
+ * @version 1.01 2026-10-19
+ */
+public class HistogramBenchmark
+{
+   private static final int ROUNDS = 5;
+
+   public static void main(String[] args) throws Exception
+   {
+      int copies = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+      var contents = Files.readString(Path.of("../gutenberg/alice30.txt"));
+      List<String> book = List.of(contents.split("\\PL+"));
+      var words = new ArrayList<String>(copies * book.size());
+      for (int i = 0; i < copies; i++) words.addAll(book);
+      System.out.printf("%,d words%n", words.size());
+
+      time("groupingBy(length, counting())", () -> words.parallelStream()
+         .collect(groupingBy(String::length, counting())));
+      time("groupingByConcurrent(length, counting())", () -> words.parallelStream()
+         .collect(groupingByConcurrent(String::length, counting())));
+      time("HistogramCollectors.counting(32, length)", () -> Arrays.toString(words.parallelStream()
+         .collect(HistogramCollectors.counting(32, String::length))));
+      time("counting(mapToInt(length), 32)", () -> Arrays.toString(HistogramCollectors.counting(
+         words.parallelStream().mapToInt(String::length), 32)));
+      time("toHistogram(linear)", () -> words.parallelStream()
+         .collect(HistogramCollectors.toHistogram(Histogram.Buckets.linear(0, 1, 32),
+            String::length)));
+      time("toHistogram(log2)", () -> words.parallelStream()
+         .collect(HistogramCollectors.toHistogram(Histogram.Buckets.log2(32), String::length)));
+      time("toHistogram(hdr)", () -> HistogramCollectors.toHistogram(
+         words.parallelStream().mapToInt(String::length), Histogram.Buckets.hdr(1000, 2)));
+   }
+
+   private static void time(String name, BestOf.Task<Object> task) throws Exception
+   {
+      BestOf.Result<Object> r = BestOf.time(ROUNDS, task);
+      System.out.printf("%-44s %8.1f ms%n   %s%n", name, r.millis(), r.value());
+   }
+}
@@ -0,0 +1,97 @@
+package parallel;
+
+import java.util.function.*;
+import java.util.stream.*;
+
+/**
+ * Collectors that count values into arrays instead of a Map&lt;Integer, Long&gt;. In a
+ * parallel stream, each thread fills its own array, and the arrays are added up when the
+ * partial results are combined, so no counter is shared and nothing is boxed.
+ * @version 1.00 2026-10-19
+ */
+public class HistogramCollectors
+{
+   private HistogramCollectors() {}
+
+   /**
+    * Counts the keys of elements in a long[]. Elements whose key is outside
+    * 0 ... size - 1 are not counted.
+    * @param size the number of counters
+    * @param key the function that yields the counter index of an element
+    * @return a collector yielding the counts
+    */
+   public static <T> Collector<T, ?, long[]> counting(int size, ToIntFunction<? super T> key)
+   {
+      return Collector.of(
+         () -> new long[size],
+         (counts, element) ->
+            {
+               int k = key.applyAsInt(element);
+               if (k >= 0 && k < size) counts[k]++;
+            },
+         (a, b) ->
+            {
+               for (int i = 0; i < size; i++) a[i] += b[i];
+               return a;
+            },
+         Collector.Characteristics.UNORDERED, Collector.Characteristics.IDENTITY_FINISH);
+   }
+
+   /**
+    * Counts the values of an IntStream in a long[]. Values outside 0 ... size - 1 are not
+    * counted.
+    * @param values the values
+    * @param size the number of counters
+    * @return the counts
+    */
+   public static long[] counting(IntStream values, int size)
+   {
+      return values.collect(() -> new long[size],
+         (counts, v) ->
+            {
+               if (v >= 0 && v < size) counts[v]++;
+            },
+         (a, b) ->
+            {
+               for (int i = 0; i < size; i++) a[i] += b[i];
+            });
+   }
+
+   /**
+    * Records a value of each element in a histogram.
+    * @param buckets the bucket layout
+    * @param value the function that yields the value of an element
+    * @return a collector yielding the histogram
+    */
+   public static <T> Collector<T, ?, Histogram> toHistogram(Histogram.Buckets buckets,
+      ToLongFunction<? super T> value)
+   {
+      return Collector.of(
+         () -> new Histogram(buckets),
+         (h, element) -> h.record(value.applyAsLong(element)),
+         Histogram::merge,
+         Collector.Characteristics.UNORDERED, Collector.Characteristics.IDENTITY_FINISH);
+   }
+
+   /**
+    * Records the values of an IntStream in a histogram.
+    * @param values the values
+    * @param buckets the bucket layout
+    * @return the histogram
+    */
+   public static Histogram toHistogram(IntStream values, Histogram.Buckets buckets)
+   {
+      return values.collect(() -> new Histogram(buckets), Histogram::record, Histogram::merge);
+   }
+
+   /**
+    * Records the values of a LongStream in a histogram.
+    * @param values the values
+    * @param buckets the bucket layout
+    * @return the histogram
+    */
+   public static Histogram toHistogram(LongStream values, Histogram.Buckets buckets)
+   {
+      return values.collect(() -> new Histogram(buckets), Histogram::record, Histogram::merge);
+   }
+}
@@ -42,6 +42,12 @@ public class ParallelStreams
 
       System.out.println(shortWordCounts);
 
+      // Without boxing: each thread counts into its own array
+      long[] shortWordArray = wordList.parallelStream()
+         .collect(HistogramCollectors.counting(10, String::length));
+
+      System.out.println(Arrays.toString(shortWordArray));
+
       // Downstream order not deterministic
       Map<Integer, List<String>> result = wordList.parallelStream().collect(
          Collectors.groupingByConcurrent(String::length));
@@ -0,0 +1,121 @@
+package streams;
+
+/**
+ * A count-min sketch that estimates how often values occur, in depth rows of width
+ * counters. An estimate is never too small, and with probability 1 - 2^-depth it is too
+ * large by at most 2 / width of the total count. Sketches of the same dimensions can be
+ * merged, so each thread of a parallel stream can fill its own sketch.
+ * @version 1.00 2026-10-19
+ */
+public class CountMinSketch
+{
+   private final int depth;
+   private final int mask;
+   private final long[] counts;
+   private long total;
+
+   /**
+    * Constructs an empty sketch.
+    * @param width the number of counters per row, rounded up to a power of two
+    * @param depth the number of rows, between 1 and 16
+    */
+   public CountMinSketch(int width, int depth)
+   {
+      if (width < 1 || width > 1 << 26) throw new IllegalArgumentException("width " + width);
+      if (depth < 1 || depth > 16) throw new IllegalArgumentException("depth " + depth);
+      this.depth = depth;
+      mask = Integer.highestOneBit(2 * width - 1) - 1;
+      counts = new long[depth * (mask + 1)];
+   }
+
+   /**
+    * Counts a value by its 64-bit hash.
+    * @param hash the hash of the value, from {@link HyperLogLog#hash(Object)} or
+    * {@link HyperLogLog#mix(long)}
+    * @param count the number of occurrences to add
+    * @return the new estimate for the value
+    */
+   public long addHash(long hash, long count)
+   {
+      long estimate = Long.MAX_VALUE;
+      // Double hashing: row i uses h1 + i * h2, which is as good as independent hashes
+      int h1 = (int) hash;
+      int h2 = (int) (hash >>> 32) | 1;
+      for (int i = 0; i < depth; i++)
+      {
+         int index = i * (mask + 1) + ((h1 + i * h2) & mask);
+         counts[index] += count;
+         estimate = Math.min(estimate, counts[index]);
+      }
+      total += count;
+      return estimate;
+   }
+
+   /**
+    * Counts one occurrence of an object.
+    * @param value the value
+    * @return the new estimate for the value
+    */
+   public long add(Object value)
+   {
+      return addHash(HyperLogLog.hash(value), 1);
+   }
+
+   /**
+    * Estimates the count of a value by its 64-bit hash.
+    * @param hash the hash of the value
+    * @return the estimate
+    */
+   public long estimateHash(long hash)
+   {
+      long estimate = Long.MAX_VALUE;
+      int h1 = (int) hash;
+      int h2 = (int) (hash >>> 32) | 1;
+      for (int i = 0; i < depth; i++)
+         estimate = Math.min(estimate, counts[i * (mask + 1) + ((h1 + i * h2) & mask)]);
+      return estimate;
+   }
+
+   /**
+    * Estimates the count of an object.
+    * @param value the value
+    * @return the estimate
+    */
+   public long estimate(Object value)
+   {
+      return estimateHash(HyperLogLog.hash(value));
+   }
+
+   /**
+    * Adds the counts of another sketch with the same dimensions.
+    * @param other the other sketch
+    * @return this sketch
+    */
+   public CountMinSketch merge(CountMinSketch other)
+   {
+      if (other.depth != depth || other.mask != mask)
+         throw new IllegalArgumentException("Different dimensions");
+      for (int i = 0; i < counts.length; i++) counts[i] += other.counts[i];
+      total += other.total;
+      return this;
+   }
+
+   public int width()
+   {
+      return mask + 1;
+   }
+
+   public int depth()
+   {
+      return depth;
+   }
+
+   /**
+    * Gets the sum of all counts.
+    * @return the number of values added
+    */
+   public long total()
+   {
+      return total;
+   }
+}
@@ -0,0 +1,237 @@
+package streams;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+import java.util.stream.*;
+
+/**
+ * A pipeline of map and filter stages over double values from an array or a list,
+ * ending in a terminal operation such as sum or reduce. Unlike a Stream&lt;Double&gt;,
+ * no stage boxes its values, and unlike a DoubleStream, the stages run one block of values
+ * at a time with consecutive maps and filters fused into single loops.
+ * <p>For example,
+ * <pre>
+ * DoubleStream.of(prices).map(p -&gt; p * 1.08).filter(p -&gt; p &gt; 100).average()
+ * DoublePipeline.of(prices).map(p -&gt; p * 1.08).filter(p -&gt; p &gt; 100).average()
+ * </pre>
+ * Pipelines are immutable: each intermediate operation returns a new pipeline.
+ * @version 1.00 2026-10-19
+ */
+public class DoublePipeline
+{
+   private final PipelinePlan plan;
+
+   DoublePipeline(PipelinePlan plan)
+   {
+      this.plan = plan;
+   }
+
+   public static DoublePipeline of(double... values)
+   {
+      return of(values, 0, values.length);
+   }
+
+   public static DoublePipeline of(double[] values, int from, int to)
+   {
+      Objects.checkFromToIndex(from, to, values.length);
+      return new DoublePipeline(new PipelinePlan(PipelinePlan.doubles(values, from, to - from)));
+   }
+
+   /**
+    * Yields a double value for each element of a list, which should support fast random
+    * access. This replaces list.stream().mapToDouble(f).
+    */
+   public static <T> DoublePipeline of(List<? extends T> elements, ToDoubleFunction<? super T> f)
+   {
+      return new DoublePipeline(new PipelinePlan(PipelinePlan.doubles(elements, f)));
+   }
+
+   /**
+    * Collects the values of a DoubleStream, so that the remaining stages run as a pipeline.
+    */
+   public static DoublePipeline of(DoubleStream values)
+   {
+      return of(values.toArray());
+   }
+
+   public DoublePipeline map(DoubleUnaryOperator op)
+   {
+      return new DoublePipeline(plan.with(new PipelinePlan.DoubleMap(op)));
+   }
+
+   public DoublePipeline filter(DoublePredicate p)
+   {
+      return new DoublePipeline(plan.with(new PipelinePlan.DoubleFilter(p)));
+   }
+
+   public IntPipeline mapToInt(DoubleToIntFunction f)
+   {
+      return new IntPipeline(plan.with(new PipelinePlan.DoubleToInt(f)));
+   }
+
+   public LongPipeline mapToLong(DoubleToLongFunction f)
+   {
+      return new LongPipeline(plan.with(new PipelinePlan.DoubleToLong(f)));
+   }
+
+   /**
+    * Runs the terminal operation in the common fork-join pool.
+    */
+   public DoublePipeline parallel()
+   {
+      return parallel(ForkJoinPool.commonPool());
+   }
+
+   /**
+    * Runs the terminal operation in the given fork-join pool.
+    */
+   public DoublePipeline parallel(ForkJoinPool pool)
+   {
+      return new DoublePipeline(plan.on(pool));
+   }
+
+   public DoublePipeline sequential()
+   {
+      return new DoublePipeline(plan.on(null));
+   }
+
+   public boolean isParallel()
+   {
+      return plan.isParallel();
+   }
+
+   /**
+    * Adds up the values in the order of each block, without the compensated summation of
+    * DoubleStream.sum, so the result can differ from it in the last bits.
+    */
+   public double sum()
+   {
+      return plan.run(PipelinePlan.Terminal.of(() -> new double[1], (r, b) ->
+         {
+            double[] v = b.doubles;
+            double sum = 0;
+            for (int i = 0; i < b.length; i++) sum += v[i];
+            r[0] += sum;
+         },
+         (a, b) ->
+            {
+               a[0] += b[0];
+               return a;
+            }))[0];
+   }
+
+   public long count()
+   {
+      return plan.count();
+   }
+
+   public OptionalDouble average()
+   {
+      DoubleSummaryStatistics stats = summaryStatistics();
+      return stats.getCount() == 0 ? OptionalDouble.empty() : OptionalDouble.of(stats.getAverage());
+   }
+
+   public OptionalDouble min()
+   {
+      DoubleSummaryStatistics stats = summaryStatistics();
+      return stats.getCount() == 0 ? OptionalDouble.empty() : OptionalDouble.of(stats.getMin());
+   }
+
+   public OptionalDouble max()
+   {
+      DoubleSummaryStatistics stats = summaryStatistics();
+      return stats.getCount() == 0 ? OptionalDouble.empty() : OptionalDouble.of(stats.getMax());
+   }
+
+   public DoubleSummaryStatistics summaryStatistics()
+   {
+      return plan.run(PipelinePlan.Terminal.of(DoubleSummaryStatistics::new, (r, b) ->
+         {
+            double[] v = b.doubles;
+            for (int i = 0; i < b.length; i++) r.accept(v[i]);
+         },
+         (a, b) ->
+            {
+               a.combine(b);
+               return a;
+            }));
+   }
+
+   /**
+    * Reduces the values with an associative operation.
+    * @param identity the identity of op
+    * @param op the operation
+    * @return the result
+    */
+   public double reduce(double identity, DoubleBinaryOperator op)
+   {
+      return plan.run(PipelinePlan.Terminal.of(() -> new double[] { identity }, (r, b) ->
+         {
+            double[] v = b.doubles;
+            double result = r[0];
+            for (int i = 0; i < b.length; i++) result = op.applyAsDouble(result, v[i]);
+            r[0] = result;
+         },
+         (a, b) ->
+            {
+               a[0] = op.applyAsDouble(a[0], b[0]);
+               return a;
+            }))[0];
+   }
+
+   /**
+    * Collects the values in encounter order.
+    */
+   public double[] toArray()
+   {
+      return plan.run(PipelinePlan.Terminal.of(DoubleArrayBuilder::new,
+         (r, b) -> r.add(b.doubles, b.length), DoubleArrayBuilder::addAll)).toArray();
+   }
+
+   /**
+    * Passes each value to an action. In a parallel pipeline, the action is called
+    * concurrently and in no particular order.
+    */
+   public void forEach(DoubleConsumer action)
+   {
+      plan.run(PipelinePlan.Terminal.<Void>of(() -> null, (r, b) ->
+         {
+            double[] v = b.doubles;
+            for (int i = 0; i < b.length; i++) action.accept(v[i]);
+         }, (a, b) -> null));
+   }
+
+   /**
+    * Yields the results as a DoubleStream, for operations that pipelines lack.
+    */
+   public DoubleStream stream()
+   {
+      return DoubleStream.of(toArray());
+   }
+
+   private static class DoubleArrayBuilder
+   {
+      private double[] values = new double[PipelinePlan.BLOCK_SIZE];
+      private int size;
+
+      void add(double[] block, int length)
+      {
+         if (size + length > values.length)
+            values = Arrays.copyOf(values, Math.max(size + length, 2 * values.length));
+         System.arraycopy(block, 0, values, size, length);
+         size += length;
+      }
+
+      DoubleArrayBuilder addAll(DoubleArrayBuilder other)
+      {
+         add(other.values, other.size);
+         return this;
+      }
+
+      double[] toArray()
+      {
+         return Arrays.copyOf(values, size);
+      }
+   }
+}
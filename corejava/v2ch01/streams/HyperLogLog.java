@@ -0,0 +1,140 @@
+package streams;
+
+import java.util.*;
+
+/**
+ * A HyperLogLog sketch that estimates the number of distinct values in 2^precision bytes,
+ * with a standard error of about 1.04 / sqrt(2^precision), such as 0.8 percent for
+ * precision 14 (16 KB). Sketches of the same precision can be merged, so each thread of a
+ * parallel stream can fill its own sketch.
+ * @version 1.01 2026-10-19
+ */
+public class HyperLogLog
+{
+   private final int precision;
+   private final byte[] registers;
+
+   /**
+    * Constructs an empty sketch.
+    * @param precision the number of index bits, between 4 and 18
+    */
+   public HyperLogLog(int precision)
+   {
+      if (precision < 4 || precision > 18)
+         throw new IllegalArgumentException("precision must be between 4 and 18");
+      this.precision = precision;
+      registers = new byte[1 << precision];
+   }
+
+   /**
+    * Adds a value by its 64-bit hash. The hash bits must be uniformly distributed; use
+    * {@link #hash(Object)} or {@link #mix(long)} to produce them.
+    * @param hash the hash of the value
+    */
+   public void addHash(long hash)
+   {
+      int index = (int) (hash >>> (64 - precision));
+      // The position of the first 1 bit after the index bits, counting from 1
+      int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+      if (rank > registers[index]) registers[index] = (byte) rank;
+   }
+
+   /**
+    * Adds a long value.
+    * @param value the value
+    */
+   public void add(long value)
+   {
+      addHash(mix(value));
+   }
+
+   /**
+    * Adds an object. A boxed Long, Integer, Short, Byte, or Character counts as the same
+    * item as the primitive value passed to add(long).
+    * @param value the value
+    */
+   public void add(Object value)
+   {
+      addHash(hash(value));
+   }
+
+   /**
+    * Adds the values of another sketch with the same precision.
+    * @param other the other sketch
+    * @return this sketch
+    */
+   public HyperLogLog merge(HyperLogLog other)
+   {
+      if (other.precision != precision) throw new IllegalArgumentException("Different precision");
+      for (int i = 0; i < registers.length; i++)
+         if (other.registers[i] > registers[i]) registers[i] = other.registers[i];
+      return this;
+   }
+
+   /**
+    * Estimates the number of distinct values added so far.
+    * @return the estimate
+    */
+   public long estimate()
+   {
+      int m = registers.length;
+      double sum = 0;
+      int zeros = 0;
+      for (byte r : registers)
+      {
+         sum += 1.0 / (1L << r);
+         if (r == 0) zeros++;
+      }
+      double alpha = m == 16 ? 0.673 : m == 32 ? 0.697 : m == 64 ? 0.709 : 0.7213 / (1 + 1.079 / m);
+      double estimate = alpha * m * m / sum;
+      // For small cardinalities, counting the empty registers is more accurate
+      if (estimate <= 2.5 * m && zeros > 0) estimate = m * Math.log((double) m / zeros);
+      return Math.round(estimate);
+   }
+
+   public int precision()
+   {
+      return precision;
+   }
+
+   public String toString()
+   {
+      return "HyperLogLog[precision=" + precision + ", estimate=" + estimate() + "]";
+   }
+
+   /**
+    * Scrambles the bits of a long value, with the finalizer of the SplitMix64 generator.
+    * @param value a value
+    * @return a hash whose bits are uniformly distributed
+    */
+   public static long mix(long value)
+   {
+      long z = value + 0x9E3779B97F4A7C15L;
+      z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+      z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+      return z ^ (z >>> 31);
+   }
+
+   /**
+    * Computes a 64-bit hash of an object. Boxed integral values are hashed as
+    * mix(long) hashes their primitive values. Character sequences are hashed by their
+    * characters, since String.hashCode has only 32 bits and collides too often for large
+    * cardinalities. Other objects are hashed by their hashCode.
+    * @param value an object
+    * @return a hash whose bits are uniformly distributed
+    */
+   public static long hash(Object value)
+   {
+      if (value instanceof Long || value instanceof Integer || value instanceof Short
+            || value instanceof Byte)
+         return mix(((Number) value).longValue());
+      if (value instanceof Character c) return mix(c);
+      if (value instanceof CharSequence s)
+      {
+         long h = 0xCBF29CE484222325L;
+         for (int i = 0; i < s.length(); i++) h = (h ^ s.charAt(i)) * 0x100000001B3L;
+         return mix(h);
+      }
+      return mix(Objects.hashCode(value));
+   }
+}
@@ -0,0 +1,257 @@
+package streams;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+import java.util.stream.*;
+
+/**
+ * A pipeline of map and filter stages over int values from an array, a range, or a list,
+ * ending in a terminal operation such as sum or reduce. Unlike a Stream&lt;Integer&gt;,
+ * no stage boxes its values, and unlike an IntStream, the stages run one block of values
+ * at a time with consecutive maps and filters fused into single loops.
+ * <p>Common Stream shapes translate directly:
+ * <pre>
+ * list.stream().map(x -&gt; x * x).filter(x -&gt; x % 3 == 0).reduce(0, Integer::sum)
+ * IntPipeline.of(list, x -&gt; x).map(x -&gt; x * x).filter(x -&gt; x % 3 == 0).reduce(0, Integer::sum)
+ *
+ * words.stream().mapToInt(String::length).filter(n -&gt; n &gt; 12).count()
+ * IntPipeline.of(words, String::length).filter(n -&gt; n &gt; 12).count()
+ * </pre>
+ * Pipelines are immutable: each intermediate operation returns a new pipeline.
+ * @version 1.00 2026-10-19
+ */
+public class IntPipeline
+{
+   private final PipelinePlan plan;
+
+   IntPipeline(PipelinePlan plan)
+   {
+      this.plan = plan;
+   }
+
+   public static IntPipeline of(int... values)
+   {
+      return of(values, 0, values.length);
+   }
+
+   public static IntPipeline of(int[] values, int from, int to)
+   {
+      Objects.checkFromToIndex(from, to, values.length);
+      return new IntPipeline(new PipelinePlan(PipelinePlan.ints(values, from, to - from)));
+   }
+
+   /**
+    * Yields the values from start (inclusive) to end (exclusive), like IntStream.range. A
+    * pipeline has an int size, so the range can have at most Integer.MAX_VALUE values.
+    */
+   public static IntPipeline range(int start, int end)
+   {
+      long size = Math.max(0L, (long) end - start);
+      if (size > Integer.MAX_VALUE)
+         throw new IllegalArgumentException("range too large: " + start + ", " + end);
+      return new IntPipeline(new PipelinePlan(PipelinePlan.range(start, (int) size)));
+   }
+
+   /**
+    * Yields an int value for each element of a list, which should support fast random
+    * access. This replaces list.stream().mapToInt(f), and with f = x -&gt; x, the unboxing
+    * of a List&lt;Integer&gt;.
+    */
+   public static <T> IntPipeline of(List<? extends T> elements, ToIntFunction<? super T> f)
+   {
+      return new IntPipeline(new PipelinePlan(PipelinePlan.ints(elements, f)));
+   }
+
+   /**
+    * Collects the values of an IntStream, so that the remaining stages run as a pipeline.
+    */
+   public static IntPipeline of(IntStream values)
+   {
+      return of(values.toArray());
+   }
+
+   public IntPipeline map(IntUnaryOperator op)
+   {
+      return new IntPipeline(plan.with(new PipelinePlan.IntMap(op)));
+   }
+
+   public IntPipeline filter(IntPredicate p)
+   {
+      return new IntPipeline(plan.with(new PipelinePlan.IntFilter(p)));
+   }
+
+   public LongPipeline mapToLong(IntToLongFunction f)
+   {
+      return new LongPipeline(plan.with(new PipelinePlan.IntToLong(f)));
+   }
+
+   public LongPipeline asLongPipeline()
+   {
+      return mapToLong(x -> x);
+   }
+
+   public DoublePipeline mapToDouble(IntToDoubleFunction f)
+   {
+      return new DoublePipeline(plan.with(new PipelinePlan.IntToDouble(f)));
+   }
+
+   /**
+    * Runs the terminal operation in the common fork-join pool.
+    */
+   public IntPipeline parallel()
+   {
+      return parallel(ForkJoinPool.commonPool());
+   }
+
+   /**
+    * Runs the terminal operation in the given fork-join pool.
+    */
+   public IntPipeline parallel(ForkJoinPool pool)
+   {
+      return new IntPipeline(plan.on(pool));
+   }
+
+   public IntPipeline sequential()
+   {
+      return new IntPipeline(plan.on(null));
+   }
+
+   public boolean isParallel()
+   {
+      return plan.isParallel();
+   }
+
+   /**
+    * Adds up the values in a long, so that sums of many ints do not overflow.
+    */
+   public long sum()
+   {
+      return plan.run(PipelinePlan.Terminal.of(() -> new long[1], (r, b) ->
+         {
+            int[] v = b.ints;
+            long sum = 0;
+            for (int i = 0; i < b.length; i++) sum += v[i];
+            r[0] += sum;
+         },
+         (a, b) ->
+            {
+               a[0] += b[0];
+               return a;
+            }))[0];
+   }
+
+   public long count()
+   {
+      return plan.count();
+   }
+
+   public OptionalDouble average()
+   {
+      IntSummaryStatistics stats = summaryStatistics();
+      return stats.getCount() == 0 ? OptionalDouble.empty() : OptionalDouble.of(stats.getAverage());
+   }
+
+   public OptionalInt min()
+   {
+      IntSummaryStatistics stats = summaryStatistics();
+      return stats.getCount() == 0 ? OptionalInt.empty() : OptionalInt.of(stats.getMin());
+   }
+
+   public OptionalInt max()
+   {
+      IntSummaryStatistics stats = summaryStatistics();
+      return stats.getCount() == 0 ? OptionalInt.empty() : OptionalInt.of(stats.getMax());
+   }
+
+   public IntSummaryStatistics summaryStatistics()
+   {
+      return plan.run(PipelinePlan.Terminal.of(IntSummaryStatistics::new, (r, b) ->
+         {
+            int[] v = b.ints;
+            for (int i = 0; i < b.length; i++) r.accept(v[i]);
+         },
+         (a, b) ->
+            {
+               a.combine(b);
+               return a;
+            }));
+   }
+
+   /**
+    * Reduces the values with an associative operation.
+    * @param identity the identity of op
+    * @param op the operation
+    * @return the result
+    */
+   public int reduce(int identity, IntBinaryOperator op)
+   {
+      return plan.run(PipelinePlan.Terminal.of(() -> new int[] { identity }, (r, b) ->
+         {
+            int[] v = b.ints;
+            int result = r[0];
+            for (int i = 0; i < b.length; i++) result = op.applyAsInt(result, v[i]);
+            r[0] = result;
+         },
+         (a, b) ->
+            {
+               a[0] = op.applyAsInt(a[0], b[0]);
+               return a;
+            }))[0];
+   }
+
+   /**
+    * Collects the values in encounter order.
+    */
+   public int[] toArray()
+   {
+      return plan.run(PipelinePlan.Terminal.of(IntArrayBuilder::new,
+         (r, b) -> r.add(b.ints, b.length), IntArrayBuilder::addAll)).toArray();
+   }
+
+   /**
+    * Passes each value to an action. In a parallel pipeline, the action is called
+    * concurrently and in no particular order.
+    */
+   public void forEach(IntConsumer action)
+   {
+      plan.run(PipelinePlan.Terminal.<Void>of(() -> null, (r, b) ->
+         {
+            int[] v = b.ints;
+            for (int i = 0; i < b.length; i++) action.accept(v[i]);
+         }, (a, b) -> null));
+   }
+
+   /**
+    * Yields the results as an IntStream, for operations that pipelines lack.
+    */
+   public IntStream stream()
+   {
+      return IntStream.of(toArray());
+   }
+
+   private static class IntArrayBuilder
+   {
+      private int[] values = new int[PipelinePlan.BLOCK_SIZE];
+      private int size;
+
+      void add(int[] block, int length)
+      {
+         if (size + length > values.length)
+            values = Arrays.copyOf(values, Math.max(size + length, 2 * values.length));
+         System.arraycopy(block, 0, values, size, length);
+         size += length;
+      }
+
+      IntArrayBuilder addAll(IntArrayBuilder other)
+      {
+         add(other.values, other.size);
+         return this;
+      }
+
+      int[] toArray()
+      {
+         return Arrays.copyOf(values, size);
+      }
+   }
+}
@@ -0,0 +1,238 @@
+package streams;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+import java.util.stream.*;
+
+/**
+ * A pipeline of map and filter stages over long values from an array or a list,
+ * ending in a terminal operation such as sum or reduce. Unlike a Stream&lt;Long&gt;,
+ * no stage boxes its values, and unlike a LongStream, the stages run one block of values
+ * at a time with consecutive maps and filters fused into single loops.
+ * <p>For example,
+ * <pre>
+ * LongStream.of(values).map(x -&gt; x * x).filter(x -&gt; x % 3 == 0).sum()
+ * LongPipeline.of(values).map(x -&gt; x * x).filter(x -&gt; x % 3 == 0).sum()
+ * </pre>
+ * Pipelines are immutable: each intermediate operation returns a new pipeline.
+ * @version 1.00 2026-10-19
+ */
+public class LongPipeline
+{
+   private final PipelinePlan plan;
+
+   LongPipeline(PipelinePlan plan)
+   {
+      this.plan = plan;
+   }
+
+   public static LongPipeline of(long... values)
+   {
+      return of(values, 0, values.length);
+   }
+
+   public static LongPipeline of(long[] values, int from, int to)
+   {
+      Objects.checkFromToIndex(from, to, values.length);
+      return new LongPipeline(new PipelinePlan(PipelinePlan.longs(values, from, to - from)));
+   }
+
+   /**
+    * Yields a long value for each element of a list, which should support fast random
+    * access. This replaces list.stream().mapToLong(f).
+    */
+   public static <T> LongPipeline of(List<? extends T> elements, ToLongFunction<? super T> f)
+   {
+      return new LongPipeline(new PipelinePlan(PipelinePlan.longs(elements, f)));
+   }
+
+   /**
+    * Collects the values of a LongStream, so that the remaining stages run as a pipeline.
+    */
+   public static LongPipeline of(LongStream values)
+   {
+      return of(values.toArray());
+   }
+
+   public LongPipeline map(LongUnaryOperator op)
+   {
+      return new LongPipeline(plan.with(new PipelinePlan.LongMap(op)));
+   }
+
+   public LongPipeline filter(LongPredicate p)
+   {
+      return new LongPipeline(plan.with(new PipelinePlan.LongFilter(p)));
+   }
+
+   public IntPipeline mapToInt(LongToIntFunction f)
+   {
+      return new IntPipeline(plan.with(new PipelinePlan.LongToInt(f)));
+   }
+
+   public DoublePipeline mapToDouble(LongToDoubleFunction f)
+   {
+      return new DoublePipeline(plan.with(new PipelinePlan.LongToDouble(f)));
+   }
+
+   public DoublePipeline asDoublePipeline()
+   {
+      return mapToDouble(x -> x);
+   }
+
+   /**
+    * Runs the terminal operation in the common fork-join pool.
+    */
+   public LongPipeline parallel()
+   {
+      return parallel(ForkJoinPool.commonPool());
+   }
+
+   /**
+    * Runs the terminal operation in the given fork-join pool.
+    */
+   public LongPipeline parallel(ForkJoinPool pool)
+   {
+      return new LongPipeline(plan.on(pool));
+   }
+
+   public LongPipeline sequential()
+   {
+      return new LongPipeline(plan.on(null));
+   }
+
+   public boolean isParallel()
+   {
+      return plan.isParallel();
+   }
+
+   public long sum()
+   {
+      return plan.run(PipelinePlan.Terminal.of(() -> new long[1], (r, b) ->
+         {
+            long[] v = b.longs;
+            long sum = 0;
+            for (int i = 0; i < b.length; i++) sum += v[i];
+            r[0] += sum;
+         },
+         (a, b) ->
+            {
+               a[0] += b[0];
+               return a;
+            }))[0];
+   }
+
+   public long count()
+   {
+      return plan.count();
+   }
+
+   public OptionalDouble average()
+   {
+      LongSummaryStatistics stats = summaryStatistics();
+      return stats.getCount() == 0 ? OptionalDouble.empty() : OptionalDouble.of(stats.getAverage());
+   }
+
+   public OptionalLong min()
+   {
+      LongSummaryStatistics stats = summaryStatistics();
+      return stats.getCount() == 0 ? OptionalLong.empty() : OptionalLong.of(stats.getMin());
+   }
+
+   public OptionalLong max()
+   {
+      LongSummaryStatistics stats = summaryStatistics();
+      return stats.getCount() == 0 ? OptionalLong.empty() : OptionalLong.of(stats.getMax());
+   }
+
+   public LongSummaryStatistics summaryStatistics()
+   {
+      return plan.run(PipelinePlan.Terminal.of(LongSummaryStatistics::new, (r, b) ->
+         {
+            long[] v = b.longs;
+            for (int i = 0; i < b.length; i++) r.accept(v[i]);
+         },
+         (a, b) ->
+            {
+               a.combine(b);
+               return a;
+            }));
+   }
+
+   /**
+    * Reduces the values with an associative operation.
+    * @param identity the identity of op
+    * @param op the operation
+    * @return the result
+    */
+   public long reduce(long identity, LongBinaryOperator op)
+   {
+      return plan.run(PipelinePlan.Terminal.of(() -> new long[] { identity }, (r, b) ->
+         {
+            long[] v = b.longs;
+            long result = r[0];
+            for (int i = 0; i < b.length; i++) result = op.applyAsLong(result, v[i]);
+            r[0] = result;
+         },
+         (a, b) ->
+            {
+               a[0] = op.applyAsLong(a[0], b[0]);
+               return a;
+            }))[0];
+   }
+
+   /**
+    * Collects the values in encounter order.
+    */
+   public long[] toArray()
+   {
+      return plan.run(PipelinePlan.Terminal.of(LongArrayBuilder::new,
+         (r, b) -> r.add(b.longs, b.length), LongArrayBuilder::addAll)).toArray();
+   }
+
+   /**
+    * Passes each value to an action. In a parallel pipeline, the action is called
+    * concurrently and in no particular order.
+    */
+   public void forEach(LongConsumer action)
+   {
+      plan.run(PipelinePlan.Terminal.<Void>of(() -> null, (r, b) ->
+         {
+            long[] v = b.longs;
+            for (int i = 0; i < b.length; i++) action.accept(v[i]);
+         }, (a, b) -> null));
+   }
+
+   /**
+    * Yields the results as a LongStream, for operations that pipelines lack.
+    */
+   public LongStream stream()
+   {
+      return LongStream.of(toArray());
+   }
+
+   private static class LongArrayBuilder
+   {
+      private long[] values = new long[PipelinePlan.BLOCK_SIZE];
+      private int size;
+
+      void add(long[] block, int length)
+      {
+         if (size + length > values.length)
+            values = Arrays.copyOf(values, Math.max(size + length, 2 * values.length));
+         System.arraycopy(block, 0, values, size, length);
+         size += length;
+      }
+
+      LongArrayBuilder addAll(LongArrayBuilder other)
+      {
+         add(other.values, other.size);
+         return this;
+      }
+
+      long[] toArray()
+      {
+         return Arrays.copyOf(values, size);
+      }
+   }
+}
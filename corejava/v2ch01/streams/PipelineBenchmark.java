@@ -0,0 +1,126 @@
+package streams;
+
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.*;
+
+import util.*;
+
+/**
+ * This program runs pipelines from the CountLongWords and PrimitiveTypeStreams samples as
+ * boxed streams, primitive streams, and IntPipeline/LongPipeline/DoublePipeline chains,
+ * sequentially and in parallel, and checks that they agree. Averages of doubles may differ
+ * in the last bits when they are summed in a different order. The program exits with status
+ * 1 if any result differs.
+ * Usage: java streams.PipelineBenchmark [copies]
+ * @version 1.02 2026-10-19
+ */
+public class PipelineBenchmark
+{
+   private static final int ROUNDS = 5;
+
+   // the result of the first pipeline in the current section, which the others must match
+   private static Object expected;
+   private static int mismatches;
+
+   public static void main(String[] args) throws Exception
+   {
+      int copies = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+      var contents = Files.readString(Path.of("../gutenberg/alice30.txt"));
+      List<String> book = List.of(contents.split("\\PL+"));
+      var words = new ArrayList<String>(copies * book.size());
+      for (int i = 0; i < copies; i++) words.addAll(book);
+      int n = words.size();
+      System.out.printf("%,d words%n", n);
+
+      section("Count words longer than 12 (CountLongWords)");
+      time("stream().filter(length > 12)",
+         () -> words.stream().filter(w -> w.length() > 12).count());
+      time("stream().map(length).filter", () -> words.stream()
+         .map(String::length).filter(l -> l > 12).count());
+      time("stream().mapToInt(length).filter", () -> words.stream()
+         .mapToInt(String::length).filter(l -> l > 12).count());
+      time("IntPipeline.of(length).filter", () -> IntPipeline.of(words, String::length)
+         .filter(l -> l > 12).count());
+      time("parallelStream().mapToInt.filter", () -> words.parallelStream()
+         .mapToInt(String::length).filter(l -> l > 12).count());
+      time("IntPipeline.of(length).parallel()", () -> IntPipeline.of(words, String::length)
+         .parallel().filter(l -> l > 12).count());
+
+      section("Boxed range, squares mod 1000 divisible by 3 (PrimitiveTypeStreams)");
+      time("range().boxed().map.filter.reduce", () -> IntStream.range(0, n).boxed()
+         .map(x -> x * x % 1000).filter(x -> x % 3 == 0).reduce(0, Integer::sum));
+      time("range().map.filter.sum", () -> IntStream.range(0, n)
+         .map(x -> x * x % 1000).filter(x -> x % 3 == 0).sum());
+      time("IntPipeline.range().map.filter.sum", () -> (int) IntPipeline.range(0, n)
+         .map(x -> x * x % 1000).filter(x -> x % 3 == 0).sum());
+      time("same, parallel", () -> (int) IntPipeline.range(0, n).parallel()
+         .map(x -> x * x % 1000).filter(x -> x % 3 == 0).sum());
+
+      section("Sum of squares of even word lengths, as long");
+      int[] lengths = words.stream().mapToInt(String::length).toArray();
+      time("IntStream.of().filter.mapToLong.map.sum", () -> IntStream.of(lengths)
+         .filter(l -> l % 2 == 0).mapToLong(l -> l).map(l -> l * l).map(l -> l + 1).sum());
+      time("IntPipeline.of().filter.mapToLong.map.sum", () -> IntPipeline.of(lengths)
+         .filter(l -> l % 2 == 0).mapToLong(l -> l).map(l -> l * l).map(l -> l + 1).sum());
+      time("same, parallel", () -> IntPipeline.of(lengths).parallel()
+         .filter(l -> l % 2 == 0).mapToLong(l -> l).map(l -> l * l).map(l -> l + 1).sum());
+
+      section("Average of scaled values above 0.5");
+      var generator = new Random(42);
+      double[] values = generator.doubles(n).toArray();
+      time("DoubleStream.of().map.filter.average", () -> DoubleStream.of(values)
+         .map(v -> v * 1.5).filter(v -> v > 0.5).average().orElse(0));
+      time("DoublePipeline.of().map.filter.average", () -> DoublePipeline.of(values)
+         .map(v -> v * 1.5).filter(v -> v > 0.5).average().orElse(0));
+      time("same, parallel", () -> DoublePipeline.of(values).parallel()
+         .map(v -> v * 1.5).filter(v -> v > 0.5).average().orElse(0));
+
+      section("toArray of word lengths above 10");
+      time("stream().mapToInt.filter.toArray", () -> Arrays.hashCode(words.parallelStream()
+         .mapToInt(String::length).filter(l -> l > 10).toArray()));
+      time("IntPipeline.parallel().filter.toArray", () -> Arrays.hashCode(IntPipeline
+         .of(words, String::length).parallel().filter(l -> l > 10).toArray()));
+
+      if (mismatches > 0)
+      {
+         System.out.printf("%d results differ%n", mismatches);
+         System.exit(1);
+      }
+   }
+
+   private static void section(String title)
+   {
+      System.out.println(title);
+      expected = null;
+   }
+
+   private static void time(String name, BestOf.Task<Object> task) throws Exception
+   {
+      BestOf.Result<Object> r = BestOf.time(ROUNDS, task);
+      Object result = r.value();
+      System.out.printf("   %-42s %8.1f ms   %s%n", name, r.millis(), result);
+      if (expected == null) expected = result;
+      else if (!agree(expected, result))
+      {
+         System.out.printf("   MISMATCH: expected %s%n", expected);
+         mismatches++;
+      }
+   }
+
+   /**
+    * Compares two results. Integral results must be equal, and floating-point results may
+    * differ by rounding.
+    */
+   private static boolean agree(Object a, Object b)
+   {
+      if (a instanceof Double || b instanceof Double)
+      {
+         double x = ((Number) a).doubleValue();
+         double y = ((Number) b).doubleValue();
+         return Math.abs(x - y) <= 1e-9 * Math.max(Math.abs(x), Math.abs(y));
+      }
+      if (a instanceof Number x && b instanceof Number y) return x.longValue() == y.longValue();
+      return a.equals(b);
+   }
+}
@@ -0,0 +1,467 @@
+package streams;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+/**
+ * The source and stages of an IntPipeline, LongPipeline, or DoublePipeline, and the loop
+ * that runs them. Elements move through the stages in blocks of primitive values: a map
+ * stage rewrites a block in place and a filter stage compacts it, so each stage is a tight
+ * loop over an array that stays in the cache. Consecutive maps are composed into one
+ * stage, and so are consecutive filters. In parallel, each task runs the whole pipeline on
+ * its own range of the source.
+ * @version 1.01 2026-10-19
+ */
+class PipelinePlan
+{
+   static final int BLOCK_SIZE = 1024;
+
+   private final Source source;
+   private final Stage[] stages;
+   private final ForkJoinPool pool;
+
+   PipelinePlan(Source source)
+   {
+      this(source, new Stage[0], null);
+   }
+
+   private PipelinePlan(Source source, Stage[] stages, ForkJoinPool pool)
+   {
+      this.source = source;
+      this.stages = stages;
+      this.pool = pool;
+   }
+
+   /**
+    * Appends a stage, fusing it with the last stage when both are maps or both are filters
+    * on the same type.
+    */
+   PipelinePlan with(Stage stage)
+   {
+      if (stages.length > 0)
+      {
+         Stage fused = stages[stages.length - 1].fuse(stage);
+         if (fused != null)
+         {
+            Stage[] result = stages.clone();
+            result[result.length - 1] = fused;
+            return new PipelinePlan(source, result, pool);
+         }
+      }
+      Stage[] result = Arrays.copyOf(stages, stages.length + 1);
+      result[stages.length] = stage;
+      return new PipelinePlan(source, result, pool);
+   }
+
+   PipelinePlan on(ForkJoinPool pool)
+   {
+      return new PipelinePlan(source, stages, pool);
+   }
+
+   boolean isParallel()
+   {
+      return pool != null;
+   }
+
+   int stageCount()
+   {
+      return stages.length;
+   }
+
+   /**
+    * Runs the pipeline into a terminal operation.
+    * @param terminal the terminal operation
+    * @return the result of the terminal operation
+    */
+   <A> A run(Terminal<A> terminal)
+   {
+      int size = source.size();
+      if (pool == null) return run(terminal, 0, size);
+      int threshold = Math.max(4 * BLOCK_SIZE, size / (4 * pool.getParallelism()));
+      return pool.invoke(new Task<>(terminal, 0, size, threshold));
+   }
+
+   private <A> A run(Terminal<A> terminal, int from, int to)
+   {
+      var block = new Block();
+      A result = terminal.create();
+      for (int i = from; i < to; i += BLOCK_SIZE)
+      {
+         block.length = Math.min(BLOCK_SIZE, to - i);
+         source.fill(block, i);
+         for (Stage s : stages)
+         {
+            s.apply(block);
+            if (block.length == 0) break;
+         }
+         if (block.length > 0) terminal.accept(result, block);
+      }
+      return result;
+   }
+
+   private class Task<A> extends RecursiveTask<A>
+   {
+      private static final long serialVersionUID = 1L;
+
+      // a terminal is made of lambdas; tasks only run in the pool and are never serialized
+      private final transient Terminal<A> terminal;
+      private final int from;
+      private final int to;
+      private final int threshold;
+
+      Task(Terminal<A> terminal, int from, int to, int threshold)
+      {
+         this.terminal = terminal;
+         this.from = from;
+         this.to = to;
+         this.threshold = threshold;
+      }
+
+      protected A compute()
+      {
+         if (to - from <= threshold) return run(terminal, from, to);
+         int middle = from + (to - from) / 2 / BLOCK_SIZE * BLOCK_SIZE;
+         var left = new Task<>(terminal, from, middle, threshold);
+         var right = new Task<>(terminal, middle, to, threshold);
+         left.fork();
+         A rightResult = right.compute();
+         return terminal.combine(left.join(), rightResult);
+      }
+   }
+
+   /**
+    * A block of elements. Only the array of the current element type is valid.
+    */
+   static class Block
+   {
+      int[] ints = new int[BLOCK_SIZE];
+      long[] longs;
+      double[] doubles;
+      int length;
+
+      long[] longs()
+      {
+         if (longs == null) longs = new long[BLOCK_SIZE];
+         return longs;
+      }
+
+      double[] doubles()
+      {
+         if (doubles == null) doubles = new double[BLOCK_SIZE];
+         return doubles;
+      }
+   }
+
+   /**
+    * A source of elements, indexed from 0 to size() - 1.
+    */
+   interface Source
+   {
+      int size();
+
+      /**
+       * Fills the first block.length elements of a block.
+       * @param block the block
+       * @param from the index of the first element
+       */
+      void fill(Block block, int from);
+   }
+
+   interface Stage
+   {
+      void apply(Block block);
+
+      /**
+       * Combines this stage with the next stage.
+       * @param next the next stage
+       * @return the combined stage, or null if the stages cannot be combined
+       */
+      default Stage fuse(Stage next)
+      {
+         return null;
+      }
+   }
+
+   /**
+    * A terminal operation that accumulates blocks into mutable result containers, like a
+    * Collector does with elements.
+    */
+   interface Terminal<A>
+   {
+      A create();
+
+      void accept(A result, Block block);
+
+      A combine(A left, A right);
+
+      static <A> Terminal<A> of(Supplier<A> create, BiConsumer<A, Block> accept,
+         BinaryOperator<A> combine)
+      {
+         return new Terminal<>()
+            {
+               public A create() { return create.get(); }
+               public void accept(A result, Block block) { accept.accept(result, block); }
+               public A combine(A left, A right) { return combine.apply(left, right); }
+            };
+      }
+   }
+
+   /**
+    * Counts the elements.
+    */
+   long count()
+   {
+      return run(Terminal.of(() -> new long[1], (r, b) -> r[0] += b.length, (a, b) ->
+         {
+            a[0] += b[0];
+            return a;
+         }))[0];
+   }
+
+   // Sources
+
+   static Source ints(int[] values, int offset, int size)
+   {
+      return new Source()
+         {
+            public int size() { return size; }
+            public void fill(Block block, int from)
+            {
+               System.arraycopy(values, offset + from, block.ints, 0, block.length);
+            }
+         };
+   }
+
+   static Source range(int start, int size)
+   {
+      return new Source()
+         {
+            public int size() { return size; }
+            public void fill(Block block, int from)
+            {
+               int[] ints = block.ints;
+               for (int i = 0, v = start + from; i < block.length; i++, v++) ints[i] = v;
+            }
+         };
+   }
+
+   static <T> Source ints(List<? extends T> elements, ToIntFunction<? super T> f)
+   {
+      return new Source()
+         {
+            public int size() { return elements.size(); }
+            public void fill(Block block, int from)
+            {
+               int[] ints = block.ints;
+               for (int i = 0; i < block.length; i++) ints[i] = f.applyAsInt(elements.get(from + i));
+            }
+         };
+   }
+
+   static Source longs(long[] values, int offset, int size)
+   {
+      return new Source()
+         {
+            public int size() { return size; }
+            public void fill(Block block, int from)
+            {
+               System.arraycopy(values, offset + from, block.longs(), 0, block.length);
+            }
+         };
+   }
+
+   static <T> Source longs(List<? extends T> elements, ToLongFunction<? super T> f)
+   {
+      return new Source()
+         {
+            public int size() { return elements.size(); }
+            public void fill(Block block, int from)
+            {
+               long[] longs = block.longs();
+               for (int i = 0; i < block.length; i++) longs[i] = f.applyAsLong(elements.get(from + i));
+            }
+         };
+   }
+
+   static Source doubles(double[] values, int offset, int size)
+   {
+      return new Source()
+         {
+            public int size() { return size; }
+            public void fill(Block block, int from)
+            {
+               System.arraycopy(values, offset + from, block.doubles(), 0, block.length);
+            }
+         };
+   }
+
+   static <T> Source doubles(List<? extends T> elements, ToDoubleFunction<? super T> f)
+   {
+      return new Source()
+         {
+            public int size() { return elements.size(); }
+            public void fill(Block block, int from)
+            {
+               double[] doubles = block.doubles();
+               for (int i = 0; i < block.length; i++)
+                  doubles[i] = f.applyAsDouble(elements.get(from + i));
+            }
+         };
+   }
+
+   // Stages
+
+   record IntMap(IntUnaryOperator op) implements Stage
+   {
+      public void apply(Block block)
+      {
+         int[] v = block.ints;
+         for (int i = 0; i < block.length; i++) v[i] = op.applyAsInt(v[i]);
+      }
+
+      public Stage fuse(Stage next)
+      {
+         return next instanceof IntMap m ? new IntMap(op.andThen(m.op)) : null;
+      }
+   }
+
+   record IntFilter(IntPredicate p) implements Stage
+   {
+      public void apply(Block block)
+      {
+         int[] v = block.ints;
+         int n = 0;
+         for (int i = 0; i < block.length; i++)
+            if (p.test(v[i])) v[n++] = v[i];
+         block.length = n;
+      }
+
+      public Stage fuse(Stage next)
+      {
+         return next instanceof IntFilter f ? new IntFilter(p.and(f.p)) : null;
+      }
+   }
+
+   record LongMap(LongUnaryOperator op) implements Stage
+   {
+      public void apply(Block block)
+      {
+         long[] v = block.longs;
+         for (int i = 0; i < block.length; i++) v[i] = op.applyAsLong(v[i]);
+      }
+
+      public Stage fuse(Stage next)
+      {
+         return next instanceof LongMap m ? new LongMap(op.andThen(m.op)) : null;
+      }
+   }
+
+   record LongFilter(LongPredicate p) implements Stage
+   {
+      public void apply(Block block)
+      {
+         long[] v = block.longs;
+         int n = 0;
+         for (int i = 0; i < block.length; i++)
+            if (p.test(v[i])) v[n++] = v[i];
+         block.length = n;
+      }
+
+      public Stage fuse(Stage next)
+      {
+         return next instanceof LongFilter f ? new LongFilter(p.and(f.p)) : null;
+      }
+   }
+
+   record DoubleMap(DoubleUnaryOperator op) implements Stage
+   {
+      public void apply(Block block)
+      {
+         double[] v = block.doubles;
+         for (int i = 0; i < block.length; i++) v[i] = op.applyAsDouble(v[i]);
+      }
+
+      public Stage fuse(Stage next)
+      {
+         return next instanceof DoubleMap m ? new DoubleMap(op.andThen(m.op)) : null;
+      }
+   }
+
+   record DoubleFilter(DoublePredicate p) implements Stage
+   {
+      public void apply(Block block)
+      {
+         double[] v = block.doubles;
+         int n = 0;
+         for (int i = 0; i < block.length; i++)
+            if (p.test(v[i])) v[n++] = v[i];
+         block.length = n;
+      }
+
+      public Stage fuse(Stage next)
+      {
+         return next instanceof DoubleFilter f ? new DoubleFilter(p.and(f.p)) : null;
+      }
+   }
+
+   record IntToLong(IntToLongFunction f) implements Stage
+   {
+      public void apply(Block block)
+      {
+         int[] from = block.ints;
+         long[] to = block.longs();
+         for (int i = 0; i < block.length; i++) to[i] = f.applyAsLong(from[i]);
+      }
+   }
+
+   record IntToDouble(IntToDoubleFunction f) implements Stage
+   {
+      public void apply(Block block)
+      {
+         int[] from = block.ints;
+         double[] to = block.doubles();
+         for (int i = 0; i < block.length; i++) to[i] = f.applyAsDouble(from[i]);
+      }
+   }
+
+   record LongToInt(LongToIntFunction f) implements Stage
+   {
+      public void apply(Block block)
+      {
+         long[] from = block.longs;
+         int[] to = block.ints;
+         for (int i = 0; i < block.length; i++) to[i] = f.applyAsInt(from[i]);
+      }
+   }
+
+   record LongToDouble(LongToDoubleFunction f) implements Stage
+   {
+      public void apply(Block block)
+      {
+         long[] from = block.longs;
+         double[] to = block.doubles();
+         for (int i = 0; i < block.length; i++) to[i] = f.applyAsDouble(from[i]);
+      }
+   }
+
+   record DoubleToInt(DoubleToIntFunction f) implements Stage
+   {
+      public void apply(Block block)
+      {
+         double[] from = block.doubles;
+         int[] to = block.ints;
+         for (int i = 0; i < block.length; i++) to[i] = f.applyAsInt(from[i]);
+      }
+   }
+
+   record DoubleToLong(DoubleToLongFunction f) implements Stage
+   {
+      public void apply(Block block)
+      {
+         double[] from = block.doubles;
+         long[] to = block.longs();
+         for (int i = 0; i < block.length; i++) to[i] = f.applyAsLong(from[i]);
+      }
+   }
+}
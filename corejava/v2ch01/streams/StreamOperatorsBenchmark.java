@@ -0,0 +1,104 @@
+package streams;
+
+import static java.util.stream.Collectors.*;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.*;
+
+import util.*;
+
+/**
+ * This program compares the bounded-memory operations of StreamOperators with
+ * sorted().limit(n), distinct().count(), and groupingBy counts, reporting both the
+ * accuracy of the estimates and the running times. The word corpus is made of copies of
+ * alice30.txt. The top-k words and the sliding averages are exact, and the program exits
+ * with status 1 if they differ from those of the plain stream operations.
+ * Usage: java streams.StreamOperatorsBenchmark [copies]
+ * @version 1.01 2026-10-19
+ */
+public class StreamOperatorsBenchmark
+{
+   private static final int ROUNDS = 3;
+
+   public static void main(String[] args) throws Exception
+   {
+      int copies = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+      var contents = Files.readString(Path.of("../gutenberg/alice30.txt"));
+      List<String> book = List.of(contents.split("\\PL+"));
+      var words = new ArrayList<String>(copies * book.size());
+      for (int i = 0; i < copies; i++)
+         for (String w : book) words.add(i % 2 == 0 ? w : w + i);
+      System.out.printf("%,d words%n", words.size());
+
+      System.out.println("Top 100 longest words");
+      Comparator<String> byLength = Comparator.comparingInt(String::length);
+      List<String> sorted = time("sorted().limit(100)", () -> words.parallelStream()
+         .sorted(byLength.reversed()).limit(100).toList());
+      List<String> top = time("topK(100)", () -> words.parallelStream()
+         .collect(StreamOperators.topK(100, byLength)));
+      boolean sameLengths = lengths(sorted).equals(lengths(top));
+      System.out.printf("   same lengths: %s%n", sameLengths);
+
+      System.out.println("Distinct words");
+      long exact = time("distinct().count()", () -> words.parallelStream().distinct().count());
+      HyperLogLog sketch = time("toHyperLogLog(14)", () -> words.parallelStream()
+         .collect(StreamOperators.toHyperLogLog(14)));
+      System.out.printf("   exact %,d, estimate %,d, error %.2f%%%n", exact, sketch.estimate(),
+         100.0 * (sketch.estimate() - exact) / exact);
+      for (long n = 1000; n <= 10_000_000; n *= 10)
+      {
+         HyperLogLog h = StreamOperators.toHyperLogLog(LongStream.range(0, n).parallel(), 14);
+         System.out.printf("   %,12d distinct longs: estimate %,12d, error %6.2f%%%n", n,
+            h.estimate(), 100.0 * (h.estimate() - n) / n);
+      }
+
+      System.out.println("10 most frequent words");
+      List<Map.Entry<String, Long>> counted = time("groupingBy(counting())", () -> words
+         .parallelStream().collect(groupingBy(w -> w, counting())).entrySet().stream()
+         .sorted(Map.Entry.<String, Long>comparingByValue().reversed()).limit(10).toList());
+      List<Map.Entry<String, Long>> hitters = time("heavyHitters(10, 4096, 4)", () -> words
+         .parallelStream().collect(StreamOperators.heavyHitters(10, 4096, 4)));
+      Map<String, Long> exactCounts = counted.stream()
+         .collect(toMap(Map.Entry::getKey, Map.Entry::getValue));
+      for (Map.Entry<String, Long> e : hitters)
+         System.out.printf("   %-8s estimate %,10d  exact %,10d%n", e.getKey(), e.getValue(),
+            exactCounts.getOrDefault(e.getKey(), -1L));
+
+      System.out.println("Average word length over windows of 1000 words");
+      int[] lengths = words.stream().mapToInt(String::length).toArray();
+      double[] averages = time("slidingAverages", () -> StreamOperators
+         .slidingAverages(IntStream.of(lengths), 1000).toArray());
+      double[] naive = time("sum of each window", () -> IntStream
+         .rangeClosed(0, lengths.length - 1000).parallel()
+         .mapToDouble(i -> IntStream.range(i, i + 1000).map(j -> lengths[j]).average().orElse(0))
+         .toArray());
+      double maxDifference = 0;
+      for (int i = 0; i < naive.length; i++)
+         maxDifference = Math.max(maxDifference, Math.abs(naive[i] - averages[i]));
+      System.out.printf("   %,d windows, largest difference %.2e%n", averages.length,
+         maxDifference);
+      System.out.printf("   first windows of 3 words: %s%n", StreamOperators
+         .sliding(words.stream(), 3).limit(3).toList());
+
+      // the averages are sums of ints divided by the same size, so they agree exactly
+      if (!sameLengths || averages.length != naive.length || maxDifference > 0)
+      {
+         System.out.println("RESULTS DIFFER");
+         System.exit(1);
+      }
+   }
+
+   private static List<Integer> lengths(List<String> words)
+   {
+      return words.stream().map(String::length).toList();
+   }
+
+   private static <T> T time(String name, BestOf.Task<T> task) throws Exception
+   {
+      BestOf.Result<T> r = BestOf.time(ROUNDS, task);
+      System.out.printf("   %-28s %8.1f ms%n", name, r.millis());
+      return r.value();
+   }
+}
@@ -0,0 +1,235 @@
+package streams;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.*;
+import java.util.stream.*;
+
+/**
+ * A spliterator that yields the words of a UTF-8 file, where a word is a maximal run of
+ * letters, as with <code>split("\\PL+")</code>. The file is memory-mapped, so the text is
+ * never loaded into the heap, and files larger than 2 GB are mapped in several windows.
+ * Splitting happens at byte positions. A word belongs to the spliterator in which it
+ * starts: a spliterator reads its last word past its end, and skips the tail of a word
+ * that started before its beginning.
+ * <p>
+ * Each spliterator hands out the same CharSequence object for every word, so consumers
+ * that keep a word must call toString.
+ * @version 1.00 2026-10-19
+ */
+public class WordSpliterator implements Spliterator<CharSequence>
+{
+   private static final int WINDOW_SHIFT = 30; // map 1 GB at a time
+   private static final long MIN_SPLIT = 1 << 20;
+
+   private final MappedFile file;
+   private long position;
+   private long end;
+   private boolean started;
+   private final WordView word = new WordView();
+
+   private WordSpliterator(MappedFile file, long start, long end)
+   {
+      this.file = file;
+      this.position = start;
+      this.end = end;
+   }
+
+   /**
+    * Gets the words of a file.
+    * @param path the path to a UTF-8 file
+    * @param parallel true for a parallel stream
+    * @return the stream of words, which reuses one CharSequence per spliterator
+    */
+   public static Stream<CharSequence> words(Path path, boolean parallel) throws IOException
+   {
+      var file = new MappedFile(path);
+      return StreamSupport.stream(new WordSpliterator(file, 0, file.size), parallel);
+   }
+
+   public boolean tryAdvance(Consumer<? super CharSequence> action)
+   {
+      if (!started)
+      {
+         started = true;
+         if (position > 0 && isLetterBefore(position))
+            while (position < file.size && isLetterAt(position)) position = nextChar(position);
+      }
+      // find the start of the next word
+      while (position < end && !isLetterAt(position)) position = nextChar(position);
+      if (position >= end) return false;
+      word.length = 0;
+      while (position < file.size)
+      {
+         int b = file.get(position);
+         if (b >= 0)
+         {
+            if (!isAsciiLetter(b)) break;
+            word.append((char) b);
+            position++;
+         }
+         else
+         {
+            int cp = codePointAt(position);
+            if (!Character.isLetter(cp)) break;
+            word.appendCodePoint(cp);
+            position = nextChar(position);
+         }
+      }
+      action.accept(word);
+      return true;
+   }
+
+   public Spliterator<CharSequence> trySplit()
+   {
+      if (started || end - position < 2 * MIN_SPLIT) return null;
+      long mid = position + (end - position) / 2;
+      while (mid < end && isContinuation(file.get(mid))) mid++;
+      var prefix = new WordSpliterator(file, position, mid);
+      position = mid;
+      return prefix;
+   }
+
+   public long estimateSize()
+   {
+      return (end - position) / 6; // about six bytes per word in English text
+   }
+
+   public int characteristics()
+   {
+      return ORDERED | NONNULL;
+   }
+
+   private static boolean isAsciiLetter(int b)
+   {
+      return (b | 0x20) >= 'a' && (b | 0x20) <= 'z';
+   }
+
+   private static boolean isContinuation(byte b)
+   {
+      return (b & 0xC0) == 0x80;
+   }
+
+   private boolean isLetterAt(long pos)
+   {
+      int b = file.get(pos);
+      return b >= 0 ? isAsciiLetter(b) : Character.isLetter(codePointAt(pos));
+   }
+
+   private boolean isLetterBefore(long pos)
+   {
+      long p = pos - 1;
+      while (p > 0 && isContinuation(file.get(p))) p--;
+      return isLetterAt(p);
+   }
+
+   private long nextChar(long pos)
+   {
+      int b = file.get(pos);
+      if (b >= 0) return pos + 1;
+      pos++;
+      while (pos < file.size && isContinuation(file.get(pos))) pos++;
+      return pos;
+   }
+
+   /**
+    * Decodes the UTF-8 sequence at a position. Malformed input yields U+FFFD, which is
+    * not a letter.
+    */
+   private int codePointAt(long pos)
+   {
+      int b = file.get(pos) & 0xFF;
+      if (b < 0xC0) return 0xFFFD;
+      int count = b >= 0xF0 ? 3 : b >= 0xE0 ? 2 : 1; // the number of continuation bytes
+      int cp = b & (0x3F >> count);
+      for (int i = 1; i <= count; i++)
+      {
+         if (pos + i >= file.size) return 0xFFFD;
+         byte c = file.get(pos + i);
+         if (!isContinuation(c)) return 0xFFFD;
+         cp = cp << 6 | c & 0x3F;
+      }
+      return cp;
+   }
+
+   /**
+    * A read-only mapping of a file in windows of 2^WINDOW_SHIFT bytes.
+    */
+   private static class MappedFile
+   {
+      private final MappedByteBuffer[] windows;
+      private final long size;
+
+      MappedFile(Path path) throws IOException
+      {
+         try (FileChannel channel = FileChannel.open(path))
+         {
+            size = channel.size();
+            long windowSize = 1L << WINDOW_SHIFT;
+            windows = new MappedByteBuffer[(int) ((size + windowSize - 1) / windowSize)];
+            for (int i = 0; i < windows.length; i++)
+            {
+               long start = i * windowSize;
+               windows[i] = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                  Math.min(windowSize, size - start));
+            }
+         }
+      }
+
+      byte get(long pos)
+      {
+         int offset = (int) (pos & ((1 << WINDOW_SHIFT) - 1));
+         return windows[(int) (pos >>> WINDOW_SHIFT)].get(offset);
+      }
+   }
+
+   /**
+    * The reusable word.
+    */
+   private static class WordView implements CharSequence
+   {
+      private char[] chars = new char[32];
+      private int length;
+
+      void append(char c)
+      {
+         if (length == chars.length) chars = Arrays.copyOf(chars, 2 * length);
+         chars[length++] = c;
+      }
+
+      void appendCodePoint(int cp)
+      {
+         if (Character.isBmpCodePoint(cp)) append((char) cp);
+         else
+         {
+            append(Character.highSurrogate(cp));
+            append(Character.lowSurrogate(cp));
+         }
+      }
+
+      public int length()
+      {
+         return length;
+      }
+
+      public char charAt(int index)
+      {
+         Objects.checkIndex(index, length);
+         return chars[index];
+      }
+
+      public CharSequence subSequence(int start, int end)
+      {
+         Objects.checkFromToIndex(start, end, length);
+         return new String(chars, start, end - start);
+      }
+
+      public String toString()
+      {
+         return new String(chars, 0, length);
+      }
+   }
+}
@@ -0,0 +1,101 @@
+package streams;
+
+import java.io.*;
+import java.lang.management.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * This program counts long words in files of increasing size, built by repeating
+ * alice30.txt, once with Files.readString and split("\\PL+") and once with a parallel
+ * WordSpliterator stream. It reports throughput and the peak heap use outside the young
+ * generation, which is where the retained text and word lists end up.
+ * Usage: java streams.WordSpliteratorBenchmark [sizeInMB ...]
+ * (for example 1 16 256 4096 20480; the default is 1 16 256)
+ * @version 1.00 2026-10-19
+ */
+public class WordSpliteratorBenchmark
+{
+   public static void main(String[] args) throws IOException
+   {
+      long[] sizes = args.length > 0 ? Arrays.stream(args).mapToLong(Long::parseLong).toArray()
+         : new long[] { 1, 16, 256 };
+      byte[] book = Files.readAllBytes(Path.of("../gutenberg/alice30.txt"));
+      for (long megabytes : sizes)
+      {
+         Path file = Files.createTempFile("words", ".txt");
+         try
+         {
+            long bytes = megabytes << 20;
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file)))
+            {
+               for (long written = 0; written < bytes; written += book.length) out.write(book);
+            }
+            long actualBytes = Files.size(file);
+            System.out.printf("%,d MB%n", actualBytes >> 20);
+
+            if (actualBytes < Integer.MAX_VALUE / 2)
+               measure("readString + split", actualBytes, () ->
+                  {
+                     try
+                     {
+                        var contents = Files.readString(file);
+                        List<String> words = List.of(contents.split("\\PL+"));
+                        return words.parallelStream().filter(w -> w.length() > 12).count();
+                     }
+                     catch (IOException e)
+                     {
+                        throw new UncheckedIOException(e);
+                     }
+                  });
+            else
+               System.out.println("   readString + split: file too large for a String");
+
+            measure("WordSpliterator", actualBytes, () ->
+               {
+                  try
+                  {
+                     return WordSpliterator.words(file, true).filter(w -> w.length() > 12).count();
+                  }
+                  catch (IOException e)
+                  {
+                     throw new UncheckedIOException(e);
+                  }
+               });
+         }
+         finally
+         {
+            Files.delete(file);
+         }
+      }
+   }
+
+   private static void measure(String name, long bytes, LongSupplier task)
+   {
+      System.gc();
+      List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+      for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+         if (pool.getType() == MemoryType.HEAP && !pool.getName().contains("Eden"))
+         {
+            pool.resetPeakUsage();
+            heapPools.add(pool);
+         }
+      long start = System.nanoTime();
+      long count;
+      try
+      {
+         count = task.getAsLong();
+      }
+      catch (OutOfMemoryError e)
+      {
+         System.out.printf("   %-20s out of memory%n", name);
+         return;
+      }
+      double seconds = (System.nanoTime() - start) / 1e9;
+      long peak = 0;
+      for (MemoryPoolMXBean pool : heapPools) peak += pool.getPeakUsage().getUsed();
+      System.out.printf("   %-20s %,12d long words  %8.1f MB/s  peak retained heap %,6d MB%n",
+         name, count, bytes / seconds / (1 << 20), peak >> 20);
+   }
+}
@@ -0,0 +1,767 @@
+package findDirectories;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.nio.file.attribute.*;
+import java.time.*;
+import java.util.*;
+import java.util.function.*;
+import java.util.stream.*;
+
+/**
+ * An index of a directory tree with the size, modification time and inode of every file and
+ * directory. The index is kept in parallel arrays, with the directory tree as parent, first
+ * child and next sibling links, so that queries scan arrays instead of the file system. It
+ * can be saved to a file and loaded again, and brought up to date in two ways: refresh only
+ * reads the directories whose modification time changed, and a watch service thread applies
+ * the changes that it is told about. Since changing a file does not change the modification
+ * time of its directory, a refresh only sees changed files in directories with added,
+ * removed or renamed entries; the watch service sees them all.
+ * @version 1.00 2026-10-19
+ */
+public class DirectoryIndex
+{
+   private static final int MAGIC = 0x44494458;
+   private static final byte DIRECTORY = 1;
+   private static final byte DELETED = 2;
+   private static final int NONE = -1;
+
+   private final Path root;
+   private int count;
+   private int deleted;
+   private int[] parent;
+   private int[] firstChild;
+   private int[] nextSibling;
+   private byte[] flags;
+   private long[] size;
+   private long[] modified;
+   private long[] inode;
+   private int[] nameOffset;
+   private short[] nameLength;
+   private byte[] names;
+   private int namesLength;
+
+   private WatchService watcher;
+   private Thread watchThread;
+   private final Map<WatchKey, Integer> watchedDirectories = new HashMap<>();
+   private final Map<Integer, WatchKey> watchKeys = new HashMap<>();
+   private int unwatched;
+   private long watchEvents;
+
+   private DirectoryIndex(Path root, int capacity)
+   {
+      this.root = root;
+      parent = new int[capacity];
+      firstChild = new int[capacity];
+      nextSibling = new int[capacity];
+      flags = new byte[capacity];
+      size = new long[capacity];
+      modified = new long[capacity];
+      inode = new long[capacity];
+      nameOffset = new int[capacity];
+      nameLength = new short[capacity];
+      names = new byte[16 * capacity];
+   }
+
+   /**
+    * Builds the index of a directory tree by walking it.
+    * @param root the top directory
+    */
+   public static DirectoryIndex build(Path root) throws IOException
+   {
+      var index = new DirectoryIndex(root.toAbsolutePath().normalize(), 1024);
+      BasicFileAttributes attrs = Files.readAttributes(index.root, BasicFileAttributes.class,
+         LinkOption.NOFOLLOW_LINKS);
+      index.add(NONE, new byte[0], attrs, index.root);
+      if (attrs.isDirectory()) index.walk(0, index.root);
+      return index;
+   }
+
+   /**
+    * Loads an index that was saved with save.
+    * @param file the index file
+    */
+   public static DirectoryIndex load(Path file) throws IOException
+   {
+      try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file),
+            1 << 16)))
+      {
+         if (in.readInt() != MAGIC) throw new IOException(file + " is not a directory index");
+         Path root = Path.of(in.readUTF());
+         int n = in.readInt();
+         var index = new DirectoryIndex(root, Math.max(n, 1024));
+         for (int id = 0; id < n; id++)
+         {
+            int p = in.readInt();
+            byte f = in.readByte();
+            long s = in.readLong();
+            long m = in.readLong();
+            long i = in.readLong();
+            var name = new byte[in.readShort() & 0xFFFF];
+            in.readFully(name);
+            index.add(p, name, f, s, m, i);
+         }
+         return index;
+      }
+   }
+
+   /**
+    * Makes the index of a made-up tree, for timing queries on a larger tree than is at hand.
+    * About one entry in ten is a directory, and each entry goes into one of the hundred most
+    * recently made directories. File sizes are spread over several orders of magnitude, and
+    * one entry in a hundred was modified in the last day.
+    * @param root the top directory, which need not exist
+    * @param entries the number of files and directories
+    * @param seed the seed of the random generator
+    */
+   static DirectoryIndex synthetic(Path root, int entries, long seed)
+   {
+      var index = new DirectoryIndex(root, Math.max(entries, 1024));
+      var generator = new Random(seed);
+      long now = System.currentTimeMillis();
+      long day = Duration.ofDays(1).toMillis();
+      var directories = new int[entries];
+      int directoryCount = 0;
+      directories[directoryCount++] = index.add(NONE, new byte[0], DIRECTORY, 4096, now, 1);
+      for (int n = 1; n < entries; n++)
+      {
+         int parentId = directories[directoryCount - 1
+            - generator.nextInt(Math.min(directoryCount, 100))];
+         boolean directory = generator.nextInt(10) == 0;
+         long modified = generator.nextInt(100) == 0 ? now - generator.nextInt((int) day)
+            : now - day - (long) (generator.nextDouble() * 1000 * day);
+         long size = directory ? 4096 : (long) Math.exp(8 + 2.5 * generator.nextGaussian());
+         byte[] name = ((directory ? "dir" : "file") + n).getBytes(StandardCharsets.UTF_8);
+         int id = index.add(parentId, name, directory ? DIRECTORY : 0, size, modified, n + 1);
+         if (directory) directories[directoryCount++] = id;
+      }
+      return index;
+   }
+
+   /**
+    * Saves the index. Deleted entries are left out, so the entry numbers in the file can
+    * differ from those of this index.
+    * @param file the index file, which is replaced when the new file has been written
+    */
+   public synchronized void save(Path file) throws IOException
+   {
+      Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+      var newId = new int[count];
+      try (var out = new DataOutputStream(new BufferedOutputStream(
+            Files.newOutputStream(temp), 1 << 16)))
+      {
+         out.writeInt(MAGIC);
+         out.writeUTF(root.toString());
+         out.writeInt(size());
+         // parents come before their children, so the renumbered parents are known
+         int next = 0;
+         for (int id = 0; id < count; id++)
+         {
+            if (isDeleted(id)) continue;
+            newId[id] = next++;
+            out.writeInt(parent[id] == NONE ? NONE : newId[parent[id]]);
+            out.writeByte(flags[id]);
+            out.writeLong(size[id]);
+            out.writeLong(modified[id]);
+            out.writeLong(inode[id]);
+            out.writeShort(nameLength[id]);
+            out.write(names, nameOffset[id], nameLength[id] & 0xFFFF);
+         }
+      }
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING,
+         StandardCopyOption.ATOMIC_MOVE);
+   }
+
+   /**
+    * Gets the top directory of the index.
+    */
+   public Path root()
+   {
+      return root;
+   }
+
+   /**
+    * Gets the number of files and directories in the index.
+    */
+   public synchronized int size()
+   {
+      return count - deleted;
+   }
+
+   // Entries
+
+   /**
+    * Finds the entry of a path.
+    * @param path a path in the tree
+    * @return the entry number, or -1 if the path is not in the index
+    */
+   public synchronized int find(Path path)
+   {
+      Path absolute = path.toAbsolutePath().normalize();
+      if (!absolute.startsWith(root) || count == 0) return NONE;
+      int id = 0;
+      for (Path name : root.relativize(absolute))
+      {
+         if (name.toString().isEmpty()) continue;
+         id = childNamed(id, name.toString().getBytes(StandardCharsets.UTF_8));
+         if (id == NONE) return NONE;
+      }
+      return id;
+   }
+
+   public synchronized Path path(int id)
+   {
+      var path = new ArrayDeque<String>();
+      for (int i = id; parent[i] != NONE; i = parent[i])
+         path.push(name(i));
+      Path result = root;
+      for (String name : path) result = result.resolve(name);
+      return result;
+   }
+
+   public synchronized String name(int id)
+   {
+      return new String(names, nameOffset[id], nameLength[id] & 0xFFFF, StandardCharsets.UTF_8);
+   }
+
+   public synchronized boolean isDirectory(int id)
+   {
+      return flags[id] == DIRECTORY;
+   }
+
+   public synchronized long size(int id)
+   {
+      return size[id];
+   }
+
+   public synchronized Instant lastModified(int id)
+   {
+      return Instant.ofEpochMilli(modified[id]);
+   }
+
+   /**
+    * Gets the inode number of an entry.
+    * @return the inode number, or -1 if the file system has none
+    */
+   public synchronized long inode(int id)
+   {
+      return inode[id];
+   }
+
+   /**
+    * Gets the paths of entries.
+    */
+   public synchronized List<Path> paths(int[] ids)
+   {
+      var result = new ArrayList<Path>(ids.length);
+      for (int id : ids) result.add(path(id));
+      return result;
+   }
+
+   // Queries
+
+   /**
+    * Finds all directories below a directory.
+    * @param dir a directory in the tree
+    * @return the entry numbers of the directories
+    */
+   public synchronized int[] directoriesUnder(Path dir)
+   {
+      return select(dir, id -> flags[id] == DIRECTORY);
+   }
+
+   /**
+    * Finds all files that are larger than a given size.
+    */
+   public synchronized int[] largerThan(long bytes)
+   {
+      IntStream.Builder result = IntStream.builder();
+      for (int id = 1; id < count; id++)
+         if (size[id] > bytes && flags[id] == 0) result.add(id);
+      return result.build().toArray();
+   }
+
+   /**
+    * Finds all files and directories that were modified at or after a given time.
+    */
+   public synchronized int[] changedSince(Instant time)
+   {
+      long millis = time.toEpochMilli();
+      IntStream.Builder result = IntStream.builder();
+      for (int id = 1; id < count; id++)
+         if (modified[id] >= millis && flags[id] != DELETED) result.add(id);
+      return result.build().toArray();
+   }
+
+   /**
+    * Finds the entries below a directory that pass a test.
+    * @param dir a directory in the tree
+    * @param test a test of entry numbers, which can use the methods of this index
+    * @return the entry numbers, or an empty array if dir is not in the index
+    */
+   public synchronized int[] select(Path dir, IntPredicate test)
+   {
+      int top = find(dir);
+      IntStream.Builder result = IntStream.builder();
+      if (top == 0)
+      {
+         // everything is below the root, so the arrays can be scanned in order
+         for (int id = 1; id < count; id++)
+            if (flags[id] != DELETED && test.test(id)) result.add(id);
+      }
+      else if (top != NONE)
+      {
+         var stack = new int[64];
+         int depth = 0;
+         for (int c = firstChild[top]; c != NONE; c = nextSibling[c])
+         {
+            stack[depth++] = c;
+            while (depth > 0)
+            {
+               int id = stack[--depth];
+               if (test.test(id)) result.add(id);
+               for (int d = firstChild[id]; d != NONE; d = nextSibling[d])
+               {
+                  if (depth == stack.length) stack = Arrays.copyOf(stack, 2 * depth);
+                  stack[depth++] = d;
+               }
+            }
+         }
+      }
+      return result.build().toArray();
+   }
+
+   // Updates
+
+   /**
+    * Brings the index up to date. Directories whose modification time is unchanged are not
+    * read again, but their subdirectories are checked.
+    * @return the number of directories that were read again
+    */
+   public synchronized int refresh() throws IOException
+   {
+      return refresh(root);
+   }
+
+   /**
+    * Brings a part of the index up to date.
+    * @param dir a directory in the index
+    * @return the number of directories that were read again
+    */
+   public synchronized int refresh(Path dir) throws IOException
+   {
+      int id = find(dir);
+      if (id == NONE) throw new NoSuchFileException(dir.toString(), null, "not in the index");
+      return refresh(id, path(id));
+   }
+
+   private int refresh(int id, Path path) throws IOException
+   {
+      BasicFileAttributes attrs;
+      try
+      {
+         attrs = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+      }
+      catch (NoSuchFileException e)
+      {
+         remove(id);
+         return 0;
+      }
+      boolean wasDirectory = flags[id] == DIRECTORY;
+      long lastModified = modified[id];
+      set(id, attrs);
+      if (!attrs.isDirectory())
+      {
+         if (wasDirectory) removeChildren(id);
+         return 0;
+      }
+      if (!wasDirectory)
+      {
+         if (watcher != null) watch(id, path);
+         walk(id, path);
+         return 1;
+      }
+
+      int reread = 0;
+      if (lastModified == modified[id])
+      {
+         var subdirectories = new ArrayList<Integer>();
+         for (int c = firstChild[id]; c != NONE; c = nextSibling[c])
+            if (flags[c] == DIRECTORY) subdirectories.add(c);
+         for (int c : subdirectories)
+            reread += refresh(c, path.resolve(name(c)));
+         return reread;
+      }
+
+      var children = new HashMap<String, Integer>();
+      for (int c = firstChild[id]; c != NONE; c = nextSibling[c])
+         children.put(name(c), c);
+      try (DirectoryStream<Path> entries = Files.newDirectoryStream(path))
+      {
+         for (Path p : entries)
+         {
+            String name = p.getFileName().toString();
+            Integer c = children.remove(name);
+            if (c == null) addTree(id, name, p);
+            else reread += refresh(c, p);
+         }
+      }
+      catch (AccessDeniedException e)
+      {
+         return reread;
+      }
+      for (int c : children.values()) remove(c);
+      return reread + 1;
+   }
+
+   /**
+    * Starts a thread that registers all directories with a watch service and applies the
+    * changes that it reports. Directories that cannot be registered, for example because of
+    * a limit of the operating system, are only updated by refresh.
+    */
+   public synchronized void startWatching() throws IOException
+   {
+      if (watcher != null) return;
+      watcher = root.getFileSystem().newWatchService();
+      for (int id = 0; id < count; id++)
+         if (flags[id] == DIRECTORY) watch(id, path(id));
+      watchThread = new Thread(this::processEvents, "DirectoryIndex watcher");
+      watchThread.setDaemon(true);
+      watchThread.start();
+   }
+
+   /**
+    * Stops the watching thread.
+    */
+   public void stopWatching() throws IOException, InterruptedException
+   {
+      Thread thread;
+      synchronized (this)
+      {
+         if (watcher == null) return;
+         watcher.close();
+         watcher = null;
+         watchedDirectories.clear();
+         watchKeys.clear();
+         unwatched = 0;
+         thread = watchThread;
+      }
+      thread.join();
+   }
+
+   /**
+    * Gets the number of directories that could not be registered with the watch service.
+    */
+   public synchronized int unwatchedCount()
+   {
+      return unwatched;
+   }
+
+   /**
+    * Gets the number of events that the watching thread has applied.
+    */
+   public synchronized long watchEventCount()
+   {
+      return watchEvents;
+   }
+
+   private void processEvents()
+   {
+      try
+      {
+         WatchService service;
+         synchronized (this)
+         {
+            service = watcher;
+         }
+         while (true)
+         {
+            WatchKey key = service.take();
+            synchronized (this)
+            {
+               Integer dir = watchedDirectories.get(key);
+               List<WatchEvent<?>> events = key.pollEvents();
+               if (dir != null && flags[dir] == DIRECTORY)
+               {
+                  Path path = path(dir);
+                  for (WatchEvent<?> event : events)
+                  {
+                     watchEvents++;
+                     try
+                     {
+                        if (event.kind() == OVERFLOW)
+                        {
+                           // events were lost, so read the directory again
+                           modified[dir] = Long.MIN_VALUE;
+                           refresh(dir, path);
+                        }
+                        else update(dir, (Path) event.context(), path);
+                     }
+                     catch (IOException e)
+                     {
+                        // leave the entry for the next refresh
+                     }
+                  }
+                  // the events cover the changes, so a refresh need not read it again
+                  try
+                  {
+                     var attrs = Files.readAttributes(path, BasicFileAttributes.class,
+                        LinkOption.NOFOLLOW_LINKS);
+                     if (attrs.isDirectory()) set(dir, attrs);
+                  }
+                  catch (IOException e)
+                  {
+                     // the parent directory has an event for it
+                  }
+               }
+               if (!key.reset() && dir != null)
+               {
+                  watchedDirectories.remove(key);
+                  watchKeys.remove(dir);
+               }
+            }
+         }
+      }
+      catch (InterruptedException | ClosedWatchServiceException e)
+      {
+         // stopWatching closed the watch service
+      }
+   }
+
+   /**
+    * Applies a change to an entry of a directory.
+    */
+   private void update(int dir, Path name, Path dirPath) throws IOException
+   {
+      Path path = dirPath.resolve(name);
+      int id = childNamed(dir, name.toString().getBytes(StandardCharsets.UTF_8));
+      if (id == NONE) addTree(dir, name.toString(), path);
+      else
+      {
+         // a modified directory is read again, even if its time has not changed yet
+         if (flags[id] == DIRECTORY) modified[id] = Long.MIN_VALUE;
+         refresh(id, path);
+      }
+   }
+
+   private void watch(int id, Path path)
+   {
+      try
+      {
+         WatchKey key = path.register(watcher, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+         watchedDirectories.put(key, id);
+         watchKeys.put(id, key);
+      }
+      catch (IOException e)
+      {
+         unwatched++;
+      }
+   }
+
+   /**
+    * Adds a file, or a directory with everything in it.
+    */
+   private void addTree(int parentId, String name, Path path) throws IOException
+   {
+      BasicFileAttributes attrs;
+      try
+      {
+         attrs = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+      }
+      catch (NoSuchFileException e)
+      {
+         return;
+      }
+      int id = add(parentId, name.getBytes(StandardCharsets.UTF_8), attrs, path);
+      if (attrs.isDirectory()) walk(id, path);
+   }
+
+   /**
+    * Adds everything in a directory that is already in the index.
+    */
+   private void walk(int id, Path dir) throws IOException
+   {
+      var stack = new ArrayDeque<Integer>();
+      Files.walkFileTree(dir, new SimpleFileVisitor<Path>()
+         {
+            public FileVisitResult preVisitDirectory(Path path, BasicFileAttributes attrs)
+            {
+               if (stack.isEmpty()) stack.push(id);
+               else stack.push(add(stack.peek(), nameBytes(path), attrs, path));
+               return FileVisitResult.CONTINUE;
+            }
+
+            public FileVisitResult visitFile(Path path, BasicFileAttributes attrs)
+            {
+               add(stack.peek(), nameBytes(path), attrs, path);
+               return FileVisitResult.CONTINUE;
+            }
+
+            public FileVisitResult visitFileFailed(Path path, IOException e)
+            {
+               return FileVisitResult.CONTINUE;
+            }
+
+            public FileVisitResult postVisitDirectory(Path path, IOException e)
+            {
+               stack.pop();
+               return FileVisitResult.CONTINUE;
+            }
+         });
+   }
+
+   private static byte[] nameBytes(Path path)
+   {
+      return path.getFileName().toString().getBytes(StandardCharsets.UTF_8);
+   }
+
+   private int add(int parentId, byte[] name, BasicFileAttributes attrs, Path path)
+   {
+      int id = add(parentId, name, (byte) 0, 0, 0, 0);
+      set(id, attrs);
+      if (watcher != null && attrs.isDirectory())
+      {
+         watch(id, path);
+         // later changes are reported, but one since the attributes were read might not be
+         try
+         {
+            set(id, Files.readAttributes(path, BasicFileAttributes.class,
+               LinkOption.NOFOLLOW_LINKS));
+         }
+         catch (IOException e)
+         {
+            // the parent directory has an event for it
+         }
+      }
+      return id;
+   }
+
+   private int add(int parentId, byte[] name, byte f, long s, long m, long i)
+   {
+      if (count == parent.length) grow();
+      if (namesLength + name.length > names.length)
+         names = Arrays.copyOf(names, Math.max(2 * names.length, namesLength + name.length));
+      int id = count++;
+      parent[id] = parentId;
+      firstChild[id] = NONE;
+      nextSibling[id] = NONE;
+      if (parentId != NONE)
+      {
+         nextSibling[id] = firstChild[parentId];
+         firstChild[parentId] = id;
+      }
+      flags[id] = f;
+      size[id] = s;
+      modified[id] = m;
+      inode[id] = i;
+      System.arraycopy(name, 0, names, namesLength, name.length);
+      nameOffset[id] = namesLength;
+      nameLength[id] = (short) name.length;
+      namesLength += name.length;
+      return id;
+   }
+
+   private void set(int id, BasicFileAttributes attrs)
+   {
+      flags[id] = attrs.isDirectory() ? DIRECTORY : 0;
+      size[id] = attrs.size();
+      modified[id] = attrs.lastModifiedTime().toMillis();
+      inode[id] = inodeOf(attrs);
+   }
+
+   /**
+    * Gets the inode number from the file key, which is (dev=...,ino=...) on Unix.
+    */
+   private static long inodeOf(BasicFileAttributes attrs)
+   {
+      Object key = attrs.fileKey();
+      if (key == null) return NONE;
+      String s = key.toString();
+      int start = s.indexOf("ino=");
+      if (start < 0) return NONE;
+      start += 4;
+      int end = start;
+      while (end < s.length() && Character.isDigit(s.charAt(end))) end++;
+      return end > start ? Long.parseLong(s.substring(start, end)) : NONE;
+   }
+
+   private void grow()
+   {
+      int n = 2 * parent.length;
+      parent = Arrays.copyOf(parent, n);
+      firstChild = Arrays.copyOf(firstChild, n);
+      nextSibling = Arrays.copyOf(nextSibling, n);
+      flags = Arrays.copyOf(flags, n);
+      size = Arrays.copyOf(size, n);
+      modified = Arrays.copyOf(modified, n);
+      inode = Arrays.copyOf(inode, n);
+      nameOffset = Arrays.copyOf(nameOffset, n);
+      nameLength = Arrays.copyOf(nameLength, n);
+   }
+
+   private boolean isDeleted(int id)
+   {
+      return flags[id] == DELETED;
+   }
+
+   private int childNamed(int id, byte[] name)
+   {
+      for (int c = firstChild[id]; c != NONE; c = nextSibling[c])
+      {
+         int start = nameOffset[c];
+         if ((nameLength[c] & 0xFFFF) == name.length
+               && Arrays.equals(names, start, start + name.length, name, 0, name.length))
+            return c;
+      }
+      return NONE;
+   }
+
+   /**
+    * Removes an entry and everything below it.
+    */
+   private void remove(int id)
+   {
+      int p = parent[id];
+      if (p != NONE)
+      {
+         if (firstChild[p] == id) firstChild[p] = nextSibling[id];
+         else
+         {
+            int c = firstChild[p];
+            while (nextSibling[c] != id) c = nextSibling[c];
+            nextSibling[c] = nextSibling[id];
+         }
+      }
+      removeChildren(id);
+      markDeleted(id);
+   }
+
+   private void removeChildren(int id)
+   {
+      var stack = new ArrayDeque<Integer>();
+      for (int c = firstChild[id]; c != NONE; c = nextSibling[c]) stack.push(c);
+      firstChild[id] = NONE;
+      while (!stack.isEmpty())
+      {
+         int d = stack.pop();
+         for (int c = firstChild[d]; c != NONE; c = nextSibling[c]) stack.push(c);
+         markDeleted(d);
+      }
+   }
+
+   private void markDeleted(int id)
+   {
+      WatchKey key = watchKeys.remove(id);
+      if (key != null)
+      {
+         key.cancel();
+         watchedDirectories.remove(key);
+      }
+      flags[id] = DELETED;
+      firstChild[id] = NONE;
+      deleted++;
+   }
+}
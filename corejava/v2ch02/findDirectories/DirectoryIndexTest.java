@@ -0,0 +1,148 @@
+package findDirectories;
+
+import java.io.*;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+
+import util.*;
+
+/**
+ * This program builds or loads a DirectoryIndex, brings it up to date, times some queries,
+ * optionally watches the tree for a while, and saves the index. Without an index file, the
+ * index is saved to a temporary file, loaded again, and deleted. Start the program as <br>
+ * java findDirectories.DirectoryIndexTest [directory [indexFile [watchSeconds]]] <br>
+ * To time the queries on a made-up tree with 5,000,000 entries, start it as <br>
+ * java findDirectories.DirectoryIndexTest -synthetic [entries]
+ * @version 1.02 2026-10-19
+ */
+public class DirectoryIndexTest
+{
+   private static final int ROUNDS = 5;
+
+   public static void main(String[] args) throws Exception
+   {
+      if (args.length > 0 && args[0].equals("-synthetic"))
+      {
+         int entries = args.length > 1 ? Integer.parseInt(args[1]) : 5_000_000;
+         long start = System.nanoTime();
+         DirectoryIndex index = DirectoryIndex.synthetic(Path.of("/synthetic"), entries, 42);
+         report("generate", start);
+         queries(index);
+         return;
+      }
+
+      Path dir = Path.of(args.length > 0 ? args[0] : System.getProperty("user.home"))
+         .toAbsolutePath().normalize();
+      if (args.length > 1)
+         run(dir, Path.of(args[1]), args.length > 2 ? Integer.parseInt(args[2]) : 0);
+      else
+      {
+         Path indexFile = Files.createTempFile("directory", ".idx");
+         try
+         {
+            run(dir, indexFile, 0);
+            long start = System.nanoTime();
+            DirectoryIndex.load(indexFile);
+            report("load", start);
+         }
+         finally
+         {
+            Files.delete(indexFile);
+         }
+      }
+   }
+
+   private static void run(Path dir, Path indexFile, int watchSeconds) throws Exception
+   {
+      DirectoryIndex index = open(dir, indexFile);
+      queries(index);
+
+      if (watchSeconds > 0)
+      {
+         index.startWatching();
+         System.out.printf("Watching for %d seconds (%d directories not watched)%n",
+            watchSeconds, index.unwatchedCount());
+         Thread.sleep(1000L * watchSeconds);
+         index.stopWatching();
+         System.out.printf("%d changes, %,d files and directories%n", index.watchEventCount(),
+            index.size());
+      }
+
+      long start = System.nanoTime();
+      index.save(indexFile);
+      report("save", start);
+   }
+
+   /**
+    * Times queries over the whole tree and over the subtree of its first directory.
+    */
+   private static void queries(DirectoryIndex index) throws Exception
+   {
+      System.out.printf("%,d files and directories%n", index.size());
+      Path root = index.root();
+      int[] directories = query("directories under " + root,
+         () -> index.directoriesUnder(root));
+      show(index, directories);
+      if (directories.length > 0)
+      {
+         Path subtree = index.path(directories[0]);
+         show(index, query("directories under " + subtree,
+            () -> index.directoriesUnder(subtree)));
+      }
+      int[] large = query("files larger than 1 MB", () -> index.largerThan(1 << 20));
+      show(index, large);
+      Instant yesterday = Instant.now().minus(Duration.ofDays(1));
+      int[] changed = query("changed in the last day", () -> index.changedSince(yesterday));
+      show(index, changed);
+   }
+
+   /**
+    * Loads and refreshes the index of a directory, or builds it if there is none.
+    */
+   private static DirectoryIndex open(Path dir, Path indexFile) throws IOException
+   {
+      DirectoryIndex index = null;
+      long start = System.nanoTime();
+      if (Files.exists(indexFile) && Files.size(indexFile) > 0)
+      {
+         index = DirectoryIndex.load(indexFile);
+         report("load", start);
+         if (index.root().equals(dir))
+         {
+            start = System.nanoTime();
+            int reread = index.refresh();
+            report("refresh, " + reread + " directories read again", start);
+         }
+         else index = null;
+      }
+      if (index == null)
+      {
+         start = System.nanoTime();
+         index = DirectoryIndex.build(dir);
+         report("walkFileTree", start);
+      }
+      return index;
+   }
+
+   /**
+    * Runs a query a few times and reports the best time.
+    */
+   private static int[] query(String what, BestOf.Task<int[]> query) throws Exception
+   {
+      BestOf.Result<int[]> result = BestOf.time(ROUNDS, query);
+      System.out.printf("%,d %s: %.1f ms%n", result.value().length, what, result.millis());
+      return result.value();
+   }
+
+   private static void show(DirectoryIndex index, int[] ids)
+   {
+      List<Path> paths = index.paths(Arrays.copyOf(ids, Math.min(ids.length, 3)));
+      for (Path p : paths) System.out.println("   " + p);
+   }
+
+   private static void report(String what, long start)
+   {
+      System.out.printf("%s: %.1f ms%n", what, (System.nanoTime() - start) / 1e6);
+   }
+}
@@ -0,0 +1,168 @@
+package match;
+
+import java.util.*;
+
+/**
+ * An Aho-Corasick automaton that finds all occurrences of many literals in one pass over a
+ * text. Characters are compared after case folding. The automaton is a full transition
+ * table over the characters that occur in the literals, so each character of the text costs
+ * two array lookups.
+ * @version 1.00 2026-10-19
+ */
+public class AhoCorasick
+{
+   private final char[] classes = new char[Character.MAX_VALUE + 1];
+   private final int alphabetSize;
+   private final int[] transitions;
+   private final int[][] outputs;
+
+   /**
+    * Constructs an automaton.
+    * @param literals the literals to find; empty literals are never found
+    */
+   public AhoCorasick(List<String> literals)
+   {
+      // number the folded characters of the literals, with 0 for all other characters
+      var classOf = new HashMap<Character, Character>();
+      for (String literal : literals)
+         for (int i = 0; i < literal.length(); i++)
+            classOf.putIfAbsent(fold(literal.charAt(i)), (char) (classOf.size() + 1));
+      if (classOf.size() >= Character.MAX_VALUE)
+         throw new IllegalArgumentException("too many distinct characters");
+      alphabetSize = classOf.size() + 1;
+      for (int c = 0; c <= Character.MAX_VALUE; c++)
+      {
+         Character k = classOf.get(fold((char) c));
+         if (k != null) classes[c] = k;
+      }
+
+      // the trie, with -1 for missing transitions
+      var trie = new ArrayList<int[]>();
+      var found = new ArrayList<List<Integer>>();
+      trie.add(newState());
+      found.add(new ArrayList<>());
+      for (int n = 0; n < literals.size(); n++)
+      {
+         String literal = literals.get(n);
+         if (literal.isEmpty()) continue;
+         int state = 0;
+         for (int i = 0; i < literal.length(); i++)
+         {
+            int k = classes[literal.charAt(i)];
+            if (trie.get(state)[k] < 0)
+            {
+               trie.get(state)[k] = trie.size();
+               trie.add(newState());
+               found.add(new ArrayList<>());
+            }
+            state = trie.get(state)[k];
+         }
+         found.get(state).add(n);
+      }
+
+      // fill in the missing transitions with those of the failure state, breadth first
+      int states = trie.size();
+      transitions = new int[states * alphabetSize];
+      outputs = new int[states][];
+      var failure = new int[states];
+      var queue = new ArrayDeque<Integer>();
+      for (int k = 0; k < alphabetSize; k++)
+      {
+         int target = trie.get(0)[k];
+         if (target > 0) queue.add(target);
+         transitions[k] = Math.max(target, 0);
+      }
+      while (!queue.isEmpty())
+      {
+         int state = queue.remove();
+         var out = new ArrayList<Integer>(found.get(state));
+         if (outputs[failure[state]] != null)
+            for (int n : outputs[failure[state]]) out.add(n);
+         outputs[state] = out.isEmpty() ? null : out.stream().mapToInt(n -> n).toArray();
+         for (int k = 0; k < alphabetSize; k++)
+         {
+            int target = trie.get(state)[k];
+            int fallback = transitions[failure[state] * alphabetSize + k];
+            if (target > 0)
+            {
+               failure[target] = fallback;
+               queue.add(target);
+               transitions[state * alphabetSize + k] = target;
+            }
+            else transitions[state * alphabetSize + k] = fallback;
+         }
+      }
+   }
+
+   private int[] newState()
+   {
+      var state = new int[alphabetSize];
+      Arrays.fill(state, -1);
+      return state;
+   }
+
+   /**
+    * Folds the case of a character.
+    */
+   public static char fold(char c)
+   {
+      if (c < 0x80) return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+      return Character.toLowerCase(Character.toUpperCase(c));
+   }
+
+   /**
+    * Gets the start state.
+    */
+   public int start()
+   {
+      return 0;
+   }
+
+   /**
+    * Moves to the next state.
+    * @param state the current state
+    * @param c the next character of the text
+    * @return the state after c
+    */
+   public int next(int state, char c)
+   {
+      return transitions[state * alphabetSize + classes[c]];
+   }
+
+   /**
+    * Gets the literals that end at a state.
+    * @param state a state
+    * @return the indexes of the literals that end with the last character, or null if none
+    */
+   public int[] outputs(int state)
+   {
+      return outputs[state];
+   }
+
+   /**
+    * Carries out an action when a literal is found.
+    */
+   public interface Handler
+   {
+      void found(int literal, int end);
+   }
+
+   /**
+    * Finds all occurrences of the literals in a part of a text.
+    * @param text the text
+    * @param from the start of the part
+    * @param to the end of the part (exclusive)
+    * @param handler receives the index of each literal and the end of the occurrence
+    */
+   public void scan(CharSequence text, int from, int to, Handler handler)
+   {
+      int state = 0;
+      for (int i = from; i < to; i++)
+      {
+         state = transitions[state * alphabetSize + classes[text.charAt(i)]];
+         int[] out = outputs[state];
+         if (out != null)
+            for (int n : out) handler.found(n, i + 1);
+      }
+   }
+}
@@ -0,0 +1,78 @@
+package match;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+
+/**
+ * A character sequence view of bytes in the ISO 8859-1 encoding, such as a memory-mapped
+ * log file. Each byte is one character, so nothing is decoded or copied until a part of
+ * the sequence is turned into a string. ASCII text, and the ASCII parts of UTF-8 text, read
+ * the same as when they are decoded.
+ * @version 1.00 2026-10-19
+ */
+public class ByteCharSequence implements CharSequence
+{
+   private final ByteBuffer bytes;
+   private final int offset;
+   private final int length;
+
+   /**
+    * Constructs a view of the bytes between the position and limit of a buffer.
+    * @param bytes the buffer
+    */
+   public ByteCharSequence(ByteBuffer bytes)
+   {
+      this(bytes, bytes.position(), bytes.remaining());
+   }
+
+   private ByteCharSequence(ByteBuffer bytes, int offset, int length)
+   {
+      this.bytes = bytes;
+      this.offset = offset;
+      this.length = length;
+   }
+
+   /**
+    * Maps a file into memory.
+    * @param path a file of less than 2 GB
+    * @return a view of the contents of the file
+    */
+   public static ByteCharSequence map(Path path) throws IOException
+   {
+      try (FileChannel channel = FileChannel.open(path))
+      {
+         if (channel.size() > Integer.MAX_VALUE)
+            throw new IOException(path + " has more than 2 GB");
+         return new ByteCharSequence(channel.map(FileChannel.MapMode.READ_ONLY, 0,
+            channel.size()));
+      }
+   }
+
+   public int length()
+   {
+      return length;
+   }
+
+   public char charAt(int index)
+   {
+      if (index < 0 || index >= length) throw new IndexOutOfBoundsException(index);
+      return (char) (bytes.get(offset + index) & 0xFF);
+   }
+
+   public CharSequence subSequence(int start, int end)
+   {
+      if (start < 0 || start > end || end > length)
+         throw new IndexOutOfBoundsException("start " + start + ", end " + end);
+      return new ByteCharSequence(bytes, offset + start, end - start);
+   }
+
+   public String toString()
+   {
+      var chars = new byte[length];
+      bytes.get(offset, chars);
+      return new String(chars, StandardCharsets.ISO_8859_1);
+   }
+}
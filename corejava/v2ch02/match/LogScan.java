@@ -0,0 +1,61 @@
+package match;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.regex.*;
+
+/**
+ * This program scans log files for many regular expressions at once and prints each
+ * matching line with the patterns that match it. Start the program as <br>
+ * java match.LogScan patternFile logFile ... <br>
+ * The pattern file has one regular expression per line. The log files are mapped into
+ * memory and read as ISO 8859-1.
+ * @version 1.00 2026-10-19
+ */
+public class LogScan
+{
+   public static void main(String[] args) throws IOException
+   {
+      if (args.length < 2)
+      {
+         System.out.println("Usage: java match.LogScan patternFile logFile ...");
+         return;
+      }
+      try
+      {
+         List<String> regexes = new ArrayList<>(Files.readAllLines(Path.of(args[0]),
+            StandardCharsets.UTF_8));
+         regexes.removeIf(String::isEmpty);
+         MultiPatternMatcher matcher = MultiPatternMatcher.compile(regexes, 0);
+         System.out.printf("%d patterns, %d without a literal%n", regexes.size(),
+            matcher.unfilteredCount());
+         for (int i = 1; i < args.length; i++)
+         {
+            String name = args[i];
+            CharSequence text = ByteCharSequence.map(Path.of(name));
+            int[] last = { 0 };
+            matcher.scan(text, (pattern, line, result) ->
+               {
+                  if (line != last[0])
+                  {
+                     int start = result.start();
+                     while (start > 0 && text.charAt(start - 1) != '\n') start--;
+                     int end = result.end();
+                     while (end < text.length() && text.charAt(end) != '\n'
+                           && text.charAt(end) != '\r')
+                        end++;
+                     System.out.println(name + ":" + line + ": " + text.subSequence(start, end));
+                     last[0] = line;
+                  }
+                  System.out.println("   [" + pattern + "] " + result.group());
+               });
+         }
+      }
+      catch (PatternSyntaxException e)
+      {
+         System.out.println(e.getMessage());
+      }
+   }
+}
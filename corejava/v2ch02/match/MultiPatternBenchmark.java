@@ -0,0 +1,112 @@
+package match;
+
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.regex.*;
+
+import util.*;
+
+/**
+ * This program compares running many patterns one at a time over a memory-mapped log file
+ * with a MultiPatternMatcher, for 10 to 500 patterns, and checks that both find the same
+ * matches. Most lines of the log are routine; a few are service timeouts, error codes,
+ * denied accesses and disk warnings, some of which the patterns look for. The program exits
+ * with status 1 if the matches differ.
+ * Usage: java match.MultiPatternBenchmark [lines]
+ * @version 1.01 2026-10-19
+ */
+public class MultiPatternBenchmark
+{
+   private static final int ROUNDS = 3;
+   private static final int[] PATTERN_COUNTS = { 10, 100, 500 };
+   private static final String[] TEMPLATES = {
+      "service%d timeout after \\d+ ms",
+      "(?i)error code E%d\\b",
+      "user \\w+ denied access to /res/%d\\b",
+      "disk (sda|sdb)%d usage \\d{2,3}%%",
+      "queue %1$d is full|backlog %1$d is full"
+   };
+
+   public static void main(String[] args) throws Exception
+   {
+      int lines = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+      Path log = Files.createTempFile("multipattern", ".log");
+      boolean differ = false;
+      try
+      {
+         Files.write(log, generateLog(lines, new Random(42)), StandardCharsets.ISO_8859_1);
+         CharSequence text = ByteCharSequence.map(log);
+         System.out.printf("%,d lines, %,d bytes%n", lines, text.length());
+         for (int n : PATTERN_COUNTS)
+         {
+            var regexes = new ArrayList<String>();
+            for (int i = 0; i < n; i++)
+               regexes.add(String.format(TEMPLATES[i % TEMPLATES.length], 2 * i));
+            System.out.println(n + " patterns:");
+            var patterns = new ArrayList<Pattern>();
+            for (String regex : regexes) patterns.add(Pattern.compile(regex));
+
+            long[] separate = time("separate patterns", () ->
+               {
+                  var counts = new long[n];
+                  for (int p = 0; p < n; p++)
+                  {
+                     Matcher m = patterns.get(p).matcher(text);
+                     while (m.find()) counts[p]++;
+                  }
+                  return counts;
+               });
+            var matcher = new MultiPatternMatcher(patterns);
+            long[] combined = time("MultiPatternMatcher", () ->
+               {
+                  var counts = new long[n];
+                  matcher.scan(text, (pattern, line, result) -> counts[pattern]++);
+                  return counts;
+               });
+            boolean same = Arrays.equals(separate, combined);
+            System.out.printf("   %,d matches, %s%n", Arrays.stream(combined).sum(),
+               same ? "same as separate patterns" : "DIFFERENT");
+            differ |= !same;
+         }
+      }
+      finally
+      {
+         Files.delete(log);
+      }
+      if (differ) System.exit(1);
+   }
+
+   private static List<String> generateLog(int lines, Random generator)
+   {
+      String[] levels = { "INFO", "INFO", "INFO", "DEBUG", "WARN" };
+      var result = new ArrayList<String>(lines);
+      for (int i = 0; i < lines; i++)
+      {
+         String prefix = String.format("2026-10-19 %02d:%02d:%02d.%03d %-5s [worker-%d] ",
+            i / 360000 % 24, i / 6000 % 60, i / 100 % 60, i % 1000,
+            levels[generator.nextInt(levels.length)], generator.nextInt(16));
+         int k = generator.nextInt(1000);
+         String message;
+         if (k == 0) message = "service" + generator.nextInt(1000) + " timeout after "
+            + generator.nextInt(5000) + " ms";
+         else if (k == 1) message = "Error code E" + generator.nextInt(1000) + " in handler";
+         else if (k == 2) message = "user u" + generator.nextInt(100) + " denied access to /res/"
+            + generator.nextInt(1000);
+         else if (k == 3) message = "disk sda" + generator.nextInt(1000) + " usage "
+            + (80 + generator.nextInt(20)) + "%";
+         else if (k == 4) message = "fatal: queue " + generator.nextInt(1000) + " is full";
+         else message = "request id=" + generator.nextInt(1_000_000) + " handled in "
+            + generator.nextInt(200) + " ms by service" + generator.nextInt(1000);
+         result.add(prefix + message);
+      }
+      return result;
+   }
+
+   private static long[] time(String name, BestOf.Task<long[]> task) throws Exception
+   {
+      BestOf.Result<long[]> result = BestOf.time(ROUNDS, task);
+      System.out.printf("   %-24s %9.1f ms%n", name, result.millis());
+      return result.value();
+   }
+}
@@ -0,0 +1,331 @@
+package match;
+
+import java.util.*;
+import java.util.regex.*;
+
+/**
+ * Finds the matches of many regular expressions in the lines of a text. A literal that every
+ * match of a pattern must contain is taken from each pattern, or from each alternative of a
+ * pattern, and one Aho-Corasick pass over the text finds the lines that contain any of the
+ * literals. A pattern is only run on the lines that contain one of its literals. Patterns
+ * without such literals are run on every line. Matches do not extend over line ends.
+ * @version 1.00 2026-10-19
+ */
+public class MultiPatternMatcher
+{
+   private final Pattern[] patterns;
+   private final AhoCorasick literals;
+   private final int[][] patternsOfLiteral;
+   private final int[] unfiltered;
+
+   /**
+    * Carries out an action for each match.
+    */
+   public interface MatchHandler
+   {
+      /**
+       * Called for each match, in the order of lines, and for each line in the order of the
+       * patterns.
+       * @param pattern the index of the pattern
+       * @param line the line number, starting with 1
+       * @param result the match, which is only valid during the call
+       */
+      void match(int pattern, int line, MatchResult result);
+   }
+
+   /**
+    * Constructs a matcher.
+    * @param patterns the patterns
+    */
+   public MultiPatternMatcher(List<Pattern> patterns)
+   {
+      this.patterns = patterns.toArray(new Pattern[0]);
+      var literalIndex = new LinkedHashMap<String, List<Integer>>();
+      var always = new ArrayList<Integer>();
+      for (int p = 0; p < this.patterns.length; p++)
+      {
+         Pattern pattern = this.patterns[p];
+         List<String> required = requiredLiterals(pattern.pattern(), pattern.flags());
+         if (required.isEmpty()) always.add(p);
+         for (String literal : required)
+            literalIndex.computeIfAbsent(literal, k -> new ArrayList<>()).add(p);
+      }
+      literals = new AhoCorasick(new ArrayList<>(literalIndex.keySet()));
+      patternsOfLiteral = literalIndex.values().stream()
+         .map(list -> list.stream().mapToInt(p -> p).toArray())
+         .toArray(int[][]::new);
+      unfiltered = always.stream().mapToInt(p -> p).toArray();
+   }
+
+   /**
+    * Compiles regular expressions with the same flags.
+    * @param regexes the regular expressions
+    * @param flags the flags of Pattern.compile
+    */
+   public static MultiPatternMatcher compile(Collection<String> regexes, int flags)
+   {
+      var patterns = new ArrayList<Pattern>();
+      for (String regex : regexes)
+         patterns.add(Pattern.compile(regex, flags));
+      return new MultiPatternMatcher(patterns);
+   }
+
+   /**
+    * Gets the patterns.
+    */
+   public List<Pattern> patterns()
+   {
+      return List.of(patterns);
+   }
+
+   /**
+    * Gets the number of patterns that are run on every line.
+    */
+   public int unfilteredCount()
+   {
+      return unfiltered.length;
+   }
+
+   /**
+    * Finds the matches of all patterns.
+    * @param text the text, with lines that are separated by \n or \r\n
+    * @param handler receives each match
+    */
+   public void scan(CharSequence text, MatchHandler handler)
+   {
+      var matchers = new Matcher[patterns.length];
+      var marked = new boolean[patterns.length];
+      var candidates = new int[patterns.length];
+      int count = 0;
+      int state = literals.start();
+      int lineStart = 0;
+      int line = 1;
+      int length = text.length();
+      for (int i = 0; i <= length; i++)
+      {
+         char c = i < length ? text.charAt(i) : '\n';
+         if (c == '\n')
+         {
+            if (i < length || lineStart < length)
+            {
+               int lineEnd = i > lineStart && text.charAt(i - 1) == '\r' ? i - 1 : i;
+               for (int p : unfiltered) candidates[count++] = p;
+               Arrays.sort(candidates, 0, count);
+               for (int j = 0; j < count; j++)
+               {
+                  int p = candidates[j];
+                  marked[p] = false;
+                  if (matchers[p] == null) matchers[p] = patterns[p].matcher(text);
+                  Matcher m = matchers[p];
+                  m.region(lineStart, lineEnd);
+                  while (m.find()) handler.match(p, line, m);
+               }
+            }
+            count = 0;
+            state = literals.start();
+            lineStart = i + 1;
+            line++;
+         }
+         else
+         {
+            state = literals.next(state, c);
+            int[] found = literals.outputs(state);
+            if (found != null)
+               for (int n : found)
+                  for (int p : patternsOfLiteral[n])
+                     if (!marked[p])
+                     {
+                        marked[p] = true;
+                        candidates[count++] = p;
+                     }
+         }
+      }
+   }
+
+   /**
+    * Finds literals of which every match of a regular expression contains at least one,
+    * with one literal for each alternative of an alternation at the top level.
+    * @param regex a regular expression
+    * @param flags the flags of Pattern.compile
+    * @return the literals, or an empty list if some alternative has no literal
+    */
+   public static List<String> requiredLiterals(String regex, int flags)
+   {
+      var result = new ArrayList<String>();
+      int start = 0;
+      int n = regex.length();
+      for (int i = 0; i <= n; i++)
+      {
+         if (i == n || (regex.charAt(i) == '|' && (flags & Pattern.LITERAL) == 0))
+         {
+            String literal = requiredLiteral(regex.substring(start, i), flags);
+            if (literal.isEmpty()) return List.of();
+            result.add(literal);
+            start = i + 1;
+            if (i == n) break;
+         }
+         else if ((flags & Pattern.LITERAL) != 0) continue;
+         else if (regex.startsWith("\\Q", i))
+         {
+            int end = regex.indexOf("\\E", i);
+            i = end < 0 ? n - 1 : end + 1;
+         }
+         else if (regex.charAt(i) == '\\') i++;
+         else if (regex.charAt(i) == '(') i = skipGroup(regex, i) - 1;
+         else if (regex.charAt(i) == '[') i = skipClass(regex, i) - 1;
+      }
+      return result;
+   }
+
+   /**
+    * Finds a literal that every match of a regular expression contains. This is the longest
+    * run of literal characters outside of groups and character classes that no quantifier
+    * makes optional.
+    * @param regex a regular expression
+    * @param flags the flags of Pattern.compile
+    * @return the literal, or "" if there is none
+    */
+   public static String requiredLiteral(String regex, int flags)
+   {
+      if ((flags & Pattern.LITERAL) != 0) return regex.indexOf('\n') < 0 ? regex : "";
+      if ((flags & (Pattern.COMMENTS | Pattern.CANON_EQ)) != 0 || hasCommentsFlag(regex))
+         return "";
+      String best = "";
+      var run = new StringBuilder();
+      boolean literal = false; // whether the last atom is the last character of run
+      int n = regex.length();
+      int i = 0;
+      while (i < n)
+      {
+         char c = regex.charAt(i);
+         if (c == '|') return "";
+         if (c == '*' || c == '?' || c == '+' || c == '{')
+         {
+            boolean optional = c != '+';
+            if (c == '{')
+            {
+               int close = regex.indexOf('}', i);
+               if (close < 0) close = n - 1;
+               optional = regex.startsWith("0", i + 1) || regex.startsWith(",", i + 1);
+               i = close;
+            }
+            if (optional && literal) run.setLength(run.length() - 1);
+            if (run.length() > best.length()) best = run.toString();
+            run.setLength(0);
+            literal = false;
+            i++;
+            if (i < n && (regex.charAt(i) == '?' || regex.charAt(i) == '+')) i++;
+            continue;
+         }
+
+         // the end of the run before c, unless c is a literal character
+         String atom = null;
+         int next = i + 1;
+         if (c == '(') next = skipGroup(regex, i);
+         else if (c == '[') next = skipClass(regex, i);
+         else if (c == '\\' && i + 1 < n)
+         {
+            char d = regex.charAt(i + 1);
+            next = i + 2;
+            if (d == 'Q')
+            {
+               int end = regex.indexOf("\\E", next);
+               if (end < 0) end = n;
+               atom = regex.substring(next, end);
+               if (atom.indexOf('\n') >= 0 || atom.indexOf('\r') >= 0) atom = null;
+               next = Math.min(end + 2, n);
+            }
+            else if (Character.isLetterOrDigit(d))
+            {
+               // skip the rest of octal, hex, Unicode, control, property and named escapes
+               if (Character.isDigit(d))
+                  while (next < n && Character.isDigit(regex.charAt(next))) next++;
+               else if (next < n && regex.charAt(next) == '{')
+                  next = regex.indexOf('}', next) + 1;
+               else if (d == 'k' && next < n && regex.charAt(next) == '<')
+                  next = regex.indexOf('>', next) + 1;
+               else if (d == 'p' || d == 'P' || d == 'c') next += 1;
+               else if (d == 'x') next += 2;
+               else if (d == 'u') next += 4;
+               if (next <= 0 || next > n) next = n;
+            }
+            else if (d != '\n' && d != '\r') atom = String.valueOf(d);
+         }
+         else if (c != '.' && c != '^' && c != '$' && c != '\n' && c != '\r')
+            atom = String.valueOf(c);
+
+         if (atom == null || atom.isEmpty())
+         {
+            if (run.length() > best.length()) best = run.toString();
+            run.setLength(0);
+            literal = false;
+         }
+         else
+         {
+            run.append(atom);
+            literal = true;
+         }
+         i = next;
+      }
+      if (run.length() > best.length()) best = run.toString();
+      return best;
+   }
+
+   /**
+    * Checks for an embedded flag expression that turns on comments mode, in which spaces
+    * are not literal.
+    */
+   private static boolean hasCommentsFlag(String regex)
+   {
+      for (int i = regex.indexOf("(?"); i >= 0; i = regex.indexOf("(?", i + 2))
+      {
+         int j = i + 2;
+         while (j < regex.length() && Character.isLetter(regex.charAt(j)))
+            if (regex.charAt(j++) == 'x') return true;
+      }
+      return false;
+   }
+
+   /**
+    * Gets the position after a group.
+    */
+   private static int skipGroup(String regex, int start)
+   {
+      int depth = 0;
+      int i = start;
+      while (i < regex.length())
+      {
+         char c = regex.charAt(i);
+         if (c == '\\') i++;
+         else if (c == '[') i = skipClass(regex, i) - 1;
+         else if (c == '(') depth++;
+         else if (c == ')' && --depth == 0) return i + 1;
+         i++;
+      }
+      return regex.length();
+   }
+
+   /**
+    * Gets the position after a character class, which may contain nested classes.
+    */
+   private static int skipClass(String regex, int start)
+   {
+      int depth = 0;
+      int i = start;
+      while (i < regex.length())
+      {
+         char c = regex.charAt(i);
+         if (c == '\\') i++;
+         else if (c == '[')
+         {
+            depth++;
+            // a ] right after [ or [^ is a literal
+            if (regex.startsWith("^", i + 1)) i++;
+            if (regex.startsWith("]", i + 1)) i++;
+         }
+         else if (c == ']' && --depth == 0) return i + 1;
+         i++;
+      }
+      return regex.length();
+   }
+}
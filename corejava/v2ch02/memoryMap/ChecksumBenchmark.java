@@ -0,0 +1,112 @@
+package memoryMap;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+import util.*;
+
+/**
+ * This program compares the checksum strategies of MemoryMapTest and MemoryMapTest2 with
+ * those of FileChecksums, and checks that all CRC32 values agree, as well as the sequential
+ * and parallel values of the other combinable algorithms. It exits with status 1 if they do
+ * not. The byte-at-a-time strategies of MemoryMapTest are only run on files of at most
+ * 64 MB.
+ * Usage: java memoryMap.ChecksumBenchmark [filename | sizeInMB]
+ * Without a filename, a temporary file of random bytes (256 MB by default) is used.
+ * @version 1.01 2026-10-19
+ */
+public class ChecksumBenchmark
+{
+   private static final int ROUNDS = 3;
+   private static final long SLOW_LIMIT = 64 << 20;
+
+   private interface Strategy
+   {
+      long checksum(Path filename) throws IOException;
+   }
+
+   public static void main(String[] args) throws Exception
+   {
+      Path filename;
+      boolean temporary = args.length == 0 || args[0].matches("\\d+");
+      if (temporary)
+      {
+         long megabytes = args.length == 0 ? 256 : Long.parseLong(args[0]);
+         filename = Files.createTempFile("checksum", ".bin");
+         var generator = new Random(42);
+         var bytes = new byte[1 << 20];
+         try (var out = Files.newOutputStream(filename))
+         {
+            for (long i = 0; i < megabytes; i++)
+            {
+               generator.nextBytes(bytes);
+               out.write(bytes);
+            }
+         }
+      }
+      else filename = Path.of(args[0]);
+
+      boolean differ = false;
+      try
+      {
+         long size = Files.size(filename);
+         System.out.printf("%s, %,d bytes, %d processors%n", filename, size,
+            Runtime.getRuntime().availableProcessors());
+         var crcs = new TreeMap<String, Long>();
+         if (size <= SLOW_LIMIT)
+         {
+            run("Input Stream", MemoryMapTest::checksumInputStream, filename, size, crcs);
+            run("Buffered Input Stream", MemoryMapTest::checksumBufferedInputStream, filename,
+               size, crcs);
+            run("Random Access File", MemoryMapTest::checksumRandomAccessFile, filename, size,
+               crcs);
+            run("Mapped File", MemoryMapTest::checksumMappedFile, filename, size, crcs);
+         }
+         run("Input Stream, blocks", MemoryMapTest2::checksumInputStream, filename, size, crcs);
+         run("Buffered Input Stream, blocks", MemoryMapTest2::checksumBufferedInputStream,
+            filename, size, crcs);
+         run("Random Access File, blocks", MemoryMapTest2::checksumRandomAccessFile, filename,
+            size, crcs);
+         run("Mapped File, blocks", MemoryMapTest2::checksumMappedFile, filename, size, crcs);
+
+         for (FileChecksums.Algorithm a : FileChecksums.Algorithm.values())
+         {
+            long value = run("Mapped windows, " + a, f -> FileChecksums.checksum(f, a), filename,
+               size, a == FileChecksums.Algorithm.CRC32 ? crcs : null);
+            long parallel = run("Parallel chunks, " + a,
+               f -> FileChecksums.parallelChecksum(f, a), filename, size,
+               a == FileChecksums.Algorithm.CRC32 ? crcs : null);
+            if (a.isCombinable() && value != parallel)
+            {
+               System.out.println("   DIFFERENT " + a + " VALUES");
+               differ = true;
+            }
+         }
+
+         if (new HashSet<>(crcs.values()).size() > 1)
+         {
+            System.out.println("DIFFERENT CRC32 VALUES: " + crcs);
+            differ = true;
+         }
+         else
+            System.out.println("All CRC32 values agree");
+      }
+      finally
+      {
+         if (temporary) Files.delete(filename);
+      }
+      if (differ) System.exit(1);
+   }
+
+   private static long run(String name, Strategy strategy, Path filename, long size,
+      Map<String, Long> crcs) throws Exception
+   {
+      BestOf.Result<Long> r = BestOf.time(ROUNDS, () -> strategy.checksum(filename));
+      long value = r.value();
+      System.out.printf("%-34s %16x %9.1f ms %9.1f MB/s%n", name, value, r.millis(),
+         size / 1048576.0 / (r.nanos() / 1e9));
+      if (crcs != null) crcs.put(name, value);
+      return value;
+   }
+}
@@ -0,0 +1,220 @@
+package memoryMap;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.function.*;
+import java.util.stream.*;
+import java.util.zip.*;
+
+/**
+ * Checksums of files of any size. The file is mapped in windows of at most 1 GB, and each
+ * window is handed to the checksum as a whole buffer, so that CRC32 and CRC32C can use the
+ * processor's CRC instructions. The parallel methods checksum fixed-size chunks in separate
+ * threads. For a CRC, the chunk values are combined into the CRC of the whole file, as in
+ * crc32_combine of zlib. An xxHash64 cannot be combined, so its parallel version is the hash
+ * of the chunk hashes, a different value that only depends on the file and the chunk size.
+ * @version 1.00 2026-10-19
+ */
+public class FileChecksums
+{
+   public static final long WINDOW_SIZE = 1L << 30;
+   public static final int CHUNK_SIZE = 32 << 20;
+
+   private FileChecksums() {}
+
+   /**
+    * The supported checksums, with the reflected polynomial of the CRCs.
+    */
+   public enum Algorithm
+   {
+      CRC32(CRC32::new, 0xEDB88320),
+      CRC32C(CRC32C::new, 0x82F63B78),
+      XXHASH64(XXHash64::new, 0);
+
+      private final Supplier<Checksum> factory;
+      private final int polynomial;
+
+      Algorithm(Supplier<Checksum> factory, int polynomial)
+      {
+         this.factory = factory;
+         this.polynomial = polynomial;
+      }
+
+      public Checksum newChecksum()
+      {
+         return factory.get();
+      }
+
+      public boolean isCombinable()
+      {
+         return polynomial != 0;
+      }
+   }
+
+   /**
+    * Computes the checksum of a file in a single thread.
+    * @param filename the file
+    * @param algorithm the checksum
+    * @return the checksum of the whole file
+    */
+   public static long checksum(Path filename, Algorithm algorithm) throws IOException
+   {
+      try (FileChannel channel = FileChannel.open(filename))
+      {
+         Checksum checksum = algorithm.newChecksum();
+         update(checksum, channel, 0, channel.size());
+         return checksum.getValue();
+      }
+   }
+
+   /**
+    * Computes the checksum of a file from chunks that are checksummed in parallel.
+    * @param filename the file
+    * @param algorithm the checksum
+    * @param chunkSize the number of bytes in each chunk
+    * @return the checksum of the whole file for CRC32 and CRC32C, or the xxHash64 of the
+    * little-endian chunk hashes for XXHASH64
+    */
+   public static long parallelChecksum(Path filename, Algorithm algorithm, int chunkSize)
+      throws IOException
+   {
+      if (chunkSize <= 0) throw new IllegalArgumentException("chunk size " + chunkSize);
+      try (FileChannel channel = FileChannel.open(filename))
+      {
+         long size = channel.size();
+         int chunks = (int) Math.max(1, (size + chunkSize - 1) / chunkSize);
+         long[] values;
+         try
+         {
+            values = IntStream.range(0, chunks).parallel().mapToLong(i ->
+               {
+                  long start = (long) i * chunkSize;
+                  Checksum checksum = algorithm.newChecksum();
+                  try
+                  {
+                     update(checksum, channel, start, Math.min(chunkSize, size - start));
+                  }
+                  catch (IOException e)
+                  {
+                     throw new UncheckedIOException(e);
+                  }
+                  return checksum.getValue();
+               }).toArray();
+         }
+         catch (UncheckedIOException e)
+         {
+            throw e.getCause();
+         }
+
+         if (algorithm.isCombinable())
+         {
+            long crc = values[0];
+            for (int i = 1; i < chunks; i++)
+            {
+               long length = Math.min(chunkSize, size - (long) i * chunkSize);
+               crc = combine(algorithm, crc, values[i], length);
+            }
+            return crc;
+         }
+         else
+         {
+            ByteBuffer hashes = ByteBuffer.allocate(8 * chunks).order(ByteOrder.LITTLE_ENDIAN);
+            for (long v : values) hashes.putLong(v);
+            Checksum checksum = algorithm.newChecksum();
+            checksum.update(hashes.flip());
+            return checksum.getValue();
+         }
+      }
+   }
+
+   public static long parallelChecksum(Path filename, Algorithm algorithm) throws IOException
+   {
+      return parallelChecksum(filename, algorithm, CHUNK_SIZE);
+   }
+
+   /**
+    * Adds a range of a file to a checksum, mapping at most WINDOW_SIZE bytes at a time.
+    */
+   private static void update(Checksum checksum, FileChannel channel, long start, long length)
+      throws IOException
+   {
+      for (long p = start; p < start + length; p += WINDOW_SIZE)
+      {
+         MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, p,
+            Math.min(WINDOW_SIZE, start + length - p));
+         checksum.update(buffer);
+      }
+   }
+
+   /**
+    * Computes the CRC of two byte sequences from the CRCs of each, without looking at the
+    * bytes. Appending length2 zero bits is a linear map on the 32 bits of the CRC, and it is
+    * applied to crc1 by repeated squaring of the matrix for a single zero bit.
+    * @param algorithm CRC32 or CRC32C
+    * @param crc1 the CRC of the first sequence
+    * @param crc2 the CRC of the second sequence
+    * @param length2 the number of bytes in the second sequence
+    * @return the CRC of the first sequence followed by the second
+    */
+   public static long combine(Algorithm algorithm, long crc1, long crc2, long length2)
+   {
+      if (!algorithm.isCombinable())
+         throw new IllegalArgumentException(algorithm + " values cannot be combined");
+      if (length2 <= 0) return crc1;
+
+      int[] odd = new int[32]; // the operator for one zero bit
+      int[] even = new int[32];
+      odd[0] = algorithm.polynomial;
+      for (int n = 1; n < 32; n++) odd[n] = 1 << (n - 1);
+      square(even, odd); // two zero bits
+      square(odd, even); // four zero bits
+
+      // Each pass squares the operator, starting with one zero byte
+      int crc = (int) crc1;
+      long n = length2;
+      while (true)
+      {
+         square(even, odd);
+         if ((n & 1) != 0) crc = times(even, crc);
+         n >>>= 1;
+         if (n == 0) break;
+         square(odd, even);
+         if ((n & 1) != 0) crc = times(odd, crc);
+         n >>>= 1;
+         if (n == 0) break;
+      }
+      return (crc ^ crc2) & 0xFFFFFFFFL;
+   }
+
+   private static int times(int[] matrix, int vector)
+   {
+      int sum = 0;
+      for (int i = 0; vector != 0; i++, vector >>>= 1)
+         if ((vector & 1) != 0) sum ^= matrix[i];
+      return sum;
+   }
+
+   private static void square(int[] square, int[] matrix)
+   {
+      for (int n = 0; n < 32; n++) square[n] = times(matrix, matrix[n]);
+   }
+
+   public static void main(String[] args) throws IOException
+   {
+      Path filename = Paths.get(args[0]);
+      for (Algorithm a : Algorithm.values())
+      {
+         long start = System.currentTimeMillis();
+         long value = checksum(filename, a);
+         long end = System.currentTimeMillis();
+         System.out.printf("%-8s %16s %6d milliseconds%n", a, Long.toHexString(value), end - start);
+         start = System.currentTimeMillis();
+         value = parallelChecksum(filename, a);
+         end = System.currentTimeMillis();
+         System.out.printf("%-8s %16s %6d milliseconds (parallel)%n", a, Long.toHexString(value),
+            end - start);
+      }
+   }
+}
@@ -68,13 +68,18 @@ public class MemoryMapTest
       try (FileChannel channel = FileChannel.open(filename))
       {
          var crc = new CRC32();
-         int length = (int) channel.size();
-         MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
-   
-         for (int p = 0; p < length; p++)
+         long length = channel.size();
+         // A buffer holds at most 2 GB, so larger files are mapped in windows
+         for (long start = 0; start < length; start += FileChecksums.WINDOW_SIZE)
          {
-            int c = buffer.get(p);
-            crc.update(c);
+            int size = (int) Math.min(FileChecksums.WINDOW_SIZE, length - start);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+      
+            for (int p = 0; p < size; p++)
+            {
+               int c = buffer.get(p);
+               crc.update(c);
+            }
          }
          return crc.getValue();
       }
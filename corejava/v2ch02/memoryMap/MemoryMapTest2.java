@@ -75,16 +75,20 @@ public class MemoryMapTest2
       try (FileChannel channel = FileChannel.open(filename))
       {
          var crc = new CRC32();
-         int length = (int) channel.size();
-         MappedByteBuffer buffer = channel.map(
-               FileChannel.MapMode.READ_ONLY, 0, length);
-   
+         long length = channel.size();
          var bytes = new byte[BLOCK_SIZE];
-         for (int p = 0; p < length; p += BLOCK_SIZE)
+         for (long start = 0; start < length; start += FileChecksums.WINDOW_SIZE)
          {
-            int n = Math.min(BLOCK_SIZE, length - p);
-            buffer.get(bytes, 0, n);
-            crc.update(bytes, 0, n);
+            int size = (int) Math.min(FileChecksums.WINDOW_SIZE, length - start);
+            MappedByteBuffer buffer = channel.map(
+                  FileChannel.MapMode.READ_ONLY, start, size);
+      
+            for (int p = 0; p < size; p += BLOCK_SIZE)
+            {
+               int n = Math.min(BLOCK_SIZE, size - p);
+               buffer.get(bytes, 0, n);
+               crc.update(bytes, 0, n);
+            }
          }
          return crc.getValue();
       }
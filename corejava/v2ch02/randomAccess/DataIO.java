@@ -1,32 +1,21 @@
 package randomAccess;
 
 import java.io.*;
+import java.nio.*;
 
 public class DataIO
 {
    public static String readFixedString(int size, DataInput in) throws IOException
    {  
-      var b = new StringBuilder(size);
-      int i = 0;
-      boolean done = false;
-      while (!done && i < size)
-      {  
-         char ch = in.readChar();
-         i++;
-         if (ch == 0) done = true;
-         else b.append(ch);
-      }
-      in.skipBytes(2 * (size - i));
-      return b.toString();
+      var bytes = new byte[FixedStringCodec.UTF16.fieldSize(size)];
+      in.readFully(bytes);
+      return FixedStringCodec.UTF16.read(ByteBuffer.wrap(bytes), 0, bytes.length);
    }
 
    public static void writeFixedString(String s, int size, DataOutput out) throws IOException
    {
-      for (int i = 0; i < size; i++)
-      {  
-         char ch = 0;
-         if (i < s.length()) ch = s.charAt(i);
-         out.writeChar(ch);
-      }
+      var bytes = new byte[FixedStringCodec.UTF16.fieldSize(size)];
+      FixedStringCodec.UTF16.write(ByteBuffer.wrap(bytes), 0, bytes.length, s);
+      out.write(bytes);
    }
 }
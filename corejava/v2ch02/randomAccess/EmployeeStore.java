@@ -0,0 +1,323 @@
+package randomAccess;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * A file of fixed-size employee records, in the format of RandomAccessTest.writeData, that
+ * is read through memory mappings instead of a seek and a read call per field. The names
+ * can also be stored in one of the compact encodings of FixedStringCodec. The file is
+ * mapped in segments of SEGMENT_RECORDS records, and the last segment is mapped again when
+ * the file has grown past it. Any number of threads can read while one thread at a time
+ * appends; a record becomes visible to readers once the append that wrote it has returned.
+ * @version 1.00 2026-10-19
+ */
+public class EmployeeStore implements Closeable
+{
+   public static final int SEGMENT_RECORDS = 1 << 21;
+   private static final int BATCH_RECORDS = 10_000;
+
+   private final FileChannel channel;
+   private final boolean writable;
+   private final FixedStringCodec codec;
+   private final int nameSize;
+   private final int recordSize;
+   private volatile long size;
+   private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+   private final ByteBuffer batch;
+   private final Object mappingLock = new Object();
+
+   private EmployeeStore(FileChannel channel, boolean writable, FixedStringCodec codec)
+      throws IOException
+   {
+      this.channel = channel;
+      this.writable = writable;
+      this.codec = codec;
+      nameSize = codec.fieldSize(Employee.NAME_SIZE);
+      recordSize = recordSize(codec);
+      size = channel.size() / recordSize;
+      batch = writable ? ByteBuffer.allocate(BATCH_RECORDS * recordSize) : null;
+   }
+
+   /**
+    * Gets the size of the records of a store.
+    * @param codec the encoding of the names
+    * @return the number of bytes of each record
+    */
+   public static int recordSize(FixedStringCodec codec)
+   {
+      return codec.fieldSize(Employee.NAME_SIZE) + 8 + 4 + 4 + 4;
+   }
+
+   /**
+    * Opens a store for reading.
+    * @param path an existing file of employee records
+    */
+   public static EmployeeStore open(Path path) throws IOException
+   {
+      return open(path, FixedStringCodec.UTF16);
+   }
+
+   public static EmployeeStore open(Path path, FixedStringCodec codec) throws IOException
+   {
+      return new EmployeeStore(FileChannel.open(path, StandardOpenOption.READ), false, codec);
+   }
+
+   /**
+    * Opens a store for reading and appending, creating the file if necessary. A partial
+    * record at the end of the file is overwritten by the next append.
+    * @param path a file of employee records
+    */
+   public static EmployeeStore openForAppend(Path path) throws IOException
+   {
+      return openForAppend(path, FixedStringCodec.UTF16);
+   }
+
+   public static EmployeeStore openForAppend(Path path, FixedStringCodec codec)
+      throws IOException
+   {
+      return new EmployeeStore(FileChannel.open(path, StandardOpenOption.CREATE,
+         StandardOpenOption.READ, StandardOpenOption.WRITE), true, codec);
+   }
+
+   /**
+    * Gets the number of records that can be read.
+    */
+   public long size()
+   {
+      return size;
+   }
+
+   /**
+    * Picks up records that were appended to the file through another store or process.
+    * @return the number of records that can now be read
+    */
+   public long refresh() throws IOException
+   {
+      if (!writable) size = Math.max(size, channel.size() / recordSize);
+      return size;
+   }
+
+   /**
+    * Appends a record.
+    * @param e the employee to append
+    * @return true if the name was stored exactly
+    */
+   public boolean append(Employee e) throws IOException
+   {
+      return appendAll(List.of(e)) == 0;
+   }
+
+   /**
+    * Appends records, writing them in batches.
+    * @param employees the employees to append
+    * @return the number of names that were cut off or had characters replaced
+    */
+   public synchronized long appendAll(Iterable<Employee> employees) throws IOException
+   {
+      if (!writable) throw new NonWritableChannelException();
+      long inexact = 0;
+      Iterator<Employee> iter = employees.iterator();
+      while (iter.hasNext())
+      {
+         batch.clear();
+         int n = 0;
+         while (n < BATCH_RECORDS && iter.hasNext())
+         {
+            if (!write(batch, iter.next())) inexact++;
+            n++;
+         }
+         batch.flip();
+         long position = size * recordSize;
+         while (batch.hasRemaining())
+            position += channel.write(batch, position);
+         size += n;
+      }
+      return inexact;
+   }
+
+   /**
+    * Writes a record in the format of RandomAccessTest.writeData, with the name in the
+    * encoding of this store.
+    * @return true if the name was stored exactly
+    */
+   private boolean write(ByteBuffer out, Employee e)
+   {
+      boolean exact = codec.write(out, out.position(), nameSize, e.getName());
+      out.position(out.position() + nameSize);
+      out.putDouble(e.getSalary());
+      LocalDate hireDay = e.getHireDay();
+      out.putInt(hireDay.getYear());
+      out.putInt(hireDay.getMonthValue());
+      out.putInt(hireDay.getDayOfMonth());
+      return exact;
+   }
+
+   /**
+    * Reads a record.
+    * @param index a record index between 0 and size() - 1
+    * @return a new employee with the contents of the record
+    */
+   public Employee get(long index) throws IOException
+   {
+      return view().moveTo(index).toEmployee();
+   }
+
+   /**
+    * Makes a view for looking at records without copying them. A view should only be used
+    * by one thread.
+    * @return a view that is not positioned at a record yet
+    */
+   public View view()
+   {
+      return new View();
+   }
+
+   /**
+    * Visits all records with a single view, in order.
+    * @param action the action to carry out for each record, which must not keep the view
+    */
+   public void forEach(Consumer<? super View> action) throws IOException
+   {
+      forEach(0, size(), action);
+   }
+
+   /**
+    * Visits a range of records with a single view, in order.
+    * @param from the first index
+    * @param to one past the last index
+    * @param action the action to carry out for each record, which must not keep the view
+    */
+   public void forEach(long from, long to, Consumer<? super View> action) throws IOException
+   {
+      var view = new View();
+      for (long i = from; i < to; i++) action.accept(view.moveTo(i));
+   }
+
+   public void close() throws IOException
+   {
+      channel.close();
+   }
+
+   /**
+    * Gets a mapping of the segment containing a record, mapping it again if the record lies
+    * beyond its end.
+    */
+   private MappedByteBuffer segment(long index) throws IOException
+   {
+      int s = (int) (index / SEGMENT_RECORDS);
+      long end = (index % SEGMENT_RECORDS + 1) * recordSize;
+      MappedByteBuffer[] current = segments;
+      if (s < current.length && current[s].capacity() >= end) return current[s];
+      synchronized (mappingLock)
+      {
+         current = segments;
+         if (s < current.length && current[s].capacity() >= end) return current[s];
+         long records = size;
+         int count = (int) ((records + SEGMENT_RECORDS - 1) / SEGMENT_RECORDS);
+         MappedByteBuffer[] grown = Arrays.copyOf(current, Math.max(count, current.length));
+         // The old last segment and all new ones
+         for (int i = Math.max(0, current.length - 1); i < count; i++)
+         {
+            long start = (long) i * SEGMENT_RECORDS;
+            long length = Math.min(SEGMENT_RECORDS, records - start) * recordSize;
+            if (grown[i] == null || grown[i].capacity() < length)
+               grown[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+                  start * recordSize, length);
+         }
+         segments = grown;
+         return grown[s];
+      }
+   }
+
+   /**
+    * A movable window onto one record. The getters decode the fields from the mapped file
+    * when they are called; nothing is copied when the view moves.
+    */
+   public class View
+   {
+      private ByteBuffer buffer;
+      private int offset;
+      private long index = -1;
+
+      private View() {}
+
+      /**
+       * Moves this view to a record.
+       * @param index a record index between 0 and size() - 1
+       * @return this view
+       */
+      public View moveTo(long index) throws IOException
+      {
+         if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("record " + index + ", size " + size);
+         if (this.index < 0 || index / SEGMENT_RECORDS != this.index / SEGMENT_RECORDS
+               || (index % SEGMENT_RECORDS + 1) * recordSize > buffer.capacity())
+            buffer = segment(index);
+         offset = (int) (index % SEGMENT_RECORDS) * recordSize;
+         this.index = index;
+         return this;
+      }
+
+      public long index()
+      {
+         return index;
+      }
+
+      public String getName()
+      {
+         return codec.read(buffer, offset, nameSize);
+      }
+
+      /**
+       * Tests whether the name of this record is a given one, without decoding it.
+       */
+      public boolean nameEquals(String name)
+      {
+         return codec.equals(buffer, offset, nameSize, name);
+      }
+
+      /**
+       * Compares the name of this record with a given one, without decoding it.
+       * @return a negative value, zero, or a positive value as the name of this record comes
+       * before, is the same as, or comes after the given name
+       */
+      public int compareName(String name)
+      {
+         return codec.compare(buffer, offset, nameSize, name);
+      }
+
+      public double getSalary()
+      {
+         return buffer.getDouble(offset + nameSize);
+      }
+
+      public int getHireYear()
+      {
+         return buffer.getInt(offset + nameSize + 8);
+      }
+
+      public LocalDate getHireDay()
+      {
+         int p = offset + nameSize + 8;
+         return LocalDate.of(buffer.getInt(p), buffer.getInt(p + 4), buffer.getInt(p + 8));
+      }
+
+      public Employee toEmployee()
+      {
+         LocalDate hireDay = getHireDay();
+         return new Employee(getName(), getSalary(), hireDay.getYear(), hireDay.getMonthValue(),
+            hireDay.getDayOfMonth());
+      }
+
+      public String toString()
+      {
+         return "EmployeeStore.View[index=" + index + "]";
+      }
+   }
+}
@@ -0,0 +1,222 @@
+package randomAccess;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * This program compares random reads and sequential scans of an EmployeeStore with
+ * RandomAccessTest.readData, and checks that readers see complete records while a writer
+ * appends. The readData baselines make several calls per record, so they only visit a
+ * sample of the records. The program exits with status 1 if a sum differs or a reader sees
+ * an incomplete record.
+ * Usage: java randomAccess.EmployeeStoreBenchmark [records]
+ * The default is 10,000,000 records (1 GB); 100,000,000 records need 10 GB of disk space.
+ * @version 1.01 2026-10-19
+ */
+public class EmployeeStoreBenchmark
+{
+   private static final int RANDOM_READS = 1_000_000;
+   private static final int SAMPLE = 100_000;
+
+   private static int failures;
+
+   public static void main(String[] args) throws Exception
+   {
+      long records = args.length > 0 ? Long.parseLong(args[0]) : 10_000_000;
+      Path path = Files.createTempFile("employee", ".dat");
+      try
+      {
+         if (Files.getFileStore(path).getUsableSpace() < 2 * records * Employee.RECORD_SIZE)
+         {
+            System.out.printf("Not enough disk space for %,d records%n", records);
+            return;
+         }
+         long start = System.nanoTime();
+         try (EmployeeStore store = EmployeeStore.openForAppend(path))
+         {
+            store.appendAll(() -> employees(0, records));
+         }
+         report("append", records, System.nanoTime() - start);
+
+         var generator = new Random(42);
+         long[] indexes = new long[RANDOM_READS];
+         for (int i = 0; i < indexes.length; i++)
+            indexes[i] = (long) (generator.nextDouble() * records);
+
+         try (EmployeeStore store = EmployeeStore.open(path);
+               var file = new RandomAccessFile(path.toFile(), "r"))
+         {
+            System.out.printf("%,d records, %,d bytes%n", store.size(), Files.size(path));
+            System.out.println("Random reads:");
+            double sum = 0;
+            start = System.nanoTime();
+            for (int i = 0; i < SAMPLE; i++)
+            {
+               file.seek(indexes[i] * Employee.RECORD_SIZE);
+               sum += RandomAccessTest.readData(file).getSalary();
+            }
+            report("seek + readData", SAMPLE, System.nanoTime() - start);
+            double expected = sum;
+
+            sum = 0;
+            start = System.nanoTime();
+            for (int i = 0; i < SAMPLE; i++) sum += store.get(indexes[i]).getSalary();
+            report("EmployeeStore.get", SAMPLE, System.nanoTime() - start);
+            check(sum, expected);
+
+            sum = 0;
+            EmployeeStore.View view = store.view();
+            start = System.nanoTime();
+            for (int i = 0; i < SAMPLE; i++) sum += view.moveTo(indexes[i]).getSalary();
+            check(sum, expected);
+            for (long index : indexes) sum += view.moveTo(index).getSalary();
+            report("EmployeeStore.View", SAMPLE + RANDOM_READS, System.nanoTime() - start);
+
+            System.out.println("Sequential scans:");
+            file.seek(0);
+            sum = 0;
+            start = System.nanoTime();
+            for (int i = 0; i < Math.min(records, SAMPLE); i++)
+               sum += RandomAccessTest.readData(file).getSalary();
+            report("RandomAccessFile readData", Math.min(records, SAMPLE),
+               System.nanoTime() - start);
+
+            sum = 0;
+            start = System.nanoTime();
+            try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path),
+                  1 << 16)))
+            {
+               for (long i = 0; i < records; i++)
+                  sum += RandomAccessTest.readData(in).getSalary();
+            }
+            report("buffered stream readData", records, System.nanoTime() - start);
+            expected = sum;
+
+            var total = new DoubleAdder();
+            start = System.nanoTime();
+            store.forEach(v -> total.add(v.getSalary()));
+            report("EmployeeStore.forEach", records, System.nanoTime() - start);
+            check(total.sum(), expected);
+
+            int threads = Runtime.getRuntime().availableProcessors();
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            var parallelTotal = new DoubleAdder();
+            start = System.nanoTime();
+            var tasks = new ArrayList<Callable<Void>>();
+            for (int t = 0; t < threads; t++)
+            {
+               long from = records * t / threads;
+               long to = records * (t + 1) / threads;
+               tasks.add(() ->
+                  {
+                     store.forEach(from, to, v -> parallelTotal.add(v.getSalary()));
+                     return null;
+                  });
+            }
+            for (Future<Void> f : executor.invokeAll(tasks)) f.get();
+            report(threads + " readers", records, System.nanoTime() - start);
+            check(parallelTotal.sum(), expected);
+            executor.shutdown();
+         }
+
+         concurrentAppend(path, records);
+      }
+      finally
+      {
+         Files.delete(path);
+      }
+      if (failures > 0) System.exit(1);
+   }
+
+   /**
+    * Appends a segment's worth of records while readers look at records near the end.
+    */
+   private static void concurrentAppend(Path path, long records) throws Exception
+   {
+      long added = EmployeeStore.SEGMENT_RECORDS + 12_345;
+      try (EmployeeStore writer = EmployeeStore.openForAppend(path);
+            EmployeeStore reader = EmployeeStore.open(path))
+      {
+         var done = new AtomicBoolean();
+         var reads = new AtomicLong();
+         var errors = new AtomicLong();
+         ExecutorService executor = Executors.newCachedThreadPool();
+         var readers = new ArrayList<Future<?>>();
+         // One reader shares the writer's store, the other has its own and refreshes it
+         for (EmployeeStore store : List.of(writer, reader))
+         {
+            readers.add(executor.submit(() ->
+               {
+                  var generator = new Random();
+                  EmployeeStore.View view = store.view();
+                  while (!done.get())
+                  {
+                     long size = store.refresh();
+                     long index = size - 1 - generator.nextInt((int) Math.min(size, 1000));
+                     if (!view.moveTo(index).getName().equals("Employee " + index))
+                        errors.incrementAndGet();
+                     reads.incrementAndGet();
+                  }
+                  return null;
+               }));
+         }
+         long start = System.nanoTime();
+         for (long i = records; i < records + added; i += 1000)
+         {
+            long from = i;
+            writer.appendAll(() -> employees(from, Math.min(records + added, from + 1000)));
+         }
+         report("append while reading", added, System.nanoTime() - start);
+         done.set(true);
+         for (Future<?> f : readers) f.get();
+         executor.shutdown();
+         long readerSize = reader.refresh();
+         System.out.printf("%,d reads during appends, %d errors, sizes %,d and %,d%n", reads.get(),
+            errors.get(), writer.size(), readerSize);
+         if (errors.get() > 0 || writer.size() != records + added
+               || readerSize != records + added)
+         {
+            System.out.println("   INCOMPLETE RECORDS OR WRONG SIZE");
+            failures++;
+         }
+      }
+   }
+
+   private static Iterator<Employee> employees(long from, long to)
+   {
+      return new Iterator<>()
+         {
+            private long i = from;
+
+            public boolean hasNext()
+            {
+               return i < to;
+            }
+
+            public Employee next()
+            {
+               long k = i++;
+               return new Employee("Employee " + k, k % 100_000, 1980 + (int) (k % 40),
+                  1 + (int) (k % 12), 1 + (int) (k % 28));
+            }
+         };
+   }
+
+   private static void report(String name, long count, long nanos)
+   {
+      System.out.printf("   %-28s %,14d records %9.1f ms %12.0f records/s%n", name, count,
+         nanos / 1e6, count / (nanos / 1e9));
+   }
+
+   private static void check(double sum, double expected)
+   {
+      if (sum != expected)
+      {
+         System.out.println("   DIFFERENT SUM " + sum + " " + expected);
+         failures++;
+      }
+   }
+}
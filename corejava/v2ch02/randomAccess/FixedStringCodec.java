@@ -0,0 +1,234 @@
+package randomAccess;
+
+import java.nio.*;
+import java.nio.charset.*;
+
+/**
+ * Encodings of strings in fixed-size, zero-padded fields of a byte buffer. UTF16 is the
+ * format of DataIO, with two bytes per char. LATIN1 and UTF8 use a single byte for the
+ * characters of most names, so a field for the same number of characters is half as long.
+ * All methods use absolute positions and leave the position of the buffer alone, and fields
+ * can be compared with strings or with each other without decoding them.
+ * @version 1.00 2026-10-19
+ */
+public enum FixedStringCodec
+{
+   UTF16
+   {
+      public int fieldSize(int length)
+      {
+         return 2 * length;
+      }
+
+      public String read(ByteBuffer in, int offset, int size)
+      {
+         var chars = new char[size / 2];
+         int n = 0;
+         while (n < chars.length && (chars[n] = in.getChar(offset + 2 * n)) != 0) n++;
+         return new String(chars, 0, n);
+      }
+
+      public boolean write(ByteBuffer out, int offset, int size, String s)
+      {
+         int n = Math.min(s.length(), size / 2);
+         for (int i = 0; i < n; i++) out.putChar(offset + 2 * i, s.charAt(i));
+         pad(out, offset + 2 * n, offset + size);
+         return n == s.length();
+      }
+
+      public int compare(ByteBuffer in, int offset, int size, String s)
+      {
+         for (int i = 0; ; i++)
+         {
+            char ch = 2 * i < size ? in.getChar(offset + 2 * i) : 0;
+            if (ch == 0 || i == s.length()) return ch == 0 ? (i == s.length() ? 0 : -1) : 1;
+            if (ch != s.charAt(i)) return Character.compare(ch, s.charAt(i));
+         }
+      }
+   },
+
+   LATIN1
+   {
+      public int fieldSize(int length)
+      {
+         return length;
+      }
+
+      public String read(ByteBuffer in, int offset, int size)
+      {
+         var bytes = new byte[length(in, offset, size)];
+         in.get(offset, bytes);
+         return new String(bytes, StandardCharsets.ISO_8859_1);
+      }
+
+      /**
+       * Characters outside Latin-1 are written as '?'.
+       */
+      public boolean write(ByteBuffer out, int offset, int size, String s)
+      {
+         int n = Math.min(s.length(), size);
+         boolean exact = n == s.length();
+         for (int i = 0; i < n; i++)
+         {
+            char ch = s.charAt(i);
+            if (ch > 0xFF)
+            {
+               ch = '?';
+               exact = false;
+            }
+            out.put(offset + i, (byte) ch);
+         }
+         pad(out, offset + n, offset + size);
+         return exact;
+      }
+
+      public int compare(ByteBuffer in, int offset, int size, String s)
+      {
+         for (int i = 0; ; i++)
+         {
+            char ch = i < size ? (char) (in.get(offset + i) & 0xFF) : 0;
+            if (ch == 0 || i == s.length()) return ch == 0 ? (i == s.length() ? 0 : -1) : 1;
+            if (ch != s.charAt(i)) return Character.compare(ch, s.charAt(i));
+         }
+      }
+   },
+
+   UTF8
+   {
+      public int fieldSize(int length)
+      {
+         return length;
+      }
+
+      public String read(ByteBuffer in, int offset, int size)
+      {
+         var bytes = new byte[length(in, offset, size)];
+         in.get(offset, bytes);
+         return new String(bytes, StandardCharsets.UTF_8);
+      }
+
+      /**
+       * The string is cut off before the first code point that does not fit. Unpaired
+       * surrogates are written as '?'.
+       */
+      public boolean write(ByteBuffer out, int offset, int size, String s)
+      {
+         int p = offset;
+         int end = offset + size;
+         boolean exact = true;
+         int i = 0;
+         while (i < s.length())
+         {
+            int cp = s.codePointAt(i);
+            int step = Character.charCount(cp);
+            if (cp >= Character.MIN_SURROGATE && cp <= Character.MAX_SURROGATE)
+            {
+               cp = '?';
+               exact = false;
+            }
+            int n = cp < 0x80 ? 1 : cp < 0x800 ? 2 : cp < 0x10000 ? 3 : 4;
+            if (p + n > end) break;
+            if (n == 1) out.put(p, (byte) cp);
+            else
+            {
+               out.put(p, (byte) ((n == 2 ? 0xC0 : n == 3 ? 0xE0 : 0xF0) | cp >> 6 * (n - 1)));
+               for (int k = 1; k < n; k++)
+                  out.put(p + k, (byte) (0x80 | cp >> 6 * (n - 1 - k) & 0x3F));
+            }
+            p += n;
+            i += step;
+         }
+         pad(out, p, end);
+         return exact && i == s.length();
+      }
+
+      /**
+       * Compares code points, which for strings with supplementary characters is not the
+       * order of String.compareTo.
+       */
+      public int compare(ByteBuffer in, int offset, int size, String s)
+      {
+         int p = offset;
+         int end = offset + size;
+         int i = 0;
+         while (true)
+         {
+            int b = p < end ? in.get(p) & 0xFF : 0;
+            int n = b < 0x80 ? 1 : b < 0xE0 ? 2 : b < 0xF0 ? 3 : 4;
+            if (p + n > end) b = 0; // a truncated sequence ends the field
+            if (b == 0 || i == s.length()) return b == 0 ? (i == s.length() ? 0 : -1) : 1;
+            int cp = n == 1 ? b : b & (0xFF >> (n + 1));
+            for (int k = 1; k < n; k++) cp = cp << 6 | in.get(p + k) & 0x3F;
+            p += n;
+            int c = s.codePointAt(i);
+            if (cp != c) return Integer.compare(cp, c);
+            i += Character.charCount(c);
+         }
+      }
+   };
+
+   /**
+    * Gets the number of bytes of a field for strings of a given length.
+    * @param length the number of characters; longer UTF8 strings may not fit
+    */
+   public abstract int fieldSize(int length);
+
+   /**
+    * Decodes a field.
+    * @param in the buffer
+    * @param offset the offset of the field
+    * @param size the number of bytes in the field
+    * @return the string up to the first zero character or the end of the field
+    */
+   public abstract String read(ByteBuffer in, int offset, int size);
+
+   /**
+    * Encodes a string into a field, cutting it off and padding it with zeroes as needed.
+    * @param out the buffer
+    * @param offset the offset of the field
+    * @param size the number of bytes in the field
+    * @param s the string
+    * @return true if reading the field yields s
+    */
+   public abstract boolean write(ByteBuffer out, int offset, int size, String s);
+
+   /**
+    * Compares the string in a field with another, without decoding the field.
+    * @param in the buffer
+    * @param offset the offset of the field
+    * @param size the number of bytes in the field
+    * @param s the string
+    * @return a negative value, zero, or a positive value as the field comes before, is the
+    * same as, or comes after s
+    */
+   public abstract int compare(ByteBuffer in, int offset, int size, String s);
+
+   public boolean equals(ByteBuffer in, int offset, int size, String s)
+   {
+      return compare(in, offset, size, s) == 0;
+   }
+
+   /**
+    * Compares two fields written by this codec, byte by byte. The order is that of the
+    * chars for UTF16 and LATIN1 and that of the code points for UTF8.
+    * @return a negative value, zero, or a positive value as the first field comes before,
+    * is the same as, or comes after the second
+    */
+   public int compare(ByteBuffer a, int aOffset, ByteBuffer b, int bOffset, int size)
+   {
+      int i = a.slice(aOffset, size).mismatch(b.slice(bOffset, size));
+      return i < 0 ? 0 : Integer.compare(a.get(aOffset + i) & 0xFF, b.get(bOffset + i) & 0xFF);
+   }
+
+   private static int length(ByteBuffer in, int offset, int size)
+   {
+      int n = 0;
+      while (n < size && in.get(offset + n) != 0) n++;
+      return n;
+   }
+
+   private static void pad(ByteBuffer out, int from, int to)
+   {
+      for (int p = from; p < to; p++) out.put(p, (byte) 0);
+   }
+}
@@ -0,0 +1,86 @@
+package randomAccess;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * This program converts a file of employee records, such as the employee.dat file of
+ * RandomAccessTest, to another encoding of the names. Names that cannot be stored exactly
+ * are reported.
+ * Usage: java randomAccess.MigrateEmployeeFile source target [targetEncoding [sourceEncoding]]
+ * The encodings are UTF16, LATIN1, or UTF8. The default is to convert from UTF16 to LATIN1.
+ * @version 1.00 2026-10-19
+ */
+public class MigrateEmployeeFile
+{
+   public static void main(String[] args) throws IOException
+   {
+      if (args.length < 2)
+      {
+         System.out.println(
+            "Usage: java randomAccess.MigrateEmployeeFile source target [targetEncoding [sourceEncoding]]");
+         return;
+      }
+      Path source = Path.of(args[0]);
+      Path target = Path.of(args[1]);
+      FixedStringCodec to = args.length > 2 ? FixedStringCodec.valueOf(args[2])
+         : FixedStringCodec.LATIN1;
+      FixedStringCodec from = args.length > 3 ? FixedStringCodec.valueOf(args[3])
+         : FixedStringCodec.UTF16;
+      if (Files.exists(target))
+      {
+         System.out.println(target + " exists");
+         return;
+      }
+
+      long start = System.nanoTime();
+      long records;
+      long inexact;
+      try (EmployeeStore in = EmployeeStore.open(source, from);
+            EmployeeStore out = EmployeeStore.openForAppend(target, to))
+      {
+         records = in.size();
+         inexact = out.appendAll(() -> new Iterator<Employee>()
+            {
+               private final EmployeeStore.View view = in.view();
+               private long index;
+
+               public boolean hasNext()
+               {
+                  return index < records;
+               }
+
+               public Employee next()
+               {
+                  try
+                  {
+                     return view.moveTo(index++).toEmployee();
+                  }
+                  catch (IOException e)
+                  {
+                     throw new UncheckedIOException(e);
+                  }
+               }
+            });
+
+         // Report the names that changed, comparing in place
+         EmployeeStore.View before = in.view();
+         EmployeeStore.View after = out.view();
+         int shown = 0;
+         for (long i = 0; i < records && shown < inexact && shown < 10; i++)
+         {
+            String name = before.moveTo(i).getName();
+            if (!after.moveTo(i).nameEquals(name))
+            {
+               System.out.printf("Record %d: \"%s\" stored as \"%s\"%n", i, name,
+                  after.getName());
+               shown++;
+            }
+         }
+      }
+      System.out.printf("%,d records from %s (%,d bytes) to %s (%,d bytes) in %.1f ms, "
+         + "%,d names not stored exactly%n", records, from, Files.size(source), to,
+         Files.size(target), (System.nanoTime() - start) / 1e6, inexact);
+   }
+}
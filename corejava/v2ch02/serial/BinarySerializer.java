@@ -0,0 +1,1149 @@
+package serial;
+
+import java.io.*;
+import java.lang.invoke.*;
+import java.lang.reflect.*;
+import java.math.*;
+import java.nio.*;
+import java.nio.charset.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * A compact binary alternative to object streams for graphs of serializable objects. Like
+ * an object stream, it writes each object once and refers back to it afterwards, so shared
+ * references and cycles survive, and it describes each class once, with the names and
+ * types of its fields. Unlike an object stream, it reads and writes the fields through
+ * method handles that are made once per class, and it works in pooled buffers.
+ * <p>
+ * A class can change between writing and reading: fields are matched by name, fields that
+ * are no longer present are skipped, new fields keep their default values, and primitive
+ * fields may be widened, such as from int to long. Objects that implement
+ * ObjectInputValidation are validated once the whole graph has been read.
+ * <p>
+ * Strings, arrays, enums, records, boxed primitives, Date, the java.time dates and times,
+ * BigInteger, BigDecimal, collections and maps with a no-argument constructor, and the
+ * immutable collections of List.of, Set.of, and Map.of are handled directly. Collections and
+ * maps with a comparator, such as a TreeSet or PriorityQueue in a custom order, cannot be
+ * written, since comparators are rarely serializable, and neither can a LinkedHashMap in
+ * access order. A subclass of a collection or map that adds fields is written field by
+ * field, so it fails on the fields of its JDK superclass. Other classes with writeObject,
+ * readObject, writeReplace, or readResolve methods, and classes of the JDK that are not open
+ * to this module, such as the unmodifiable views of Collections, need a Codec.
+ * <p>
+ * Records and immutable collections are made after their contents are read, so a cycle
+ * that passes through one of them cannot be read back.
+ * @version 1.00 2026-10-19
+ */
+public class BinarySerializer
+{
+   private static final int MAGIC = 0xB1_5E_00_01;
+   private static final int BUFFER_SIZE = 1 << 16;
+   private static final ConcurrentLinkedQueue<ByteBuffer> pool = new ConcurrentLinkedQueue<>();
+   // the handle of an object that is still being read
+   private static final Object PENDING = new Object();
+   private static final List<String> SERIALIZATION_METHODS = List.of("writeObject",
+      "readObject", "writeReplace", "readResolve");
+   private static final MethodHandle ACCESS_ORDER = accessOrderGetter();
+
+   // Object tags
+   private static final int NULL = 0;
+   private static final int REFERENCE = 1;
+   private static final int STRING = 2;
+   private static final int OBJECT = 3;
+
+   // Class kinds
+   private static final int VALUE = 0;
+   private static final int FIELDS = 1;
+   private static final int RECORD = 2;
+   private static final int ARRAY = 3;
+   private static final int COLLECTION = 4;
+   private static final int MAP = 5;
+   private static final int ENUM = 6;
+
+   /**
+    * Writes and reads the values of a class whose instances do not refer to other objects.
+    */
+   public interface Codec<T>
+   {
+      void write(Output out, T value) throws IOException;
+
+      T read(Input in) throws IOException;
+
+      /**
+       * Makes a codec from a pair of lambda expressions.
+       */
+      static <T> Codec<T> of(ValueWriter<T> writer, ValueReader<T> reader)
+      {
+         return new Codec<>()
+            {
+               public void write(Output out, T value) throws IOException
+               {
+                  writer.write(out, value);
+               }
+
+               public T read(Input in) throws IOException
+               {
+                  return reader.read(in);
+               }
+            };
+      }
+
+      interface ValueWriter<T>
+      {
+         void write(Output out, T value) throws IOException;
+      }
+
+      interface ValueReader<T>
+      {
+         T read(Input in) throws IOException;
+      }
+   }
+
+   private final Map<Class<?>, Codec<?>> codecs = new ConcurrentHashMap<>();
+   private final Map<Class<?>, ClassPlan> plans = new ConcurrentHashMap<>();
+   private final Map<String, Class<?>> classes = new ConcurrentHashMap<>();
+
+   public BinarySerializer()
+   {
+      register(Boolean.class, Codec.of(Output::putBoolean, Input::getBoolean));
+      register(Byte.class, Codec.of(Output::putByte, Input::getByte));
+      register(Short.class, Codec.of(Output::putShort, Input::getShort));
+      register(Character.class, Codec.of(Output::putChar, Input::getChar));
+      register(Integer.class, Codec.of(Output::putInt, Input::getInt));
+      register(Long.class, Codec.of(Output::putLong, Input::getLong));
+      register(Float.class, Codec.of(Output::putFloat, Input::getFloat));
+      register(Double.class, Codec.of(Output::putDouble, Input::getDouble));
+      register(Date.class, Codec.of((out, d) -> out.putLong(d.getTime()),
+         in -> new Date(in.getLong())));
+      register(LocalDate.class, Codec.of((out, d) -> out.putLong(d.toEpochDay()),
+         in -> LocalDate.ofEpochDay(in.getLong())));
+      register(LocalTime.class, Codec.of((out, t) -> out.putLong(t.toNanoOfDay()),
+         in -> LocalTime.ofNanoOfDay(in.getLong())));
+      register(LocalDateTime.class, Codec.of((out, t) ->
+         {
+            out.putLong(t.toLocalDate().toEpochDay());
+            out.putLong(t.toLocalTime().toNanoOfDay());
+         }, in -> LocalDateTime.of(LocalDate.ofEpochDay(in.getLong()),
+            LocalTime.ofNanoOfDay(in.getLong()))));
+      register(Instant.class, Codec.of((out, t) ->
+         {
+            out.putLong(t.getEpochSecond());
+            out.putInt(t.getNano());
+         }, in -> Instant.ofEpochSecond(in.getLong(), in.getInt())));
+      register(BigInteger.class, Codec.of((out, n) -> out.putBytes(n.toByteArray()),
+         in -> new BigInteger(in.getBytes())));
+      register(BigDecimal.class, Codec.of((out, n) ->
+         {
+            out.putBytes(n.unscaledValue().toByteArray());
+            out.putInt(n.scale());
+         }, in -> new BigDecimal(new BigInteger(in.getBytes()), in.getInt())));
+   }
+
+   /**
+    * Registers the codec for a class, replacing its fields or its own serialization methods.
+    * @param cl the class
+    * @param codec the codec for instances of exactly that class
+    * @return this serializer
+    */
+   public <T> BinarySerializer register(Class<T> cl, Codec<T> codec)
+   {
+      codecs.put(cl, codec);
+      plans.remove(cl);
+      return this;
+   }
+
+   /**
+    * Writes a graph of objects.
+    * @param obj the root of the graph
+    * @param out the stream to write to
+    */
+   public void write(Object obj, OutputStream out) throws IOException
+   {
+      ByteBuffer buffer = acquire();
+      try
+      {
+         var output = new Output(buffer, out);
+         output.putInt(MAGIC);
+         new Writer(output).writeObject(obj);
+         output.flush();
+      }
+      finally
+      {
+         pool.offer(buffer);
+      }
+   }
+
+   /**
+    * Reads a graph of objects. This may read past the end of the graph in the stream.
+    * @param in the stream to read from
+    * @return the root of the graph
+    */
+   public Object read(InputStream in) throws IOException, ClassNotFoundException
+   {
+      ByteBuffer buffer = acquire();
+      try
+      {
+         return read(new Input(buffer.flip(), in));
+      }
+      finally
+      {
+         pool.offer(buffer);
+      }
+   }
+
+   public byte[] toBytes(Object obj) throws IOException
+   {
+      var out = new ByteArrayOutputStream();
+      write(obj, out);
+      return out.toByteArray();
+   }
+
+   public Object fromBytes(byte[] bytes) throws IOException, ClassNotFoundException
+   {
+      return read(new Input(ByteBuffer.wrap(bytes), null));
+   }
+
+   private Object read(Input input) throws IOException, ClassNotFoundException
+   {
+      if (input.getInt() != MAGIC)
+         throw new StreamCorruptedException("not a binary serializer stream");
+      var reader = new Reader(input);
+      Object result = reader.readObject();
+      for (ObjectInputValidation v : reader.validations) v.validateObject();
+      return result;
+   }
+
+   private static ByteBuffer acquire()
+   {
+      ByteBuffer buffer = pool.poll();
+      return buffer == null ? ByteBuffer.allocate(BUFFER_SIZE) : buffer.clear();
+   }
+
+   /**
+    * A buffer that is written to a stream whenever it fills up.
+    */
+   public static class Output
+   {
+      private final ByteBuffer buffer;
+      private final OutputStream sink;
+
+      private Output(ByteBuffer buffer, OutputStream sink)
+      {
+         this.buffer = buffer;
+         this.sink = sink;
+      }
+
+      private ByteBuffer room(int n) throws IOException
+      {
+         if (buffer.remaining() < n) flush();
+         return buffer;
+      }
+
+      private void flush() throws IOException
+      {
+         sink.write(buffer.array(), 0, buffer.position());
+         buffer.clear();
+      }
+
+      public void putBoolean(boolean b) throws IOException { room(1).put((byte) (b ? 1 : 0)); }
+      public void putByte(byte b) throws IOException { room(1).put(b); }
+      public void putShort(short s) throws IOException { room(2).putShort(s); }
+      public void putChar(char c) throws IOException { room(2).putChar(c); }
+      public void putInt(int i) throws IOException { room(4).putInt(i); }
+      public void putLong(long l) throws IOException { room(8).putLong(l); }
+      public void putFloat(float f) throws IOException { room(4).putFloat(f); }
+      public void putDouble(double d) throws IOException { room(8).putDouble(d); }
+
+      /**
+       * Writes a non-negative int in one to five bytes, seven bits at a time.
+       */
+      public void putVarint(int n) throws IOException
+      {
+         ByteBuffer b = room(5);
+         while ((n & ~0x7F) != 0)
+         {
+            b.put((byte) (n & 0x7F | 0x80));
+            n >>>= 7;
+         }
+         b.put((byte) n);
+      }
+
+      public void putBytes(byte[] bytes) throws IOException
+      {
+         putVarint(bytes.length);
+         for (int p = 0; p < bytes.length; )
+         {
+            int n = Math.min(bytes.length - p, room(1).remaining());
+            buffer.put(bytes, p, n);
+            p += n;
+         }
+      }
+
+      public void putString(String s) throws IOException
+      {
+         putBytes(s.getBytes(StandardCharsets.UTF_8));
+      }
+   }
+
+   /**
+    * A buffer that is refilled from a stream whenever it runs out.
+    */
+   public static class Input
+   {
+      private final ByteBuffer buffer;
+      private final InputStream source;
+
+      private Input(ByteBuffer buffer, InputStream source)
+      {
+         this.buffer = buffer;
+         this.source = source;
+      }
+
+      private ByteBuffer require(int n) throws IOException
+      {
+         if (buffer.remaining() >= n) return buffer;
+         if (source == null) throw new EOFException();
+         buffer.compact();
+         while (buffer.position() < n)
+         {
+            int r = source.read(buffer.array(), buffer.position(), buffer.remaining());
+            if (r < 0) throw new EOFException();
+            buffer.position(buffer.position() + r);
+         }
+         return buffer.flip();
+      }
+
+      public boolean getBoolean() throws IOException { return require(1).get() != 0; }
+      public byte getByte() throws IOException { return require(1).get(); }
+      public short getShort() throws IOException { return require(2).getShort(); }
+      public char getChar() throws IOException { return require(2).getChar(); }
+      public int getInt() throws IOException { return require(4).getInt(); }
+      public long getLong() throws IOException { return require(8).getLong(); }
+      public float getFloat() throws IOException { return require(4).getFloat(); }
+      public double getDouble() throws IOException { return require(8).getDouble(); }
+
+      public int getVarint() throws IOException
+      {
+         int n = 0;
+         for (int shift = 0; ; shift += 7)
+         {
+            byte b = getByte();
+            n |= (b & 0x7F) << shift;
+            if (b >= 0) return n;
+            if (shift == 28) throw new StreamCorruptedException("bad varint");
+         }
+      }
+
+      public byte[] getBytes() throws IOException
+      {
+         var bytes = new byte[getVarint()];
+         for (int p = 0; p < bytes.length; )
+         {
+            int n = Math.min(bytes.length - p, require(1).remaining());
+            buffer.get(bytes, p, n);
+            p += n;
+         }
+         return bytes;
+      }
+
+      public String getString() throws IOException
+      {
+         int length = getVarint();
+         if (length > buffer.capacity())
+         {
+            var bytes = new byte[length];
+            for (int p = 0; p < length; )
+            {
+               int n = Math.min(length - p, require(1).remaining());
+               buffer.get(bytes, p, n);
+               p += n;
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+         }
+         require(length);
+         var s = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+            StandardCharsets.UTF_8);
+         buffer.position(buffer.position() + length);
+         return s;
+      }
+   }
+
+   private class Writer
+   {
+      private final Output out;
+      private final IdentityHashMap<Object, Integer> handles = new IdentityHashMap<>();
+      private final Map<Class<?>, Integer> classIds = new HashMap<>();
+
+      Writer(Output out)
+      {
+         this.out = out;
+      }
+
+      void writeObject(Object obj) throws IOException
+      {
+         if (obj == null)
+         {
+            out.putByte((byte) NULL);
+            return;
+         }
+         Integer handle = handles.putIfAbsent(obj, handles.size());
+         if (handle != null)
+         {
+            out.putByte((byte) REFERENCE);
+            out.putVarint(handle);
+            return;
+         }
+         if (obj instanceof String s)
+         {
+            out.putByte((byte) STRING);
+            out.putString(s);
+            return;
+         }
+         ClassPlan plan = plan(obj.getClass());
+         out.putByte((byte) OBJECT);
+         Integer id = classIds.putIfAbsent(plan.type, classIds.size());
+         if (id != null) out.putVarint(id);
+         else
+         {
+            out.putVarint(classIds.size() - 1);
+            plan.describe(out);
+         }
+         try
+         {
+            plan.write(this, obj);
+         }
+         catch (IOException | RuntimeException | Error e)
+         {
+            throw e;
+         }
+         catch (Throwable t)
+         {
+            throw new IOException(t);
+         }
+      }
+   }
+
+   private class Reader
+   {
+      private final Input in;
+      private final ArrayList<Object> handles = new ArrayList<>();
+      private final ArrayList<StreamClass> streamClasses = new ArrayList<>();
+      private final ArrayList<ObjectInputValidation> validations = new ArrayList<>();
+
+      Reader(Input in)
+      {
+         this.in = in;
+      }
+
+      Object readObject() throws IOException, ClassNotFoundException
+      {
+         int tag = in.getByte();
+         switch (tag)
+         {
+            case NULL:
+               return null;
+            case REFERENCE:
+               int handle = in.getVarint();
+               if (handle >= handles.size())
+                  throw new StreamCorruptedException("bad handle " + handle);
+               Object obj = handles.get(handle);
+               if (obj == PENDING)
+                  throw new InvalidObjectException(
+                     "cycle through a record or immutable collection");
+               return obj;
+            case STRING:
+               String s = in.getString();
+               handles.add(s);
+               return s;
+            case OBJECT:
+               int id = in.getVarint();
+               if (id == streamClasses.size()) streamClasses.add(new StreamClass(in));
+               else if (id > streamClasses.size())
+                  throw new StreamCorruptedException("bad class id " + id);
+               Object result;
+               try
+               {
+                  result = streamClasses.get(id).read(this);
+               }
+               catch (IOException | ClassNotFoundException | RuntimeException | Error e)
+               {
+                  throw e;
+               }
+               catch (Throwable t)
+               {
+                  var ex = new InvalidObjectException("cannot make " + streamClasses.get(id).name);
+                  ex.initCause(t);
+                  throw ex;
+               }
+               if (result instanceof ObjectInputValidation v) validations.add(v);
+               return result;
+            default:
+               throw new StreamCorruptedException("bad tag " + tag);
+         }
+      }
+
+      /**
+       * Reserves a handle for an object that can only be made after its contents are read.
+       */
+      int reserve()
+      {
+         handles.add(PENDING);
+         return handles.size() - 1;
+      }
+
+      Object readValue(char type) throws IOException, ClassNotFoundException
+      {
+         switch (type)
+         {
+            case 'Z': return in.getBoolean();
+            case 'B': return in.getByte();
+            case 'S': return in.getShort();
+            case 'C': return in.getChar();
+            case 'I': return in.getInt();
+            case 'J': return in.getLong();
+            case 'F': return in.getFloat();
+            case 'D': return in.getDouble();
+            default: return readObject();
+         }
+      }
+   }
+
+   private Class<?> forName(String name) throws ClassNotFoundException
+   {
+      Class<?> cl = classes.get(name);
+      if (cl == null)
+      {
+         cl = Class.forName(name, false, BinarySerializer.class.getClassLoader());
+         classes.put(name, cl);
+      }
+      return cl;
+   }
+
+   private ClassPlan plan(Class<?> cl) throws IOException
+   {
+      ClassPlan plan = plans.get(cl);
+      if (plan == null)
+      {
+         plan = new ClassPlan(cl);
+         plans.put(cl, plan);
+      }
+      return plan;
+   }
+
+   private static char typeCode(Class<?> type)
+   {
+      if (!type.isPrimitive()) return 'L';
+      if (type == boolean.class) return 'Z';
+      if (type == long.class) return 'J';
+      return Character.toUpperCase(type.getName().charAt(0));
+   }
+
+   /**
+    * Converts a primitive value of one type to another if that is a widening conversion.
+    * @return the converted value, or null if the conversion is not allowed
+    */
+   private static Object widen(Object value, char to)
+   {
+      boolean fromChar = value instanceof Character;
+      if (fromChar) value = (int) (Character) value;
+      if (!(value instanceof Number n)) return null;
+      int rank = n instanceof Byte ? 0 : n instanceof Short ? 1 : n instanceof Integer ? 2
+         : n instanceof Long ? 3 : n instanceof Float ? 4 : 5;
+      switch (to)
+      {
+         case 'S': return rank == 0 ? n.shortValue() : null; // char to short is narrowing
+         case 'I': return rank <= 2 ? n.intValue() : null;
+         case 'J': return rank <= 3 ? n.longValue() : null;
+         case 'F': return rank <= 4 ? n.floatValue() : null;
+         case 'D': return n.doubleValue();
+         default: return null;
+      }
+   }
+
+   /**
+    * How to write the instances of a local class, and how to read them with the same
+    * description.
+    */
+   private class ClassPlan
+   {
+      final Class<?> type;
+      final int kind;
+      final String name;
+      Codec<Object> codec;
+      FieldCodec[] fields = new FieldCodec[0];
+      Constructor<?> allocator;
+      MethodHandle constructor;
+      MethodHandle copyOf;
+      boolean accessOrder;
+      Object[] defaults;
+      Class<?> component;
+
+      @SuppressWarnings("unchecked")
+      ClassPlan(Class<?> cl) throws IOException
+      {
+         Class<?> enumType = cl.isEnum() ? cl
+            : cl.getSuperclass() != null && cl.getSuperclass().isEnum() ? cl.getSuperclass() : null;
+         type = enumType != null ? enumType : cl;
+         name = type.getName();
+         try
+         {
+            if (codecs.containsKey(cl))
+            {
+               kind = VALUE;
+               codec = (Codec<Object>) codecs.get(cl);
+            }
+            else if (cl.isArray())
+            {
+               kind = ARRAY;
+               component = cl.getComponentType();
+            }
+            else if (enumType != null) kind = ENUM;
+            else if (!Serializable.class.isAssignableFrom(cl))
+               throw new NotSerializableException(cl.getName());
+            else if (cl.isRecord())
+            {
+               kind = RECORD;
+               RecordComponent[] components = cl.getRecordComponents();
+               MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(cl, MethodHandles.lookup());
+               var types = new Class<?>[components.length];
+               fields = new FieldCodec[components.length];
+               defaults = new Object[components.length];
+               for (int i = 0; i < components.length; i++)
+               {
+                  types[i] = components[i].getType();
+                  fields[i] = new FieldCodec(components[i].getName(), types[i],
+                     lookup.unreflect(components[i].getAccessor()), null);
+                  if (types[i].isPrimitive())
+                     defaults[i] = Array.get(Array.newInstance(types[i], 1), 0);
+               }
+               constructor = lookup.findConstructor(cl, MethodType.methodType(void.class, types))
+                  .asSpreader(Object[].class, components.length)
+                  .asType(MethodType.methodType(Object.class, Object[].class));
+            }
+            else if ((Collection.class.isAssignableFrom(cl) || Map.class.isAssignableFrom(cl))
+               && elementsOnly(cl))
+            {
+               kind = Collection.class.isAssignableFrom(cl) ? COLLECTION : MAP;
+               if (cl.getName().startsWith("java.util.ImmutableCollections$"))
+               {
+                  // made by List.of, Set.of, Map.of, and read back with copyOf
+                  Class<?> factory = kind == MAP ? Map.class
+                     : Set.class.isAssignableFrom(cl) ? Set.class : List.class;
+                  copyOf = MethodHandles.publicLookup()
+                     .findStatic(factory, "copyOf", MethodType.methodType(factory,
+                        kind == MAP ? Map.class : Collection.class))
+                     .asType(MethodType.methodType(Object.class, Object.class));
+               }
+               else
+               {
+                  constructor = MethodHandles.publicLookup()
+                     .findConstructor(cl, MethodType.methodType(void.class))
+                     .asType(MethodType.methodType(Object.class));
+                  // the order in which the constructor links the entries
+                  if (LinkedHashMap.class.isAssignableFrom(cl))
+                     accessOrder = accessOrder(cl.getConstructor().newInstance());
+               }
+            }
+            else
+            {
+               kind = FIELDS;
+               if (Externalizable.class.isAssignableFrom(cl))
+                  throw new NotSerializableException(cl.getName()
+                     + " is externalizable; register a codec");
+               var list = new ArrayList<FieldCodec>();
+               var names = new HashSet<String>();
+               var hierarchy = new ArrayDeque<Class<?>>();
+               for (Class<?> c = cl; c != null && Serializable.class.isAssignableFrom(c);
+                     c = c.getSuperclass())
+                  hierarchy.push(c);
+               for (Class<?> c : hierarchy)
+               {
+                  for (String method : SERIALIZATION_METHODS)
+                     for (Method m : c.getDeclaredMethods())
+                        if (m.getName().equals(method) && !Modifier.isStatic(m.getModifiers()))
+                           throw new NotSerializableException(cl.getName()
+                              + (c == cl ? "" : " extends " + c.getName() + ", which")
+                              + " has a " + method + " method; register a codec");
+                  MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(c, MethodHandles.lookup());
+                  for (Field f : c.getDeclaredFields())
+                  {
+                     int m = f.getModifiers();
+                     if (Modifier.isStatic(m) || Modifier.isTransient(m)) continue;
+                     f.setAccessible(true);
+                     String fieldName = names.add(f.getName()) ? f.getName()
+                        : c.getName() + "." + f.getName();
+                     list.add(new FieldCodec(fieldName, f.getType(), lookup.unreflectGetter(f),
+                        lookup.unreflectSetter(f)));
+                  }
+               }
+               fields = list.toArray(new FieldCodec[0]);
+               // Like an object stream, only run the no-argument constructor of the first
+               // superclass that is not serializable
+               allocator = serializationConstructor(cl);
+               if (allocator == null)
+                  throw new InvalidClassException(cl.getName(), "no valid constructor");
+            }
+         }
+         catch (ReflectiveOperationException | RuntimeException e)
+         {
+            var ex = new NotSerializableException(cl.getName()
+               + " cannot be accessed; register a codec");
+            ex.initCause(e);
+            throw ex;
+         }
+      }
+
+      void describe(Output out) throws IOException
+      {
+         out.putString(name);
+         out.putByte((byte) kind);
+         if (kind == FIELDS || kind == RECORD)
+         {
+            out.putVarint(fields.length);
+            for (FieldCodec f : fields)
+            {
+               out.putString(f.name);
+               out.putByte((byte) f.type);
+            }
+         }
+      }
+
+      void write(Writer w, Object obj) throws Throwable
+      {
+         Output out = w.out;
+         switch (kind)
+         {
+            case VALUE:
+               codec.write(out, obj);
+               break;
+            case ENUM:
+               out.putString(((Enum<?>) obj).name());
+               break;
+            case FIELDS:
+            case RECORD:
+               for (FieldCodec f : fields) f.write(obj, w);
+               break;
+            case ARRAY:
+               int length = Array.getLength(obj);
+               out.putVarint(length);
+               if (!component.isPrimitive())
+                  for (Object element : (Object[]) obj) w.writeObject(element);
+               else if (component == byte.class)
+                  for (byte b : (byte[]) obj) out.putByte(b);
+               else if (component == int.class)
+                  for (int i : (int[]) obj) out.putInt(i);
+               else if (component == long.class)
+                  for (long l : (long[]) obj) out.putLong(l);
+               else if (component == double.class)
+                  for (double d : (double[]) obj) out.putDouble(d);
+               else if (component == char.class)
+                  for (char c : (char[]) obj) out.putChar(c);
+               else if (component == boolean.class)
+                  for (boolean b : (boolean[]) obj) out.putBoolean(b);
+               else if (component == short.class)
+                  for (short s : (short[]) obj) out.putShort(s);
+               else
+                  for (float f : (float[]) obj) out.putFloat(f);
+               break;
+            case COLLECTION:
+               if (comparator(obj) != null)
+                  throw new NotSerializableException(name + " with a comparator");
+               var c = (Collection<?>) obj;
+               out.putVarint(c.size());
+               for (Object element : c) w.writeObject(element);
+               break;
+            case MAP:
+               if (comparator(obj) != null)
+                  throw new NotSerializableException(name + " with a comparator");
+               if (obj instanceof LinkedHashMap && accessOrder(obj) != accessOrder)
+                  throw new NotSerializableException(name + (accessOrder ? " in insertion order"
+                     : " in access order"));
+               var map = (Map<?, ?>) obj;
+               out.putVarint(map.size());
+               for (Map.Entry<?, ?> e : map.entrySet())
+               {
+                  w.writeObject(e.getKey());
+                  w.writeObject(e.getValue());
+               }
+               break;
+            default:
+               throw new AssertionError();
+         }
+      }
+   }
+
+   /**
+    * The description of a class in a stream, and how to read it into the local class.
+    */
+   private class StreamClass
+   {
+      final String name;
+      final int kind;
+      final String[] fieldNames;
+      final char[] fieldTypes;
+      final ClassPlan plan;
+      final FieldCodec[] targets; // the local field for each stream field, or null
+      final int[] components; // the local component for each stream field, or -1
+
+      StreamClass(Input in) throws IOException, ClassNotFoundException
+      {
+         name = in.getString();
+         kind = in.getByte();
+         int n = kind == FIELDS || kind == RECORD ? in.getVarint() : 0;
+         fieldNames = new String[n];
+         fieldTypes = new char[n];
+         for (int i = 0; i < n; i++)
+         {
+            fieldNames[i] = in.getString();
+            fieldTypes[i] = (char) in.getByte();
+         }
+         plan = plan(forName(name));
+         if (plan.kind != kind)
+            throw new InvalidClassException(name, "written as kind " + kind + ", now " + plan.kind);
+         targets = new FieldCodec[n];
+         components = new int[n];
+         for (int i = 0; i < n; i++)
+         {
+            components[i] = -1;
+            for (int j = 0; j < plan.fields.length; j++)
+               if (plan.fields[j].name.equals(fieldNames[i]))
+               {
+                  FieldCodec f = plan.fields[j];
+                  if (f.type != fieldTypes[i] && (f.type == 'L' || fieldTypes[i] == 'L'
+                        || widen(Array.get(Array.newInstance(primitive(fieldTypes[i]), 1), 0),
+                           f.type) == null))
+                     throw new InvalidClassException(name, "field " + f.name + " was of type "
+                        + fieldTypes[i] + ", now " + f.type);
+                  targets[i] = f;
+                  components[i] = j;
+               }
+         }
+      }
+
+      Object read(Reader r) throws Throwable
+      {
+         Input in = r.in;
+         switch (kind)
+         {
+            case VALUE:
+            {
+               int handle = r.reserve();
+               Object value = plan.codec.read(in);
+               r.handles.set(handle, value);
+               return value;
+            }
+            case ENUM:
+            {
+               int handle = r.reserve();
+               @SuppressWarnings({ "unchecked", "rawtypes" })
+               Object value = Enum.valueOf((Class) plan.type, in.getString());
+               r.handles.set(handle, value);
+               return value;
+            }
+            case FIELDS:
+            {
+               Object obj = plan.allocator.newInstance();
+               r.handles.add(obj);
+               for (int i = 0; i < fieldTypes.length; i++)
+               {
+                  if (targets[i] == null) r.readValue(fieldTypes[i]);
+                  else targets[i].read(obj, r, fieldTypes[i]);
+               }
+               return obj;
+            }
+            case RECORD:
+            {
+               int handle = r.reserve();
+               Object[] values = plan.defaults.clone();
+               for (int i = 0; i < fieldTypes.length; i++)
+               {
+                  Object value = r.readValue(fieldTypes[i]);
+                  if (components[i] >= 0)
+                     values[components[i]] = targets[i].type == fieldTypes[i] ? value
+                        : widen(value, targets[i].type);
+               }
+               Object obj = (Object) plan.constructor.invokeExact(values);
+               r.handles.set(handle, obj);
+               return obj;
+            }
+            case ARRAY:
+            {
+               int length = in.getVarint();
+               Class<?> component = plan.component;
+               Object array = Array.newInstance(component, length);
+               r.handles.add(array);
+               if (!component.isPrimitive())
+               {
+                  var elements = (Object[]) array;
+                  for (int i = 0; i < length; i++) elements[i] = r.readObject();
+               }
+               else if (component == byte.class)
+               {
+                  var a = (byte[]) array;
+                  for (int i = 0; i < length; i++) a[i] = in.getByte();
+               }
+               else if (component == int.class)
+               {
+                  var a = (int[]) array;
+                  for (int i = 0; i < length; i++) a[i] = in.getInt();
+               }
+               else if (component == long.class)
+               {
+                  var a = (long[]) array;
+                  for (int i = 0; i < length; i++) a[i] = in.getLong();
+               }
+               else if (component == double.class)
+               {
+                  var a = (double[]) array;
+                  for (int i = 0; i < length; i++) a[i] = in.getDouble();
+               }
+               else if (component == char.class)
+               {
+                  var a = (char[]) array;
+                  for (int i = 0; i < length; i++) a[i] = in.getChar();
+               }
+               else if (component == boolean.class)
+               {
+                  var a = (boolean[]) array;
+                  for (int i = 0; i < length; i++) a[i] = in.getBoolean();
+               }
+               else if (component == short.class)
+               {
+                  var a = (short[]) array;
+                  for (int i = 0; i < length; i++) a[i] = in.getShort();
+               }
+               else
+               {
+                  var a = (float[]) array;
+                  for (int i = 0; i < length; i++) a[i] = in.getFloat();
+               }
+               return array;
+            }
+            case COLLECTION:
+            {
+               int size = in.getVarint();
+               if (plan.copyOf != null)
+               {
+                  int handle = r.reserve();
+                  var elements = new ArrayList<Object>(size);
+                  for (int i = 0; i < size; i++) elements.add(r.readObject());
+                  Object c = (Object) plan.copyOf.invokeExact((Object) elements);
+                  r.handles.set(handle, c);
+                  return c;
+               }
+               @SuppressWarnings("unchecked")
+               var c = (Collection<Object>) (Object) plan.constructor.invokeExact();
+               r.handles.add(c);
+               for (int i = 0; i < size; i++) c.add(r.readObject());
+               return c;
+            }
+            case MAP:
+            {
+               int size = in.getVarint();
+               if (plan.copyOf != null)
+               {
+                  int handle = r.reserve();
+                  var entries = new LinkedHashMap<Object, Object>();
+                  for (int i = 0; i < size; i++)
+                  {
+                     Object key = r.readObject();
+                     entries.put(key, r.readObject());
+                  }
+                  Object map = (Object) plan.copyOf.invokeExact((Object) entries);
+                  r.handles.set(handle, map);
+                  return map;
+               }
+               @SuppressWarnings("unchecked")
+               var map = (Map<Object, Object>) (Object) plan.constructor.invokeExact();
+               r.handles.add(map);
+               for (int i = 0; i < size; i++)
+               {
+                  Object key = r.readObject();
+                  map.put(key, r.readObject());
+               }
+               return map;
+            }
+            default:
+               throw new StreamCorruptedException("bad kind " + kind);
+         }
+      }
+   }
+
+   /**
+    * Gets the comparator of a sorted or priority collection or map.
+    * @return the comparator, or null if there is none or the elements are compared by their
+    * natural order
+    */
+   private static Comparator<?> comparator(Object obj)
+   {
+      if (obj instanceof SortedSet<?> s) return s.comparator();
+      if (obj instanceof SortedMap<?, ?> m) return m.comparator();
+      if (obj instanceof PriorityQueue<?> q) return q.comparator();
+      if (obj instanceof PriorityBlockingQueue<?> q) return q.comparator();
+      return null;
+   }
+
+   /**
+    * Tells whether the instances of a collection or map class hold nothing but their
+    * elements, so that they can be written as a sequence of elements: the class belongs to
+    * the JDK, or it and its superclasses outside the JDK add no serializable fields and no
+    * serialization methods.
+    */
+   private static boolean elementsOnly(Class<?> cl)
+   {
+      for (Class<?> c = cl; c.getClassLoader() != null; c = c.getSuperclass())
+      {
+         for (Field f : c.getDeclaredFields())
+         {
+            int m = f.getModifiers();
+            if (!Modifier.isStatic(m) && !Modifier.isTransient(m)) return false;
+         }
+         for (Method m : c.getDeclaredMethods())
+            if (SERIALIZATION_METHODS.contains(m.getName()) && !Modifier.isStatic(m.getModifiers()))
+               return false;
+      }
+      return true;
+   }
+
+   /**
+    * Tells whether a LinkedHashMap is in access order.
+    */
+   private static boolean accessOrder(Object map) throws NotSerializableException
+   {
+      if (ACCESS_ORDER == null)
+         throw new NotSerializableException(map.getClass().getName()
+            + " cannot be accessed; register a codec");
+      try
+      {
+         return (boolean) ACCESS_ORDER.invokeExact(map);
+      }
+      catch (Throwable e)
+      {
+         throw new IllegalStateException(e);
+      }
+   }
+
+   /**
+    * Makes a method handle that reads the accessOrder field of a LinkedHashMap. The field
+    * is private to java.base, which does not open java.util, so it is read with
+    * sun.misc.Unsafe in the jdk.unsupported module, called reflectively like
+    * ReflectionFactory below.
+    * @return the handle, of type (Object)boolean, or null if Unsafe is not available
+    */
+   private static MethodHandle accessOrderGetter()
+   {
+      try
+      {
+         Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+         Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+         theUnsafe.setAccessible(true);
+         Object unsafe = theUnsafe.get(null);
+         long offset = (long) unsafeClass.getMethod("objectFieldOffset", Field.class)
+            .invoke(unsafe, LinkedHashMap.class.getDeclaredField("accessOrder"));
+         MethodHandle getBoolean = MethodHandles.publicLookup().findVirtual(unsafeClass,
+            "getBoolean", MethodType.methodType(boolean.class, Object.class, long.class));
+         return MethodHandles.insertArguments(getBoolean.bindTo(unsafe), 1, offset);
+      }
+      catch (ReflectiveOperationException | RuntimeException e)
+      {
+         return null;
+      }
+   }
+
+   /**
+    * Gets the constructor that object streams use to make an instance of a serializable
+    * class: it only runs the no-argument constructor of the first superclass that is not
+    * serializable. Only sun.reflect.ReflectionFactory in the jdk.unsupported module makes
+    * such constructors. It is called reflectively, so that compiling this class does not
+    * depend on an internal API.
+    * @return the constructor, or null if that superclass has no accessible no-argument
+    * constructor
+    */
+   private static Constructor<?> serializationConstructor(Class<?> cl)
+      throws ReflectiveOperationException
+   {
+      Class<?> factoryClass = Class.forName("sun.reflect.ReflectionFactory");
+      Object factory = factoryClass.getMethod("getReflectionFactory").invoke(null);
+      return (Constructor<?>) factoryClass.getMethod("newConstructorForSerialization",
+         Class.class).invoke(factory, cl);
+   }
+
+   private static Class<?> primitive(char type)
+   {
+      switch (type)
+      {
+         case 'Z': return boolean.class;
+         case 'B': return byte.class;
+         case 'S': return short.class;
+         case 'C': return char.class;
+         case 'I': return int.class;
+         case 'J': return long.class;
+         case 'F': return float.class;
+         case 'D': return double.class;
+         default: return Object.class;
+      }
+   }
+
+   /**
+    * Reads and writes one field through method handles whose types are exact, so that
+    * primitive values are not boxed.
+    */
+   private static class FieldCodec
+   {
+      final String name;
+      final char type;
+      final MethodHandle getter;
+      final MethodHandle setter;
+
+      FieldCodec(String name, Class<?> fieldType, MethodHandle getter, MethodHandle setter)
+      {
+         this.name = name;
+         type = typeCode(fieldType);
+         Class<?> t = fieldType.isPrimitive() ? fieldType : Object.class;
+         this.getter = getter.asType(MethodType.methodType(t, Object.class));
+         this.setter = setter == null ? null
+            : setter.asType(MethodType.methodType(void.class, Object.class, t));
+      }
+
+      void write(Object obj, Writer w) throws Throwable
+      {
+         Output out = w.out;
+         switch (type)
+         {
+            case 'Z': out.putBoolean((boolean) getter.invokeExact(obj)); break;
+            case 'B': out.putByte((byte) getter.invokeExact(obj)); break;
+            case 'S': out.putShort((short) getter.invokeExact(obj)); break;
+            case 'C': out.putChar((char) getter.invokeExact(obj)); break;
+            case 'I': out.putInt((int) getter.invokeExact(obj)); break;
+            case 'J': out.putLong((long) getter.invokeExact(obj)); break;
+            case 'F': out.putFloat((float) getter.invokeExact(obj)); break;
+            case 'D': out.putDouble((double) getter.invokeExact(obj)); break;
+            default: w.writeObject((Object) getter.invokeExact(obj));
+         }
+      }
+
+      void read(Object obj, Reader r, char streamType) throws Throwable
+      {
+         Input in = r.in;
+         if (streamType != type)
+         {
+            setter.invoke(obj, widen(r.readValue(streamType), type));
+            return;
+         }
+         switch (type)
+         {
+            case 'Z': setter.invokeExact(obj, in.getBoolean()); break;
+            case 'B': setter.invokeExact(obj, in.getByte()); break;
+            case 'S': setter.invokeExact(obj, in.getShort()); break;
+            case 'C': setter.invokeExact(obj, in.getChar()); break;
+            case 'I': setter.invokeExact(obj, in.getInt()); break;
+            case 'J': setter.invokeExact(obj, in.getLong()); break;
+            case 'F': setter.invokeExact(obj, in.getFloat()); break;
+            case 'D': setter.invokeExact(obj, in.getDouble()); break;
+            default: setter.invokeExact(obj, r.readObject());
+         }
+      }
+   }
+}
@@ -0,0 +1,117 @@
+package serial;
+
+import java.io.*;
+import java.lang.reflect.*;
+import java.util.*;
+
+import util.*;
+
+/**
+ * This program compares the size and speed of object streams and BinarySerializer on a
+ * staff array of employees and managers. Every tenth employee is a manager whose
+ * secretary is shared with other managers, and some pairs of managers are each other's
+ * secretaries. Each employee also has a name and a hire date, so the default graph of
+ * 350,000 employees has about a million objects. The program exits with status 1 if a copy
+ * differs from the original.
+ * Usage: java serial.SerializationBenchmark [employees]
+ * @version 1.01 2026-10-19
+ */
+public class SerializationBenchmark
+{
+   private static final int ROUNDS = 5;
+
+   public static void main(String[] args) throws Exception
+   {
+      int n = args.length > 0 ? Integer.parseInt(args[0]) : 350_000;
+      var staff = new Employee[n];
+      var generator = new Random(42);
+      for (int i = 0; i < n; i++)
+      {
+         String name = "Employee " + i;
+         double salary = 30000 + generator.nextInt(70000);
+         int year = 1980 + generator.nextInt(40);
+         if (i % 10 == 0)
+         {
+            var m = new Manager(name, salary, year, 1 + generator.nextInt(12),
+               1 + generator.nextInt(28));
+            if (i > 0) m.setSecretary(staff[generator.nextInt(i)]);
+            if (i % 100 == 0 && i > 0) // a pair of managers that are each other's secretaries
+            {
+               var previous = (Manager) staff[i - 10];
+               previous.setSecretary(m);
+               m.setSecretary(previous);
+            }
+            staff[i] = m;
+         }
+         else staff[i] = new Employee(name, salary, year, 1 + generator.nextInt(12),
+            1 + generator.nextInt(28));
+      }
+      System.out.printf("%,d employees%n", n);
+
+      byte[] javaBytes = time("ObjectOutputStream", () ->
+         {
+            var bytes = new ByteArrayOutputStream();
+            try (var out = new ObjectOutputStream(new BufferedOutputStream(bytes, 1 << 16)))
+            {
+               out.writeObject(staff);
+            }
+            return bytes.toByteArray();
+         });
+      var javaStaff = (Employee[]) time("ObjectInputStream", () ->
+         {
+            try (var in = new ObjectInputStream(new BufferedInputStream(
+                  new ByteArrayInputStream(javaBytes), 1 << 16)))
+            {
+               return in.readObject();
+            }
+         });
+
+      var serializer = new BinarySerializer();
+      byte[] binaryBytes = time("BinarySerializer.write", () -> serializer.toBytes(staff));
+      var binaryStaff = (Employee[]) time("BinarySerializer.read",
+         () -> serializer.fromBytes(binaryBytes));
+
+      System.out.printf("Object stream: %,d bytes, binary: %,d bytes (%.0f%%)%n", javaBytes.length,
+         binaryBytes.length, 100.0 * binaryBytes.length / javaBytes.length);
+      boolean javaSame = same(staff, javaStaff);
+      boolean binarySame = same(staff, binaryStaff);
+      System.out.println("Object stream copy " + (javaSame ? "matches" : "DIFFERS"));
+      System.out.println("Binary copy " + (binarySame ? "matches" : "DIFFERS"));
+      if (!javaSame || !binarySame) System.exit(1);
+   }
+
+   /**
+    * Checks that two staff arrays have the same contents and the same sharing of secretaries.
+    */
+   private static boolean same(Employee[] a, Employee[] b) throws ReflectiveOperationException
+   {
+      if (a.length != b.length) return false;
+      Field secretary = Manager.class.getDeclaredField("secretary");
+      secretary.setAccessible(true);
+      var indexA = new IdentityHashMap<Employee, Integer>();
+      var indexB = new IdentityHashMap<Employee, Integer>();
+      for (int i = 0; i < a.length; i++)
+      {
+         indexA.put(a[i], i);
+         indexB.put(b[i], i);
+      }
+      for (int i = 0; i < a.length; i++)
+      {
+         if (a[i].getClass() != b[i].getClass() || !a[i].getName().equals(b[i].getName())
+               || a[i].getSalary() != b[i].getSalary()
+               || !a[i].getHireDay().equals(b[i].getHireDay()))
+            return false;
+         if (a[i] instanceof Manager
+               && !Objects.equals(indexA.get(secretary.get(a[i])), indexB.get(secretary.get(b[i]))))
+            return false;
+      }
+      return true;
+   }
+
+   private static <T> T time(String name, BestOf.Task<T> task) throws Exception
+   {
+      BestOf.Result<T> result = BestOf.time(ROUNDS, task);
+      System.out.printf("   %-24s %9.1f ms%n", name, result.millis());
+      return result.value();
+   }
+}
@@ -0,0 +1,531 @@
+package serialClone;
+
+import java.lang.invoke.*;
+import java.lang.reflect.*;
+import java.math.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+/**
+ * Makes deep copies of object graphs without going through serialization. The fields of a
+ * class are looked up once, and the copier keeps a plan for each class: immutable objects
+ * such as strings, boxed values, enums, and the classes of java.time are shared; arrays,
+ * collections, and maps are copied element by element, with the comparator of a sorted or
+ * priority collection, and then the fields that a subclass of a collection or map adds
+ * are copied; the immutable collections of List.of, Set.of, and Map.of are rebuilt
+ * with copyOf; records are made with their canonical constructor; other objects are
+ * allocated without running a constructor and have each field copied. Dates are copied
+ * with clone. Classes that are not open to this module, such as the unmodifiable views of
+ * Collections, need a registered copier. An identity map makes sure that shared objects
+ * are copied once and that cycles are reproduced. A cycle that passes through a record or
+ * an immutable collection is not supported, since these can only be made after their
+ * contents are copied; copying one throws an IllegalArgumentException.
+ * @version 1.02 2026-10-19
+ */
+public class DeepCopier
+{
+   /**
+    * Copies the objects of one class, calling back to the copier for the objects they
+    * refer to. Objects of a class with a registered copier must not be part of a cycle.
+    */
+   public interface Copier<T>
+   {
+      T copy(T original, UnaryOperator<Object> deepCopy);
+   }
+
+   // classes that are not open to this module, and whose clone copies all mutable state
+   private static final Set<Class<?>> CLONEABLE = Set.of(Date.class, java.sql.Date.class,
+      java.sql.Time.class, java.sql.Timestamp.class);
+   // the copy of an object whose contents are still being copied
+   private static final Object PENDING = new Object();
+
+   private static final Set<Class<?>> IMMUTABLE = Set.of(String.class, Boolean.class,
+      Character.class, Byte.class, Short.class, Integer.class, Long.class, Float.class,
+      Double.class, BigInteger.class, BigDecimal.class, UUID.class, Class.class,
+      Locale.class, Object.class);
+
+   private final Map<Class<?>, Plan> plans = new ConcurrentHashMap<>();
+   private final Map<Class<?>, Copier<?>> copiers = new ConcurrentHashMap<>();
+   private final Set<Class<?>> immutable = ConcurrentHashMap.newKeySet();
+
+   /**
+    * Declares classes whose instances can be shared instead of copied.
+    * @return this copier
+    */
+   public DeepCopier immutable(Class<?>... classes)
+   {
+      for (Class<?> cl : classes)
+      {
+         immutable.add(cl);
+         plans.remove(cl);
+      }
+      return this;
+   }
+
+   /**
+    * Registers the copier for the instances of exactly a given class.
+    * @return this copier
+    */
+   public <T> DeepCopier register(Class<T> cl, Copier<T> copier)
+   {
+      copiers.put(cl, copier);
+      plans.remove(cl);
+      return this;
+   }
+
+   /**
+    * Makes a deep copy.
+    * @param obj an object, or null
+    * @return a copy of obj that shares nothing mutable with it, except for the comparators
+    * of sorted and priority collections
+    * @throws IllegalArgumentException if the graph has an object that cannot be copied, or a
+    * cycle through a record or an immutable collection
+    */
+   @SuppressWarnings("unchecked")
+   public <T> T copy(T obj)
+   {
+      return (T) new Copy().copy(obj);
+   }
+
+   /**
+    * The objects copied so far by one call to copy. The identity map is only made for the
+    * second copied object, since most small objects only have immutable fields.
+    */
+   private class Copy implements UnaryOperator<Object>
+   {
+      private Object firstOriginal;
+      private Object firstCopy;
+      private IdentityHashMap<Object, Object> copies;
+
+      public Object apply(Object obj)
+      {
+         return copy(obj);
+      }
+
+      Object get(Object original)
+      {
+         if (original == firstOriginal) return firstCopy;
+         return copies == null ? null : copies.get(original);
+      }
+
+      void put(Object original, Object copy)
+      {
+         if (firstOriginal == null || firstOriginal == original)
+         {
+            firstOriginal = original;
+            firstCopy = copy;
+         }
+         else
+         {
+            if (copies == null) copies = new IdentityHashMap<>();
+            copies.put(original, copy);
+         }
+      }
+
+      Object copy(Object obj)
+      {
+         if (obj == null) return null;
+         Plan plan = plan(obj.getClass());
+         if (plan.kind == Kind.SHARE) return obj;
+         Object result = get(obj);
+         if (result == PENDING)
+            throw new IllegalArgumentException("cycle through " + obj.getClass().getName());
+         if (result != null) return result;
+         try
+         {
+            return plan.copy(obj, this);
+         }
+         catch (RuntimeException | Error e)
+         {
+            throw e;
+         }
+         catch (Throwable t)
+         {
+            throw new IllegalStateException("cannot copy " + obj.getClass().getName(), t);
+         }
+      }
+   }
+
+   private Plan plan(Class<?> cl)
+   {
+      Plan plan = plans.get(cl);
+      if (plan == null)
+      {
+         plan = new Plan(cl);
+         plans.put(cl, plan);
+      }
+      return plan;
+   }
+
+   private boolean isImmutable(Class<?> cl)
+   {
+      return IMMUTABLE.contains(cl) || immutable.contains(cl) || cl.isEnum()
+         || cl.getSuperclass() != null && cl.getSuperclass().isEnum()
+         || cl.getPackageName().startsWith("java.time") || cl.isHidden() || cl.isSynthetic();
+   }
+
+   private enum Kind { SHARE, CUSTOM, FIELDS, RECORD, ARRAY, COLLECTION, MAP, CLONE }
+
+   private class Plan
+   {
+      final Class<?> type;
+      final Kind kind;
+      Copier<Object> copier;
+      Constructor<?> allocator;
+      FieldCopy[] fields = new FieldCopy[0];
+      MethodHandle[] accessors;
+      MethodHandle constructor;
+      MethodHandle comparatorConstructor; // (Comparator)Object, or null
+      MethodHandle emptyCopy; // (Object)Object for a map whose clone keeps its settings, or null
+      MethodHandle copyOf; // (Object)Object for an immutable collection, or null
+
+      @SuppressWarnings("unchecked")
+      Plan(Class<?> cl)
+      {
+         type = cl;
+         try
+         {
+            if (copiers.containsKey(cl))
+            {
+               kind = Kind.CUSTOM;
+               copier = (Copier<Object>) copiers.get(cl);
+            }
+            else if (isImmutable(cl)) kind = Kind.SHARE;
+            else if (cl.isArray()) kind = Kind.ARRAY;
+            else if (cl.isRecord())
+            {
+               kind = Kind.RECORD;
+               MethodHandles.Lookup lookup
+                  = MethodHandles.privateLookupIn(cl, MethodHandles.lookup());
+               RecordComponent[] components = cl.getRecordComponents();
+               accessors = new MethodHandle[components.length];
+               var types = new Class<?>[components.length];
+               for (int i = 0; i < components.length; i++)
+               {
+                  types[i] = components[i].getType();
+                  accessors[i] = lookup.unreflect(components[i].getAccessor())
+                     .asType(MethodType.methodType(Object.class, Object.class));
+               }
+               constructor = lookup.findConstructor(cl, MethodType.methodType(void.class, types))
+                  .asSpreader(Object[].class, components.length)
+                  .asType(MethodType.methodType(Object.class, Object[].class));
+            }
+            else if (cl.getName().startsWith("java.util.ImmutableCollections$"))
+            {
+               // made by List.of, Set.of, Map.of, and rebuilt with copyOf
+               kind = Map.class.isAssignableFrom(cl) ? Kind.MAP : Kind.COLLECTION;
+               Class<?> factory = kind == Kind.MAP ? Map.class
+                  : Set.class.isAssignableFrom(cl) ? Set.class : List.class;
+               copyOf = MethodHandles.publicLookup()
+                  .findStatic(factory, "copyOf", MethodType.methodType(factory,
+                     kind == Kind.MAP ? Map.class : Collection.class))
+                  .asType(MethodType.methodType(Object.class, Object.class));
+            }
+            else if (cl == EnumMap.class)
+            {
+               // no constructor without a key type; the copy starts as an empty clone
+               kind = Kind.MAP;
+               emptyCopy = MethodHandles.lookup().findStatic(DeepCopier.class, "emptyCopy",
+                  MethodType.methodType(EnumMap.class, EnumMap.class))
+                  .asType(MethodType.methodType(Object.class, Object.class));
+            }
+            else if ((Collection.class.isAssignableFrom(cl) || Map.class.isAssignableFrom(cl))
+                  && hasPublicConstructor(cl))
+            {
+               kind = Collection.class.isAssignableFrom(cl) ? Kind.COLLECTION : Kind.MAP;
+               if (LinkedHashMap.class.isAssignableFrom(cl))
+                  // only a clone has the access order of the original
+                  emptyCopy = MethodHandles.lookup().findStatic(DeepCopier.class, "emptyCopy",
+                     MethodType.methodType(LinkedHashMap.class, LinkedHashMap.class))
+                     .asType(MethodType.methodType(Object.class, Object.class));
+               else
+               {
+                  constructor = MethodHandles.publicLookup()
+                     .findConstructor(cl, MethodType.methodType(void.class))
+                     .asType(MethodType.methodType(Object.class));
+                  comparatorConstructor = comparatorConstructor(cl);
+               }
+               // The fields of subclasses outside the JDK, copied after the elements
+               var list = new ArrayList<FieldCopy>();
+               for (Class<?> c = cl; c.getClassLoader() != null; c = c.getSuperclass())
+                  addFields(c, list);
+               fields = list.toArray(new FieldCopy[0]);
+            }
+            else if (isOpen(cl))
+            {
+               kind = Kind.FIELDS;
+               var list = new ArrayList<FieldCopy>();
+               for (Class<?> c = cl; c != Object.class; c = c.getSuperclass())
+                  addFields(c, list);
+               fields = list.toArray(new FieldCopy[0]);
+               // Allocate without running any constructor; all fields are set afterwards
+               allocator = allocatingConstructor(cl);
+            }
+            else if (CLONEABLE.contains(cl) || EnumSet.class.isAssignableFrom(cl))
+            {
+               // A class that is not open to us, but whose public clone is deep enough
+               kind = Kind.CLONE;
+               Class<?> declaring = CLONEABLE.contains(cl) ? cl : EnumSet.class;
+               constructor = MethodHandles.publicLookup()
+                  .findVirtual(declaring, "clone", MethodType.methodType(
+                     declaring == EnumSet.class ? EnumSet.class : Object.class))
+                  .asType(MethodType.methodType(Object.class, Object.class));
+            }
+            else throw new IllegalArgumentException(cl.getName() + " is not open to "
+               + DeepCopier.class.getModule());
+         }
+         catch (ReflectiveOperationException | RuntimeException e)
+         {
+            throw new IllegalArgumentException("cannot copy " + cl.getName()
+               + "; register a copier", e);
+         }
+      }
+
+      Object copy(Object obj, Copy c) throws Throwable
+      {
+         switch (kind)
+         {
+            case CUSTOM:
+            {
+               Object result = copier.copy(obj, c);
+               c.put(obj, result);
+               return result;
+            }
+            case FIELDS:
+            {
+               Object result = allocator.newInstance();
+               c.put(obj, result);
+               for (FieldCopy f : fields) f.copy(obj, result, c);
+               return result;
+            }
+            case RECORD:
+            {
+               c.put(obj, PENDING);
+               var values = new Object[accessors.length];
+               for (int i = 0; i < values.length; i++)
+                  values[i] = c.copy((Object) accessors[i].invokeExact(obj));
+               Object result = (Object) constructor.invokeExact(values);
+               c.put(obj, result);
+               return result;
+            }
+            case ARRAY:
+            {
+               Object result;
+               if (type.getComponentType().isPrimitive())
+               {
+                  int length = Array.getLength(obj);
+                  result = Array.newInstance(type.getComponentType(), length);
+                  System.arraycopy(obj, 0, result, 0, length);
+                  c.put(obj, result);
+               }
+               else
+               {
+                  var elements = ((Object[]) obj).clone();
+                  c.put(obj, elements);
+                  for (int i = 0; i < elements.length; i++) elements[i] = c.copy(elements[i]);
+                  result = elements;
+               }
+               return result;
+            }
+            case COLLECTION:
+            {
+               if (copyOf != null)
+               {
+                  c.put(obj, PENDING);
+                  var elements = new ArrayList<Object>();
+                  for (Object element : (Collection<?>) obj) elements.add(c.copy(element));
+                  Object result = (Object) copyOf.invokeExact((Object) elements);
+                  c.put(obj, result);
+                  return result;
+               }
+               @SuppressWarnings("unchecked")
+               var result = (Collection<Object>) newInstance(obj);
+               c.put(obj, result);
+               for (Object element : (Collection<?>) obj) result.add(c.copy(element));
+               for (FieldCopy f : fields) f.copy(obj, result, c);
+               return result;
+            }
+            case MAP:
+            {
+               if (copyOf != null)
+               {
+                  c.put(obj, PENDING);
+                  var entries = new LinkedHashMap<Object, Object>();
+                  for (Map.Entry<?, ?> e : ((Map<?, ?>) obj).entrySet())
+                     entries.put(c.copy(e.getKey()), c.copy(e.getValue()));
+                  Object result = (Object) copyOf.invokeExact((Object) entries);
+                  c.put(obj, result);
+                  return result;
+               }
+               @SuppressWarnings("unchecked")
+               var result = (Map<Object, Object>) newInstance(obj);
+               c.put(obj, result);
+               for (Map.Entry<?, ?> e : ((Map<?, ?>) obj).entrySet())
+                  result.put(c.copy(e.getKey()), c.copy(e.getValue()));
+               for (FieldCopy f : fields) f.copy(obj, result, c);
+               return result;
+            }
+            case CLONE:
+            {
+               Object result = (Object) constructor.invokeExact(obj);
+               c.put(obj, result);
+               return result;
+            }
+            default:
+               return obj;
+         }
+      }
+
+      /**
+       * Makes an empty collection or map of the class of obj, with the same comparator, key
+       * type, or access order. The comparator is shared, not copied.
+       */
+      private Object newInstance(Object obj) throws Throwable
+      {
+         if (emptyCopy != null) return (Object) emptyCopy.invokeExact(obj);
+         Comparator<?> comparator = comparator(obj);
+         if (comparator == null) return (Object) constructor.invokeExact();
+         if (comparatorConstructor == null)
+            throw new IllegalArgumentException(type.getName()
+               + " with a comparator; register a copier");
+         return (Object) comparatorConstructor.invokeExact(comparator);
+      }
+   }
+
+   /**
+    * Gets the comparator of a sorted or priority collection or map.
+    * @return the comparator, or null if there is none or the elements are compared by their
+    * natural order
+    */
+   private static Comparator<?> comparator(Object obj)
+   {
+      if (obj instanceof SortedSet<?> s) return s.comparator();
+      if (obj instanceof SortedMap<?, ?> m) return m.comparator();
+      if (obj instanceof PriorityQueue<?> q) return q.comparator();
+      if (obj instanceof PriorityBlockingQueue<?> q) return q.comparator();
+      return null;
+   }
+
+   /**
+    * Finds the public constructor with a comparator of a sorted or priority collection class.
+    * @return a (Comparator)Object handle, or null if there is none
+    */
+   private static MethodHandle comparatorConstructor(Class<?> cl)
+      throws IllegalAccessException
+   {
+      MethodType withComparator = MethodType.methodType(Object.class, Comparator.class);
+      try
+      {
+         if (PriorityBlockingQueue.class.isAssignableFrom(cl))
+            return MethodHandles.insertArguments(MethodHandles.publicLookup()
+               .findConstructor(cl, MethodType.methodType(void.class, int.class,
+                  Comparator.class)), 0, 11)
+               .asType(withComparator);
+         return MethodHandles.publicLookup()
+            .findConstructor(cl, MethodType.methodType(void.class, Comparator.class))
+            .asType(withComparator);
+      }
+      catch (NoSuchMethodException e)
+      {
+         return null;
+      }
+   }
+
+   @SuppressWarnings("unused") // called through a method handle
+   private static EnumMap<?, ?> emptyCopy(EnumMap<?, ?> map)
+   {
+      EnumMap<?, ?> copy = map.clone();
+      copy.clear();
+      return copy;
+   }
+
+   @SuppressWarnings("unused") // called through a method handle
+   private static LinkedHashMap<?, ?> emptyCopy(LinkedHashMap<?, ?> map)
+   {
+      var copy = (LinkedHashMap<?, ?>) map.clone();
+      copy.clear();
+      return copy;
+   }
+
+   /**
+    * Gets a constructor that allocates an instance of a class without running any of its
+    * constructors. Only sun.reflect.ReflectionFactory in the jdk.unsupported module makes
+    * such constructors. It is called reflectively, so that compiling this class does not
+    * depend on an internal API.
+    */
+   private static Constructor<?> allocatingConstructor(Class<?> cl)
+      throws ReflectiveOperationException
+   {
+      Class<?> factoryClass = Class.forName("sun.reflect.ReflectionFactory");
+      Object factory = factoryClass.getMethod("getReflectionFactory").invoke(null);
+      return (Constructor<?>) factoryClass.getMethod("newConstructorForSerialization",
+         Class.class, Constructor.class).invoke(factory, cl, Object.class.getDeclaredConstructor());
+   }
+
+   private static boolean hasPublicConstructor(Class<?> cl)
+   {
+      try
+      {
+         return Modifier.isPublic(cl.getModifiers())
+            && Modifier.isPublic(cl.getConstructor().getModifiers());
+      }
+      catch (NoSuchMethodException e)
+      {
+         return false;
+      }
+   }
+
+   /**
+    * Tests whether all classes from cl up to Object are open for private access.
+    */
+   private static boolean isOpen(Class<?> cl)
+   {
+      for (Class<?> c = cl; c != Object.class; c = c.getSuperclass())
+         if (!c.getModule().isOpen(c.getPackageName(), DeepCopier.class.getModule()))
+            return false;
+      return true;
+   }
+
+   /**
+    * Adds the copies of the instance fields that a class declares.
+    */
+   private void addFields(Class<?> c, List<FieldCopy> list) throws IllegalAccessException
+   {
+      MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(c, MethodHandles.lookup());
+      for (Field f : c.getDeclaredFields())
+         if (!Modifier.isStatic(f.getModifiers()))
+         {
+            f.setAccessible(true);
+            list.add(new FieldCopy(f, lookup));
+         }
+   }
+
+   /**
+    * The copy of one field. Primitive fields and fields whose declared type is a final
+    * immutable class are copied as they are; other fields go through the copier.
+    */
+   private class FieldCopy
+   {
+      final MethodHandle getter; // (Object)T
+      final MethodHandle setter; // (Object, T)void
+      final boolean shared;
+
+      FieldCopy(Field f, MethodHandles.Lookup lookup) throws IllegalAccessException
+      {
+         Class<?> t = f.getType();
+         shared = t.isPrimitive() || Modifier.isFinal(t.getModifiers()) && isImmutable(t)
+            && !copiers.containsKey(t);
+         Class<?> erased = t.isPrimitive() ? t : Object.class;
+         getter = lookup.unreflectGetter(f).asType(MethodType.methodType(erased, Object.class));
+         setter = lookup.unreflectSetter(f)
+            .asType(MethodType.methodType(void.class, Object.class, erased));
+      }
+
+      void copy(Object from, Object to, Copy c) throws Throwable
+      {
+         Object value = getter.invoke(from);
+         setter.invoke(to, shared ? value : c.copy(value));
+      }
+   }
+}
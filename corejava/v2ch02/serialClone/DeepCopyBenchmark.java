@@ -0,0 +1,209 @@
+package serialClone;
+
+import java.io.*;
+import java.time.*;
+import java.util.*;
+
+import util.*;
+
+/**
+ * This program compares a clone method that uses serialization, as in SerialCloneable, with
+ * DeepCopier, on single employees and on a graph in which the same employees are reachable
+ * from an array and from a map of employees by hire year. The program exits with status 1
+ * if a graph copy is wrong.
+ * Usage: java serialClone.DeepCopyBenchmark [employees]
+ * @version 1.03 2026-10-19
+ */
+public class DeepCopyBenchmark
+{
+   private static final int ROUNDS = 5;
+   private static final int SERIAL_SAMPLE = 100_000;
+
+   private static boolean wrong;
+
+   public static void main(String[] args) throws Exception
+   {
+      int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+      var staff = new Employee[n];
+      var generator = new Random(42);
+      for (int i = 0; i < n; i++)
+         staff[i] = new Employee("Employee " + i, 30000 + generator.nextInt(70000),
+            1980 + generator.nextInt(40), 1 + generator.nextInt(12), 1 + generator.nextInt(28));
+      var byYear = new TreeMap<Integer, List<Employee>>();
+      for (Employee e : staff)
+         byYear.computeIfAbsent(e.getHireDay().getYear(), y -> new ArrayList<>()).add(e);
+      List<Object> graph = new ArrayList<>(List.of(staff, byYear));
+      System.out.printf("%,d employees%n", n);
+
+      System.out.println("Copying each employee:");
+      var copy = new Employee[n];
+      time("serialization clone", SERIAL_SAMPLE, () ->
+         {
+            for (int i = 0; i < SERIAL_SAMPLE; i++) copy[i] = (Employee) staff[i].clone();
+            return null;
+         });
+      var copier = new DeepCopier();
+      time("DeepCopier", n, () ->
+         {
+            for (int i = 0; i < n; i++) copy[i] = copier.copy(staff[i]);
+            return null;
+         });
+      time("constructor", n, () ->
+         {
+            for (int i = 0; i < n; i++)
+            {
+               Employee e = staff[i];
+               copy[i] = new Employee(e.getName(), e.getSalary(), e.getHireDay().getYear(),
+                  e.getHireDay().getMonthValue(), e.getHireDay().getDayOfMonth());
+            }
+            return null;
+         });
+
+      System.out.println("Copying the graph:");
+      check(staff, time("serialization", n, () -> serialCopy(graph)));
+      List<Object> graphCopy = time("DeepCopier", n, () -> copier.copy(graph));
+      check(staff, graphCopy);
+
+      staff[0].raiseSalary(10);
+      System.out.println(staff[0]);
+      System.out.println(((Employee[]) graphCopy.get(0))[0]);
+      if (wrong) System.exit(1);
+   }
+
+   @SuppressWarnings("unchecked")
+   private static List<Object> serialCopy(List<Object> graph) throws IOException
+   {
+      try
+      {
+         var bout = new ByteArrayOutputStream();
+         try (var out = new ObjectOutputStream(bout))
+         {
+            out.writeObject(graph);
+         }
+         try (var in = new ObjectInputStream(new ByteArrayInputStream(bout.toByteArray())))
+         {
+            return (List<Object>) in.readObject();
+         }
+      }
+      catch (ClassNotFoundException e)
+      {
+         throw new IOException(e);
+      }
+   }
+
+   /**
+    * Checks that a copy has equal employees that are all new objects, and that the map
+    * holds the employees of the copied array.
+    */
+   private static void check(Employee[] staff, List<Object> copy)
+   {
+      if (isCopy(staff, copy)) System.out.println("      copy is correct");
+      else
+      {
+         System.out.println("      COPY IS WRONG");
+         wrong = true;
+      }
+   }
+
+   @SuppressWarnings("unchecked")
+   private static boolean isCopy(Employee[] staff, List<Object> copy)
+   {
+      var copiedStaff = (Employee[]) copy.get(0);
+      var copiedByYear = (Map<Integer, List<Employee>>) copy.get(1);
+      var copied = Collections.newSetFromMap(new IdentityHashMap<Employee, Boolean>());
+      for (int i = 0; i < staff.length; i++)
+      {
+         Employee a = staff[i];
+         Employee b = copiedStaff[i];
+         if (a == b || !a.toString().equals(b.toString())) return false;
+         copied.add(b);
+      }
+      int count = 0;
+      for (List<Employee> list : copiedByYear.values())
+         for (Employee e : list)
+         {
+            if (!copied.contains(e)) return false;
+            count++;
+         }
+      return count == staff.length;
+   }
+
+   private static <T> T time(String name, int count, BestOf.Task<T> task) throws Exception
+   {
+      BestOf.Result<T> result = BestOf.time(ROUNDS, task);
+      System.out.printf("   %-28s %9.1f ms %9.1f ns/employee%n", name, result.millis(),
+         (double) result.nanos() / count);
+      return result.value();
+   }
+
+   /**
+    * The Employee class of SerialCloneTest, with the clone method of SerialCloneable.
+    */
+   private static class Employee implements Cloneable, Serializable
+   {
+      private static final long serialVersionUID = 1L;
+
+      private String name;
+      private double salary;
+      private LocalDate hireDay;
+
+      public Employee(String n, double s, int year, int month, int day)
+      {
+         name = n;
+         salary = s;
+         hireDay = LocalDate.of(year, month, day);
+      }
+
+      public String getName()
+      {
+         return name;
+      }
+
+      public double getSalary()
+      {
+         return salary;
+      }
+
+      public LocalDate getHireDay()
+      {
+         return hireDay;
+      }
+
+      public Object clone() throws CloneNotSupportedException
+      {
+         try
+         {
+            var bout = new ByteArrayOutputStream();
+            try (var out = new ObjectOutputStream(bout))
+            {
+               out.writeObject(this);
+            }
+            try (var in = new ObjectInputStream(new ByteArrayInputStream(bout.toByteArray())))
+            {
+               return in.readObject();
+            }
+         }
+         catch (IOException | ClassNotFoundException e)
+         {
+            var e2 = new CloneNotSupportedException();
+            e2.initCause(e);
+            throw e2;
+         }
+      }
+
+      public void raiseSalary(double byPercent)
+      {
+         double raise = salary * byPercent / 100;
+         salary += raise;
+      }
+
+      public String toString()
+      {
+         return getClass().getName()
+            + "[name=" + name
+            + ",salary=" + salary
+            + ",hireDay=" + hireDay
+            + "]";
+      }
+   }
+}
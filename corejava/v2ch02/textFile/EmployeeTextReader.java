@@ -0,0 +1,363 @@
+package textFile;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+/**
+ * Reads employee records in the text format of TextFileTest. Lines are found and parsed in a
+ * byte buffer: salaries and hire days are computed from the digits, and only the name of an
+ * employee becomes a string. Large files can be read in parallel, by splitting them at line
+ * ends into chunks that are mapped into memory and parsed by a thread pool.
+ * @version 1.00 2026-10-19
+ */
+public class EmployeeTextReader implements Closeable
+{
+   private static final int BUFFER_SIZE = 1 << 16;
+   private static final long MAX_CHUNK = 1 << 28;
+   private static final double[] POWERS_OF_TEN = {
+      1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+      1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+   private final ReadableByteChannel channel;
+   private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).flip();
+   private final Parser parser = new Parser();
+   private boolean eof;
+   private int lineStart;
+   private int lineEnd;
+
+   /**
+    * Constructs a reader that reads from a channel.
+    * @param channel the channel
+    */
+   public EmployeeTextReader(ReadableByteChannel channel)
+   {
+      this.channel = channel;
+   }
+
+   /**
+    * Constructs a reader that reads a file.
+    * @param path the file
+    */
+   public EmployeeTextReader(Path path) throws IOException
+   {
+      this(FileChannel.open(path));
+   }
+
+   /**
+    * Reads the line with the number of records.
+    */
+   public int readCount() throws IOException
+   {
+      if (!nextLine()) throw new EOFException();
+      return (int) Parser.parseLong(buffer, lineStart, lineEnd);
+   }
+
+   /**
+    * Reads the next employee record.
+    * @return the employee, or null at the end of the input
+    */
+   public Employee read() throws IOException
+   {
+      return nextLine() ? parser.parse(buffer, lineStart, lineEnd) : null;
+   }
+
+   public void close() throws IOException
+   {
+      channel.close();
+   }
+
+   /**
+    * Finds the next line in the buffer, reading more input when needed. The line is between
+    * lineStart and lineEnd, without the line end, and the buffer position is after it.
+    * @return false at the end of the input
+    */
+   private boolean nextLine() throws IOException
+   {
+      int scanned = buffer.position();
+      while (true)
+      {
+         for (int i = scanned; i < buffer.limit(); i++)
+            if (buffer.get(i) == '\n')
+            {
+               setLine(buffer.position(), i);
+               buffer.position(i + 1);
+               return true;
+            }
+         if (eof)
+         {
+            if (!buffer.hasRemaining()) return false;
+            setLine(buffer.position(), buffer.limit());
+            buffer.position(buffer.limit());
+            return true;
+         }
+         scanned = buffer.remaining();
+         if (buffer.position() == 0 && buffer.limit() == buffer.capacity())
+         {
+            // a line that does not fit into the buffer
+            buffer = ByteBuffer.allocate(2 * buffer.capacity()).put(buffer);
+         }
+         else buffer.compact();
+         eof = channel.read(buffer) < 0;
+         buffer.flip();
+      }
+   }
+
+   private void setLine(int start, int end)
+   {
+      lineStart = start;
+      lineEnd = end > start && buffer.get(end - 1) == '\r' ? end - 1 : end;
+   }
+
+   /**
+    * Reads all employees of a file.
+    * @param path the file
+    * @return the array of employees
+    */
+   public static Employee[] readAll(Path path) throws IOException
+   {
+      try (var in = new EmployeeTextReader(path))
+      {
+         int n = in.readCount();
+         var employees = new Employee[n];
+         for (int i = 0; i < n; i++)
+         {
+            employees[i] = in.read();
+            if (employees[i] == null) throw new EOFException("only " + i + " of " + n);
+         }
+         return employees;
+      }
+   }
+
+   /**
+    * Reads all employees of a file in parallel.
+    * @param path the file
+    * @param threads the number of threads
+    * @return the array of employees, in the order of the file
+    */
+   public static Employee[] readAll(Path path, int threads) throws IOException
+   {
+      var chunks = new ArrayList<List<Employee>>();
+      inChunks(path, threads, () ->
+         {
+            var list = new ArrayList<Employee>();
+            chunks.add(list);
+            return list::add;
+         });
+      int n = 0;
+      for (List<Employee> chunk : chunks) n += chunk.size();
+      var employees = new Employee[n];
+      int i = 0;
+      for (List<Employee> chunk : chunks)
+         for (Employee e : chunk) employees[i++] = e;
+      return employees;
+   }
+
+   /**
+    * Reads all employees of a file in parallel and carries out an action on each of them.
+    * The action is called from several threads at once, in the order of the file within
+    * each chunk.
+    * @param path the file
+    * @param threads the number of threads
+    * @param action the action for each employee
+    */
+   public static void forEach(Path path, int threads, Consumer<Employee> action)
+      throws IOException
+   {
+      inChunks(path, threads, () -> action);
+   }
+
+   /**
+    * Splits a file into chunks of lines, and parses the chunks with a thread pool.
+    * @param actions supplies the action for each chunk, in the order of the chunks
+    */
+   private static void inChunks(Path path, int threads,
+      Supplier<Consumer<Employee>> actions) throws IOException
+   {
+      try (FileChannel channel = FileChannel.open(path))
+      {
+         long size = channel.size();
+         long start = lineAfter(channel, 0);
+         int count = (int) Math.max(4L * threads, (size - start) / MAX_CHUNK + 1);
+         var bounds = new long[count + 1];
+         bounds[0] = start;
+         for (int i = 1; i < count; i++)
+            bounds[i] = Math.max(bounds[i - 1],
+               lineAfter(channel, start + (size - start) * i / count - 1));
+         bounds[count] = size;
+
+         var tasks = new ArrayList<Callable<Void>>();
+         for (int i = 0; i < count; i++)
+         {
+            long from = bounds[i];
+            long to = bounds[i + 1];
+            if (from == to) continue;
+            Consumer<Employee> action = actions.get();
+            tasks.add(() ->
+               {
+                  ByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+                  var parser = new Parser();
+                  int lineStart = 0;
+                  int n = chunk.limit();
+                  for (int j = 0; j <= n; j++)
+                     if (j == n ? j > lineStart : chunk.get(j) == '\n')
+                     {
+                        int end = j > lineStart && chunk.get(j - 1) == '\r' ? j - 1 : j;
+                        action.accept(parser.parse(chunk, lineStart, end));
+                        lineStart = j + 1;
+                     }
+                  return null;
+               });
+         }
+         ExecutorService executor = Executors.newFixedThreadPool(threads);
+         try
+         {
+            for (Future<Void> f : executor.invokeAll(tasks)) f.get();
+         }
+         catch (InterruptedException e)
+         {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+         }
+         catch (ExecutionException e)
+         {
+            if (e.getCause() instanceof IOException ex) throw ex;
+            if (e.getCause() instanceof RuntimeException ex) throw ex;
+            throw new IOException(e.getCause());
+         }
+         finally
+         {
+            executor.shutdown();
+         }
+      }
+   }
+
+   /**
+    * Finds the start of the line after a position.
+    * @return the position after the first \n at or after position, or the file size
+    */
+   private static long lineAfter(FileChannel channel, long position) throws IOException
+   {
+      var bytes = ByteBuffer.allocate(4096);
+      long p = position;
+      while (true)
+      {
+         bytes.clear();
+         int n = channel.read(bytes, p);
+         if (n < 0) return channel.size();
+         for (int i = 0; i < n; i++)
+            if (bytes.get(i) == '\n') return p + i + 1;
+         p += n;
+      }
+   }
+
+   /**
+    * Parses the fields of a record line. A parser holds a buffer for names that are not in
+    * an array, so each thread needs its own.
+    */
+   private static class Parser
+   {
+      private byte[] name = new byte[64];
+
+      Employee parse(ByteBuffer b, int start, int end) throws IOException
+      {
+         // the last two bars end the name, which could contain a bar
+         int second = end - 1;
+         while (second >= start && b.get(second) != '|') second--;
+         int first = second - 1;
+         while (first >= start && b.get(first) != '|') first--;
+         if (first < start) throw new IOException("bad record: " + text(b, start, end));
+
+         double salary = parseDouble(b, first + 1, second);
+         int year;
+         int month;
+         int day;
+         if (end - second - 1 == 10 && b.get(second + 5) == '-' && b.get(second + 8) == '-')
+         {
+            year = (int) parseLong(b, second + 1, second + 5);
+            month = (int) parseLong(b, second + 6, second + 8);
+            day = (int) parseLong(b, second + 9, second + 11);
+         }
+         else
+         {
+            LocalDate date = LocalDate.parse(text(b, second + 1, end));
+            year = date.getYear();
+            month = date.getMonthValue();
+            day = date.getDayOfMonth();
+         }
+         return new Employee(decodeName(b, start, first), salary, year, month, day);
+      }
+
+      private String decodeName(ByteBuffer b, int start, int end)
+      {
+         if (b.hasArray())
+            return new String(b.array(), b.arrayOffset() + start, end - start,
+               StandardCharsets.UTF_8);
+         if (name.length < end - start) name = new byte[2 * (end - start)];
+         b.get(start, name, 0, end - start);
+         return new String(name, 0, end - start, StandardCharsets.UTF_8);
+      }
+
+      /**
+       * Parses a number in the format of Double.toString. Numbers with up to 15 digits and
+       * no exponent are computed from the digits; the division by a power of ten gives the
+       * same, correctly rounded result as Double.parseDouble.
+       */
+      static double parseDouble(ByteBuffer b, int start, int end)
+      {
+         int i = start;
+         boolean negative = i < end && b.get(i) == '-';
+         if (negative) i++;
+         long mantissa = 0;
+         int digits = 0;
+         int scale = 0;
+         boolean point = false;
+         boolean simple = i < end;
+         for (; i < end && simple; i++)
+         {
+            byte c = b.get(i);
+            if (c >= '0' && c <= '9')
+            {
+               mantissa = 10 * mantissa + (c - '0');
+               if (mantissa > 0) digits++;
+               if (point) scale++;
+            }
+            else if (c == '.' && !point) point = true;
+            else simple = false;
+         }
+         if (!simple || digits > 15 || scale >= POWERS_OF_TEN.length)
+            return Double.parseDouble(text(b, start, end));
+         double value = mantissa / POWERS_OF_TEN[scale];
+         return negative ? -value : value;
+      }
+
+      static long parseLong(ByteBuffer b, int start, int end)
+      {
+         int i = start;
+         boolean negative = i < end && b.get(i) == '-';
+         if (negative) i++;
+         if (i == end || end - i > 18) return Long.parseLong(text(b, start, end).trim());
+         long value = 0;
+         for (; i < end; i++)
+         {
+            int d = b.get(i) - '0';
+            if (d < 0 || d > 9) return Long.parseLong(text(b, start, end).trim());
+            value = 10 * value + d;
+         }
+         return negative ? -value : value;
+      }
+
+      static String text(ByteBuffer b, int start, int end)
+      {
+         var bytes = new byte[end - start];
+         b.get(start, bytes);
+         return new String(bytes, StandardCharsets.UTF_8);
+      }
+   }
+}
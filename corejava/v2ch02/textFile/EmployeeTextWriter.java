@@ -0,0 +1,197 @@
+package textFile;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.time.*;
+
+/**
+ * Writes employee records in the text format of TextFileTest: a line with the number of
+ * records, then one line per employee with name, salary and hire day separated by |. The
+ * fields are encoded straight into a reusable byte buffer, so that writing a record with an
+ * ASCII name, a whole salary below 10,000,000 and a four-digit year creates no objects. The
+ * output is the same as that of TextFileTest.writeEmployee with \n line ends.
+ * @version 1.00 2026-10-19
+ */
+public class EmployeeTextWriter implements Closeable
+{
+   private static final int BUFFER_SIZE = 1 << 16;
+
+   private final WritableByteChannel channel;
+   private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+   private final byte[] digits = new byte[20];
+   private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+      .onMalformedInput(CodingErrorAction.REPLACE)
+      .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+   /**
+    * Constructs a writer that writes to a channel.
+    * @param channel the channel
+    */
+   public EmployeeTextWriter(WritableByteChannel channel)
+   {
+      this.channel = channel;
+   }
+
+   /**
+    * Constructs a writer that replaces the contents of a file.
+    * @param path the file
+    */
+   public EmployeeTextWriter(Path path) throws IOException
+   {
+      this(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+         StandardOpenOption.TRUNCATE_EXISTING));
+   }
+
+   /**
+    * Writes all employees in an array to a file.
+    * @param path the file
+    * @param employees an array of employees
+    */
+   public static void write(Path path, Employee[] employees) throws IOException
+   {
+      try (var out = new EmployeeTextWriter(path))
+      {
+         out.writeCount(employees.length);
+         for (Employee e : employees) out.write(e);
+      }
+   }
+
+   /**
+    * Writes the line with the number of records.
+    */
+   public void writeCount(int count) throws IOException
+   {
+      ensure(24);
+      putLong(count);
+      buffer.put((byte) '\n');
+   }
+
+   /**
+    * Writes an employee record.
+    */
+   public void write(Employee e) throws IOException
+   {
+      String name = e.getName();
+      ensure(3 * name.length() + 64);
+      putName(name);
+      buffer.put((byte) '|');
+      putSalary(e.getSalary());
+      buffer.put((byte) '|');
+      putDate(e.getHireDay());
+      buffer.put((byte) '\n');
+   }
+
+   /**
+    * Writes the buffered records to the channel.
+    */
+   public void flush() throws IOException
+   {
+      buffer.flip();
+      while (buffer.hasRemaining()) channel.write(buffer);
+      buffer.clear();
+   }
+
+   public void close() throws IOException
+   {
+      try
+      {
+         flush();
+      }
+      finally
+      {
+         channel.close();
+      }
+   }
+
+   private void ensure(int bytes) throws IOException
+   {
+      if (buffer.remaining() < bytes)
+      {
+         flush();
+         if (buffer.capacity() < bytes) buffer = ByteBuffer.allocate(bytes);
+      }
+   }
+
+   private void putName(String name)
+   {
+      int n = name.length();
+      for (int i = 0; i < n; i++)
+      {
+         char c = name.charAt(i);
+         if (c >= 0x80)
+         {
+            encoder.reset();
+            encoder.encode(CharBuffer.wrap(name, i, n), buffer, true);
+            encoder.flush(buffer);
+            return;
+         }
+         buffer.put((byte) c);
+      }
+   }
+
+   /**
+    * Puts a salary as Double.toString would write it.
+    */
+   private void putSalary(double salary)
+   {
+      if (salary >= 1 && salary < 1e7 && salary == Math.rint(salary))
+      {
+         putLong((long) salary);
+         buffer.put((byte) '.').put((byte) '0');
+      }
+      else putAscii(Double.toString(salary));
+   }
+
+   /**
+    * Puts a date as LocalDate.toString would write it.
+    */
+   private void putDate(LocalDate date)
+   {
+      int year = date.getYear();
+      if (year < 1000 || year > 9999)
+      {
+         putAscii(date.toString());
+         return;
+      }
+      putLong(year);
+      buffer.put((byte) '-');
+      putTwoDigits(date.getMonthValue());
+      buffer.put((byte) '-');
+      putTwoDigits(date.getDayOfMonth());
+   }
+
+   private void putTwoDigits(int n)
+   {
+      buffer.put((byte) ('0' + n / 10)).put((byte) ('0' + n % 10));
+   }
+
+   private void putLong(long n)
+   {
+      if (n < 0)
+      {
+         buffer.put((byte) '-');
+         if (n == Long.MIN_VALUE)
+         {
+            putAscii("9223372036854775808");
+            return;
+         }
+         n = -n;
+      }
+      int i = digits.length;
+      do
+      {
+         digits[--i] = (byte) ('0' + n % 10);
+         n /= 10;
+      }
+      while (n > 0);
+      buffer.put(digits, i, digits.length - i);
+   }
+
+   private void putAscii(String s)
+   {
+      for (int i = 0; i < s.length(); i++) buffer.put((byte) s.charAt(i));
+   }
+}
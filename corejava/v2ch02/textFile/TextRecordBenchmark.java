@@ -0,0 +1,124 @@
+package textFile;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+import util.*;
+
+/**
+ * This program compares writing and reading employee records with TextFileTest, which uses
+ * a PrintWriter and a Scanner, and with EmployeeTextWriter and EmployeeTextReader. The
+ * employees are made up on the fly, so that the records need not fit into memory. The
+ * programs check that both writers produce the same file and that all readers see the same
+ * records, and exit with status 1 if not.
+ * Usage: java textFile.TextRecordBenchmark [records]
+ * @version 1.01 2026-10-19
+ */
+public class TextRecordBenchmark
+{
+   private static final int ROUNDS = 3;
+
+   public static void main(String[] args) throws Exception
+   {
+      int n = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+      Path scannerFile = Files.createTempFile("scanner", ".dat");
+      Path codecFile = Files.createTempFile("codec", ".dat");
+      boolean differ = false;
+      try
+      {
+         System.out.printf("%,d records%n", n);
+         time("PrintWriter", n, () ->
+            {
+               try (var out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(
+                     Files.newOutputStream(scannerFile), StandardCharsets.UTF_8), 1 << 16)))
+               {
+                  out.println(n);
+                  for (int i = 0; i < n; i++) TextFileTest.writeEmployee(out, employee(i));
+               }
+               return 0L;
+            });
+         time("EmployeeTextWriter", n, () ->
+            {
+               try (var out = new EmployeeTextWriter(codecFile))
+               {
+                  out.writeCount(n);
+                  for (int i = 0; i < n; i++) out.write(employee(i));
+               }
+               return 0L;
+            });
+         boolean same = Files.mismatch(scannerFile, codecFile) < 0;
+         System.out.printf("%,d bytes, files %s%n", Files.size(codecFile),
+            same ? "are the same" : "DIFFER");
+         differ = !same;
+
+         long expected = time("Scanner", n, () ->
+            {
+               long checksum = 0;
+               try (var in = new Scanner(new BufferedInputStream(
+                     Files.newInputStream(scannerFile), 1 << 16), StandardCharsets.UTF_8))
+               {
+                  int count = in.nextInt();
+                  in.nextLine();
+                  for (int i = 0; i < count; i++)
+                     checksum += checksum(TextFileTest.readEmployee(in));
+               }
+               return checksum;
+            });
+         long sequential = time("EmployeeTextReader", n, () ->
+            {
+               long checksum = 0;
+               try (var in = new EmployeeTextReader(codecFile))
+               {
+                  int count = in.readCount();
+                  for (int i = 0; i < count; i++) checksum += checksum(in.read());
+               }
+               return checksum;
+            });
+         System.out.println("   " + (sequential == expected ? "same records" : "DIFFERENT"));
+         differ |= sequential != expected;
+         int processors = Runtime.getRuntime().availableProcessors();
+         for (int threads = 1; threads <= Math.max(4, 2 * processors); threads *= 2)
+         {
+            int t = threads;
+            long parallel = time("forEach, " + threads + " threads", n, () ->
+               {
+                  var checksum = new AtomicLong();
+                  EmployeeTextReader.forEach(codecFile, t, e -> checksum.addAndGet(checksum(e)));
+                  return checksum.get();
+               });
+            System.out.println("   " + (parallel == expected ? "same records" : "DIFFERENT"));
+            differ |= parallel != expected;
+         }
+      }
+      finally
+      {
+         Files.delete(scannerFile);
+         Files.delete(codecFile);
+      }
+      if (differ) System.exit(1);
+   }
+
+   private static Employee employee(int i)
+   {
+      // every seventh salary has cents, as after a raise
+      double salary = 30000 + i % 70000 + (i % 7 == 0 ? 0.25 : 0);
+      return new Employee("Employee " + i, salary, 1980 + i % 40, 1 + i % 12, 1 + i % 28);
+   }
+
+   private static long checksum(Employee e)
+   {
+      return e.getName().hashCode() + Double.hashCode(e.getSalary()) * 31L
+         + e.getHireDay().toEpochDay() * 961L;
+   }
+
+   private static long time(String name, int n, BestOf.Task<Long> task) throws Exception
+   {
+      BestOf.Result<Long> result = BestOf.time(ROUNDS, task);
+      System.out.printf("   %-24s %9.1f ms %8.1f ns/record%n", name, result.millis(),
+         (double) result.nanos() / n);
+      return result.value();
+   }
+}
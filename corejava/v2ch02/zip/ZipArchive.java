@@ -0,0 +1,323 @@
+package zip;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.*;
+
+/**
+ * A ZIP archive that is read through its central directory. The end of the file and the
+ * central directory are mapped and parsed once, so the entries are known without reading
+ * the archive from the start, and each entry can be read independently, from any thread.
+ * Large stored or deflated entries are read from a mapping of their bytes. Archives in the
+ * ZIP64 format, with more than 65,535 entries or more than 4 GB, are supported.
+ * @version 1.00 2026-10-19
+ */
+public class ZipArchive implements Closeable
+{
+   static final int LOCAL_HEADER = 0x04034b50;
+   static final int CENTRAL_HEADER = 0x02014b50;
+   static final int END = 0x06054b50;
+   static final int ZIP64_END = 0x06064b50;
+   static final int ZIP64_LOCATOR = 0x07064b50;
+   static final long MASK = 0xFFFFFFFFL;
+   private static final int MAP_THRESHOLD = 1 << 16;
+   private static final ThreadLocal<Inflater> inflaters = ThreadLocal.withInitial(
+      () -> new Inflater(true));
+
+   /**
+    * An entry of the central directory.
+    * @param name the name of the entry
+    * @param method ZipEntry.STORED or ZipEntry.DEFLATED
+    * @param crc the CRC32 checksum of the contents
+    * @param compressedSize the number of bytes in the archive
+    * @param size the number of bytes of the contents
+    * @param modified the time of the last modification
+    * @param offset the position of the local header in the archive
+    */
+   public record Entry(String name, int method, long crc, long compressedSize, long size,
+      LocalDateTime modified, long offset)
+   {
+      public boolean isDirectory()
+      {
+         return name.endsWith("/");
+      }
+   }
+
+   /**
+    * Carries out an action on the contents of an entry.
+    */
+   public interface EntryAction
+   {
+      void accept(Entry entry, ByteBuffer contents) throws IOException;
+   }
+
+   private final FileChannel channel;
+   private final List<Entry> entries;
+   private final Map<String, Entry> byName = new HashMap<>();
+
+   private ZipArchive(FileChannel channel) throws IOException
+   {
+      this.channel = channel;
+      long fileSize = channel.size();
+      int tail = (int) Math.min(fileSize, 22 + 0xFFFF + 20);
+      ByteBuffer end = channel.map(FileChannel.MapMode.READ_ONLY, fileSize - tail, tail)
+         .order(ByteOrder.LITTLE_ENDIAN);
+      int p = tail - 22;
+      // the record ends the file, after a comment of up to 65,535 bytes
+      while (p >= 0
+            && !(end.getInt(p) == END && p + 22 + (end.getShort(p + 20) & 0xFFFF) == tail))
+         p--;
+      if (p < 0) throw new ZipException("no end of central directory record");
+      long count = end.getShort(p + 10) & 0xFFFF;
+      long directorySize = end.getInt(p + 12) & MASK;
+      long directoryOffset = end.getInt(p + 16) & MASK;
+      if ((count == 0xFFFF || directorySize == MASK || directoryOffset == MASK) && p >= 20
+            && end.getInt(p - 20) == ZIP64_LOCATOR)
+      {
+         ByteBuffer zip64 = channel.map(FileChannel.MapMode.READ_ONLY, end.getLong(p - 12), 56)
+            .order(ByteOrder.LITTLE_ENDIAN);
+         if (zip64.getInt(0) != ZIP64_END) throw new ZipException("bad ZIP64 end record");
+         count = zip64.getLong(32);
+         directorySize = zip64.getLong(40);
+         directoryOffset = zip64.getLong(48);
+      }
+      if (directorySize > Integer.MAX_VALUE)
+         throw new ZipException("central directory of " + directorySize + " bytes");
+
+      ByteBuffer directory = channel.map(FileChannel.MapMode.READ_ONLY, directoryOffset,
+         directorySize).order(ByteOrder.LITTLE_ENDIAN);
+      var list = new ArrayList<Entry>((int) Math.min(count, 1 << 20));
+      p = 0;
+      for (long i = 0; i < count; i++)
+      {
+         if (directory.getInt(p) != CENTRAL_HEADER)
+            throw new ZipException("bad central directory entry " + i);
+         int method = directory.getShort(p + 10) & 0xFFFF;
+         int time = directory.getShort(p + 12) & 0xFFFF;
+         int date = directory.getShort(p + 14) & 0xFFFF;
+         long crc = directory.getInt(p + 16) & MASK;
+         long compressedSize = directory.getInt(p + 20) & MASK;
+         long size = directory.getInt(p + 24) & MASK;
+         int nameLength = directory.getShort(p + 28) & 0xFFFF;
+         int extraLength = directory.getShort(p + 30) & 0xFFFF;
+         int commentLength = directory.getShort(p + 32) & 0xFFFF;
+         long offset = directory.getInt(p + 42) & MASK;
+         var nameBytes = new byte[nameLength];
+         directory.get(p + 46, nameBytes);
+         String name = new String(nameBytes, StandardCharsets.UTF_8);
+
+         // The ZIP64 extra field has the values that did not fit, in this order
+         for (int q = p + 46 + nameLength; q + 4 <= p + 46 + nameLength + extraLength; )
+         {
+            int id = directory.getShort(q) & 0xFFFF;
+            int length = directory.getShort(q + 2) & 0xFFFF;
+            if (id == 1)
+            {
+               int r = q + 4;
+               if (size == MASK) { size = directory.getLong(r); r += 8; }
+               if (compressedSize == MASK) { compressedSize = directory.getLong(r); r += 8; }
+               if (offset == MASK) offset = directory.getLong(r);
+            }
+            q += 4 + length;
+         }
+         var entry = new Entry(name, method, crc, compressedSize, size, fromDos(date, time),
+            offset);
+         list.add(entry);
+         byName.putIfAbsent(name, entry);
+         p += 46 + nameLength + extraLength + commentLength;
+      }
+      entries = Collections.unmodifiableList(list);
+   }
+
+   /**
+    * Opens an archive and reads its central directory.
+    * @param path the archive
+    */
+   public static ZipArchive open(Path path) throws IOException
+   {
+      FileChannel channel = FileChannel.open(path);
+      try
+      {
+         return new ZipArchive(channel);
+      }
+      catch (IOException | RuntimeException e)
+      {
+         channel.close();
+         throw e;
+      }
+   }
+
+   /**
+    * Gets the entries in the order of the central directory.
+    */
+   public List<Entry> entries()
+   {
+      return entries;
+   }
+
+   /**
+    * Finds an entry.
+    * @param name the name of the entry
+    * @return the entry, or null if there is none
+    */
+   public Entry getEntry(String name)
+   {
+      return byName.get(name);
+   }
+
+   /**
+    * Reads the contents of an entry and checks its CRC. This method can be called from
+    * several threads at once.
+    * @param entry an entry of this archive
+    * @return a buffer with the contents; for a large stored entry, a read-only mapping of
+    * the archive
+    */
+   public ByteBuffer read(Entry entry) throws IOException
+   {
+      if (entry.size() > Integer.MAX_VALUE - 8)
+         throw new ZipException(entry.name() + " has " + entry.size() + " bytes");
+      ByteBuffer header = readFully(entry.offset(), 30);
+      if (header.getInt(0) != LOCAL_HEADER)
+         throw new ZipException("bad local header of " + entry.name());
+      long start = entry.offset() + 30 + (header.getShort(26) & 0xFFFF)
+         + (header.getShort(28) & 0xFFFF);
+      ByteBuffer data = entry.compressedSize() >= MAP_THRESHOLD
+         ? channel.map(FileChannel.MapMode.READ_ONLY, start, entry.compressedSize())
+         : readFully(start, (int) entry.compressedSize());
+
+      ByteBuffer contents;
+      if (entry.method() == ZipEntry.STORED) contents = data;
+      else if (entry.method() == ZipEntry.DEFLATED)
+      {
+         contents = ByteBuffer.allocate((int) entry.size());
+         Inflater inflater = inflaters.get();
+         inflater.reset();
+         inflater.setInput(data);
+         try
+         {
+            while (!inflater.finished() && contents.hasRemaining())
+            {
+               if (inflater.inflate(contents) == 0)
+               {
+                  if (inflater.needsDictionary())
+                     throw new ZipException(entry.name() + " needs a dictionary");
+                  // zlib may want one more byte after the end of raw deflated data
+                  if (inflater.needsInput()) inflater.setInput(new byte[1]);
+               }
+            }
+         }
+         catch (DataFormatException e)
+         {
+            throw new ZipException(entry.name() + ": " + e.getMessage());
+         }
+         contents.flip();
+      }
+      else throw new ZipException(entry.name() + " uses compression method " + entry.method());
+
+      var crc = new CRC32();
+      crc.update(contents.duplicate());
+      if (contents.remaining() != entry.size() || crc.getValue() != entry.crc())
+         throw new ZipException("bad size or CRC of " + entry.name());
+      return contents;
+   }
+
+   /**
+    * Reads entries in parallel.
+    * @param entries entries of this archive
+    * @param threads the number of threads
+    * @return the contents of the entries, in the same order
+    */
+   public List<ByteBuffer> readAll(List<Entry> entries, int threads)
+      throws IOException, InterruptedException
+   {
+      var contents = new ByteBuffer[entries.size()];
+      inParallel(entries.size(), threads, i -> contents[i] = read(entries.get(i)));
+      return Arrays.asList(contents);
+   }
+
+   /**
+    * Reads entries in parallel and carries out an action on each of them. The action is
+    * called from the reading threads, in no particular order.
+    * @param entries entries of this archive
+    * @param threads the number of threads
+    * @param action the action for each entry
+    */
+   public void forEach(List<Entry> entries, int threads, EntryAction action)
+      throws IOException, InterruptedException
+   {
+      inParallel(entries.size(), threads, i ->
+         {
+            Entry e = entries.get(i);
+            action.accept(e, read(e));
+         });
+   }
+
+   public void close() throws IOException
+   {
+      channel.close();
+   }
+
+   private interface IndexTask
+   {
+      void run(int index) throws IOException;
+   }
+
+   private static void inParallel(int count, int threads, IndexTask task)
+      throws IOException, InterruptedException
+   {
+      ExecutorService executor = Executors.newFixedThreadPool(threads);
+      try
+      {
+         var tasks = new ArrayList<Callable<Void>>();
+         for (int i = 0; i < count; i++)
+         {
+            int index = i;
+            tasks.add(() ->
+               {
+                  task.run(index);
+                  return null;
+               });
+         }
+         for (Future<Void> f : executor.invokeAll(tasks))
+            f.get();
+      }
+      catch (ExecutionException e)
+      {
+         if (e.getCause() instanceof IOException ex) throw ex;
+         if (e.getCause() instanceof RuntimeException ex) throw ex;
+         throw new IOException(e.getCause());
+      }
+      finally
+      {
+         executor.shutdown();
+      }
+   }
+
+   private ByteBuffer readFully(long position, int length) throws IOException
+   {
+      ByteBuffer buffer = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+      while (buffer.hasRemaining())
+         if (channel.read(buffer, position + buffer.position()) < 0)
+            throw new EOFException();
+      return buffer.flip();
+   }
+
+   static LocalDateTime fromDos(int date, int time)
+   {
+      try
+      {
+         return LocalDateTime.of(1980 + (date >> 9), (date >> 5) & 0xF, date & 0x1F,
+            time >> 11, (time >> 5) & 0x3F, 2 * (time & 0x1F));
+      }
+      catch (DateTimeException e)
+      {
+         return LocalDateTime.of(1980, 1, 1, 0, 0);
+      }
+   }
+}
@@ -0,0 +1,307 @@
+package zip;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.*;
+
+/**
+ * Writes a ZIP archive whose entries are deflated concurrently. Each added entry is
+ * compressed by a task of a thread pool, and the compressed entries are written to the
+ * archive in the order in which they were added. At most a few entries per thread are in
+ * memory at once. An entry that does not get smaller is stored. Archives with more than
+ * 65,535 entries or more than 4 GB are written in the ZIP64 format.
+ * @version 1.00 2026-10-19
+ */
+public class ZipArchiveWriter implements Closeable
+{
+   private static final int ZIP64_VERSION = 45;
+   private static final int VERSION = 20;
+   private static final int UTF8_NAMES = 0x0800;
+   private static final int BUFFER_SIZE = 1 << 16;
+
+   /**
+    * A deflated entry that waits to be written.
+    */
+   private record Compressed(byte[] name, int method, long crc, byte[] data, int length,
+      int size, int dosTime)
+   {
+   }
+
+   /**
+    * An entry of the central directory.
+    */
+   private record DirectoryEntry(Compressed entry, long offset)
+   {
+   }
+
+   private final OutputStream out;
+   private final ExecutorService executor;
+   private final int maxPending;
+   private final int level;
+   private final ThreadLocal<Deflater> deflaters;
+   private final Deque<Future<Compressed>> pending = new ArrayDeque<>();
+   private final List<DirectoryEntry> directory = new ArrayList<>();
+   private final ByteArrayOutputStream header = new ByteArrayOutputStream();
+   private long position;
+   private boolean closed;
+
+   /**
+    * Constructs a writer that uses the default compression level.
+    * @param path the archive to write
+    * @param threads the number of compressing threads
+    */
+   public ZipArchiveWriter(Path path, int threads) throws IOException
+   {
+      this(path, threads, Deflater.DEFAULT_COMPRESSION);
+   }
+
+   /**
+    * Constructs a writer.
+    * @param path the archive to write
+    * @param threads the number of compressing threads
+    * @param level the compression level, from 0 to 9
+    */
+   public ZipArchiveWriter(Path path, int threads, int level) throws IOException
+   {
+      out = new BufferedOutputStream(Files.newOutputStream(path), BUFFER_SIZE);
+      executor = Executors.newFixedThreadPool(threads);
+      maxPending = 2 * threads;
+      this.level = level;
+      deflaters = ThreadLocal.withInitial(() -> new Deflater(level, true));
+   }
+
+   /**
+    * Adds an entry with the current time. The data must not be changed until the archive is
+    * closed.
+    * @param name the name of the entry
+    * @param data the contents
+    */
+   public void add(String name, byte[] data) throws IOException
+   {
+      add(name, data, LocalDateTime.now());
+   }
+
+   /**
+    * Adds an entry. The data must not be changed until the archive is closed.
+    * @param name the name of the entry
+    * @param data the contents
+    * @param modified the time of the last modification
+    */
+   public void add(String name, byte[] data, LocalDateTime modified) throws IOException
+   {
+      int dosTime = toDos(modified);
+      submit(() -> compress(name, data, dosTime));
+   }
+
+   /**
+    * Adds an entry with the contents and modification time of a file. The file is read by
+    * the compressing thread.
+    * @param name the name of the entry
+    * @param file a file of less than 2 GB
+    */
+   public void add(String name, Path file) throws IOException
+   {
+      submit(() ->
+         {
+            var modified = LocalDateTime.ofInstant(
+               Files.getLastModifiedTime(file).toInstant(), ZoneId.systemDefault());
+            return compress(name, Files.readAllBytes(file), toDos(modified));
+         });
+   }
+
+   /**
+    * Writes the remaining entries and the central directory, and closes the archive.
+    */
+   public void close() throws IOException
+   {
+      if (closed) return;
+      closed = true;
+      try
+      {
+         while (!pending.isEmpty()) writeNext();
+         writeDirectory();
+      }
+      finally
+      {
+         executor.shutdownNow();
+         out.close();
+      }
+   }
+
+   private void submit(Callable<Compressed> task) throws IOException
+   {
+      if (closed) throw new IOException("archive is closed");
+      pending.add(executor.submit(task));
+      while (pending.size() > maxPending || !pending.isEmpty() && pending.peek().isDone())
+         writeNext();
+   }
+
+   private Compressed compress(String name, byte[] data, int dosTime)
+   {
+      var crc = new CRC32();
+      crc.update(data);
+      byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+      if (level != 0)
+      {
+         Deflater deflater = deflaters.get();
+         deflater.reset();
+         deflater.setInput(data);
+         deflater.finish();
+         // enough for a stored block per 16 KB; smaller output would be stored instead
+         var buffer = new byte[data.length + (data.length >> 12) + (data.length >> 14) + 16];
+         int length = 0;
+         while (!deflater.finished() && length < buffer.length)
+            length += deflater.deflate(buffer, length, buffer.length - length);
+         if (deflater.finished() && length < data.length)
+            return new Compressed(nameBytes, ZipEntry.DEFLATED, crc.getValue(), buffer, length,
+               data.length, dosTime);
+      }
+      return new Compressed(nameBytes, ZipEntry.STORED, crc.getValue(), data, data.length,
+         data.length, dosTime);
+   }
+
+   /**
+    * Writes the local header and data of the oldest pending entry.
+    */
+   private void writeNext() throws IOException
+   {
+      Compressed entry;
+      try
+      {
+         entry = pending.remove().get();
+      }
+      catch (InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+         throw new InterruptedIOException();
+      }
+      catch (ExecutionException e)
+      {
+         if (e.getCause() instanceof IOException ex) throw ex;
+         throw new IOException(e.getCause());
+      }
+      directory.add(new DirectoryEntry(entry, position));
+      header.reset();
+      writeInt(ZipArchive.LOCAL_HEADER);
+      writeShort(VERSION);
+      writeShort(UTF8_NAMES);
+      writeShort(entry.method());
+      writeInt(entry.dosTime());
+      writeInt((int) entry.crc());
+      writeInt(entry.length());
+      writeInt(entry.size());
+      writeShort(entry.name().length);
+      writeShort(0);
+      header.write(entry.name());
+      writeHeader();
+      out.write(entry.data(), 0, entry.length());
+      position += entry.length();
+   }
+
+   private void writeDirectory() throws IOException
+   {
+      long start = position;
+      for (DirectoryEntry d : directory)
+      {
+         Compressed entry = d.entry();
+         boolean zip64 = d.offset() >= ZipArchive.MASK;
+         header.reset();
+         writeInt(ZipArchive.CENTRAL_HEADER);
+         writeShort(ZIP64_VERSION);
+         writeShort(zip64 ? ZIP64_VERSION : VERSION);
+         writeShort(UTF8_NAMES);
+         writeShort(entry.method());
+         writeInt(entry.dosTime());
+         writeInt((int) entry.crc());
+         writeInt(entry.length());
+         writeInt(entry.size());
+         writeShort(entry.name().length);
+         writeShort(zip64 ? 12 : 0);
+         writeShort(0); // comment
+         writeShort(0); // disk
+         writeShort(0); // internal attributes
+         writeInt(0); // external attributes
+         writeInt(zip64 ? (int) ZipArchive.MASK : (int) d.offset());
+         header.write(entry.name());
+         if (zip64)
+         {
+            writeShort(1);
+            writeShort(8);
+            writeLong(d.offset());
+         }
+         writeHeader();
+      }
+
+      long size = position - start;
+      int count = directory.size();
+      header.reset();
+      if (count >= 0xFFFF || start >= ZipArchive.MASK || size >= ZipArchive.MASK)
+      {
+         long end = position;
+         writeInt(ZipArchive.ZIP64_END);
+         writeLong(44);
+         writeShort(ZIP64_VERSION);
+         writeShort(ZIP64_VERSION);
+         writeInt(0);
+         writeInt(0);
+         writeLong(count);
+         writeLong(count);
+         writeLong(size);
+         writeLong(start);
+         writeInt(ZipArchive.ZIP64_LOCATOR);
+         writeInt(0);
+         writeLong(end);
+         writeInt(1);
+      }
+      writeInt(ZipArchive.END);
+      writeShort(0);
+      writeShort(0);
+      writeShort(Math.min(count, 0xFFFF));
+      writeShort(Math.min(count, 0xFFFF));
+      writeInt((int) Math.min(size, ZipArchive.MASK));
+      writeInt((int) Math.min(start, ZipArchive.MASK));
+      writeShort(0);
+      writeHeader();
+      out.flush();
+   }
+
+   private void writeHeader() throws IOException
+   {
+      header.writeTo(out);
+      position += header.size();
+   }
+
+   private void writeShort(int value)
+   {
+      header.write(value);
+      header.write(value >> 8);
+   }
+
+   private void writeInt(int value)
+   {
+      writeShort(value);
+      writeShort(value >> 16);
+   }
+
+   private void writeLong(long value)
+   {
+      writeInt((int) value);
+      writeInt((int) (value >> 32));
+   }
+
+   /**
+    * Converts a time to the MS-DOS format, with the date in the upper 16 bits.
+    */
+   static int toDos(LocalDateTime time)
+   {
+      if (time.getYear() < 1980) return (1 << 21) | (1 << 16);
+      int date = ((time.getYear() - 1980) << 9) | (time.getMonthValue() << 5)
+         | time.getDayOfMonth();
+      return (date << 16) | (time.getHour() << 11) | (time.getMinute() << 5)
+         | (time.getSecond() / 2);
+   }
+}
@@ -0,0 +1,194 @@
+package zip;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.file.*;
+import java.nio.file.attribute.*;
+import java.util.*;
+import java.util.zip.*;
+
+import util.*;
+
+/**
+ * This program compares the throughput of ZipOutputStream, ZipInputStream, the zip file
+ * system walk of ZipTest.showContents2, and ZipFile with ZipArchiveWriter and ZipArchive at
+ * 1 to 32 threads. The entries are random English-like text, which deflates to about a third.
+ * The program exits with status 1 if an archive read back differs from the entries written.
+ * Usage: java zip.ZipBenchmark [entries [kilobytes per entry]]
+ * @version 1.01 2026-10-19
+ */
+public class ZipBenchmark
+{
+   private static final int ROUNDS = 3;
+   private static final int[] THREADS = { 1, 2, 4, 8, 16, 32 };
+   private static final String[] WORDS = ("the of and to a in that is was he for it with as his "
+      + "on be at by had not are but from or have an they which one you were her all she there "
+      + "would their we him been has when who will more no if out so said what up its about into "
+      + "than them can only other new some could time these two may then do first any my now "
+      + "such like our over man me even most made after also did many before must through back "
+      + "years where much your way well down should because each just those people employee "
+      + "salary manager archive central directory").split(" ");
+
+   public static void main(String[] args) throws Exception
+   {
+      int count = args.length > 0 ? Integer.parseInt(args[0]) : 256;
+      int size = 1024 * (args.length > 1 ? Integer.parseInt(args[1]) : 512);
+      var names = new String[count];
+      var data = new byte[count][];
+      var generator = new Random(42);
+      for (int i = 0; i < count; i++)
+      {
+         names[i] = String.format("dir%02d/entry%05d.txt", i % 16, i);
+         data[i] = text(generator, size);
+      }
+      double megabytes = (double) count * size / (1 << 20);
+      System.out.printf("%,d entries, %.0f MB%n", count, megabytes);
+      Path dir = Files.createTempDirectory("zipbench");
+      Path streamZip = dir.resolve("stream.zip");
+      Path parallelZip = dir.resolve("parallel.zip");
+
+      boolean differ = false;
+      try
+      {
+         System.out.println("Writing:");
+         time("ZipOutputStream", megabytes, () ->
+            {
+               try (var out = new ZipOutputStream(new BufferedOutputStream(
+                     Files.newOutputStream(streamZip), 1 << 16)))
+               {
+                  for (int i = 0; i < count; i++)
+                  {
+                     out.putNextEntry(new ZipEntry(names[i]));
+                     out.write(data[i]);
+                     out.closeEntry();
+                  }
+               }
+               return null;
+            });
+         for (int threads : THREADS)
+            time("ZipArchiveWriter, " + threads, megabytes, () ->
+               {
+                  try (var out = new ZipArchiveWriter(parallelZip, threads))
+                  {
+                     for (int i = 0; i < count; i++)
+                        out.add(names[i], data[i]);
+                  }
+                  return null;
+               });
+         System.out.printf("   sizes: %,d and %,d bytes%n", Files.size(streamZip),
+            Files.size(parallelZip));
+
+         System.out.println("Reading:");
+         time("ZipInputStream", megabytes, () -> readStream(streamZip));
+         time("ZipFile", megabytes, () ->
+            {
+               try (var zip = new ZipFile(streamZip.toFile()))
+               {
+                  var entries = zip.entries();
+                  while (entries.hasMoreElements())
+                     try (InputStream in = zip.getInputStream(entries.nextElement()))
+                     {
+                        in.readAllBytes();
+                     }
+               }
+               return null;
+            });
+         time("zip file system walk", megabytes, () ->
+            {
+               try (FileSystem fs = FileSystems.newFileSystem(streamZip))
+               {
+                  Files.walkFileTree(fs.getPath("/"), new SimpleFileVisitor<Path>()
+                     {
+                        public FileVisitResult visitFile(Path path, BasicFileAttributes attrs)
+                              throws IOException
+                        {
+                           Files.readAllBytes(path);
+                           return FileVisitResult.CONTINUE;
+                        }
+                     });
+               }
+               return null;
+            });
+         for (int threads : THREADS)
+            time("ZipArchive, " + threads, megabytes, () ->
+               {
+                  try (ZipArchive archive = ZipArchive.open(streamZip))
+                  {
+                     archive.forEach(archive.entries(), threads, (e, b) -> {});
+                  }
+                  return null;
+               });
+
+         boolean same = same(names, data, readStream(parallelZip));
+         System.out.println("ZipInputStream reading ZipArchiveWriter output "
+            + (same ? "matches" : "DIFFERS"));
+         differ = !same;
+         try (ZipArchive archive = ZipArchive.open(streamZip))
+         {
+            var contents = new LinkedHashMap<String, byte[]>();
+            List<ByteBuffer> buffers = archive.readAll(archive.entries(), 4);
+            for (int i = 0; i < buffers.size(); i++)
+            {
+               var bytes = new byte[buffers.get(i).remaining()];
+               buffers.get(i).get(bytes);
+               contents.put(archive.entries().get(i).name(), bytes);
+            }
+            same = same(names, data, contents);
+            System.out.println("ZipArchive reading ZipOutputStream output "
+               + (same ? "matches" : "DIFFERS"));
+            differ |= !same;
+         }
+      }
+      finally
+      {
+         Files.deleteIfExists(streamZip);
+         Files.deleteIfExists(parallelZip);
+         Files.delete(dir);
+      }
+      if (differ) System.exit(1);
+   }
+
+   private static byte[] text(Random generator, int size)
+   {
+      var builder = new StringBuilder(size + 16);
+      while (builder.length() < size)
+      {
+         builder.append(WORDS[generator.nextInt(WORDS.length)]);
+         builder.append(generator.nextInt(12) == 0 ? '\n' : ' ');
+      }
+      builder.setLength(size);
+      return builder.toString().getBytes();
+   }
+
+   private static Map<String, byte[]> readStream(Path path) throws IOException
+   {
+      var contents = new LinkedHashMap<String, byte[]>();
+      try (var in = new ZipInputStream(new BufferedInputStream(Files.newInputStream(path),
+            1 << 16)))
+      {
+         ZipEntry entry;
+         while ((entry = in.getNextEntry()) != null)
+            contents.put(entry.getName(), in.readAllBytes());
+      }
+      return contents;
+   }
+
+   private static boolean same(String[] names, byte[][] data, Map<String, byte[]> contents)
+   {
+      if (contents.size() != names.length) return false;
+      int i = 0;
+      for (Map.Entry<String, byte[]> e : contents.entrySet())
+      {
+         if (!e.getKey().equals(names[i]) || !Arrays.equals(e.getValue(), data[i])) return false;
+         i++;
+      }
+      return true;
+   }
+
+   private static void time(String name, double megabytes, BestOf.Task<?> task) throws Exception
+   {
+      long nanos = BestOf.time(ROUNDS, task).nanos();
+      System.out.printf("   %-24s %9.1f ms %8.1f MB/s%n", name, nanos / 1e6,
+         megabytes * 1e9 / nanos);
+   }
+}
@@ -1,6 +1,7 @@
 package zip;
 
 import java.io.*;
+import java.nio.*;
 import java.nio.charset.*;
 import java.nio.file.*;
 import java.nio.file.attribute.*;
@@ -13,12 +14,14 @@ import java.util.zip.*;
  */
 public class ZipTest
 {
-   public static void main(String[] args) throws IOException
+   public static void main(String[] args) throws IOException, InterruptedException
    {
       String zipname = args[0];
       showContents(zipname);
       System.out.println("---");
       showContents2(zipname);
+      System.out.println("---");
+      showContents3(zipname);
    }
    
    public static void showContents(String zipname) throws IOException
@@ -59,4 +62,22 @@ public class ZipTest
             }
          });
    }
+
+   public static void showContents3(String zipname) throws IOException, InterruptedException
+   {
+      // Here, we read the central directory and inflate the entries in parallel
+      try (ZipArchive archive = ZipArchive.open(Path.of(zipname)))
+      {
+         List<ZipArchive.Entry> entries = archive.entries();
+         List<ByteBuffer> contents = archive.readAll(entries,
+            Runtime.getRuntime().availableProcessors());
+         for (int i = 0; i < entries.size(); i++)
+         {
+            System.out.println(entries.get(i).name());
+            var in = new Scanner(StandardCharsets.UTF_8.decode(contents.get(i)).toString());
+            while (in.hasNextLine())
+               System.out.println("   " + in.nextLine());
+         }
+      }
+   }
 }
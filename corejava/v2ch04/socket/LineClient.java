@@ -0,0 +1,381 @@
+package socket;
+
+import java.io.*;
+import java.net.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * A client for line protocols, in which a server answers each request line with one response
+ * line, such as the echo servers in this chapter. The client keeps a pool of open socket
+ * channels for each server, so that a request need not pay for a new connection. Requests can
+ * be pipelined: a batch of them is sent over one connection without waiting for the
+ * responses, which the server sends back in the order of the requests. Connecting is
+ * non-blocking, with a deadline, and stops when the thread is interrupted. An idle connection
+ * is checked before it is used again, since the server may have closed it in the meantime.
+ * The server may also close it while the requests are on their way; if a reused connection
+ * fails before any response arrives, the requests are sent once more on a new connection.
+ * They should therefore be safe to repeat. A call never takes longer than the response
+ * timeout, even when it has to wait for a free connection or connect once more.
+ * @version 1.02 2026-10-19
+ */
+public class LineClient implements Closeable
+{
+   private static final int BUFFER_SIZE = 16384;
+   private static final long MAX_IDLE = TimeUnit.MINUTES.toNanos(5);
+   // Scanner, which ThreadedEchoHandler reads lines with, also ends them at the last three
+   private static final String LINE_ENDS = "\n\r\u0085\u2028\u2029";
+
+   private final int maxConnections;
+   private final long connectTimeout;
+   private final long responseTimeout;
+   private final int greetingLines;
+   private final Map<SocketAddress, Endpoint> endpoints = new ConcurrentHashMap<>();
+   private final LongAdder connects = new LongAdder();
+   private volatile boolean closed;
+
+   /**
+    * Constructs a client.
+    * @param maxConnections the maximum number of connections to each server
+    * @param connectTimeout the time for connecting and reading the greeting
+    * @param responseTimeout the time for a request or a batch of requests, from waiting for
+    * a free connection to receiving the last response
+    * @param greetingLines the number of lines that a server sends after accepting a
+    * connection, such as "Hello! Enter BYE to exit."
+    */
+   public LineClient(int maxConnections, Duration connectTimeout, Duration responseTimeout,
+      int greetingLines)
+   {
+      this.maxConnections = maxConnections;
+      this.connectTimeout = connectTimeout.toNanos();
+      this.responseTimeout = responseTimeout.toNanos();
+      this.greetingLines = greetingLines;
+   }
+
+   /**
+    * Sends a request and waits for the response.
+    * @param endpoint the server address
+    * @param line the request, without a line end
+    * @return the response, without the line end
+    */
+   public String request(SocketAddress endpoint, String line) throws IOException
+   {
+      return pipeline(endpoint, List.of(line)).get(0);
+   }
+
+   /**
+    * Sends a batch of requests over one connection and waits for all responses.
+    * @param endpoint the server address
+    * @param lines the requests, without line ends
+    * @return the responses, in the order of the requests
+    */
+   public List<String> pipeline(SocketAddress endpoint, List<String> lines) throws IOException
+   {
+      for (String line : lines)
+         if (line.chars().anyMatch(ch -> LINE_ENDS.indexOf(ch) >= 0))
+            throw new IllegalArgumentException("line end in request: " + line);
+      Endpoint e = endpoints.computeIfAbsent(endpoint, Endpoint::new);
+      long deadline = System.nanoTime() + responseTimeout;
+      boolean retry = false;
+      while (true)
+      {
+         Connection c = e.borrow(retry, deadline);
+         boolean reusable = false;
+         try
+         {
+            List<String> responses = c.exchange(lines, lines.size(), deadline);
+            reusable = true;
+            return responses;
+         }
+         catch (IOException ex)
+         {
+            // the server closed a reused connection before it answered
+            if (retry || !c.reused || c.responded || ex instanceof SocketTimeoutException
+                  || Thread.currentThread().isInterrupted())
+               throw ex;
+            retry = true;
+         }
+         finally
+         {
+            e.giveBack(c, reusable);
+         }
+      }
+   }
+
+   /**
+    * Gets the number of connections that this client has opened.
+    */
+   public long connectCount()
+   {
+      return connects.sum();
+   }
+
+   /**
+    * Closes the idle connections. Connections that are in use are closed when they are given
+    * back.
+    */
+   public void close()
+   {
+      closed = true;
+      for (Endpoint e : endpoints.values()) e.closeIdle();
+   }
+
+   /**
+    * The pool of connections to one server.
+    */
+   private class Endpoint
+   {
+      private final SocketAddress address;
+      private final Semaphore permits = new Semaphore(maxConnections);
+      // the most recently used connection first
+      private final Deque<Connection> idle = new ConcurrentLinkedDeque<>();
+
+      Endpoint(SocketAddress address)
+      {
+         this.address = address;
+      }
+
+      /**
+       * Gets an idle connection that is still open, or opens a new one.
+       * @param fresh true if a new connection must be opened
+       * @param deadline the time at which to give up
+       */
+      Connection borrow(boolean fresh, long deadline) throws IOException
+      {
+         if (closed) throw new IOException("client closed");
+         try
+         {
+            if (!permits.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS))
+               throw new SocketTimeoutException("no free connection to " + address);
+         }
+         catch (InterruptedException e)
+         {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+         }
+         try
+         {
+            Connection c;
+            while (!fresh && (c = idle.pollFirst()) != null)
+            {
+               if (c.isHealthy())
+               {
+                  c.reused = true;
+                  return c;
+               }
+               c.close();
+            }
+            return connect(address, deadline);
+         }
+         catch (IOException | RuntimeException e)
+         {
+            permits.release();
+            throw e;
+         }
+      }
+
+      void giveBack(Connection c, boolean reusable)
+      {
+         if (reusable && !closed)
+         {
+            c.lastUsed = System.nanoTime();
+            idle.offerFirst(c);
+         }
+         else c.close();
+         permits.release();
+         if (closed) closeIdle();
+      }
+
+      void closeIdle()
+      {
+         Connection c;
+         while ((c = idle.pollFirst()) != null) c.close();
+      }
+   }
+
+   /**
+    * Opens a connection and reads the greeting, taking no longer than the connect timeout,
+    * and giving up at the deadline of the call if that comes first.
+    */
+   private Connection connect(SocketAddress address, long callDeadline) throws IOException
+   {
+      SocketChannel channel = SocketChannel.open();
+      Selector selector = null;
+      try
+      {
+         long deadline = System.nanoTime() + connectTimeout;
+         if (deadline - callDeadline > 0) deadline = callDeadline;
+         channel.configureBlocking(false);
+         channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+         selector = Selector.open();
+         SelectionKey key = channel.register(selector, SelectionKey.OP_CONNECT);
+         if (!channel.connect(address))
+         {
+            while (!channel.finishConnect())
+            {
+               await(selector, deadline, "connect timed out");
+               selector.selectedKeys().clear();
+            }
+         }
+         connects.increment();
+         var c = new Connection(channel, selector, key);
+         c.exchange(List.of(), greetingLines, deadline);
+         return c;
+      }
+      catch (IOException | RuntimeException e)
+      {
+         if (selector != null) selector.close();
+         channel.close();
+         throw e;
+      }
+   }
+
+   /**
+    * Waits until a channel is ready, the deadline has passed or the thread is interrupted.
+    */
+   private static void await(Selector selector, long deadline, String timeoutMessage)
+      throws IOException
+   {
+      long remaining = deadline - System.nanoTime();
+      if (remaining <= 0) throw new SocketTimeoutException(timeoutMessage);
+      selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining)));
+      if (Thread.currentThread().isInterrupted()) throw new ClosedByInterruptException();
+   }
+
+   /**
+    * A non-blocking channel with its selector and buffers.
+    */
+   private static class Connection
+   {
+      private final SocketChannel channel;
+      private final Selector selector;
+      private final SelectionKey key;
+      private ByteBuffer in = ByteBuffer.allocate(BUFFER_SIZE);
+      private ByteBuffer out = ByteBuffer.allocate(BUFFER_SIZE);
+      private long lastUsed = System.nanoTime();
+      private boolean ended;
+      private boolean reused; // taken from the idle connections
+      private boolean responded; // received data in the current exchange
+
+      Connection(SocketChannel channel, Selector selector, SelectionKey key)
+      {
+         this.channel = channel;
+         this.selector = selector;
+         this.key = key;
+      }
+
+      /**
+       * Sends requests and receives responses at the same time, so that neither side waits
+       * for the other when a batch does not fit into the socket buffers.
+       * @param requests the requests
+       * @param count the number of responses to receive
+       * @param deadline the time at which to give up
+       * @return the responses
+       */
+      List<String> exchange(List<String> requests, int count, long deadline)
+         throws IOException
+      {
+         var responses = new ArrayList<String>(count);
+         int next = 0;
+         responded = false;
+         out.clear();
+         in.clear();
+         while (true)
+         {
+            while (next < requests.size() && encode(requests.get(next))) next++;
+            out.flip();
+            if (out.hasRemaining()) channel.write(out);
+            out.compact();
+            receive(responses, count);
+            if (responses.size() == count)
+            {
+               if (in.position() > 0)
+                  throw new IOException("more data than responses from " + channel);
+               return responses;
+            }
+            boolean sending = out.position() > 0 || next < requests.size();
+            key.interestOps(SelectionKey.OP_READ | (sending ? SelectionKey.OP_WRITE : 0));
+            await(selector, deadline, "no response from " + channel);
+            selector.selectedKeys().clear();
+         }
+      }
+
+      /**
+       * Puts a request into the output buffer.
+       * @return false if the buffer has no room for it before it is sent
+       */
+      private boolean encode(String request)
+      {
+         byte[] bytes = (request + "\n").getBytes(StandardCharsets.UTF_8);
+         if (bytes.length > out.remaining())
+         {
+            if (out.position() > 0) return false;
+            out = ByteBuffer.allocate(bytes.length);
+         }
+         out.put(bytes);
+         return true;
+      }
+
+      /**
+       * Reads what has arrived and collects the complete lines.
+       */
+      private void receive(List<String> responses, int count) throws IOException
+      {
+         int n = channel.read(in);
+         if (n > 0) responded = true;
+         int start = 0;
+         for (int i = 0; i < in.position() && responses.size() < count; i++)
+            if (in.get(i) == '\n')
+            {
+               int end = i > start && in.get(i - 1) == '\r' ? i - 1 : i;
+               responses.add(new String(in.array(), start, end - start,
+                  StandardCharsets.UTF_8));
+               start = i + 1;
+            }
+         in.flip().position(start);
+         in.compact();
+         if (!in.hasRemaining()) in = ByteBuffer.allocate(2 * in.capacity()).put(in.flip());
+         if (n < 0)
+         {
+            ended = true;
+            if (responses.size() < count)
+               throw new EOFException("connection closed by " + channel);
+         }
+      }
+
+      /**
+       * Checks an idle connection. It must have nothing to read: no data and no end of
+       * stream. A non-blocking read costs far less than a request on a closed connection.
+       */
+      boolean isHealthy()
+      {
+         if (ended || System.nanoTime() - lastUsed > MAX_IDLE) return false;
+         try
+         {
+            return channel.read(in.clear()) == 0;
+         }
+         catch (IOException e)
+         {
+            return false;
+         }
+      }
+
+      void close()
+      {
+         try
+         {
+            selector.close();
+            channel.close();
+         }
+         catch (IOException e)
+         {
+            // the connection is gone anyway
+         }
+      }
+   }
+}
@@ -0,0 +1,122 @@
+package socket;
+
+import java.io.*;
+import java.net.*;
+import java.nio.charset.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import util.*;
+
+/**
+ * This program measures the request rate against a StandInServer with a new socket for every
+ * request, read through a Scanner as in SocketTest, and with a LineClient, one request at a
+ * time and pipelined in batches. Each way of sending runs in several threads, and the
+ * program checks all responses. Connecting for every request leaves sockets in the
+ * TIME_WAIT state, so that way gets fewer requests.
+ * Usage: java socket.LineClientBenchmark [requests [threads [batchSize]]]
+ * @version 1.01 2026-10-19
+ */
+public class LineClientBenchmark
+{
+   private static final int ROUNDS = 3;
+   private static final int MAX_CONNECTS = 5000;
+
+   public static void main(String[] args) throws Exception
+   {
+      int n = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+      int threads = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+      int batchSize = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+
+      try (var server = new StandInServer();
+            var client = new LineClient(threads, Duration.ofSeconds(5), Duration.ofSeconds(30),
+               1))
+      {
+         InetSocketAddress address = server.address();
+         System.out.printf("%d threads%n", threads);
+         time("connect per request", Math.min(n, MAX_CONNECTS), threads, (id, count) ->
+            {
+               for (int i = 0; i < count; i++)
+               {
+                  String line = "request " + id + " " + i;
+                  try (var s = new Socket(address.getAddress(), address.getPort());
+                        var in = new Scanner(s.getInputStream(), StandardCharsets.UTF_8);
+                        var out = new PrintWriter(new OutputStreamWriter(s.getOutputStream(),
+                           StandardCharsets.UTF_8), true /* autoFlush */))
+                  {
+                     in.nextLine();
+                     out.println(line);
+                     check(line, in.nextLine());
+                  }
+               }
+            });
+         time("LineClient.request", n, threads, (id, count) ->
+            {
+               for (int i = 0; i < count; i++)
+               {
+                  String line = "request " + id + " " + i;
+                  check(line, client.request(address, line));
+               }
+            });
+         time("LineClient.pipeline, " + batchSize, n, threads, (id, count) ->
+            {
+               var lines = new ArrayList<String>(batchSize);
+               for (int i = 0; i < count; i += batchSize)
+               {
+                  lines.clear();
+                  for (int j = i; j < Math.min(count, i + batchSize); j++)
+                     lines.add("request " + id + " " + j);
+                  List<String> responses = client.pipeline(address, lines);
+                  for (int j = 0; j < lines.size(); j++) check(lines.get(j), responses.get(j));
+               }
+            });
+         System.out.printf("LineClient opened %d connections%n", client.connectCount());
+      }
+   }
+
+   private static void check(String request, String response) throws IOException
+   {
+      if (!response.equals("Echo: " + request))
+         throw new IOException("response " + response + " to " + request);
+   }
+
+   private interface Task
+   {
+      void run(int id, int count) throws IOException;
+   }
+
+   /**
+    * Runs a task in a number of threads, a few times, and reports the best request rate.
+    */
+   private static void time(String name, int n, int threads, Task task) throws Exception
+   {
+      ExecutorService executor = Executors.newFixedThreadPool(threads);
+      try
+      {
+         var tasks = new ArrayList<Callable<Void>>();
+         var ids = new AtomicInteger();
+         for (int t = 0; t < threads; t++)
+         {
+            int count = n / threads + (t < n % threads ? 1 : 0);
+            tasks.add(() ->
+               {
+                  task.run(ids.incrementAndGet(), count);
+                  return null;
+               });
+         }
+         long best = BestOf.time(ROUNDS, () ->
+            {
+               for (Future<Void> f : executor.invokeAll(tasks)) f.get();
+               return null;
+            }).nanos();
+         System.out.printf("   %-28s %,9d requests %10.1f ms %,12.0f requests/s%n", name, n,
+            best / 1e6, n / (best / 1e9));
+      }
+      finally
+      {
+         executor.shutdown();
+      }
+   }
+}
@@ -0,0 +1,157 @@
+package socket;
+
+import java.io.*;
+import java.net.*;
+import java.nio.channels.*;
+import java.time.*;
+import java.util.*;
+
+/**
+ * This program tries out a LineClient with a StandInServer: single and pipelined requests,
+ * a server that drops its connections, and connects to a server that does not accept them,
+ * which time out, wait in vain for a free connection, or are interrupted. It checks the
+ * responses, the connection counts and the exceptions, and exits with status 1 if any of
+ * them is wrong.
+ * @version 1.02 2026-10-19
+ */
+public class LineClientTest
+{
+   private static int failures;
+
+   public static void main(String[] args) throws IOException, InterruptedException
+   {
+      try (var server = new StandInServer();
+            var client = new LineClient(2, Duration.ofMillis(500), Duration.ofSeconds(5), 1))
+      {
+         InetSocketAddress address = server.address();
+         String response = client.request(address, "Hello");
+         System.out.println(response);
+         check(response.equals("Echo: Hello"), "response to Hello");
+         var lines = new ArrayList<String>();
+         for (int i = 1; i <= 5; i++) lines.add("line " + i);
+         List<String> responses = client.pipeline(address, lines);
+         for (String r : responses) System.out.println(r);
+         check(responses.size() == lines.size(), responses.size() + " pipelined responses");
+         for (int i = 0; i < lines.size() && i < responses.size(); i++)
+            check(responses.get(i).equals("Echo: " + lines.get(i)),
+               "response to " + lines.get(i));
+         checkConnections(client, server, 1);
+
+         server.dropConnections();
+         response = client.request(address, "Still there?");
+         System.out.println("After the server dropped its connections: " + response);
+         check(response.equals("Echo: Still there?"), "response after the drop");
+         checkConnections(client, server, 2);
+
+         try
+         {
+            client.request(address, "Two\u2028lines");
+            check(false, "no exception for a request with a line end");
+         }
+         catch (IllegalArgumentException e)
+         {
+            System.out.println(e.getMessage());
+         }
+      }
+
+      // a full accept queue: further connects are not answered
+      try (var silent = new ServerSocket(0, 1, InetAddress.getLoopbackAddress()))
+      {
+         var address = (InetSocketAddress) silent.getLocalSocketAddress();
+         var waiting = new ArrayList<Socket>();
+         for (int i = 0; i < 4; i++)
+         {
+            var s = new Socket();
+            try
+            {
+               s.connect(address, 200);
+               waiting.add(s);
+            }
+            catch (SocketTimeoutException e)
+            {
+               s.close();
+               break;
+            }
+         }
+
+         try (var client = new LineClient(1, Duration.ofMillis(500), Duration.ofSeconds(5), 1))
+         {
+            expect(SocketTimeoutException.class, () -> client.request(address, "Anyone?"));
+         }
+
+         // one call connects until its deadline, the other waits for the connection, then
+         // connects until its own deadline, not for the connect timeout
+         try (var client = new LineClient(1, Duration.ofSeconds(30), Duration.ofSeconds(1), 1))
+         {
+            var t = new Thread(() ->
+               expect(SocketTimeoutException.class, () -> client.request(address, "Anyone?")));
+            t.start();
+            Thread.sleep(100);
+            expect(SocketTimeoutException.class, () -> client.request(address, "Anyone?"));
+            t.join();
+         }
+
+         try (var client = new LineClient(1, Duration.ofSeconds(30), Duration.ofSeconds(5), 1))
+         {
+            var t = new Thread(() ->
+               expect(ClosedByInterruptException.class,
+                  () -> client.request(address, "Anyone?")));
+            t.start();
+            Thread.sleep(300);
+            t.interrupt();
+            t.join();
+         }
+         for (Socket s : waiting) s.close();
+      }
+
+      if (failures > 0)
+      {
+         System.out.printf("%d check(s) failed%n", failures);
+         System.exit(1);
+      }
+      System.out.println("All checks passed");
+   }
+
+   private interface Request
+   {
+      void run() throws IOException;
+   }
+
+   /**
+    * Makes a request that must fail with an exception of a given class, and at the latest
+    * after 1.5 s.
+    */
+   private static void expect(Class<? extends IOException> expected, Request request)
+   {
+      long start = System.nanoTime();
+      try
+      {
+         request.run();
+         check(false, "no " + expected.getSimpleName());
+      }
+      catch (IOException e)
+      {
+         long millis = (System.nanoTime() - start) / 1000000;
+         System.out.printf("%s after %d ms%n", e, millis);
+         check(expected.isInstance(e), e + " instead of " + expected.getSimpleName());
+         check(millis < 1500, expected.getSimpleName() + " after " + millis + " ms");
+      }
+   }
+
+   private static void checkConnections(LineClient client, StandInServer server, int expected)
+   {
+      System.out.printf("%d connection(s) opened%n", client.connectCount());
+      check(client.connectCount() == expected, client.connectCount() + " connects");
+      check(server.acceptedConnections() == expected,
+         server.acceptedConnections() + " accepted connections");
+   }
+
+   private static synchronized void check(boolean condition, String what)
+   {
+      if (!condition)
+      {
+         System.out.println("FAILED: " + what);
+         failures++;
+      }
+   }
+}
@@ -0,0 +1,123 @@
+package socket;
+
+import java.io.*;
+import java.net.*;
+import java.nio.charset.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * A local server for trying out clients. Like ThreadedEchoServer, it greets each client with
+ * "Hello! Enter BYE to exit." and answers every line with "Echo: " and the line, on a thread
+ * per connection. Responses are flushed only when no further request has arrived, so that
+ * the responses to pipelined requests travel together. The server listens on a free port of
+ * the loopback address.
+ * @version 1.00 2026-10-19
+ */
+public class StandInServer implements Closeable
+{
+   private final ServerSocket server;
+   private final Set<Socket> sockets = ConcurrentHashMap.newKeySet();
+   private final AtomicInteger accepted = new AtomicInteger();
+
+   /**
+    * Constructs a server and starts accepting connections.
+    */
+   public StandInServer() throws IOException
+   {
+      server = new ServerSocket(0, 1024, InetAddress.getLoopbackAddress());
+      var acceptor = new Thread(this::acceptConnections, "stand-in server");
+      acceptor.setDaemon(true);
+      acceptor.start();
+   }
+
+   public InetSocketAddress address()
+   {
+      return (InetSocketAddress) server.getLocalSocketAddress();
+   }
+
+   /**
+    * Gets the number of connections that the server has accepted.
+    */
+   public int acceptedConnections()
+   {
+      return accepted.get();
+   }
+
+   /**
+    * Closes all open connections, as a server does when it restarts or drops idle clients.
+    */
+   public void dropConnections()
+   {
+      for (Socket s : sockets) closeQuietly(s);
+   }
+
+   public void close() throws IOException
+   {
+      server.close();
+      dropConnections();
+   }
+
+   private void acceptConnections()
+   {
+      try
+      {
+         while (true)
+         {
+            Socket incoming = server.accept();
+            accepted.incrementAndGet();
+            sockets.add(incoming);
+            var t = new Thread(() -> handle(incoming));
+            t.setDaemon(true);
+            t.start();
+         }
+      }
+      catch (IOException e)
+      {
+         // the server was closed
+      }
+   }
+
+   private void handle(Socket incoming)
+   {
+      try (var in = new BufferedReader(new InputStreamReader(incoming.getInputStream(),
+               StandardCharsets.UTF_8));
+            var out = new BufferedWriter(new OutputStreamWriter(incoming.getOutputStream(),
+               StandardCharsets.UTF_8)))
+      {
+         out.write("Hello! Enter BYE to exit.\n");
+         out.flush();
+         String line;
+         while ((line = in.readLine()) != null)
+         {
+            out.write("Echo: ");
+            out.write(line);
+            out.write('\n');
+            if (line.strip().equals("BYE")) break;
+            if (!in.ready()) out.flush();
+         }
+      }
+      catch (IOException e)
+      {
+         // the client or dropConnections closed the connection
+      }
+      finally
+      {
+         sockets.remove(incoming);
+         closeQuietly(incoming);
+      }
+   }
+
+   private static void closeQuietly(Socket s)
+   {
+      try
+      {
+         s.close();
+      }
+      catch (IOException e)
+      {
+         // nothing more to do
+      }
+   }
+}
@@ -0,0 +1,493 @@
+package threaded;
+
+import java.io.*;
+import java.net.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * This program opens many connections to an echo server such as ThreadedEchoServer or
+ * SelectorEchoServer, and has each of them send a line at a fixed interval and wait for its
+ * echo. It reports how many connections the server holds, how many lines it echoes per
+ * second, and the round trip latencies. The measurement starts a few seconds after the last
+ * client has connected: until the server code is compiled, the latencies show the
+ * just-in-time compiler rather than the server, and on a machine with one processor, the
+ * echoes of a virtual-thread server queue up for seconds while the compiler runs. The
+ * clients are non-blocking channels served by a few selector threads, so that the program
+ * itself needs no thread per connection. Since a
+ * client address can only have about 28,000 connections to one server address, the
+ * connections to a loopback server are spread over 127.0.0.1, 127.0.0.2, and so on. Every
+ * connection takes a file descriptor here, and another one in the server, so the open file
+ * limits (ulimit -n) of both programs must be above the number of clients.
+ * Start the program as <br>
+ * java threaded.EchoLoadGenerator [clients [seconds [intervalMillis [host [port]]]]]
+ * @version 1.02 2026-10-19
+ */
+public class EchoLoadGenerator
+{
+   private static final String GREETING = "Hello! Enter BYE to exit." + System.lineSeparator();
+   private static final int CONNECTIONS_PER_ADDRESS = 20000;
+   private static final int PENDING_CONNECTS = 512;
+   private static final long CONNECT_TIMEOUT = TimeUnit.SECONDS.toNanos(10);
+   private static final int WARM_UP_SECONDS = 5;
+
+   private final List<InetSocketAddress> addresses;
+   private final long interval;
+   private final ClientLoop[] loops;
+   private volatile boolean measuring;
+   private volatile boolean done;
+
+   public static void main(String[] args) throws Exception
+   {
+      int clients = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+      int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+      long intervalMillis = args.length > 2 ? Long.parseLong(args[2]) : 1000;
+      String host = args.length > 3 ? args[3] : "localhost";
+      int port = args.length > 4 ? Integer.parseInt(args[4]) : 8189;
+
+      var generator = new EchoLoadGenerator(addresses(host, port, clients), clients,
+         intervalMillis, Runtime.getRuntime().availableProcessors());
+      System.out.printf("%,d clients, one line every %d ms each, to %s%n", clients,
+         intervalMillis, generator.addresses);
+      generator.run(seconds);
+   }
+
+   /**
+    * Gets the server addresses for a number of clients.
+    */
+   static List<InetSocketAddress> addresses(String host, int port, int clients)
+      throws UnknownHostException
+   {
+      InetAddress address = InetAddress.getByName(host);
+      var result = new ArrayList<InetSocketAddress>();
+      result.add(new InetSocketAddress(address, port));
+      if (address.isLoopbackAddress() && address instanceof Inet4Address)
+      {
+         byte[] bytes = address.getAddress();
+         for (int i = 1; i * CONNECTIONS_PER_ADDRESS < clients; i++)
+         {
+            bytes[3]++;
+            result.add(new InetSocketAddress(InetAddress.getByAddress(bytes), port));
+         }
+      }
+      return result;
+   }
+
+   /**
+    * Constructs a load generator.
+    * @param addresses the server addresses, which the clients use in turn
+    * @param clients the number of clients
+    * @param intervalMillis the time between the echo of a line and the next line
+    * @param loopCount the number of selector threads
+    */
+   public EchoLoadGenerator(List<InetSocketAddress> addresses, int clients, long intervalMillis,
+      int loopCount) throws IOException
+   {
+      this.addresses = addresses;
+      this.interval = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+      loops = new ClientLoop[loopCount];
+      for (int i = 0; i < loopCount; i++)
+         loops[i] = new ClientLoop(i, clients / loopCount + (i < clients % loopCount ? 1 : 0),
+            i);
+   }
+
+   /**
+    * Connects all clients, lets them run for a few seconds, then measures for a while and
+    * reports the results.
+    * @param seconds the duration of the measurement
+    * @return the results
+    */
+   public Result run(int seconds) throws InterruptedException
+   {
+      long start = System.nanoTime();
+      for (ClientLoop loop : loops) loop.thread.start();
+      int connecting;
+      do
+      {
+         Thread.sleep(1000);
+         connecting = 0;
+         int connected = 0;
+         int greeted = 0;
+         for (ClientLoop loop : loops)
+         {
+            connecting += loop.connecting;
+            connected += loop.connected;
+            greeted += loop.greeted;
+         }
+         System.out.printf("%,d connected, %,d greeted, %,d connecting%n", connected, greeted,
+            connecting);
+      }
+      while (connecting > 0);
+      System.out.printf("Connecting took %.1f s%n", (System.nanoTime() - start) / 1e9);
+      System.out.printf("Warming up for %d s%n", WARM_UP_SECONDS);
+      Thread.sleep(1000L * WARM_UP_SECONDS);
+
+      measuring = true;
+      start = System.nanoTime();
+      Thread.sleep(1000L * seconds);
+      measuring = false;
+      double elapsed = (System.nanoTime() - start) / 1e9;
+      int held = 0;
+      for (ClientLoop loop : loops) held += loop.greeted;
+      done = true;
+      for (ClientLoop loop : loops)
+      {
+         loop.selector.wakeup();
+         loop.thread.join();
+      }
+
+      var latencies = new Histogram();
+      int failed = 0;
+      long errors = 0;
+      String failure = null;
+      for (ClientLoop loop : loops)
+      {
+         latencies.add(loop.latencies);
+         failed += loop.failed;
+         errors += loop.errors;
+         if (failure == null) failure = loop.failure;
+      }
+      System.out.printf("Connections greeted and held: %,d, failed to connect: %,d%s%n", held,
+         failed, failure == null ? "" : " (" + failure + ")");
+      System.out.printf("Closed while measuring: %,d%n", errors);
+      System.out.printf("Lines per second: %,.0f%n", latencies.count() / elapsed);
+      System.out.printf("Latency: p50 %s, p99 %s, p99.9 %s, max %s%n",
+         millis(latencies.percentile(50)), millis(latencies.percentile(99)),
+         millis(latencies.percentile(99.9)), millis(latencies.max()));
+      return new Result(held, failed, latencies.count() / elapsed, latencies.percentile(50),
+         latencies.percentile(99));
+   }
+
+   /**
+    * The results of a run, with latencies in nanoseconds.
+    */
+   public record Result(int held, int failed, double linesPerSecond, long p50, long p99) {}
+
+   private static String millis(long nanos)
+   {
+      return String.format("%.2f ms", nanos / 1e6);
+   }
+
+   /**
+    * A client connection and its progress through the greeting and the echoes.
+    */
+   private static class Client
+   {
+      SocketChannel channel;
+      long connectStart;
+      boolean pending;
+      boolean connected;
+      boolean greeted;
+      int expected;
+      long sent;
+      long nextSend;
+      int lines;
+   }
+
+   /**
+    * A selector thread with the clients that it serves.
+    */
+   private class ClientLoop implements Runnable
+   {
+      private final Selector selector;
+      private final Thread thread;
+      private final int clients;
+      private int nextAddress;
+      private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(16384);
+      private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(256);
+      // clients waiting to send, by send time
+      private final PriorityQueue<Client> waiting = new PriorityQueue<>(
+         Comparator.comparingLong(c -> c.nextSend));
+      private final Histogram latencies = new Histogram();
+      private final String prefix;
+      private volatile int connecting;
+      private volatile int connected;
+      private volatile int greeted;
+      private int started;
+      private long lastExpiry;
+      private int failed;
+      private long errors;
+      private String failure;
+
+      ClientLoop(int index, int clients, int firstAddress) throws IOException
+      {
+         selector = Selector.open();
+         thread = new Thread(this, "client loop " + index);
+         this.clients = clients;
+         nextAddress = firstAddress;
+         prefix = "client " + index + " line ";
+      }
+
+      public void run()
+      {
+         try
+         {
+            while (!done)
+            {
+               startConnects();
+               long now = System.nanoTime();
+               Client next = waiting.peek();
+               long timeout = next == null ? 100 : Math.max(1, (next.nextSend - now) / 1000000);
+               selector.select(this::handle, Math.min(timeout, 100));
+               now = System.nanoTime();
+               while (!waiting.isEmpty() && waiting.peek().nextSend <= now)
+                  send(waiting.poll(), now);
+               if (connecting > 0 && now - lastExpiry > 1000000000L)
+               {
+                  lastExpiry = now;
+                  expireConnects(now);
+               }
+            }
+         }
+         catch (IOException e)
+         {
+            e.printStackTrace();
+         }
+         finally
+         {
+            for (SelectionKey key : selector.keys()) close(key);
+            try
+            {
+               selector.close();
+            }
+            catch (IOException e)
+            {
+               // nothing more to do
+            }
+         }
+      }
+
+      /**
+       * Starts connecting more clients, keeping a limited number of connects under way.
+       */
+      private void startConnects()
+      {
+         while (started < clients && connecting < PENDING_CONNECTS)
+         {
+            started++;
+            var client = new Client();
+            try
+            {
+               client.channel = SocketChannel.open();
+               client.channel.configureBlocking(false);
+               client.channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+               client.connectStart = System.nanoTime();
+               InetSocketAddress address = addresses.get(nextAddress++ % addresses.size());
+               client.pending = true;
+               connecting++;
+               if (client.channel.connect(address))
+               {
+                  client.channel.register(selector, SelectionKey.OP_READ, client);
+                  connected(client);
+               }
+               else client.channel.register(selector, SelectionKey.OP_CONNECT, client);
+            }
+            catch (IOException e)
+            {
+               connectFailed(client, e);
+            }
+         }
+      }
+
+      private void expireConnects(long now)
+      {
+         for (SelectionKey key : selector.keys())
+         {
+            var client = (Client) key.attachment();
+            if (key.isValid() && client.pending && now - client.connectStart > CONNECT_TIMEOUT)
+            {
+               key.cancel();
+               connectFailed(client, new SocketTimeoutException("connect timed out"));
+            }
+         }
+      }
+
+      private void connected(Client client)
+      {
+         client.pending = false;
+         connecting--;
+         client.connected = true;
+         connected++;
+         client.expected = GREETING.length();
+      }
+
+      private void connectFailed(Client client, IOException e)
+      {
+         if (client.pending)
+         {
+            client.pending = false;
+            connecting--;
+         }
+         if (client.channel != null) closeQuietly(client.channel);
+         failed++;
+         if (failure == null) failure = e.toString();
+      }
+
+      private void handle(SelectionKey key)
+      {
+         var client = (Client) key.attachment();
+         try
+         {
+            if (key.isConnectable())
+            {
+               client.channel.finishConnect();
+               key.interestOps(SelectionKey.OP_READ);
+               connected(client);
+            }
+            else if (key.isReadable()) receive(key, client);
+         }
+         catch (IOException e)
+         {
+            if (client.pending) connectFailed(client, e);
+            else
+            {
+               close(key);
+               if (measuring) errors++;
+            }
+         }
+      }
+
+      /**
+       * Reads the echo of the last line, or the greeting, and schedules the next line.
+       */
+      private void receive(SelectionKey key, Client client) throws IOException
+      {
+         ByteBuffer in = readBuffer.clear();
+         int n = client.channel.read(in);
+         if (n < 0) throw new EOFException();
+         client.expected -= n;
+         if (client.expected > 0) return;
+         long now = System.nanoTime();
+         if (!client.greeted)
+         {
+            client.greeted = true;
+            greeted++;
+            // after the greeting, spread the first lines over the interval
+            client.nextSend = now + ThreadLocalRandom.current().nextLong(interval + 1);
+         }
+         else
+         {
+            if (measuring) latencies.record(now - client.sent);
+            client.nextSend = now + interval;
+         }
+         waiting.add(client);
+      }
+
+      private void send(Client client, long now)
+      {
+         if (!client.channel.isOpen()) return;
+         String line = prefix + client.lines++ + System.lineSeparator();
+         ByteBuffer out = writeBuffer.clear();
+         for (int i = 0; i < line.length(); i++) out.put((byte) line.charAt(i));
+         out.flip();
+         client.expected = "Echo: ".length() + line.length();
+         client.sent = now;
+         try
+         {
+            client.channel.write(out);
+            // a short line into an idle connection is written at once
+            if (out.hasRemaining()) throw new IOException("send buffer full");
+         }
+         catch (IOException e)
+         {
+            close(client.channel.keyFor(selector));
+            if (measuring) errors++;
+         }
+      }
+
+      private void close(SelectionKey key)
+      {
+         var client = (Client) key.attachment();
+         key.cancel();
+         if (client.connected)
+         {
+            client.connected = false;
+            connected--;
+         }
+         if (client.greeted)
+         {
+            client.greeted = false;
+            greeted--;
+         }
+         closeQuietly(client.channel);
+      }
+   }
+
+   private static void closeQuietly(Closeable c)
+   {
+      try
+      {
+         c.close();
+      }
+      catch (IOException e)
+      {
+         // nothing more to do
+      }
+   }
+
+   /**
+    * A latency histogram with buckets that are about 6% wide.
+    */
+   private static class Histogram
+   {
+      private static final int SUB_BUCKETS = 16;
+      private final long[] counts = new long[64 * SUB_BUCKETS];
+      private long max;
+
+      void record(long nanos)
+      {
+         counts[bucket(nanos)]++;
+         max = Math.max(max, nanos);
+      }
+
+      void add(Histogram other)
+      {
+         for (int i = 0; i < counts.length; i++) counts[i] += other.counts[i];
+         max = Math.max(max, other.max);
+      }
+
+      long count()
+      {
+         long n = 0;
+         for (long c : counts) n += c;
+         return n;
+      }
+
+      long max()
+      {
+         return max;
+      }
+
+      /**
+       * Gets the upper bound of the bucket that holds a percentile.
+       */
+      long percentile(double p)
+      {
+         long rank = (long) Math.ceil(count() * p / 100);
+         long n = 0;
+         for (int i = 0; i < counts.length; i++)
+         {
+            n += counts[i];
+            if (n >= Math.max(rank, 1)) return Math.min(max, lowest(i + 1) - 1);
+         }
+         return max;
+      }
+
+      private static int bucket(long value)
+      {
+         if (value < SUB_BUCKETS) return (int) Math.max(value, 0);
+         int exponent = 63 - Long.numberOfLeadingZeros(value);
+         int sub = (int) (value >>> (exponent - 4)) & (SUB_BUCKETS - 1);
+         return (exponent - 3) * SUB_BUCKETS + sub;
+      }
+
+      private static long lowest(int bucket)
+      {
+         if (bucket < SUB_BUCKETS) return bucket;
+         int exponent = bucket / SUB_BUCKETS + 3;
+         return (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - 4);
+      }
+   }
+}
@@ -0,0 +1,148 @@
+package threaded;
+
+import java.io.*;
+import java.net.*;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * This program runs the echo servers one after another, each in its own virtual machine, and
+ * puts the same EchoLoadGenerator load on each of them: ThreadedEchoServer with a thread per
+ * connection, VirtualThreadEchoServer with platform and with virtual threads, and
+ * SelectorEchoServer. While a server runs, the program samples its resident memory and thread
+ * count, which the operating system reports in /proc on Linux. Each virtual machine needs an
+ * open file limit (ulimit -n) above the number of clients.
+ * Start the program as <br>
+ * java threaded.EchoServerComparison [clients [seconds [intervalMillis]]]
+ * @version 1.00 2026-10-19
+ */
+public class EchoServerComparison
+{
+   private static final int PORT = 8189;
+
+   public static void main(String[] args) throws Exception
+   {
+      int clients = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+      int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+      long intervalMillis = args.length > 2 ? Long.parseLong(args[2]) : 1000;
+      String limit = String.valueOf(clients + 1000);
+      String idle = String.valueOf(seconds + 600);
+
+      var servers = new LinkedHashMap<String, List<String>>();
+      servers.put("ThreadedEchoServer", List.of("threaded.ThreadedEchoServer"));
+      servers.put("VirtualThreadEchoServer, platform", List.of(
+         "threaded.VirtualThreadEchoServer", "" + PORT, limit, idle, "platform"));
+      servers.put("VirtualThreadEchoServer, virtual", List.of(
+         "threaded.VirtualThreadEchoServer", "" + PORT, limit, idle, "virtual"));
+      servers.put("SelectorEchoServer", List.of("threaded.SelectorEchoServer", "" + PORT));
+
+      var results = new LinkedHashMap<String, String>();
+      for (Map.Entry<String, List<String>> e : servers.entrySet())
+      {
+         System.out.println("=== " + e.getKey());
+         results.put(e.getKey(), run(e.getValue(), clients, seconds, intervalMillis));
+      }
+      System.out.printf("%n%,d clients, one line every %d ms each%n", clients, intervalMillis);
+      System.out.printf("%-34s %8s %10s %9s %9s %9s%n", "", "held", "lines/s", "p99 ms",
+         "RSS MB", "threads");
+      for (Map.Entry<String, String> e : results.entrySet())
+         System.out.printf("%-34s %s%n", e.getKey(), e.getValue());
+   }
+
+   /**
+    * Runs a server in another virtual machine, puts the load on it and stops it.
+    * @return a row of the result table
+    */
+   private static String run(List<String> server, int clients, int seconds,
+      long intervalMillis) throws Exception
+   {
+      var command = new ArrayList<String>();
+      command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+      command.add("-cp");
+      command.add(System.getProperty("java.class.path"));
+      command.addAll(server);
+      Process process = new ProcessBuilder(command)
+         .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+         .redirectError(ProcessBuilder.Redirect.DISCARD)
+         .start();
+      var sampler = new Sampler(process.pid());
+      try
+      {
+         awaitPort(process);
+         sampler.start();
+         var generator = new EchoLoadGenerator(
+            EchoLoadGenerator.addresses("localhost", PORT, clients), clients, intervalMillis,
+            Runtime.getRuntime().availableProcessors());
+         EchoLoadGenerator.Result r = generator.run(seconds);
+         return String.format("%,8d %,10.0f %9.2f %9.0f %,9d%s", r.held(), r.linesPerSecond(),
+            r.p99() / 1e6, sampler.maxResident / 1024.0, sampler.maxThreads,
+            process.isAlive() ? "" : " (server died)");
+      }
+      finally
+      {
+         sampler.interrupt();
+         process.destroy();
+         process.waitFor();
+      }
+   }
+
+   private static void awaitPort(Process process) throws IOException, InterruptedException
+   {
+      for (int i = 0; i < 100 && process.isAlive(); i++)
+      {
+         try
+         {
+            new Socket("localhost", PORT).close();
+            return;
+         }
+         catch (ConnectException e)
+         {
+            Thread.sleep(100);
+         }
+      }
+      throw new IOException("server did not start");
+   }
+
+   /**
+    * Samples the resident memory (in KB) and thread count of a process twice a second.
+    */
+   private static class Sampler extends Thread
+   {
+      private final Path status;
+      private volatile long maxResident;
+      private volatile long maxThreads;
+
+      Sampler(long pid)
+      {
+         status = Path.of("/proc", "" + pid, "status");
+         setDaemon(true);
+      }
+
+      public void run()
+      {
+         try
+         {
+            while (!isInterrupted())
+            {
+               for (String line : Files.readAllLines(status))
+               {
+                  if (line.startsWith("VmRSS:"))
+                     maxResident = Math.max(maxResident, value(line));
+                  else if (line.startsWith("Threads:"))
+                     maxThreads = Math.max(maxThreads, value(line));
+               }
+               Thread.sleep(500);
+            }
+         }
+         catch (IOException | InterruptedException e)
+         {
+            // the process has ended, or there is no /proc
+         }
+      }
+
+      private static long value(String line)
+      {
+         return Long.parseLong(line.replaceAll("\\D", ""));
+      }
+   }
+}
@@ -0,0 +1,493 @@
+package threaded;
+
+import java.io.*;
+import java.net.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * This program implements a non-blocking server that listens to port 8189 and echoes back
+ * all client input, with the protocol of ThreadedEchoServer. An acceptor thread hands the
+ * connections to a few event loops, one per processor, each with its own selector. Input is
+ * echoed as it arrives: the lines are framed in the read buffer, without being collected
+ * into strings, so a connection holds no buffers while it waits for input. As with the
+ * Scanner of ThreadedEchoServer, lines end with \n, \r\n, \r, U+0085, U+2028, or U+2029,
+ * BYE may be surrounded by any white space that String.strip removes, and bytes that are
+ * not UTF-8 are echoed as U+FFFD, so that the output of both servers is the same. All
+ * echoes of one read are written at once; only output that the socket does not take right
+ * away is kept, in a buffer of its size, and the connection is not read again until it is
+ * sent.
+ * Start the program as <br>
+ * java threaded.SelectorEchoServer [port [eventLoops]]
+ * @version 1.01 2026-10-19
+ */
+public class SelectorEchoServer implements Closeable
+{
+   private static final byte[] LINE_END = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+   private static final byte[] GREETING = ("Hello! Enter BYE to exit." + System.lineSeparator())
+      .getBytes(StandardCharsets.UTF_8);
+   private static final byte[] ECHO = "Echo: ".getBytes(StandardCharsets.UTF_8);
+   private static final byte[] REPLACEMENT = "\uFFFD".getBytes(StandardCharsets.UTF_8);
+   private static final int READ_BUFFER_SIZE = 8192;
+   // each input byte, and the bytes held back from the previous read, become at most
+   // "Echo: ", a line end, and a replacement character
+   private static final int WRITE_BUFFER_SIZE = (1 + READ_BUFFER_SIZE)
+      * (ECHO.length + LINE_END.length + REPLACEMENT.length);
+   // output that the socket does not take is mostly short, and kept in a pooled buffer
+   private static final int POOLED_BUFFER_SIZE = 4096;
+   private static final int POOLED_BUFFERS = 256;
+   private static final int BACKLOG = 4096;
+
+   // states of matching a line against BYE, with surrounding white space
+   private static final int NOT_BYE = -1;
+   private static final int BYE = 3;
+   private static final int AFTER_BYE = 4;
+   // the character of bytes that are not UTF-8
+   private static final int UNDECODED = 0xFFFD;
+
+   private final ServerSocketChannel server;
+   private final EventLoop[] loops;
+   private final Thread acceptor;
+   private final AtomicInteger connections = new AtomicInteger();
+   private final LongAdder linesEchoed = new LongAdder();
+   private volatile boolean closed;
+
+   public static void main(String[] args) throws IOException, InterruptedException
+   {
+      int port = args.length > 0 ? Integer.parseInt(args[0]) : 8189;
+      int loops = args.length > 1 ? Integer.parseInt(args[1])
+         : Runtime.getRuntime().availableProcessors();
+      try (var server = new SelectorEchoServer(port, loops))
+      {
+         server.start();
+         System.out.printf("Listening on port %d with %d event loops%n", server.port(), loops);
+         while (true)
+         {
+            Thread.sleep(10000);
+            System.out.printf("%,d connections, %,d lines echoed%n", server.connections(),
+               server.linesEchoed());
+         }
+      }
+   }
+
+   /**
+    * Constructs a server and binds it to a port.
+    * @param port the port, or 0 for any free port
+    * @param loopCount the number of event loops
+    */
+   public SelectorEchoServer(int port, int loopCount) throws IOException
+   {
+      server = ServerSocketChannel.open();
+      server.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+      server.bind(new InetSocketAddress(port), BACKLOG);
+      loops = new EventLoop[loopCount];
+      for (int i = 0; i < loopCount; i++) loops[i] = new EventLoop(i);
+      acceptor = new Thread(this::acceptConnections, "echo acceptor");
+   }
+
+   /**
+    * Starts accepting connections.
+    */
+   public void start()
+   {
+      for (EventLoop loop : loops) loop.thread.start();
+      acceptor.start();
+   }
+
+   public int port()
+   {
+      return server.socket().getLocalPort();
+   }
+
+   /**
+    * Gets the number of open connections.
+    */
+   public int connections()
+   {
+      return connections.get();
+   }
+
+   public long linesEchoed()
+   {
+      return linesEchoed.sum();
+   }
+
+   /**
+    * Stops accepting connections and closes all connections.
+    */
+   public void close() throws IOException
+   {
+      closed = true;
+      server.close();
+      for (EventLoop loop : loops) loop.selector.wakeup();
+      try
+      {
+         acceptor.join();
+         for (EventLoop loop : loops) loop.thread.join();
+      }
+      catch (InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+      }
+      // connections that were accepted after their event loop stopped
+      for (EventLoop loop : loops)
+      {
+         SocketChannel channel;
+         while ((channel = loop.added.poll()) != null) closeQuietly(channel);
+      }
+   }
+
+   private void acceptConnections()
+   {
+      int next = 0;
+      while (!closed)
+      {
+         try
+         {
+            SocketChannel channel = server.accept();
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            loops[next].add(channel);
+            next = (next + 1) % loops.length;
+         }
+         catch (ClosedChannelException e)
+         {
+            return;
+         }
+         catch (IOException e)
+         {
+            // most likely too many open files; let connections close before trying again
+            System.err.println(e.getMessage());
+            try
+            {
+               Thread.sleep(100);
+            }
+            catch (InterruptedException ex)
+            {
+               return;
+            }
+         }
+      }
+   }
+
+   /**
+    * A selector thread with the buffers that its connections share.
+    */
+   private class EventLoop implements Runnable
+   {
+      private final Selector selector;
+      private final Thread thread;
+      private final Queue<SocketChannel> added = new ConcurrentLinkedQueue<>();
+      private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+      private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+      private final Deque<ByteBuffer> pool = new ArrayDeque<>();
+
+      EventLoop(int index) throws IOException
+      {
+         selector = Selector.open();
+         thread = new Thread(this, "echo loop " + index);
+      }
+
+      void add(SocketChannel channel)
+      {
+         added.add(channel);
+         selector.wakeup();
+      }
+
+      public void run()
+      {
+         try
+         {
+            while (!closed)
+            {
+               selector.select(key ->
+                  {
+                     var connection = (Connection) key.attachment();
+                     try
+                     {
+                        if (key.isWritable()) connection.writePending();
+                        if (key.isValid() && key.isReadable()) connection.read();
+                     }
+                     catch (IOException e)
+                     {
+                        connection.close();
+                     }
+                  });
+               SocketChannel channel;
+               while ((channel = added.poll()) != null)
+               {
+                  var connection = new Connection(this, channel);
+                  try
+                  {
+                     connection.key = channel.register(selector, SelectionKey.OP_READ,
+                        connection);
+                     connections.incrementAndGet();
+                     connection.greet();
+                  }
+                  catch (IOException e)
+                  {
+                     connection.close();
+                  }
+               }
+            }
+         }
+         catch (IOException | ClosedSelectorException e)
+         {
+            if (!closed) e.printStackTrace();
+         }
+         finally
+         {
+            for (SelectionKey key : selector.keys())
+               ((Connection) key.attachment()).close();
+            try
+            {
+               selector.close();
+            }
+            catch (IOException e)
+            {
+               // nothing more to do
+            }
+         }
+      }
+
+      /**
+       * Gets a buffer for output that the socket did not take: a pooled direct buffer, or a
+       * buffer of just the needed size if the output does not fit into one.
+       */
+      ByteBuffer take(int size)
+      {
+         if (size > POOLED_BUFFER_SIZE) return ByteBuffer.allocate(size);
+         ByteBuffer buffer = pool.poll();
+         return buffer != null ? buffer.clear() : ByteBuffer.allocateDirect(POOLED_BUFFER_SIZE);
+      }
+
+      void release(ByteBuffer buffer)
+      {
+         if (buffer.isDirect() && pool.size() < POOLED_BUFFERS) pool.push(buffer);
+      }
+   }
+
+   /**
+    * The state of a connection between reads: where it is in the current line and in the
+    * current UTF-8 character, and the output that the socket has not yet taken.
+    */
+   private class Connection
+   {
+      private final EventLoop loop;
+      private final SocketChannel channel;
+      private SelectionKey key;
+      private boolean atLineStart = true;
+      private boolean afterReturn; // a \n right after \r does not end another line
+      private int held; // the bytes of the current character, until it is complete
+      private int heldCount;
+      private int needed; // the number of bytes that the current character still needs
+      private int codePoint;
+      private int byeState;
+      private boolean closing;
+      private boolean closed;
+      private ByteBuffer pending;
+
+      Connection(EventLoop loop, SocketChannel channel)
+      {
+         this.loop = loop;
+         this.channel = channel;
+      }
+
+      void greet() throws IOException
+      {
+         ByteBuffer out = loop.writeBuffer.clear();
+         out.put(GREETING);
+         send(out);
+      }
+
+      void read() throws IOException
+      {
+         ByteBuffer in = loop.readBuffer.clear();
+         ByteBuffer out = loop.writeBuffer.clear();
+         if (channel.read(in) < 0)
+         {
+            // like Scanner, treat the last characters as a line
+            if (heldCount > 0) character(UNDECODED, out);
+            if (!atLineStart) endLine(out);
+            closing = true;
+         }
+         else
+         {
+            in.flip();
+            while (in.hasRemaining() && !closing) frame(in.get(), out);
+         }
+         send(out);
+      }
+
+      /**
+       * Takes one input byte. The bytes of a UTF-8 character are held back until it is
+       * complete, since it may end the line.
+       */
+      private void frame(byte b, ByteBuffer out)
+      {
+         int u = b & 0xFF;
+         if (afterReturn)
+         {
+            afterReturn = false;
+            if (u == '\n') return;
+         }
+         if (needed > 0)
+         {
+            if (continues(u))
+            {
+               held = held << 8 | u;
+               heldCount++;
+               codePoint = codePoint << 6 | u & 0x3F;
+               if (--needed == 0)
+               {
+                  boolean surrogate = codePoint >= Character.MIN_SURROGATE
+                     && codePoint <= Character.MAX_SURROGATE;
+                  character(surrogate ? UNDECODED : codePoint, out);
+               }
+               return;
+            }
+            character(UNDECODED, out);
+         }
+         held = u;
+         heldCount = 1;
+         if (u >= 0xC2 && u <= 0xF4)
+         {
+            needed = u < 0xE0 ? 1 : u < 0xF0 ? 2 : 3;
+            codePoint = u & 0x3F >> needed;
+         }
+         else character(u < 0x80 ? u : UNDECODED, out);
+      }
+
+      /**
+       * Checks whether a byte continues the held bytes of a character. Like the UTF-8
+       * decoder of Scanner, this rejects overlong forms and code points above U+10FFFF at
+       * their second byte, so that the held bytes become one U+FFFD.
+       */
+      private boolean continues(int u)
+      {
+         if (heldCount == 1)
+         {
+            if (held == 0xE0) return u >= 0xA0 && u <= 0xBF;
+            if (held == 0xF0) return u >= 0x90 && u <= 0xBF;
+            if (held == 0xF4) return u >= 0x80 && u <= 0x8F;
+         }
+         return (u & 0xC0) == 0x80;
+      }
+
+      /**
+       * Echoes the held bytes of a character, with "Echo: " before a line, or ends the line
+       * if the character is a line separator.
+       * @param c the character, or UNDECODED if the held bytes are not UTF-8, which are
+       * echoed as U+FFFD
+       */
+      private void character(int c, ByteBuffer out)
+      {
+         if (c == '\n' || c == 0x85 || c == 0x2028 || c == 0x2029) endLine(out);
+         else if (c == '\r')
+         {
+            endLine(out);
+            afterReturn = true;
+         }
+         else
+         {
+            startLine(out);
+            if (c == UNDECODED) out.put(REPLACEMENT);
+            else for (int i = heldCount - 1; i >= 0; i--) out.put((byte) (held >>> 8 * i));
+            byeState = nextByeState(byeState, c);
+         }
+         heldCount = 0;
+         needed = 0;
+      }
+
+      private void startLine(ByteBuffer out)
+      {
+         if (!atLineStart) return;
+         out.put(ECHO);
+         atLineStart = false;
+         byeState = 0;
+      }
+
+      private void endLine(ByteBuffer out)
+      {
+         startLine(out);
+         out.put(LINE_END);
+         linesEchoed.increment();
+         atLineStart = true;
+         if (byeState == BYE || byeState == AFTER_BYE) closing = true;
+      }
+
+      private void send(ByteBuffer out) throws IOException
+      {
+         out.flip();
+         channel.write(out);
+         if (out.hasRemaining())
+         {
+            pending = loop.take(out.remaining());
+            pending.put(out).flip();
+            key.interestOps(SelectionKey.OP_WRITE);
+         }
+         else if (closing) close();
+      }
+
+      void writePending() throws IOException
+      {
+         channel.write(pending);
+         if (pending.hasRemaining()) return;
+         loop.release(pending);
+         pending = null;
+         if (closing) close();
+         else key.interestOps(SelectionKey.OP_READ);
+      }
+
+      void close()
+      {
+         if (closed) return;
+         closed = true;
+         if (key != null)
+         {
+            key.cancel();
+            connections.decrementAndGet();
+         }
+         if (pending != null)
+         {
+            loop.release(pending);
+            pending = null;
+         }
+         closeQuietly(channel);
+      }
+   }
+
+   private static void closeQuietly(SocketChannel channel)
+   {
+      try
+      {
+         channel.close();
+      }
+      catch (IOException e)
+      {
+         // the connection is gone anyway
+      }
+   }
+
+   /**
+    * Advances the match of a line against BYE, as line.strip().equals("BYE").
+    * @param c the next character of the line
+    */
+   private static int nextByeState(int state, int c)
+   {
+      boolean space = Character.isWhitespace(c);
+      switch (state)
+      {
+         case 0: return space ? 0 : c == 'B' ? 1 : NOT_BYE;
+         case 1: return c == 'Y' ? 2 : NOT_BYE;
+         case 2: return c == 'E' ? BYE : NOT_BYE;
+         case BYE:
+         case AFTER_BYE: return space ? AFTER_BYE : NOT_BYE;
+         default: return NOT_BYE;
+      }
+   }
+}
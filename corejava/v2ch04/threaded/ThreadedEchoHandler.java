@@ -0,0 +1,69 @@
+package threaded;
+
+import java.io.*;
+import java.net.*;
+import java.nio.charset.*;
+import java.util.*;
+
+/**
+ * This class handles the client input for one server socket connection. 
+ * @version 1.00 2026-10-19
+ */
+class ThreadedEchoHandler implements Runnable
+{ 
+   private Socket incoming;
+
+   /**
+      Constructs a handler.
+      @param incomingSocket the incoming socket
+   */
+   public ThreadedEchoHandler(Socket incomingSocket)
+   { 
+      incoming = incomingSocket; 
+   }
+
+   public void run()
+   {  
+      try (InputStream inStream = getInputStream();
+            OutputStream outStream = getOutputStream();
+            var in = new Scanner(inStream, StandardCharsets.UTF_8);         
+            var out = new PrintWriter(
+               new OutputStreamWriter(outStream, StandardCharsets.UTF_8),
+               true /* autoFlush */))
+      {                        
+         out.println( "Hello! Enter BYE to exit." );
+            
+         // echo client input
+         boolean done = false;
+         while (!done && in.hasNextLine())
+         {  
+            String line = in.nextLine();            
+            out.println("Echo: " + line);            
+            if (line.strip().equals("BYE"))
+               done = true;
+         }
+      }
+      catch (IOException e)
+      {  
+         e.printStackTrace();
+      }
+   }
+
+   /**
+      Gets the stream for reading client input. Override to filter the input.
+      @return the input stream of the socket
+   */
+   protected InputStream getInputStream() throws IOException
+   {
+      return incoming.getInputStream();
+   }
+
+   /**
+      Gets the stream for writing to the client. Override to filter the output.
+      @return the output stream of the socket
+   */
+   protected OutputStream getOutputStream() throws IOException
+   {
+      return incoming.getOutputStream();
+   }
+}
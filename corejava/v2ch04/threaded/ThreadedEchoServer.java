@@ -2,8 +2,6 @@ package threaded;
 
 import java.io.*;
 import java.net.*;
-import java.nio.charset.*;
-import java.util.*;
 
 /**
  * This program implements a multithreaded server that listens to port 8189 and echoes back 
@@ -35,47 +33,3 @@ public class ThreadedEchoServer
       }
    }
 }
-
-/**
- * This class handles the client input for one server socket connection. 
- */
-class ThreadedEchoHandler implements Runnable
-{ 
-   private Socket incoming;
-
-   /**
-      Constructs a handler.
-      @param incomingSocket the incoming socket
-   */
-   public ThreadedEchoHandler(Socket incomingSocket)
-   { 
-      incoming = incomingSocket; 
-   }
-
-   public void run()
-   {  
-      try (InputStream inStream = incoming.getInputStream();
-            OutputStream outStream = incoming.getOutputStream();
-            var in = new Scanner(inStream, StandardCharsets.UTF_8);         
-            var out = new PrintWriter(
-               new OutputStreamWriter(outStream, StandardCharsets.UTF_8),
-               true /* autoFlush */))
-      {                        
-         out.println( "Hello! Enter BYE to exit." );
-            
-         // echo client input
-         boolean done = false;
-         while (!done && in.hasNextLine())
-         {  
-            String line = in.nextLine();            
-            out.println("Echo: " + line);            
-            if (line.strip().equals("BYE"))
-               done = true;
-         }
-      }
-      catch (IOException e)
-      {  
-         e.printStackTrace();
-      }
-   }
-}
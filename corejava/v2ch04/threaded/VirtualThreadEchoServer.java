@@ -0,0 +1,321 @@
+package threaded;
+
+import java.io.*;
+import java.lang.management.*;
+import java.net.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import javax.management.*;
+
+/**
+ * This program implements a server that listens to port 8189 and echoes back all client input
+ * with the blocking ThreadedEchoHandler, but runs each handler on a virtual thread instead of
+ * a platform thread. A semaphore limits the number of connections; further clients are turned
+ * away at once. Connections that send nothing for a while are closed. The server counts
+ * connections, bytes and handler times, and registers the counts as an MBean that jconsole
+ * can show. Virtual threads are available from Java 21 on; with an older Java version, the
+ * server runs the handlers on platform threads with small stacks.
+ * Start the program as <br>
+ * java threaded.VirtualThreadEchoServer [port [maxConnections [idleSeconds [virtual|platform]]]]
+ * @version 1.01 2026-10-19
+ */
+public class VirtualThreadEchoServer implements Closeable
+{
+   private static final long SMALL_STACK = 256 * 1024;
+   private static final int CLOSE_TIMEOUT_SECONDS = 10;
+
+   private final ServerSocket server;
+   private final Semaphore permits;
+   private final int maxConnections;
+   private final int idleMillis;
+   private final ExecutorService executor;
+   private final Metrics metrics;
+   private final ObjectName name;
+   private final Thread acceptor;
+   private volatile boolean closed;
+
+   public static void main(String[] args) throws Exception
+   {
+      int port = args.length > 0 ? Integer.parseInt(args[0]) : 8189;
+      int maxConnections = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+      int idleSeconds = args.length > 2 ? Integer.parseInt(args[2]) : 300;
+      boolean virtual = args.length <= 3 || args[3].equals("virtual");
+      try (var server = new VirtualThreadEchoServer(port, maxConnections, idleSeconds, virtual))
+      {
+         server.start();
+         MetricsMBean m = server.metrics();
+         System.out.printf("Listening on port %d, at most %,d connections, %s%n", port,
+            maxConnections, m.getThreadMode());
+         while (true)
+         {
+            Thread.sleep(10000);
+            System.out.printf("%,d connections, %,d rejected, %,d bytes in, %,d bytes out%n",
+               m.getActiveConnections(), m.getRejectedConnections(), m.getBytesIn(),
+               m.getBytesOut());
+         }
+      }
+   }
+
+   /**
+    * Constructs a server and binds it to a port.
+    * @param port the port
+    * @param maxConnections the maximum number of open connections
+    * @param idleSeconds the time after which a connection without input is closed
+    * @param virtual true to run the handlers on virtual threads if possible, false for a
+    * platform thread per connection
+    */
+   public VirtualThreadEchoServer(int port, int maxConnections, int idleSeconds,
+      boolean virtual) throws IOException, JMException
+   {
+      server = new ServerSocket(port, 4096);
+      this.maxConnections = maxConnections;
+      permits = new Semaphore(maxConnections);
+      idleMillis = idleSeconds * 1000;
+      String mode = "platform threads";
+      ExecutorService ex = null;
+      if (virtual)
+      {
+         try
+         {
+            ex = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor")
+               .invoke(null);
+            mode = "virtual threads";
+         }
+         catch (ReflectiveOperationException e)
+         {
+            // before Java 21, or preview features not enabled
+            ex = Executors.newCachedThreadPool(
+               r -> new Thread(null, r, "echo handler", SMALL_STACK));
+            mode = "platform threads with " + SMALL_STACK / 1024
+               + " KB stacks (no virtual threads in Java " + Runtime.version().feature() + ")";
+         }
+      }
+      else ex = Executors.newCachedThreadPool();
+      executor = ex;
+      metrics = new Metrics(mode);
+      name = new ObjectName("threaded:type=EchoServer,port=" + server.getLocalPort());
+      acceptor = new Thread(this::acceptConnections, "echo acceptor");
+   }
+
+   /**
+    * Registers the metrics MBean and starts accepting connections.
+    */
+   public void start() throws JMException
+   {
+      ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, name);
+      acceptor.start();
+   }
+
+   public MetricsMBean metrics()
+   {
+      return metrics;
+   }
+
+   /**
+    * Stops accepting connections and waits up to ten seconds for the handlers to finish.
+    * Handlers that are still running are then interrupted. On a virtual thread, this closes
+    * the connection; a platform thread keeps waiting for input until the idle timeout.
+    */
+   public void close() throws IOException
+   {
+      closed = true;
+      server.close();
+      executor.shutdown();
+      try
+      {
+         acceptor.join();
+         if (!executor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+            executor.shutdownNow();
+         ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+      }
+      catch (InterruptedException e)
+      {
+         Thread.currentThread().interrupt();
+      }
+      catch (JMException e)
+      {
+         // not registered
+      }
+   }
+
+   private void acceptConnections()
+   {
+      while (!closed)
+      {
+         Socket incoming;
+         try
+         {
+            incoming = server.accept();
+         }
+         catch (IOException e)
+         {
+            if (closed) return;
+            // most likely too many open files; let connections close before trying again
+            System.err.println(e.getMessage());
+            try
+            {
+               Thread.sleep(100);
+            }
+            catch (InterruptedException ex)
+            {
+               return;
+            }
+            continue;
+         }
+         metrics.accepted.increment();
+         if (!permits.tryAcquire())
+         {
+            metrics.rejected.increment();
+            closeQuietly(incoming);
+            continue;
+         }
+         try
+         {
+            incoming.setSoTimeout(idleMillis);
+            executor.execute(() -> handle(incoming));
+         }
+         catch (IOException | RejectedExecutionException | OutOfMemoryError e)
+         {
+            // OutOfMemoryError when no more platform threads can be started
+            permits.release();
+            metrics.rejected.increment();
+            closeQuietly(incoming);
+         }
+      }
+   }
+
+   private void handle(Socket incoming)
+   {
+      long start = System.nanoTime();
+      metrics.active.incrementAndGet();
+      try
+      {
+         new MeteredEchoHandler(incoming).run();
+      }
+      finally
+      {
+         closeQuietly(incoming);
+         metrics.active.decrementAndGet();
+         permits.release();
+         long nanos = System.nanoTime() - start;
+         metrics.handled.increment();
+         metrics.handlerNanos.add(nanos);
+         metrics.maxHandlerNanos.accumulateAndGet(nanos, Math::max);
+      }
+   }
+
+   private static void closeQuietly(Socket s)
+   {
+      try
+      {
+         s.close();
+      }
+      catch (IOException e)
+      {
+         // the connection is gone anyway
+      }
+   }
+
+   /**
+    * An echo handler that counts the bytes and the idle timeouts of its connection.
+    */
+   private class MeteredEchoHandler extends ThreadedEchoHandler
+   {
+      MeteredEchoHandler(Socket incoming)
+      {
+         super(incoming);
+      }
+
+      protected InputStream getInputStream() throws IOException
+      {
+         return new FilterInputStream(super.getInputStream())
+            {
+               public int read(byte[] b, int off, int len) throws IOException
+               {
+                  try
+                  {
+                     int n = in.read(b, off, len);
+                     if (n > 0) metrics.bytesIn.add(n);
+                     return n;
+                  }
+                  catch (SocketTimeoutException e)
+                  {
+                     metrics.idleTimeouts.increment();
+                     throw e;
+                  }
+               }
+            };
+      }
+
+      protected OutputStream getOutputStream() throws IOException
+      {
+         return new FilterOutputStream(super.getOutputStream())
+            {
+               public void write(byte[] b, int off, int len) throws IOException
+               {
+                  out.write(b, off, len);
+                  metrics.bytesOut.add(len);
+               }
+            };
+      }
+   }
+
+   /**
+    * The management interface of the server metrics.
+    */
+   public interface MetricsMBean
+   {
+      String getThreadMode();
+      int getConnectionLimit();
+      int getActiveConnections();
+      long getAcceptedConnections();
+      long getRejectedConnections();
+      long getIdleTimeouts();
+      long getBytesIn();
+      long getBytesOut();
+      double getAverageHandlerMillis();
+      double getMaxHandlerMillis();
+   }
+
+   /**
+    * The counters that the acceptor and the handlers update.
+    */
+   public class Metrics implements MetricsMBean
+   {
+      private final String threadMode;
+      private final AtomicInteger active = new AtomicInteger();
+      private final LongAdder accepted = new LongAdder();
+      private final LongAdder rejected = new LongAdder();
+      private final LongAdder idleTimeouts = new LongAdder();
+      private final LongAdder bytesIn = new LongAdder();
+      private final LongAdder bytesOut = new LongAdder();
+      private final LongAdder handled = new LongAdder();
+      private final LongAdder handlerNanos = new LongAdder();
+      private final AtomicLong maxHandlerNanos = new AtomicLong();
+
+      private Metrics(String threadMode)
+      {
+         this.threadMode = threadMode;
+      }
+
+      public String getThreadMode() { return threadMode; }
+      public int getConnectionLimit() { return maxConnections; }
+      public int getActiveConnections() { return active.get(); }
+      public long getAcceptedConnections() { return accepted.sum(); }
+      public long getRejectedConnections() { return rejected.sum(); }
+      public long getIdleTimeouts() { return idleTimeouts.sum(); }
+      public long getBytesIn() { return bytesIn.sum(); }
+      public long getBytesOut() { return bytesOut.sum(); }
+
+      public double getAverageHandlerMillis()
+      {
+         long n = handled.sum();
+         return n == 0 ? 0 : handlerNanos.sum() / 1e6 / n;
+      }
+
+      public double getMaxHandlerMillis()
+      {
+         return maxHandlerNanos.get() / 1e6;
+      }
+   }
+}
@@ -0,0 +1,53 @@
+package util;
+
+/**
+ * Times a task the way the benchmarks of this chapter do: the task runs a few times in a
+ * row, and only the fastest run counts, since the others also measure class loading, the
+ * just-in-time compiler, and garbage left over from before. The task returns a value, which
+ * the caller checks or prints, so that its work cannot be optimized away.
+ * @version 1.00 2026-10-19
+ */
+public class BestOf
+{
+   private BestOf() {}
+
+   /**
+    * A task to time.
+    */
+   public interface Task<T>
+   {
+      T run() throws Exception;
+   }
+
+   /**
+    * The outcome of timing a task.
+    * @param value the value of the last run
+    * @param nanos the time of the fastest run, in nanoseconds
+    */
+   public record Result<T>(T value, long nanos)
+   {
+      public double millis()
+      {
+         return nanos / 1e6;
+      }
+   }
+
+   /**
+    * Runs a task a number of times.
+    * @param rounds the number of runs
+    * @param task the task
+    * @return the value of the last run and the time of the fastest one
+    */
+   public static <T> Result<T> time(int rounds, Task<T> task) throws Exception
+   {
+      long best = Long.MAX_VALUE;
+      T value = null;
+      for (int r = 0; r < rounds; r++)
+      {
+         long start = System.nanoTime();
+         value = task.run();
+         best = Math.min(best, System.nanoTime() - start);
+      }
+      return new Result<>(value, best);
+   }
+}
@@ -0,0 +1,118 @@
+package v2work.ramkrish.mystream;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Scales the word-count and inverted-index jobs of StreamParallelMapReduce
+ * from 100 MB up to 50 GB of input, made of copies of the ../gutenberg
+ * books, and reports the throughput in MB/s for an increasing number of
+ * threads. The word counts must add up to the number of words in the
+ * copies; if they do not, the program exits with status 1.
+ *
+ * Usage: java v2work.ramkrish.mystream.MapReduceBenchmark [sizeInMB ...]
+ * The default is 100 MB. For the full range, pass 100 1000 10000 51200.
+ * The input and the spill files need about twice the input size in free
+ * disk space in the temp directory; sizes that do not fit are skipped.
+ */
+public class MapReduceBenchmark {
+    private static final long FILE_SIZE = 1L << 30; // input files of at most 1 GB
+
+    public static void main(String[] args) throws IOException {
+        long[] sizes = args.length == 0 ? new long[] { 100 }
+                : Stream.of(args).mapToLong(Long::parseLong).toArray();
+        List<byte[]> books = new ArrayList<>();
+        long wordsPerCopy = 0;
+        try (Stream<Path> entries = Files.list(Path.of("../gutenberg"))) {
+            for (Path p : entries.filter(p -> p.toString().endsWith(".txt")).sorted().toList()) {
+                books.add(Files.readAllBytes(p));
+                wordsPerCopy += countWords(Files.readString(p));
+            }
+        }
+        int processors = Runtime.getRuntime().availableProcessors();
+        int wrongTotals = 0;
+
+        for (long megabytes : sizes) {
+            Path directory = Files.createTempDirectory("mapreduce-benchmark");
+            if (Files.getFileStore(directory).getUsableSpace() < 2 * (megabytes << 20)) {
+                System.out.printf("%,d MB: not enough disk space, skipped%n", megabytes);
+                Files.delete(directory);
+                continue;
+            }
+            try {
+                long copies = 0;
+                List<Path> inputs = new ArrayList<>();
+                long written = 0;
+                while (written < megabytes << 20) {
+                    Path input = directory.resolve(String.format("input-%04d.txt", inputs.size()));
+                    inputs.add(input);
+                    try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(input),
+                            1 << 20)) {
+                        long inFile = 0;
+                        while (inFile < FILE_SIZE && written < megabytes << 20) {
+                            for (byte[] book : books) {
+                                out.write(book);
+                                inFile += book.length;
+                                written += book.length;
+                            }
+                            copies++;
+                        }
+                    }
+                }
+                System.out.printf("%,d MB in %d files%n", written >> 20, inputs.size());
+
+                for (int threads = 1; threads <= Math.max(processors, 4); threads *= 2) {
+                    long start = System.nanoTime();
+                    var counts = StreamParallelMapReduce.wordCount().threads(threads)
+                            .run(inputs, directory.resolve("wordcount-" + threads));
+                    double seconds = (System.nanoTime() - start) / 1e9;
+                    long total = 0;
+                    for (Path part : counts.outputs()) {
+                        try (Stream<String> lines = Files.lines(part)) {
+                            total += lines.mapToLong(l -> Long.parseLong(l.substring(l.indexOf('\t') + 1)))
+                                    .sum();
+                        }
+                    }
+                    if (total != copies * wordsPerCopy)
+                        wrongTotals++;
+                    System.out.printf("  word count,     %2d threads: %8.1f MB/s, %,d run files%s%n",
+                            threads, (written >> 20) / seconds, counts.runFiles(),
+                            total == copies * wordsPerCopy ? "" : ", WRONG TOTAL " + total);
+
+                    start = System.nanoTime();
+                    var index = StreamParallelMapReduce.invertedIndex(inputs).threads(threads)
+                            .run(inputs, directory.resolve("index-" + threads));
+                    seconds = (System.nanoTime() - start) / 1e9;
+                    System.out.printf("  inverted index, %2d threads: %8.1f MB/s, %,d keys%n",
+                            threads, (written >> 20) / seconds, index.keys());
+                    StreamParallelMapReduce.deleteTree(directory.resolve("wordcount-" + threads));
+                    StreamParallelMapReduce.deleteTree(directory.resolve("index-" + threads));
+                }
+            } catch (Throwable t) {
+                StreamParallelMapReduce.deleteTree(directory, t);
+                throw t;
+            }
+            StreamParallelMapReduce.deleteTree(directory);
+        }
+        if (wrongTotals > 0) {
+            System.out.printf("%d wrong word count totals%n", wrongTotals);
+            System.exit(1);
+        }
+    }
+
+    // Same tokenization as the word-count mapper, line by line
+    private static long countWords(String text) {
+        Pattern nonLetters = Pattern.compile("\\PL+");
+        return text.lines()
+                .flatMap(nonLetters::splitAsStream)
+                .filter(w -> !w.isEmpty())
+                .count();
+    }
+}
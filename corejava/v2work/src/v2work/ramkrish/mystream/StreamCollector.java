@@ -1,6 +1,139 @@
+package v2work.ramkrish.mystream;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
 /**
- * Demo Collecting results, collecting into maps, downstream collectors
+ * Map side of the local map-reduce engine in StreamParallelMapReduce.
+ * Each map task gets its own StreamCollector and emits (key, value) pairs
+ * into it, much like a stream element goes into the accumulator of a
+ * Collector.
+ *
+ * With a combiner, the pairs are folded into a HashMap as they arrive
+ * (Map.merge), so a word that occurs a million times in a split takes one
+ * entry instead of a million. Without one, the pairs are kept in a list.
+ * When the buffer holds maxBuffered entries, it is spilled: the entries are
+ * hash-partitioned by key, each partition is sorted by key, and each sorted
+ * partition is written to its own run file. The reduce phase then only has
+ * to merge the runs of one partition, never sort them.
+ *
+ * What is left in the buffer when the task ends is partitioned and sorted
+ * the same way, but stays in memory as long as the job's budget of
+ * in-memory entries allows, so a task whose output fits in memory writes
+ * no files at all.
  */
-package v2work.ramkrish.mystream;
-public class StreamCollector {
+public class StreamCollector<K, V> implements BiConsumer<K, V> {
+    private final StreamParallelMapReduce<K, V, ?> job;
+    private final Path spillDirectory;
+    private final int task;
+    private final AtomicLong inMemory;
+    private final Map<K, V> combined = new HashMap<>();
+    private final List<Map.Entry<K, V>> pairs = new ArrayList<>();
+    private final List<List<StreamParallelMapReduce.Run<K, V>>> runs = new ArrayList<>();
+    private int spills;
+    private long emitted;
+
+    /**
+     * @param inMemory the number of entries that the map tasks of the job
+     * may still keep in memory after they end, shared by all of them
+     */
+    StreamCollector(StreamParallelMapReduce<K, V, ?> job, Path spillDirectory, int task,
+            AtomicLong inMemory) {
+        this.job = job;
+        this.spillDirectory = spillDirectory;
+        this.task = task;
+        this.inMemory = inMemory;
+        for (int p = 0; p < job.partitions(); p++)
+            runs.add(new ArrayList<>());
+    }
+
+    @Override
+    public void accept(K key, V value) {
+        emitted++;
+        int buffered;
+        if (job.combiner() != null) {
+            combined.merge(key, value, job.combiner());
+            buffered = combined.size();
+        } else {
+            pairs.add(Map.entry(key, value));
+            buffered = pairs.size();
+        }
+        if (buffered >= job.maxBuffered())
+            spill();
+    }
+
+    /**
+     * Keeps or spills what is left and hands over the runs of each partition.
+     */
+    List<List<StreamParallelMapReduce.Run<K, V>>> finish() {
+        int buffered = job.combiner() != null ? combined.size() : pairs.size();
+        if (buffered > 0) {
+            if (inMemory.addAndGet(-buffered) >= 0) {
+                List<List<Map.Entry<K, V>>> partitioned = partition();
+                for (int p = 0; p < job.partitions(); p++)
+                    if (!partitioned.get(p).isEmpty())
+                        runs.get(p).add(new StreamParallelMapReduce.Run<>(null, partitioned.get(p)));
+            } else {
+                inMemory.addAndGet(buffered);
+                spill();
+            }
+        }
+        return runs;
+    }
+
+    long emitted() {
+        return emitted;
+    }
+
+    /**
+     * Empties the buffer into one list per partition, each sorted by key.
+     */
+    private List<List<Map.Entry<K, V>>> partition() {
+        List<List<Map.Entry<K, V>>> partitioned = new ArrayList<>();
+        for (int p = 0; p < job.partitions(); p++)
+            partitioned.add(new ArrayList<>());
+        Iterable<Map.Entry<K, V>> entries = job.combiner() != null ? combined.entrySet() : pairs;
+        for (Map.Entry<K, V> e : entries)
+            partitioned.get(job.partitionOf(e.getKey())).add(e);
+        for (List<Map.Entry<K, V>> partition : partitioned)
+            partition.sort(Map.Entry.comparingByKey(job.keyOrder()));
+        combined.clear();
+        pairs.clear();
+        return partitioned;
+    }
+
+    private void spill() {
+        List<List<Map.Entry<K, V>>> partitioned = partition();
+        try {
+            for (int p = 0; p < job.partitions(); p++) {
+                List<Map.Entry<K, V>> partition = partitioned.get(p);
+                if (partition.isEmpty())
+                    continue;
+                Path run = spillDirectory.resolve(String.format("map-%05d-spill-%03d-part-%03d.run",
+                        task, spills, p));
+                try (var out = new DataOutputStream(new BufferedOutputStream(
+                        Files.newOutputStream(run), 1 << 16))) {
+                    out.writeInt(partition.size());
+                    for (Map.Entry<K, V> e : partition) {
+                        job.keyCodec().write(out, e.getKey());
+                        job.valueCodec().write(out, e.getValue());
+                    }
+                }
+                runs.get(p).add(new StreamParallelMapReduce.Run<>(run, null));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        spills++;
+    }
 }
@@ -1,6 +1,665 @@
+package v2work.ramkrish.mystream;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
 /**
- * Demo grouping and partitioning and reduction operations with parallel streams
+ * Demo grouping and reduction the way a cluster does it, on local cores.
+ * A parallel stream with groupingBy keeps every group in memory. A
+ * map-reduce job instead works in three phases, and only ever holds one
+ * buffer per map task in memory:
+ *
+ * 1. Map: the input files are cut into splits of splitSize bytes at line
+ *    boundaries. Each split is read by a map task on a thread pool, and the
+ *    Mapper emits (key, value) pairs into a StreamCollector, which combines
+ *    them and spills sorted runs, one file per hash partition. The last
+ *    buffer of a task is sorted the same way but stays in memory, as long
+ *    as the finished tasks hold no more than the running ones may buffer.
+ * 2. Shuffle: the runs of partition p from all map tasks belong to reduce
+ *    task p. Nothing is copied, the runs are just regrouped.
+ * 3. Reduce: each reduce task merges its sorted runs with a priority queue
+ *    (sort-merge, as in the merge phase of an external merge sort), hands
+ *    the values of each key to the StreamReducer, and writes "key TAB result"
+ *    lines to part-NNNNN in the output directory.
+ *
+ * The main method runs the bundled word-count and inverted-index jobs over
+ * ../gutenberg in a temporary directory and deletes it again.
+ * MapReduceBenchmark scales the input up.
  */
-package v2work.ramkrish.mystream;
-public class StreamParallelMapReduce {
+public class StreamParallelMapReduce<K, V, R> {
+    /**
+     * Map function: called with the index of the input file and one line,
+     * emits any number of (key, value) pairs.
+     */
+    @FunctionalInterface
+    public interface Mapper<K, V> {
+        void map(int file, String line, BiConsumer<K, V> emit);
+    }
+
+    /**
+     * Binary format of keys and values in the spill files.
+     */
+    public interface Codec<T> {
+        void write(DataOutput out, T value) throws IOException;
+
+        T read(DataInput in) throws IOException;
+    }
+
+    // writeUTF is limited to 64K bytes, so strings are length-prefixed UTF-8
+    public static final Codec<String> STRING = new Codec<>() {
+        public void write(DataOutput out, String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        public String read(DataInput in) throws IOException {
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+
+    public static final Codec<Long> LONG = new Codec<>() {
+        public void write(DataOutput out, Long value) throws IOException {
+            out.writeLong(value);
+        }
+
+        public Long read(DataInput in) throws IOException {
+            return in.readLong();
+        }
+    };
+
+    public static final Codec<int[]> INT_ARRAY = new Codec<>() {
+        public void write(DataOutput out, int[] value) throws IOException {
+            out.writeInt(value.length);
+            for (int v : value)
+                out.writeInt(v);
+        }
+
+        public int[] read(DataInput in) throws IOException {
+            int[] value = new int[in.readInt()];
+            for (int i = 0; i < value.length; i++)
+                value[i] = in.readInt();
+            return value;
+        }
+    };
+
+    private final Mapper<K, V> mapper;
+    private final StreamReducer<K, V, R> reducer;
+    private final Codec<K> keyCodec;
+    private final Codec<V> valueCodec;
+    private final Comparator<? super K> keyOrder;
+    private BinaryOperator<V> combiner;
+    private int partitions = 16;
+    private long splitSize = 64L << 20;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int maxBuffered = -1;
+
+    public StreamParallelMapReduce(Mapper<K, V> mapper, StreamReducer<K, V, R> reducer,
+            Codec<K> keyCodec, Codec<V> valueCodec, Comparator<? super K> keyOrder) {
+        this.mapper = mapper;
+        this.reducer = reducer;
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        this.keyOrder = keyOrder;
+    }
+
+    // Settings, in the fluent style of the stream API
+
+    public StreamParallelMapReduce<K, V, R> combiner(BinaryOperator<V> combiner) {
+        this.combiner = combiner;
+        return this;
+    }
+
+    public StreamParallelMapReduce<K, V, R> partitions(int partitions) {
+        if (partitions < 1)
+            throw new IllegalArgumentException("partitions " + partitions);
+        this.partitions = partitions;
+        return this;
+    }
+
+    public StreamParallelMapReduce<K, V, R> splitSize(long splitSize) {
+        if (splitSize < 1)
+            throw new IllegalArgumentException("splitSize " + splitSize);
+        this.splitSize = splitSize;
+        return this;
+    }
+
+    public StreamParallelMapReduce<K, V, R> threads(int threads) {
+        if (threads < 1)
+            throw new IllegalArgumentException("threads " + threads);
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * Number of keys (with a combiner) or pairs (without) that a map task
+     * buffers before it spills. By default about a quarter of the heap is
+     * shared by the map tasks that run at the same time, at an estimated
+     * 256 bytes per entry.
+     */
+    public StreamParallelMapReduce<K, V, R> maxBuffered(int maxBuffered) {
+        if (maxBuffered < 1)
+            throw new IllegalArgumentException("maxBuffered " + maxBuffered);
+        this.maxBuffered = maxBuffered;
+        return this;
+    }
+
+    int partitions() {
+        return partitions;
+    }
+
+    BinaryOperator<V> combiner() {
+        return combiner;
+    }
+
+    Comparator<? super K> keyOrder() {
+        return keyOrder;
+    }
+
+    Codec<K> keyCodec() {
+        return keyCodec;
+    }
+
+    Codec<V> valueCodec() {
+        return valueCodec;
+    }
+
+    int maxBuffered() {
+        if (maxBuffered > 0)
+            return maxBuffered;
+        long perTask = Runtime.getRuntime().maxMemory() / 4 / threads / 256;
+        return (int) Math.max(1000, Math.min(perTask, 1 << 24));
+    }
+
+    int partitionOf(K key) {
+        return (key.hashCode() & 0x7FFFFFFF) % partitions;
+    }
+
+    /**
+     * What a run did, for reporting.
+     */
+    public record Result(List<Path> outputs, long bytesRead, long pairsEmitted, int splits,
+            int runFiles, long keys) {}
+
+    private record Split(int file, long start, long end) {}
+
+    /**
+     * A sorted run of one partition: a spill file, or else the entries of
+     * a map task's last buffer.
+     */
+    record Run<K, V>(Path file, List<Map.Entry<K, V>> entries) {}
+
+    private record MapOutput<K, V>(List<List<Run<K, V>>> runs, long bytes, long emitted) {}
+
+    /**
+     * Runs the job.
+     * @param inputs the text files, in UTF-8
+     * @param outputDirectory where part-NNNNN files are written; spill files
+     * go to a temporary directory inside it and are deleted afterwards
+     */
+    public Result run(List<Path> inputs, Path outputDirectory) throws IOException {
+        Files.createDirectories(outputDirectory);
+        Path spillDirectory = Files.createTempDirectory(outputDirectory, "spill");
+        Result result;
+        try {
+            result = run(inputs, outputDirectory, spillDirectory);
+        } catch (Throwable t) {
+            deleteTree(spillDirectory, t);
+            throw t;
+        }
+        deleteTree(spillDirectory);
+        return result;
+    }
+
+    private Result run(List<Path> inputs, Path outputDirectory, Path spillDirectory)
+            throws IOException {
+        List<Split> splits = new ArrayList<>();
+        for (int f = 0; f < inputs.size(); f++) {
+            long size = Files.size(inputs.get(f));
+            for (long start = 0; start < size; start += splitSize)
+                splits.add(new Split(f, start, Math.min(size, start + splitSize)));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            // Map phase; the finished tasks share the memory of the running ones
+            var inMemory = new AtomicLong((long) maxBuffered() * threads);
+            List<Callable<MapOutput<K, V>>> mapTasks = new ArrayList<>();
+            for (int t = 0; t < splits.size(); t++) {
+                int task = t;
+                mapTasks.add(() -> map(inputs.get(splits.get(task).file()), splits.get(task),
+                        new StreamCollector<>(this, spillDirectory, task, inMemory)));
+            }
+            List<MapOutput<K, V>> mapOutputs = all(pool.invokeAll(mapTasks));
+
+            // Shuffle: regroup the runs by partition
+            List<List<Run<K, V>>> runsOfPartition = new ArrayList<>();
+            for (int p = 0; p < partitions; p++)
+                runsOfPartition.add(new ArrayList<>());
+            long bytes = 0;
+            long emitted = 0;
+            int runFiles = 0;
+            for (MapOutput<K, V> m : mapOutputs) {
+                for (int p = 0; p < partitions; p++) {
+                    for (Run<K, V> r : m.runs().get(p)) {
+                        runsOfPartition.get(p).add(r);
+                        if (r.file() != null)
+                            runFiles++;
+                    }
+                }
+                bytes += m.bytes();
+                emitted += m.emitted();
+            }
+
+            // Reduce phase
+            List<Callable<Long>> reduceTasks = new ArrayList<>();
+            List<Path> outputs = new ArrayList<>();
+            for (int p = 0; p < partitions; p++) {
+                Path output = outputDirectory.resolve(String.format("part-%05d", p));
+                List<Run<K, V>> runs = runsOfPartition.get(p);
+                outputs.add(output);
+                reduceTasks.add(() -> reduce(runs, output));
+            }
+            long keys = 0;
+            for (long k : all(pool.invokeAll(reduceTasks)))
+                keys += k;
+            return new Result(outputs, bytes, emitted, splits.size(), runFiles, keys);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Deletes a directory and everything in it. Deletion goes on after a
+     * failure; the first failure is thrown with the others suppressed.
+     */
+    static void deleteTree(Path directory) throws IOException {
+        List<Path> paths;
+        try (Stream<Path> entries = Files.walk(directory)) {
+            paths = entries.sorted(Comparator.reverseOrder()).toList();
+        }
+        IOException failure = null;
+        for (Path p : paths) {
+            try {
+                Files.deleteIfExists(p);
+            } catch (IOException e) {
+                if (failure == null)
+                    failure = e;
+                else
+                    failure.addSuppressed(e);
+            }
+        }
+        if (failure != null)
+            throw failure;
+    }
+
+    /**
+     * Deletes a directory after a failure, without hiding it: a failure to
+     * delete is added to it as a suppressed exception.
+     */
+    static void deleteTree(Path directory, Throwable primary) {
+        try {
+            deleteTree(directory);
+        } catch (IOException e) {
+            primary.addSuppressed(e);
+        }
+    }
+
+    private static <T> List<T> all(List<Future<T>> futures) throws IOException,
+            InterruptedException {
+        List<T> results = new ArrayList<>();
+        for (Future<T> f : futures) {
+            try {
+                results.add(f.get());
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof UncheckedIOException u)
+                    throw u.getCause();
+                if (e.getCause() instanceof IOException io)
+                    throw io;
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Feeds the lines that start in [split.start, split.end) to the mapper.
+     * A line that straddles the end belongs to this split; a split that
+     * starts in the middle of a line leaves that line to the split before.
+     */
+    private MapOutput<K, V> map(Path file, Split split, StreamCollector<K, V> collector)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file)) {
+            // Start one byte early: if that byte is a newline, the first line is ours
+            long position = Math.max(0, split.start() - 1);
+            channel.position(position);
+            var in = new LineInput(Channels.newInputStream(channel));
+            if (split.start() > 0)
+                position += Math.max(0, in.readLine());
+            while (position < split.end()) {
+                int consumed = in.readLine();
+                if (consumed < 0)
+                    break;
+                position += consumed;
+                mapper.map(split.file(), in.text(), collector);
+            }
+        }
+        return new MapOutput<>(collector.finish(), split.end() - split.start(), collector.emitted());
+    }
+
+    /**
+     * Reads lines of bytes through a buffer of its own, since calling the
+     * synchronized BufferedInputStream.read() for every byte is slow.
+     */
+    private static class LineInput {
+        private final InputStream in;
+        private final byte[] buffer = new byte[1 << 16];
+        private int position;
+        private int limit;
+        private byte[] line = new byte[256];
+        private int length;
+
+        LineInput(InputStream in) {
+            this.in = in;
+        }
+
+        /**
+         * @return the number of bytes consumed, including the newline, or -1
+         * at the end of the input
+         */
+        int readLine() throws IOException {
+            length = 0;
+            int consumed = 0;
+            while (true) {
+                if (position == limit) {
+                    limit = in.read(buffer);
+                    position = 0;
+                    if (limit <= 0) {
+                        limit = 0;
+                        return consumed == 0 ? -1 : consumed;
+                    }
+                }
+                int start = position;
+                while (position < limit && buffer[position] != '\n')
+                    position++;
+                append(start, position);
+                consumed += position - start;
+                if (position < limit) {
+                    position++; // the newline
+                    return consumed + 1;
+                }
+            }
+        }
+
+        private void append(int from, int to) {
+            int n = to - from;
+            if (length + n > line.length)
+                line = Arrays.copyOf(line, Math.max(length + n, 2 * line.length));
+            System.arraycopy(buffer, from, line, length, n);
+            length += n;
+        }
+
+        String text() {
+            int n = length > 0 && line[length - 1] == '\r' ? length - 1 : length;
+            return new String(line, 0, n, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Merges the sorted runs of one partition and reduces each key.
+     * @return the number of keys
+     */
+    private long reduce(List<Run<K, V>> runs, Path output) throws IOException {
+        PriorityQueue<RunReader> heap = new PriorityQueue<>(Math.max(1, runs.size()),
+                Comparator.<RunReader, K>comparing(r -> r.key, keyOrder)
+                        .thenComparingInt(r -> r.index));
+        long keys = 0;
+        try (BufferedWriter out = Files.newBufferedWriter(output)) {
+            for (int i = 0; i < runs.size(); i++) {
+                var reader = new RunReader(runs.get(i), i);
+                if (reader.advance())
+                    heap.add(reader);
+                else
+                    reader.close();
+            }
+            while (!heap.isEmpty()) {
+                var group = new Group(heap);
+                R result = reducer.reduce(group.key, group);
+                while (group.hasNext())
+                    group.next(); // values the reducer did not look at
+                out.write(group.key.toString());
+                out.write('\t');
+                out.write(String.valueOf(result));
+                out.newLine();
+                keys++;
+            }
+        } finally {
+            for (RunReader r : heap)
+                r.close();
+        }
+        return keys;
+    }
+
+    /**
+     * Reads one sorted run, one pair at a time.
+     */
+    private class RunReader {
+        final int index;
+        private final DataInputStream in;
+        private final Iterator<Map.Entry<K, V>> entries;
+        private int remaining;
+        K key;
+        V value;
+
+        RunReader(Run<K, V> run, int index) throws IOException {
+            this.index = index;
+            if (run.file() != null) {
+                in = new DataInputStream(new BufferedInputStream(
+                        Files.newInputStream(run.file()), 1 << 16));
+                entries = null;
+                remaining = in.readInt();
+            } else {
+                in = null;
+                entries = run.entries().iterator();
+            }
+        }
+
+        boolean advance() throws IOException {
+            if (entries != null) {
+                if (!entries.hasNext())
+                    return false;
+                Map.Entry<K, V> e = entries.next();
+                key = e.getKey();
+                value = e.getValue();
+                return true;
+            }
+            if (remaining == 0)
+                return false;
+            remaining--;
+            key = keyCodec.read(in);
+            value = valueCodec.read(in);
+            return true;
+        }
+
+        void close() throws IOException {
+            if (in != null)
+                in.close();
+        }
+    }
+
+    /**
+     * The values of the smallest key in the heap, pulled out of the runs as
+     * the reducer iterates.
+     */
+    private class Group implements Iterator<V> {
+        private final PriorityQueue<RunReader> heap;
+        final K key;
+
+        Group(PriorityQueue<RunReader> heap) {
+            this.heap = heap;
+            key = heap.peek().key;
+        }
+
+        public boolean hasNext() {
+            return !heap.isEmpty() && keyOrder.compare(heap.peek().key, key) == 0;
+        }
+
+        public V next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            RunReader r = heap.poll();
+            V value = r.value;
+            try {
+                if (r.advance())
+                    heap.add(r);
+                else
+                    r.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return value;
+        }
+    }
+
+    // The bundled jobs
+
+    private static final Pattern NON_LETTERS = Pattern.compile("\\PL+");
+
+    /**
+     * Word count: (word, 1) for every word, summed by the combiner and again
+     * by the reducer.
+     */
+    public static StreamParallelMapReduce<String, Long, Long> wordCount() {
+        return new StreamParallelMapReduce<String, Long, Long>(
+                (file, line, emit) -> {
+                    for (String w : NON_LETTERS.split(line))
+                        if (!w.isEmpty())
+                            emit.accept(w.toLowerCase(), 1L);
+                },
+                StreamReducer.folding(Long::sum), STRING, LONG, Comparator.naturalOrder())
+                .combiner(Long::sum);
+    }
+
+    /**
+     * Inverted index: (word, {file}) for every word, with the sorted sets of
+     * file indexes merged by the combiner and the reducer. The result lists
+     * the file names that contain each word.
+     */
+    public static StreamParallelMapReduce<String, int[], String> invertedIndex(List<Path> inputs) {
+        StreamReducer<String, int[], int[]> union = StreamReducer.folding(
+                StreamParallelMapReduce::union);
+        return new StreamParallelMapReduce<String, int[], String>(
+                (file, line, emit) -> {
+                    for (String w : NON_LETTERS.split(line))
+                        if (!w.isEmpty())
+                            emit.accept(w.toLowerCase(), new int[] { file });
+                },
+                (word, files) -> Arrays.stream(union.reduce(word, files))
+                        .mapToObj(f -> inputs.get(f).getFileName().toString())
+                        .collect(Collectors.joining(" ")),
+                STRING, INT_ARRAY, Comparator.naturalOrder())
+                .combiner(StreamParallelMapReduce::union);
+    }
+
+    /**
+     * Merges two sorted arrays without duplicates.
+     */
+    static int[] union(int[] a, int[] b) {
+        int[] result = new int[a.length + b.length];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length || j < b.length) {
+            int next;
+            if (j == b.length || i < a.length && a[i] < b[j])
+                next = a[i++];
+            else if (i == a.length || b[j] < a[i])
+                next = b[j++];
+            else {
+                next = a[i++];
+                j++;
+            }
+            result[n++] = next;
+        }
+        return n == result.length ? result : Arrays.copyOf(result, n);
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<Path> books;
+        try (Stream<Path> entries = Files.list(Path.of("../gutenberg"))) {
+            books = entries.filter(p -> p.toString().endsWith(".txt")).sorted().toList();
+        }
+        Path output = Files.createTempDirectory("mapreduce");
+        try {
+            runJobs(books, output);
+        } catch (Throwable t) {
+            deleteTree(output, t);
+            throw t;
+        }
+        deleteTree(output);
+    }
+
+    private static void runJobs(List<Path> books, Path output) throws IOException {
+        Result counts = wordCount().splitSize(1 << 20).run(books, output.resolve("wordcount"));
+        System.out.printf("Word count: %d splits, %d pairs, %d run files, %d keys%n",
+                counts.splits(), counts.pairsEmitted(), counts.runFiles(), counts.keys());
+        // Same answer as a parallel stream with groupingBy, which needs all
+        // the groups in memory at once
+        List<Map.Entry<String, Long>> top;
+        try (Stream<Path> parts = counts.outputs().stream()) {
+            top = parts.flatMap(p -> {
+                        try {
+                            return Files.lines(p);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    })
+                    .map(l -> l.split("\t"))
+                    .map(a -> Map.entry(a[0], Long.parseLong(a[1])))
+                    .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                    .limit(10)
+                    .toList();
+        }
+        System.out.println("Most frequent: " + top);
+
+        Result index = invertedIndex(books).splitSize(1 << 20).run(books, output.resolve("index"));
+        System.out.printf("Inverted index: %d splits, %d pairs, %d run files, %d keys%n",
+                index.splits(), index.pairsEmitted(), index.runFiles(), index.keys());
+        try (Stream<String> lines = Files.lines(index.outputs().get(0))) {
+            lines.limit(10).forEach(l -> System.out.println("  " + l));
+        }
+    }
 }
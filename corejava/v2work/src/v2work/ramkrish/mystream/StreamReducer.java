@@ -1,4 +1,32 @@
 package v2work.ramkrish.mystream;
 
-public class StreamReducer {
+import java.util.Iterator;
+import java.util.function.BinaryOperator;
+
+/**
+ * Reduce side of the local map-reduce engine in StreamParallelMapReduce.
+ * After the shuffle, all the values that the mappers emitted for one key
+ * arrive together, in the order in which the sorted runs were merged, and
+ * the reducer turns them into one result for that key.
+ *
+ * The same idea as Stream.reduce or Collectors.reducing, except that the
+ * values of a key may come from many spill files and never have to be in
+ * memory at the same time, since they are handed over as an Iterator.
+ */
+@FunctionalInterface
+public interface StreamReducer<K, V, R> {
+    R reduce(K key, Iterator<V> values);
+
+    /**
+     * Reducer that folds the values with an associative operation, such as
+     * Long::sum for word counts. The same operation is usually the combiner.
+     */
+    static <K, V> StreamReducer<K, V, V> folding(BinaryOperator<V> op) {
+        return (key, values) -> {
+            V result = values.next();
+            while (values.hasNext())
+                result = op.apply(result, values.next());
+            return result;
+        };
+    }
 }